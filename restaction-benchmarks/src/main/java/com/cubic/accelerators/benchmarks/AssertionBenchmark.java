@@ -0,0 +1,62 @@
+package com.cubic.accelerators.benchmarks;
+
+import java.util.Hashtable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cubic.accelerators.RESTActions;
+
+/**
+ * assertJsonElements and assertXmlElements on the 1 KB, 1 MB and 50 MB payloads(i.e. parsing and path evaluation),
+ * same in the baseline and the current release, see ParsedJsonBenchmark for the json parsed once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AssertionBenchmark {
+	@Param({ "1KB", "1MB", "50MB" })
+	public String payloadSize;
+
+	private RESTActions restActions;
+	private String json;
+	private String xml;
+	private Hashtable<String, String> expectedData;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		BenchmarkPayloads.quietLogging();
+		int size = BenchmarkPayloads.parseSize(payloadSize);
+		json = BenchmarkPayloads.json(size);
+		xml = BenchmarkPayloads.xml(size);
+		expectedData = new Hashtable<String, String>();
+		expectedData.put("id", "0");
+		expectedData.put("status", "ACTIVE");
+		expectedData.put("currency", "GBP");
+		restActions = new RESTActions(null, "AssertionBenchmark");
+	}
+
+	@Benchmark
+	public boolean assertJsonElements() throws Throwable {
+		return restActions.assertJsonElements(json, "$.accounts[0]", expectedData);
+	}
+
+	@Benchmark
+	public void assertXmlElements() throws Throwable {
+		restActions.assertXmlElements(xml, "/accounts/account[1]", expectedData);
+	}
+}
@@ -0,0 +1,126 @@
+package com.cubic.accelerators.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Payloads and the loopback server shared by the benchmarks.
+ */
+final class BenchmarkPayloads {
+
+	private BenchmarkPayloads() {
+	}
+
+	/**
+	 * Only the warnings are logged, so the benchmarks measure the framework and not the log appenders.
+	 */
+	static void quietLogging() {
+		Logger.getRootLogger().setLevel(Level.WARN);
+	}
+
+	/**
+	 * Opens the shared rest clients(i.e. RESTClientRegistry.open), nothing to open in the baseline release without
+	 * RESTClientRegistry, so the same benchmark runs against both releases.
+	 */
+	static void openClientRegistry() throws ReflectiveOperationException {
+		invokeClientRegistry("open");
+	}
+
+	static void closeClientRegistry() throws ReflectiveOperationException {
+		invokeClientRegistry("close");
+	}
+
+	private static void invokeClientRegistry(String methodName) throws ReflectiveOperationException {
+		Class<?> clientRegistry;
+		try {
+			clientRegistry = Class.forName("com.cubic.accelerators.RESTClientRegistry");
+		} catch (ClassNotFoundException e) {
+			return;
+		}
+		clientRegistry.getMethod(methodName).invoke(null);
+	}
+
+	/**
+	 * Parses the payload size, ex: 1KB, 1MB, 50MB
+	 */
+	static int parseSize(String payloadSize) {
+		String size = payloadSize.trim().toUpperCase();
+		if (size.endsWith("MB")) {
+			return Integer.parseInt(size.substring(0, size.length() - 2)) * 1024 * 1024;
+		}
+		if (size.endsWith("KB")) {
+			return Integer.parseInt(size.substring(0, size.length() - 2)) * 1024;
+		}
+		return Integer.parseInt(size);
+	}
+
+	/**
+	 * Json of the given size, the asserted account is the first element of "accounts".
+	 */
+	static String json(int size) {
+		StringBuilder json = new StringBuilder(size + 256);
+		json.append("{\"accounts\":[");
+		int index = 0;
+		do {
+			if (index > 0) {
+				json.append(',');
+			}
+			json.append("{\"id\":\"").append(index).append("\",\"status\":\"ACTIVE\",\"name\":\"Account ").append(index)
+					.append("\",\"balance\":\"").append(index * 10).append(".50\",\"currency\":\"GBP\"}");
+			index++;
+		} while (json.length() < size);
+		return json.append("]}").toString();
+	}
+
+	/**
+	 * Xml of the given size, the asserted account is the first "account" element.
+	 */
+	static String xml(int size) {
+		StringBuilder xml = new StringBuilder(size + 256);
+		xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?><accounts>");
+		int index = 0;
+		do {
+			xml.append("<account><id>").append(index).append("</id><status>ACTIVE</status><name>Account ").append(index)
+					.append("</name><balance>").append(index * 10).append(".50</balance><currency>GBP</currency></account>");
+			index++;
+		} while (xml.length() < size);
+		return xml.append("</accounts>").toString();
+	}
+
+	/**
+	 * Starts the loopback server, every request gets the response body back with 200(i.e. request body for POST).
+	 */
+	static HttpServer startLoopbackServer(String responseBody) throws IOException {
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+		byte[] response = responseBody.getBytes(StandardCharsets.UTF_8);
+		HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/", exchange -> {
+			byte[] buffer = new byte[8192];
+			try (InputStream in = exchange.getRequestBody()) {
+				while (in.read(buffer) != -1) {
+					// request body is discarded
+				}
+			}
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, response.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(response);
+			}
+		});
+		server.start();
+		return server;
+	}
+
+	static String url(HttpServer server, String path) {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+	}
+}
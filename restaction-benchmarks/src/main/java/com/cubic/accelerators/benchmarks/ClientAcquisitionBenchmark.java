@@ -0,0 +1,57 @@
+package com.cubic.accelerators.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cubic.accelerators.RESTActions;
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.config.DefaultClientConfig;
+
+/**
+ * Cost of getting a jersey client for a request, a new client per request vs the shared client of RESTClientRegistry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientAcquisitionBenchmark {
+	private RESTActions restActions;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		BenchmarkPayloads.quietLogging();
+		BenchmarkPayloads.openClientRegistry();
+		restActions = new RESTActions(null, "ClientAcquisitionBenchmark");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		BenchmarkPayloads.closeClientRegistry();
+	}
+
+	@Benchmark
+	public Client clientCreate() {
+		Client client = Client.create(new DefaultClientConfig());
+		client.destroy();
+		return client;
+	}
+
+	@Benchmark
+	public Client hostIgnoringClient() {
+		return restActions.hostIgnoringClient();
+	}
+}
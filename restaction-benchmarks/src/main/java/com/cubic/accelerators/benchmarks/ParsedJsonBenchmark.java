@@ -0,0 +1,53 @@
+package com.cubic.accelerators.benchmarks;
+
+import java.util.Hashtable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cubic.accelerators.RESTActions;
+
+/**
+ * assertJsonElements on the json parsed once(i.e. RESTActions.parseJson), not available in the baseline release.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ParsedJsonBenchmark {
+	@Param({ "1KB", "1MB", "50MB" })
+	public String payloadSize;
+
+	private RESTActions restActions;
+	private String json;
+	private Hashtable<String, String> expectedData;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		BenchmarkPayloads.quietLogging();
+		json = BenchmarkPayloads.json(BenchmarkPayloads.parseSize(payloadSize));
+		expectedData = new Hashtable<String, String>();
+		expectedData.put("id", "0");
+		expectedData.put("status", "ACTIVE");
+		expectedData.put("currency", "GBP");
+		restActions = new RESTActions(null, "ParsedJsonBenchmark");
+	}
+
+	@Benchmark
+	public boolean assertJsonElementsParsedOnce() throws Throwable {
+		return restActions.assertJsonElements(restActions.parseJson(json), "$.accounts[0]", expectedData);
+	}
+}
@@ -0,0 +1,63 @@
+package com.cubic.accelerators.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Properties;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <pre>
+ * Runs the restaction benchmarks, main class of benchmarks.jar.
+ *  - Accepts the JMH command line options, ex: java -jar benchmarks.jar AssertionBenchmark -p payloadSize=1MB
+ *  - Results are written as JSON to results/restaction-&lt;version&gt;-&lt;time&gt;.json, so the results of two releases
+ *    can be compared(ex: https://jmh.morethan.net). Pass -rf/-rff to write the results elsewhere.
+ * </pre>
+ * @since 1.5
+ */
+public class RESTBenchmarks {
+
+	public static void main(String[] args) throws RunnerException, IOException {
+		CommandLineOptions commandLineOptions;
+		try {
+			commandLineOptions = new CommandLineOptions(args);
+		} catch (CommandLineOptionException e) {
+			System.err.println("Invalid JMH options :: " + e.getMessage());
+			System.exit(1);
+			return;
+		}
+		if (commandLineOptions.shouldHelp() || commandLineOptions.shouldList()) {
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+		if (!commandLineOptions.getResult().hasValue() && !commandLineOptions.getResultFormat().hasValue()) {
+			File resultFile = new File("results", "restaction-" + getRestactionVersion() + "-"
+					+ LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss")) + ".json");
+			resultFile.getParentFile().mkdirs();
+			options.resultFormat(ResultFormatType.JSON).result(resultFile.getPath());
+			System.out.println("Benchmark results :: " + resultFile.getAbsolutePath());
+		}
+		new Runner(options.build()).run();
+	}
+
+	private static String getRestactionVersion() throws IOException {
+		Properties properties = new Properties();
+		try (InputStream in = RESTBenchmarks.class.getResourceAsStream("/restaction-benchmarks.properties")) {
+			if (in != null) {
+				properties.load(in);
+			}
+		}
+		return properties.getProperty("restaction.version", "unknown");
+	}
+}
@@ -0,0 +1,69 @@
+package com.cubic.accelerators.benchmarks;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cubic.accelerators.RESTActions;
+import com.cubic.genericutils.TimeUtil;
+import com.cubic.reportengine.bean.DetailedReportBean;
+import com.cubic.reportengine.report.CustomReports;
+
+/**
+ * Writing the steps of the custom report, a new test case is started for every iteration so the report doesn't grow
+ * for the whole run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark {
+	private final AtomicInteger testCaseCount = new AtomicInteger();
+	private CustomReports customReports;
+	private RESTActions restActions;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		BenchmarkPayloads.quietLogging();
+		File reportFolder = Files.createTempDirectory("restaction-benchmark-report").toFile();
+		customReports = new CustomReports();
+		customReports.createFolderStructureForCustomReport(false, reportFolder.getAbsolutePath());
+	}
+
+	@Setup(Level.Iteration)
+	public void startTestCase() {
+		// Same as RESTEngine.setupAutomationTest
+		String testCaseName = "TC " + testCaseCount.incrementAndGet() + " : Report benchmark";
+		DetailedReportBean detailedReportBean = new DetailedReportBean();
+		detailedReportBean.setTestCaseName(testCaseName);
+		detailedReportBean.setTestCaseStartTime(TimeUtil.getCurrentInstant());
+		customReports.getCustomReportBean().getDetailedReportMap().put(testCaseName, detailedReportBean);
+		customReports.intializeDetailedReport(testCaseName);
+		restActions = new RESTActions(customReports, testCaseName);
+	}
+
+	@Benchmark
+	public void successReport() {
+		restActions.successReport("Verify the account", "Account status is ACTIVE");
+	}
+
+	@Benchmark
+	public void failureReport() {
+		restActions.failureReport("Verify the account", "Expected status ACTIVE but found CLOSED");
+	}
+}
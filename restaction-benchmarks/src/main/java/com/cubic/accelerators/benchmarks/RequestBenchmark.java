@@ -0,0 +1,74 @@
+package com.cubic.accelerators.benchmarks;
+
+import java.util.Hashtable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cubic.accelerators.RESTActions;
+import com.cubic.accelerators.RESTConstants;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Round trip of the RESTActions requests against an in-process loopback server, i.e. the framework overhead
+ * on top of the http client without the network latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestBenchmark {
+	@Param({ "1KB", "1MB" })
+	public String payloadSize;
+
+	private HttpServer server;
+	private RESTActions restActions;
+	private String url;
+	private String input;
+	private Hashtable<String, String> requestHeaders;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		BenchmarkPayloads.quietLogging();
+		BenchmarkPayloads.openClientRegistry();
+		String payload = BenchmarkPayloads.json(BenchmarkPayloads.parseSize(payloadSize));
+		server = BenchmarkPayloads.startLoopbackServer(payload);
+		url = BenchmarkPayloads.url(server, "/accounts");
+		input = payload;
+		requestHeaders = new Hashtable<String, String>();
+		requestHeaders.put("Authorization", "Bearer benchmark");
+		restActions = new RESTActions(null, "RequestBenchmark");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		BenchmarkPayloads.closeClientRegistry();
+		server.stop(0);
+	}
+
+	@Benchmark
+	public String getClientResponse() {
+		ClientResponse clientResponse = restActions.getClientResponse(url, requestHeaders, null, RESTConstants.APPLICATION_JSON);
+		return clientResponse.getEntity(String.class);
+	}
+
+	@Benchmark
+	public String postJSONResponseAsString() throws Throwable {
+		return restActions.postJSONResponseAsString(url, input, requestHeaders, null);
+	}
+}
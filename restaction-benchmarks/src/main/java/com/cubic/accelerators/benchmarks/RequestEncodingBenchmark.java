@@ -0,0 +1,79 @@
+package com.cubic.accelerators.benchmarks;
+
+import java.net.URI;
+import java.util.Hashtable;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.MultivaluedMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cubic.accelerators.RESTRequest;
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.config.DefaultClientConfig;
+import com.sun.jersey.core.util.MultivaluedMapImpl;
+
+/**
+ * Encoding of the url query parameters, the Hashtable to MultivaluedMap conversion used before the single execution core
+ * (i.e. convertHashTableToMultivaluedMap and WebResource.queryParams) vs RESTRequest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestEncodingBenchmark {
+	private static final String URL = "https://api.cubic.com/accounts/search";
+
+	private Client client;
+	private Hashtable<String, String> urlQueryParameters;
+	private RESTRequest request;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		client = Client.create(new DefaultClientConfig());
+		urlQueryParameters = new Hashtable<String, String>();
+		urlQueryParameters.put("status", "ACTIVE");
+		urlQueryParameters.put("name", "John Smith");
+		urlQueryParameters.put("from", "2019-01-01T00:00:00Z");
+		urlQueryParameters.put("page", "1");
+		urlQueryParameters.put("pageSize", "100");
+		request = RESTRequest.get(URL).withQueryParameters(urlQueryParameters);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		client.destroy();
+	}
+
+	@Benchmark
+	public URI convertHashTableToMultivaluedMap() {
+		MultivaluedMap<String, String> queryParams = new MultivaluedMapImpl();
+		for (String key : urlQueryParameters.keySet()) {
+			queryParams.add(key, urlQueryParameters.get(key));
+		}
+		return client.resource(URL).queryParams(queryParams).getURI();
+	}
+
+	@Benchmark
+	public URI restRequest() {
+		return RESTRequest.get(URL).withQueryParameters(urlQueryParameters).getURI();
+	}
+
+	@Benchmark
+	public URI restRequestReused() {
+		return request.getURI();
+	}
+}
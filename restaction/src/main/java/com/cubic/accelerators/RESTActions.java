@@ -2,25 +2,24 @@ package com.cubic.accelerators;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.security.KeyManagementException;
-import java.security.NoSuchAlgorithmException;
-import java.security.cert.CertificateException;
-import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Hashtable;
 import java.util.List;
-import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
-import javax.net.ssl.HostnameVerifier;
-import javax.net.ssl.SSLContext;
-import javax.net.ssl.SSLSession;
-import javax.net.ssl.TrustManager;
-import javax.net.ssl.X509TrustManager;
 import javax.ws.rs.core.MultivaluedMap;
 
 import org.apache.log4j.Logger;
@@ -39,15 +38,14 @@ import com.cubic.genericutils.JsonUtil;
 import com.cubic.genericutils.XmlUtil;
 import com.cubic.logutils.Log4jUtil;
 import com.cubic.reportengine.report.CustomReports;
+import com.jayway.jsonpath.JsonPath;
 import com.jayway.jsonpath.spi.json.JacksonJsonProvider;
 import com.sun.codemodel.JCodeModel;
 import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientRequest;
 import com.sun.jersey.api.client.ClientResponse;
-import com.sun.jersey.api.client.WebResource;
 import com.sun.jersey.api.client.config.DefaultClientConfig;
 import com.sun.jersey.client.urlconnection.HTTPSProperties;
-import com.sun.jersey.client.urlconnection.URLConnectionClientHandler;
-import com.sun.jersey.core.util.MultivaluedMapImpl;
 
 /**
  * This class contains the implementation for generic methods to work with rest Json and XML webservices. 
@@ -56,11 +54,16 @@ public class RESTActions {
 	private final Logger LOG = Logger.getLogger(this.getClass().getName());
 	private CustomReports customReports = null;
 	private String testCaseName = null;
+	// Report steps of the asynchronous requests, written by the calling thread(i.e. CustomReports is not thread safe)
+	private static final ThreadLocal<Boolean> asyncRequestThread = new ThreadLocal<>();
+	private final ConcurrentLinkedQueue<DeferredStep> deferredSteps = new ConcurrentLinkedQueue<>();
+	// Result of the batch requests not sent before the batch is cancelled
+	private static final Object BATCH_REQUEST_NOT_SENT = new Object();
 	
+	private volatile RESTJsonDocument lastParsedJson = null;
+	private final boolean reportRequestTiming = "true".equalsIgnoreCase(GenericConstants.GENERIC_FW_CONFIG_PROPERTIES.get(RESTConstants.REPORT_REQUEST_TIMING));
 	private String isSSLCertificationVerificationValue  = GenericConstants.GENERIC_FW_CONFIG_PROPERTIES.get("isSSLCertificationVerifcationEnabled");
 	private String addExternalSSLCertificateFlag  = GenericConstants.GENERIC_FW_CONFIG_PROPERTIES.get("addExternalSSLCertificateFlag");
-	private String addExternalSSLCertificatePath = System.getProperty("user.dir") + GenericConstants.GENERIC_FW_CONFIG_PROPERTIES.get("addExternalSSLCertificateJKSPath");
-	private String addExternalSSLCertificatePassword = GenericConstants.GENERIC_FW_CONFIG_PROPERTIES.get("addExternalSSLCertificatePassword");
 	
 	
 	/**
@@ -82,6 +85,9 @@ public class RESTActions {
 	 */
 	public static void flush(RESTActions restActions) {
 		if (restActions != null) {
+			// Queued report steps of the test case are written before the test case status is read
+			restActions.writeDeferredSteps();
+			RESTReportWriter.flush(restActions.testCaseName);
 			restActions = null;
 		}
 	}
@@ -95,7 +101,9 @@ public class RESTActions {
 	 */
 	public void successReport(String stepName, String description) {
 		if (customReports != null) {
-			customReports.successReport(stepName, description, testCaseName);
+			CustomReports reports = customReports;
+			String stepDescription = withRequestTiming(description);
+			writeStep(true, () -> reports.successReport(stepName, stepDescription, testCaseName));
 		}
 	}
 
@@ -109,7 +117,9 @@ public class RESTActions {
 	 */
 	public void failureReport(String stepName, String description) {
 		if (customReports != null) {
-			customReports.failureReport(stepName, description, testCaseName);
+			CustomReports reports = customReports;
+			String stepDescription = withRequestTiming(description);
+			writeStep(false, () -> reports.failureReport(stepName, stepDescription, testCaseName));
 		}
 	}
 	
@@ -128,8 +138,10 @@ public class RESTActions {
 	public void failureReportWebService(String stepName, String description, String response) throws IOException {
 		LOG.warn("Use failureReportForJsonWebService() or failureReportForXmlWebService(), since this method is deprecated."); 
 		if (customReports != null) {
-			customReports.failureReportWebService(stepName, description, response,
-					testCaseName);
+			CustomReports reports = customReports;
+			String stepDescription = withRequestTiming(description);
+			writeAttachmentStep(false, stepName, stepDescription, response, "txt",
+					attachment -> reports.failureReportWebService(stepName, stepDescription, attachment, testCaseName));
 		}
 	}
 	
@@ -144,8 +156,10 @@ public class RESTActions {
 	 */
 	public void failureReportForJsonWebService(String stepName, String description, String response) throws IOException {
 		if (customReports != null) {
-			customReports.failureReportForJsonWebService(stepName, description, response,
-					testCaseName);
+			CustomReports reports = customReports;
+			String stepDescription = withRequestTiming(description);
+			writeAttachmentStep(false, stepName, stepDescription, response, "json",
+					attachment -> reports.failureReportForJsonWebService(stepName, stepDescription, attachment, testCaseName));
 		}
 	}
 
@@ -160,8 +174,10 @@ public class RESTActions {
 	 */
 	public void failureReportForXmlWebService(String stepName, String description, String response) throws IOException {
 		if (customReports != null) {
-			customReports.failureReportForXmlWebService(stepName, description, response,
-					testCaseName);
+			CustomReports reports = customReports;
+			String stepDescription = withRequestTiming(description);
+			writeAttachmentStep(false, stepName, stepDescription, response, "xml",
+					attachment -> reports.failureReportForXmlWebService(stepName, stepDescription, attachment, testCaseName));
 		}
 	}
 	
@@ -180,8 +196,10 @@ public class RESTActions {
 	public void successReportWebService(String stepName, String description, String response) throws IOException {
 		LOG.warn("Use successReportForJsonWebService() or successReportForXmlWebService(), since this method is deprecated.");
 		if (customReports != null) {
-			customReports.successReportForWebService(stepName, description, response,
-					testCaseName);
+			CustomReports reports = customReports;
+			String stepDescription = withRequestTiming(description);
+			writeAttachmentStep(true, stepName, stepDescription, response, "txt",
+					attachment -> reports.successReportForWebService(stepName, stepDescription, attachment, testCaseName));
 		}
 	}	
 
@@ -197,8 +215,10 @@ public class RESTActions {
 	 */
 	public void successReportForJsonWebService(String stepName, String description, String response) throws IOException {
 		if (customReports != null) {
-			customReports.successReportForJsonWebService(stepName, description, response,
-					testCaseName);
+			CustomReports reports = customReports;
+			String stepDescription = withRequestTiming(description);
+			writeAttachmentStep(true, stepName, stepDescription, response, "json",
+					attachment -> reports.successReportForJsonWebService(stepName, stepDescription, attachment, testCaseName));
 		}
 	}	
 
@@ -214,10 +234,110 @@ public class RESTActions {
 	 */
 	public void successReportForXmlWebService(String stepName, String description, String response) throws IOException {
 		if (customReports != null) {
-			customReports.successReportForXmlWebService(stepName, description, response,
-					testCaseName);
+			CustomReports reports = customReports;
+			String stepDescription = withRequestTiming(description);
+			writeAttachmentStep(true, stepName, stepDescription, response, "xml",
+					attachment -> reports.successReportForXmlWebService(stepName, stepDescription, attachment, testCaseName));
 		}
 	}
+
+	/**
+	 * Writes the step on the current thread or queues it to the RESTReportWriter(i.e. restAsyncReportingEnabled).
+	 */
+	private void writeStep(boolean success, RESTReportWriter.ReportStep step) {
+		try {
+			reportStep(success, step);
+		} catch (IOException e) {
+			LOG.fatal(Log4jUtil.getStackTrace(e));
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Writes the step with the response attachment, the response is linked from the RESTAttachmentStore when the store is started,
+	 * otherwise the attachment step(i.e. CustomReports) writes its own copy of the response.
+	 * Success attachments are sampled and truncated as per the RESTAttachmentPolicy, failure steps attach the full response.
+	 */
+	private void writeAttachmentStep(boolean success, String stepName, String stepDescription, String response, String extension,
+			AttachmentStep attachmentStep) throws IOException {
+		CustomReports reports = customReports;
+		if (success && !RESTAttachmentPolicy.isSuccessAttachmentSampled()) {
+			writeStep(true, () -> reports.successReport(stepName, stepDescription, testCaseName));
+			return;
+		}
+		int maxChars = success ? RESTAttachmentPolicy.getSuccessAttachmentMaxChars(response) : -1;
+		reportStep(success, () -> {
+			if (!RESTAttachmentStore.isActive()) {
+				attachmentStep.write(RESTAttachmentPolicy.truncate(response, maxChars));
+			} else if (success) {
+				reports.successReport(stepName, RESTAttachmentStore.attach(stepDescription, response, extension, maxChars), testCaseName);
+			} else {
+				reports.failureReport(stepName, RESTAttachmentStore.attach(stepDescription, response, extension, maxChars), testCaseName);
+			}
+		});
+	}
+
+	/**
+	 * Writes the step through the RESTReportWriter. Steps added by the asynchronous requests are handed back to the
+	 * calling thread when the background writer is not started, CustomReports is never written from the executor threads.
+	 */
+	private void reportStep(boolean success, RESTReportWriter.ReportStep step) throws IOException {
+		if (asyncRequestThread.get() != null && !RESTReportWriter.isActive()) {
+			deferredSteps.add(new DeferredStep(success, step));
+			return;
+		}
+		writeDeferredSteps();
+		RESTReportWriter.write(testCaseName, success, step);
+	}
+
+	/**
+	 * Writes the steps of the completed asynchronous requests, called on the test thread before its next step
+	 * and before the test case status is read(i.e. flush).
+	 */
+	void writeDeferredSteps() {
+		DeferredStep deferredStep;
+		while ((deferredStep = deferredSteps.poll()) != null) {
+			try {
+				RESTReportWriter.write(testCaseName, deferredStep.success, deferredStep.step);
+			} catch (IOException e) {
+				LOG.error("Unable to write the report step of the asynchronous request :: " + Log4jUtil.getStackTrace(e));
+			}
+		}
+	}
+
+	/**
+	 * Report step of an asynchronous request, waiting to be written by the calling thread.
+	 */
+	private static final class DeferredStep {
+		private final boolean success;
+		private final RESTReportWriter.ReportStep step;
+
+		private DeferredStep(boolean success, RESTReportWriter.ReportStep step) {
+			this.success = success;
+			this.step = step;
+		}
+	}
+
+	/**
+	 * Writes the step with the attachment of the response through CustomReports.
+	 */
+	@FunctionalInterface
+	private interface AttachmentStep {
+		void write(String response) throws IOException;
+	}
+
+	/**
+	 * Adds the timing breakdown of the last request sent from the current thread to the step description,
+	 * the timing is added only to the first step reported after the request.
+	 * Opt-in, restReportRequestTiming and restRequestTimingEnabled should be TRUE.
+	 */
+	private String withRequestTiming(String description) {
+		if (!reportRequestTiming) {
+			return description;
+		}
+		RESTRequestTiming timing = RESTRequestTiming.takeLastRequestTiming();
+		return (timing == null) ? description : description + "<br>" + timing.toReportString();
+	}
 	
 	/**
 	 * Generic to process the "GET" request
@@ -233,50 +353,7 @@ public class RESTActions {
 	 */
 	public ClientResponse getClientResponse(String url, Hashtable<String, String> requestHeaders,
 			Hashtable<String, String> urlQueryParameters, String contentType) {
-		ClientResponse clientResponse = null;
-		try {
-			LOG.info("Class name : " + getCallerClassName() + "Method name : " + getCallerMethodName());
-			Client client = null;
-			
-		//	String isSSLCertificationVerifcationEnabled = "ON";
-			if(isSSLCertificationVerificationValue==null){
-				isSSLCertificationVerificationValue="ON";
-			}
-			
-			if(isSSLCertificationVerificationValue.equalsIgnoreCase("off")){
-				//Specific to SSL
-				client = hostIgnoringClient();
-			}else{
-				//With out SSL
-				client = Client.create(new DefaultClientConfig());
-			}
-			 WebResource resource = client.resource(url);
-			//WebResource resource = Client.create(new DefaultClientConfig()).resource(url);
-
-			// If url query parameters are present
-			if ((urlQueryParameters != null) && (urlQueryParameters.keySet().toArray().length > 0)) {
-				MultivaluedMap<String, String> queryParams = convertHashTableToMultivaluedMap(urlQueryParameters);
-				resource = resource.queryParams(queryParams);
-			}
-
-			WebResource.Builder builder = resource.accept(contentType);
-
-			// If request headers are present
-			if ((requestHeaders != null) && (requestHeaders.keySet().toArray().length > 0)) {
-				for (String key : requestHeaders.keySet()) {
-					builder.header(key, requestHeaders.get(key));
-				}
-			}
-
-			clientResponse = builder.get(ClientResponse.class);
-
-			LOG.info("Response : "+clientResponse); 
-		} catch (Throwable e) {
-			LOG.fatal(Log4jUtil.getStackTrace(e));
-			failureReport("Retrieving Client Response ",e.toString());
-			throw new RuntimeException(e);
-		}
-		return clientResponse;
+		return execute(RESTRequest.of("GET", url, null, requestHeaders, urlQueryParameters, contentType, null));
 	}
 
 	/**
@@ -295,63 +372,66 @@ public class RESTActions {
 	 */
 	public ClientResponse getClientResponse(String url, Hashtable<String, String> requestHeaders,
 			Hashtable<String, String> urlQueryParameters, String contentType, Hashtable<String, String> options) {
-		ClientResponse clientResponse = null;
-		try {
-			LOG.info("Class name : " + getCallerClassName() + "Method name : " + getCallerMethodName());
-
-			WebResource resource = Client.create(new DefaultClientConfig()).resource(url);
-
-			// If url query parameters are present
-			if ((urlQueryParameters != null) && (urlQueryParameters.keySet().toArray().length > 0)) {
-				MultivaluedMap<String, String> queryParams = convertHashTableToMultivaluedMap(urlQueryParameters);
-				resource = resource.queryParams(queryParams);
-			}
-
-			WebResource.Builder builder = resource.accept(contentType);
-
-			// If request headers are present
-			if ((requestHeaders != null) && (requestHeaders.keySet().toArray().length > 0)) {
-				for (String key : requestHeaders.keySet()) {
-					builder.header(key, requestHeaders.get(key));
-				}
-			}
+		return execute(RESTRequest.of("GET", url, null, requestHeaders, urlQueryParameters, contentType, options));
+	}
 
-			clientResponse = builder.get(ClientResponse.class);
 
-			LOG.info("Response : "+clientResponse); 
+	/**<pre>
+	 * Sends the request and returns the response, all the *ClientResponse methods are executed through this method.
+	 *  - The response entity is not read, read it with getEntity or RESTResponse.from.
+	 *  - Build the RESTRequest once and execute it repeatedly, the url and the headers are encoded only once per request.
+	 *  - If the exception handling is disabled for the request(i.e. RESTConstants.DISABLE_EXCEPTIONS option), null is returned
+	 *    on failure and the failure is not added to the custom report.
+	 * </pre>
+	 * @param request RESTRequest
+	 * @return ClientResponse com.sun.jersey.api.client.ClientResponse
+	 */
+	public ClientResponse execute(RESTRequest request) {
+		try {
+			RESTLog.logCaller(LOG);
+			return executeRequest(request);
 		} catch (Throwable e) {
-			
 			//IF exception handling is disabled then exception will not be thrown and failure report is not added.
 			//Below logic is added for handling the negative scenarios(i.e. test scripts).
-			if(!isExceptionDisabled(options)){
+			if (!request.isExceptionDisabled()) {
 				LOG.fatal(Log4jUtil.getStackTrace(e));
-				failureReport("Retrieving Client Response ",e.toString());
+				if (e instanceof RESTResilienceFilter.CircuitOpenException) {
+					failureReport("Circuit Breaker Open ", e.getMessage());
+				} else {
+					failureReport("Retrieving Client Response ", e.toString());
+				}
 				throw new RuntimeException(e);
 			}
-			
+			if (e instanceof Error) {
+				throw (Error) e;
+			}
 		}
-		return clientResponse;
+		return null;
 	}
 
-
-	/**Verify ExceptionHandling is disabled or NOT 
-	 * 
-	 * @param options
-	 * @return
+	/**
+	 * Sends the request with the shared client of the url and returns the response, the response entity is not read.
+	 *  - Failures are NOT added to the custom report, callers decide how the failure is reported.
 	 */
-	private boolean isExceptionDisabled(Hashtable<String, String> options){
-		
-		if(options!=null){
-			String disableExceptions = options.get(RESTConstants.DISABLE_EXCEPTIONS);
-			boolean isDisableExceptions =  (disableExceptions==null || disableExceptions.trim().length()<=0) ? (false) :
-														(disableExceptions.trim().equalsIgnoreCase("true") ? true : false);
-			return isDisableExceptions;
-		}else{
-			return false;
+	private ClientResponse executeRequest(RESTRequest request) {
+		ClientRequest.Builder builder = ClientRequest.create();
+		if (request.getContentType() != null) {
+			builder.accept(request.getContentType());
 		}
-		
+		String[] headerNames = request.getHeaderNames();
+		String[] headerValues = request.getHeaderValues();
+		for (int i = 0; i < headerNames.length; i++) {
+			builder.header(headerNames[i], headerValues[i]);
+		}
+		if (request.getInput() != null) {
+			builder.entity(request.getInput());
+		}
+
+		ClientResponse clientResponse = getRestClient(request.getUrl()).handle(builder.build(request.getURI(), request.getMethod()));
+
+		RESTLog.logResponse(LOG, request.getMethod(), request.getUrl(), clientResponse);
+		return clientResponse;
 	}
-	
 
 	/**<pre>
 	 * Generic to process the "GET" request
@@ -380,7 +460,7 @@ public class RESTActions {
 			MultivaluedMap<String, String> multivaluedMap = clientResponse.getHeaders();
 
 			// If multivaluedMap is not null and length greater than zero
-			if ((multivaluedMap != null) && (multivaluedMap.keySet().toArray().length > 0)) {
+			if ((multivaluedMap != null) && !multivaluedMap.isEmpty()) {
 				responseHeaderAndResponseBodyTable = new Hashtable<String, String>();
 				for (String key : multivaluedMap.keySet()) {
 					responseHeaderAndResponseBodyTable.put(key, multivaluedMap.get(key).get(0));
@@ -576,7 +656,7 @@ public class RESTActions {
 	public int getResponseCode(ClientResponse response) throws Throwable {
 		int responseCode = 0;
 		try {
-			LOG.info("Class name : " + getCallerClassName() + "Method name : " + getCallerMethodName());
+			RESTLog.logCaller(LOG);
 			responseCode = response.getStatus();
 		} catch (Exception e) {
 			failureReport("Responce Code  ", "Unable to retrieve response code due to  :: " + e);
@@ -609,53 +689,7 @@ public class RESTActions {
 	 */
 	public ClientResponse postClientResponse(String url, String input, Hashtable<String, String> requestHeaders,
 			Hashtable<String, String> urlQueryParameters, String contentType) throws Throwable {
-		ClientResponse clientResponse = null;
-		Client client =null;
-		try {
-			
-			if(isSSLCertificationVerificationValue==null){
-				isSSLCertificationVerificationValue="ON";
-			}
-			if(isSSLCertificationVerificationValue.equalsIgnoreCase("off")){
-				//Specific to SSL
-				client = hostIgnoringClient();
-			}else{
-				//With out SSL
-				client = Client.create(new DefaultClientConfig());
-			}
-			 WebResource resource = client.resource(url);
-			
-		    //WebResource resource = Client.create(new DefaultClientConfig()).resource(url);
-
-			// If url query parameters are present
-			if ((urlQueryParameters != null) && (urlQueryParameters.keySet().toArray().length > 0)) {
-				MultivaluedMap<String, String> queryParams = convertHashTableToMultivaluedMap(urlQueryParameters);
-				resource = resource.queryParams(queryParams);
-			}
-
-			WebResource.Builder builder = resource.accept(contentType);
-
-			// If request headers are present
-			if ((requestHeaders != null) && (requestHeaders.keySet().toArray().length > 0)) {
-				for (String key : requestHeaders.keySet()) {
-					builder.header(key, requestHeaders.get(key));
-				}
-			}
-
-			if (input == null) {
-				clientResponse = builder.post(ClientResponse.class);
-			} else {
-				clientResponse = builder.post(ClientResponse.class, input);
-			}
-
-			LOG.info("Response : "+clientResponse);
-		} catch (Exception e) {
-			LOG.fatal(Log4jUtil.getStackTrace(e));
-			e.printStackTrace();
-			failureReport("Retrieving Client Response ",e.toString());			
-			throw new RuntimeException(e);
-		}
-		return clientResponse;
+		return execute(RESTRequest.of("POST", url, input, requestHeaders, urlQueryParameters, contentType, null));
 	}
 
 	/**
@@ -676,58 +710,7 @@ public class RESTActions {
 	 */
 	public ClientResponse postClientResponse(String url, String input, Hashtable<String, String> requestHeaders,
 			Hashtable<String, String> urlQueryParameters, String contentType, Hashtable<String, String> options) throws Throwable {
-		ClientResponse clientResponse = null;
-		Client client =null;
-		try {
-			
-			if(isSSLCertificationVerificationValue==null){
-				isSSLCertificationVerificationValue="ON";
-			}
-			if(isSSLCertificationVerificationValue.equalsIgnoreCase("off")){
-				//Specific to SSL
-				client = hostIgnoringClient();
-			}else{
-				//With out SSL
-				client = Client.create(new DefaultClientConfig());
-			}
-			 WebResource resource = client.resource(url);
-			
-		    //WebResource resource = Client.create(new DefaultClientConfig()).resource(url);
-
-			// If url query parameters are present
-			if ((urlQueryParameters != null) && (urlQueryParameters.keySet().toArray().length > 0)) {
-				MultivaluedMap<String, String> queryParams = convertHashTableToMultivaluedMap(urlQueryParameters);
-				resource = resource.queryParams(queryParams);
-			}
-
-			WebResource.Builder builder = resource.accept(contentType);
-
-			// If request headers are present
-			if ((requestHeaders != null) && (requestHeaders.keySet().toArray().length > 0)) {
-				for (String key : requestHeaders.keySet()) {
-					builder.header(key, requestHeaders.get(key));
-				}
-			}
-
-			if (input == null) {
-				clientResponse = builder.post(ClientResponse.class);
-			} else {
-				clientResponse = builder.post(ClientResponse.class, input);
-			}
-
-			LOG.info("Response : "+clientResponse);
-		} catch (Exception e) {
-			
-			//IF exception handling is disabled then exception will not be thrown and failure report is not added.
-			//Below logic is added for handling the negative scenarios(i.e. test scripts).
-			if(!isExceptionDisabled(options)){
-				LOG.fatal(Log4jUtil.getStackTrace(e));
-				e.printStackTrace();
-				failureReport("Retrieving Client Response ",e.toString());
-				throw new RuntimeException(e);
-			}			
-		}
-		return clientResponse;
+		return execute(RESTRequest.of("POST", url, input, requestHeaders, urlQueryParameters, contentType, options));
 	}
 	
 	/**<pre>
@@ -760,7 +743,7 @@ public class RESTActions {
 			MultivaluedMap<String, String> multivaluedMap = clientResponse.getHeaders();
 
 			// If multivaluedMap is not null and length greater than zero
-			if ((multivaluedMap != null) && (multivaluedMap.keySet().toArray().length > 0)) {
+			if ((multivaluedMap != null) && !multivaluedMap.isEmpty()) {
 				responseHeaderAndResponseBodyTable = new Hashtable<String, String>();
 				for (String key : multivaluedMap.keySet()) {
 					responseHeaderAndResponseBodyTable.put(key, multivaluedMap.get(key).get(0));
@@ -939,55 +922,7 @@ public class RESTActions {
 	 */
 	public ClientResponse putClientResponse(String url, String input, Hashtable<String, String> requestHeaders,
 			Hashtable<String, String> urlQueryParameters, String contentType) throws Throwable {
-		ClientResponse clientResponse = null;
-		Client client =null;
-		try {
-			
-			if(isSSLCertificationVerificationValue==null){
-				isSSLCertificationVerificationValue="ON";
-			}
-			
-			if(isSSLCertificationVerificationValue.equalsIgnoreCase("off")){
-				//Specific to SSL
-				client = hostIgnoringClient();
-			}else{
-				//With out SSL
-				client = Client.create(new DefaultClientConfig());
-			}
-			WebResource resource = client.resource(url);
-			
-			 
-			//WebResource resource = Client.create(new DefaultClientConfig()).resource(url);
-
-			// If url query parameters are present
-			if ((urlQueryParameters != null) && (urlQueryParameters.keySet().toArray().length > 0)) {
-				MultivaluedMap<String, String> queryParams = convertHashTableToMultivaluedMap(urlQueryParameters);
-				resource = resource.queryParams(queryParams);
-			}
-
-			WebResource.Builder builder = resource.accept(contentType);
-
-			// If request headers are present
-			if ((requestHeaders != null) && (requestHeaders.keySet().toArray().length > 0)) {
-				for (String key : requestHeaders.keySet()) {
-					builder.header(key, requestHeaders.get(key));
-				}
-			}
-
-			if (input == null) {
-				clientResponse = builder.put(ClientResponse.class);
-			} else {
-				clientResponse = builder.put(ClientResponse.class, input);
-			}
-
-			LOG.info("Response : "+clientResponse);
-		} catch (Exception e) {
-			LOG.fatal(Log4jUtil.getStackTrace(e));
-			failureReport("Retrieving Client Response ",e.toString());
-			throw new RuntimeException(e);
-		}
-
-		return clientResponse;
+		return execute(RESTRequest.of("PUT", url, input, requestHeaders, urlQueryParameters, contentType, null));
 	}
 
 	/**
@@ -1008,61 +943,7 @@ public class RESTActions {
 	 */
 	public ClientResponse putClientResponse(String url, String input, Hashtable<String, String> requestHeaders,
 			Hashtable<String, String> urlQueryParameters, String contentType, Hashtable<String, String> options) throws Throwable {
-		ClientResponse clientResponse = null;
-		Client client =null;
-		try {
-			
-			if(isSSLCertificationVerificationValue==null){
-				isSSLCertificationVerificationValue="ON";
-			}
-			
-			if(isSSLCertificationVerificationValue.equalsIgnoreCase("off")){
-				//Specific to SSL
-				client = hostIgnoringClient();
-			}else{
-				//With out SSL
-				client = Client.create(new DefaultClientConfig());
-			}
-			WebResource resource = client.resource(url);
-			
-			 
-			//WebResource resource = Client.create(new DefaultClientConfig()).resource(url);
-
-			// If url query parameters are present
-			if ((urlQueryParameters != null) && (urlQueryParameters.keySet().toArray().length > 0)) {
-				MultivaluedMap<String, String> queryParams = convertHashTableToMultivaluedMap(urlQueryParameters);
-				resource = resource.queryParams(queryParams);
-			}
-
-			WebResource.Builder builder = resource.accept(contentType);
-
-			// If request headers are present
-			if ((requestHeaders != null) && (requestHeaders.keySet().toArray().length > 0)) {
-				for (String key : requestHeaders.keySet()) {
-					builder.header(key, requestHeaders.get(key));
-				}
-			}
-
-			if (input == null) {
-				clientResponse = builder.put(ClientResponse.class);
-			} else {
-				clientResponse = builder.put(ClientResponse.class, input);
-			}
-
-			LOG.info("Response : "+clientResponse);
-		} catch (Exception e) {
-			
-			//IF exception handling is disabled then exception will not be thrown and failure report is not added.
-			//Below logic is added for handling the negative scenarios(i.e. test scripts).
-			if(!isExceptionDisabled(options)){
-				LOG.fatal(Log4jUtil.getStackTrace(e));
-				failureReport("Retrieving Client Response ",e.toString());
-				throw new RuntimeException(e);
-			}
-			
-		}
-
-		return clientResponse;
+		return execute(RESTRequest.of("PUT", url, input, requestHeaders, urlQueryParameters, contentType, options));
 	}	
 	/**<pre>
 	 * Generic to process the "PUT" request
@@ -1093,7 +974,7 @@ public class RESTActions {
 			MultivaluedMap<String, String> multivaluedMap = clientResponse.getHeaders();
 
 			// If multivaluedMap is not null and length greater than zero
-			if ((multivaluedMap != null) && (multivaluedMap.keySet().toArray().length > 0)) {
+			if ((multivaluedMap != null) && !multivaluedMap.isEmpty()) {
 				responseHeaderAndResponseBodyTable = new Hashtable<String, String>();
 				for (String key : multivaluedMap.keySet()) {
 					responseHeaderAndResponseBodyTable.put(key, multivaluedMap.get(key).get(0));
@@ -1282,55 +1163,7 @@ public class RESTActions {
 	 */
 	public ClientResponse deleteClientResponse(String url, String input, Hashtable<String, String> requestHeaders,
 			Hashtable<String, String> urlQueryParameters, String contentType) throws Throwable {
-		ClientResponse clientResponse = null;
-		Client client = null;
-
-		try {
-			LOG.info("Class name : " + getCallerClassName() + "Method name : " + getCallerMethodName());
-			if(isSSLCertificationVerificationValue==null){
-				isSSLCertificationVerificationValue="ON";
-			}
-			
-			if(isSSLCertificationVerificationValue.equalsIgnoreCase("off")){
-				//Specific to SSL
-				client = hostIgnoringClient();
-			}else{
-				//With out SSL
-				client = Client.create(new DefaultClientConfig());
-			}
-			 WebResource resource = client.resource(url);
-			
-			
-			//WebResource resource = Client.create(new DefaultClientConfig()).resource(url);
-
-			// If url query parameters are present
-			if ((urlQueryParameters != null) && (urlQueryParameters.keySet().toArray().length > 0)) {
-				MultivaluedMap<String, String> queryParams = convertHashTableToMultivaluedMap(urlQueryParameters);
-				resource = resource.queryParams(queryParams);
-			}
-
-			WebResource.Builder builder = resource.accept(contentType);
-
-			// If request headers are present
-			if ((requestHeaders != null) && (requestHeaders.keySet().toArray().length > 0)) {
-				for (String key : requestHeaders.keySet()) {
-					builder.header(key, requestHeaders.get(key));
-				}
-			}
-
-			if (input == null) {
-				clientResponse = builder.delete(ClientResponse.class);
-			} else {
-				clientResponse = builder.delete(ClientResponse.class, input);
-			}
-
-			LOG.info("Response : "+clientResponse);
-		} catch (Exception e) {
-			LOG.fatal(Log4jUtil.getStackTrace(e));
-			failureReport("Retrieving Client Response ",e.toString());
-			throw new RuntimeException(e);
-		}
-		return clientResponse;
+		return execute(RESTRequest.of("DELETE", url, input, requestHeaders, urlQueryParameters, contentType, null));
 	}
 
 	/**
@@ -1350,57 +1183,7 @@ public class RESTActions {
 	 */
 	public ClientResponse deleteClientResponse(String url, Hashtable<String, String> requestHeaders,
 			Hashtable<String, String> urlQueryParameters, String contentType, Hashtable<String, String> options) throws Throwable {
-		ClientResponse clientResponse = null;
-		Client client = null;
-
-		try {
-			LOG.info("Class name : " + getCallerClassName() + "Method name : " + getCallerMethodName());
-			if(isSSLCertificationVerificationValue==null){
-				isSSLCertificationVerificationValue="ON";
-			}
-			
-			if(isSSLCertificationVerificationValue.equalsIgnoreCase("off")){
-				//Specific to SSL
-				client = hostIgnoringClient();
-			}else{
-				//With out SSL
-				client = Client.create(new DefaultClientConfig());
-			}
-			 WebResource resource = client.resource(url);
-			
-			
-			//WebResource resource = Client.create(new DefaultClientConfig()).resource(url);
-
-			// If url query parameters are present
-			if ((urlQueryParameters != null) && (urlQueryParameters.keySet().toArray().length > 0)) {
-				MultivaluedMap<String, String> queryParams = convertHashTableToMultivaluedMap(urlQueryParameters);
-				resource = resource.queryParams(queryParams);
-			}
-
-			WebResource.Builder builder = resource.accept(contentType);
-
-			// If request headers are present
-			if ((requestHeaders != null) && (requestHeaders.keySet().toArray().length > 0)) {
-				for (String key : requestHeaders.keySet()) {
-					builder.header(key, requestHeaders.get(key));
-				}
-			}
-
-			clientResponse = builder.delete(ClientResponse.class);
-
-			LOG.info("Response : "+clientResponse);
-		} catch (Exception e) {
-			
-			//IF exception handling is disabled then exception will not be thrown and failure report is not added.
-			//Below logic is added for handling the negative scenarios(i.e. test scripts).
-			if(!isExceptionDisabled(options)){
-				LOG.fatal(Log4jUtil.getStackTrace(e));
-				e.printStackTrace();
-				failureReport("Retrieving Client Response ",e.toString());
-				throw new RuntimeException(e);
-			}			
-		}
-		return clientResponse;
+		return execute(RESTRequest.of("DELETE", url, null, requestHeaders, urlQueryParameters, contentType, options));
 	}	
 	/**<pre>
 	 * Generic to process the "GET" request
@@ -1429,7 +1212,7 @@ public class RESTActions {
 			MultivaluedMap<String, String> multivaluedMap = clientResponse.getHeaders();
 
 			// If multivaluedMap is not null and length greater than zero
-			if ((multivaluedMap != null) && (multivaluedMap.keySet().toArray().length > 0)) {
+			if ((multivaluedMap != null) && !multivaluedMap.isEmpty()) {
 				responseHeaderAndResponseBodyTable = new Hashtable<String, String>();
 				for (String key : multivaluedMap.keySet()) {
 					responseHeaderAndResponseBodyTable.put(key, multivaluedMap.get(key).get(0));
@@ -1597,29 +1380,6 @@ public class RESTActions {
 		return responseHeaderAndResponseBodyTable;
 	}	
 	
-	/**<pre>
-	 * Converts the Hashtable to MultivaluedMap. MultivaluedMap is used to
-	 * construct the url with query parameters.
-	 * </pre>
-	 * @param urlQueryParameters java.util.Hashtable&lt;String, String&gt;
-	 * @return queryParams as javax.ws.rs.core.MultivaluedMap&lt;String,String&gt;
-	 * @throws Exception
-	 */
-	private MultivaluedMap<String, String> convertHashTableToMultivaluedMap(
-			Hashtable<String, String> urlQueryParameters) throws Exception {
-		MultivaluedMap<String, String> queryParams = null;
-		if (urlQueryParameters == null || urlQueryParameters.size() == 0) {
-			throw new Exception("url parameters are missing.");
-		}
-
-		queryParams = new MultivaluedMapImpl();
-		for (String reqKey : urlQueryParameters.keySet()) {
-			queryParams.add(reqKey, urlQueryParameters.get(reqKey));
-		}
-
-		return queryParams;
-	}
-
 	/**<pre>
 	 * Converts the inputXml(i.e. String xml) into org.w3c.dom.Document and returns the org.w3c.dom.Document object.
 	 *  - use XmlUtil.getXMLDocumentObject(String inputXml), since this method is deprecated.
@@ -1666,24 +1426,130 @@ public class RESTActions {
 	}
 	
 	/**<pre>
-	 * Verify the jsonData(i.e. json string) against the jsonPathExpressaion and expectedValue.
-	 *   - This method verify against only single jsonItem/JsonElement         
-	 * </pre>           
+	 * Parses the jsonData once, the returned document can be passed to the assert methods for verifying any number
+	 * of jsonElements without parsing the jsonData again.
+	 * 
+	 * Ex: RESTJsonDocument document = restActions.parseJson(jsonResponse);
+	 *     restActions.assertJsonElement(document, "$.account.id", "1001", "Account Id");
+	 *     restActions.assertJsonElement(document, "$.account.status", "ACTIVE", "Account Status");
+	 * </pre>
 	 * @param jsonData input jsonData as java.lang.String
-	 * @param jsonPathExpression jsonPathExpression as java.lang.String 
-	 * @param expectedValue jsonValue to compare in jsonData based on jsonPathExpression
+	 * @return RESTJsonDocument parsed json document
+	 */
+	public RESTJsonDocument parseJson(String jsonData) {
+		RESTJsonDocument document = new RESTJsonDocument(jsonData);
+		lastParsedJson = document;
+		return document;
+	}
+
+	/**<pre>
+	 * Compiles the jsonPathExpression, the compiled path can be passed to the assert methods and reused by all the tests.
+	 *  - Paths are compiled once and cached at JVM level(i.e. RESTJsonPathCache), the String based assert methods
+	 *    use the same cache.
+	 * 
+	 * Ex: private static final JsonPath ACCOUNT_ID = RESTActions.compileJsonPath("$.account.id");
+	 * </pre>
+	 * @param jsonPathExpression jsonPathExpression as java.lang.String
+	 * @return com.jayway.jsonpath.JsonPath compiled json path
+	 */
+	public static JsonPath compileJsonPath(String jsonPathExpression) {
+		return RESTJsonPathCache.getInstance().compile(jsonPathExpression);
+	}
+
+	/**
+	 * Returns the last parsed document if it is parsed from the same jsonData instance, otherwise parses the jsonData.
+	 * Assert methods are usually called many times with the same response, so the response is parsed only once.
+	 */
+	private RESTJsonDocument getParsedJson(String jsonData) {
+		RESTJsonDocument document = lastParsedJson;
+		if (document != null && document.getJsonData() == jsonData) {
+			return document;
+		}
+		return parseJson(jsonData);
+	}
+
+	/**<pre>
+	 * Verify the jsonData(i.e. json string) against the jsonPathExpressaion and expectedValue.
+	 *   - This method verify against only single jsonItem/JsonElement         
+	 *   - jsonData is parsed only once when the same jsonData is verified again, see parseJson.
+	 * </pre>           
+	 * @param jsonData input jsonData as java.lang.String
+	 * @param jsonPathExpression jsonPathExpression as java.lang.String 
+	 * @param expectedValue jsonValue to compare in jsonData based on jsonPathExpression
 	 * @param fieldNameForCustomReport value supplied with be used in customReport 
 	 * @return boolean true if condition matches else returns false
 	 * @throws Throwable java.lang.Exception
 	 */
 	public boolean assertJsonElement(String jsonData, String jsonPathExpression, String expectedValue,
 			String fieldNameForCustomReport) throws Throwable {
+		return verifyJsonElement(jsonData, null, null, jsonPathExpression, expectedValue, fieldNameForCustomReport);
+	}
+
+	/**<pre>
+	 * Verify the jsonData(i.e. json string) against the compiled json path and expectedValue.
+	 *   - This method verify against only single jsonItem/JsonElement         
+	 * </pre>           
+	 * @param jsonData input jsonData as java.lang.String
+	 * @param jsonPath json path returned by compileJsonPath
+	 * @param expectedValue jsonValue to compare in jsonData based on jsonPath
+	 * @param fieldNameForCustomReport value supplied with be used in customReport 
+	 * @return boolean true if condition matches else returns false
+	 * @throws Throwable java.lang.Exception
+	 */
+	public boolean assertJsonElement(String jsonData, JsonPath jsonPath, String expectedValue,
+			String fieldNameForCustomReport) throws Throwable {
+		return verifyJsonElement(jsonData, null, jsonPath, null, expectedValue, fieldNameForCustomReport);
+	}
+
+	/**<pre>
+	 * Verify the parsed json document against the jsonPathExpressaion and expectedValue.
+	 *   - This method verify against only single jsonItem/JsonElement         
+	 * </pre>           
+	 * @param document json document returned by parseJson
+	 * @param jsonPathExpression jsonPathExpression as java.lang.String 
+	 * @param expectedValue jsonValue to compare in jsonData based on jsonPathExpression
+	 * @param fieldNameForCustomReport value supplied with be used in customReport 
+	 * @return boolean true if condition matches else returns false
+	 * @throws Throwable java.lang.Exception
+	 */
+	public boolean assertJsonElement(RESTJsonDocument document, String jsonPathExpression, String expectedValue,
+			String fieldNameForCustomReport) throws Throwable {
+		return verifyJsonElement(document.getJsonData(), document, null, jsonPathExpression, expectedValue, fieldNameForCustomReport);
+	}
+
+	/**<pre>
+	 * Verify the parsed json document against the compiled json path and expectedValue.
+	 *   - This method verify against only single jsonItem/JsonElement         
+	 * </pre>           
+	 * @param document json document returned by parseJson
+	 * @param jsonPath json path returned by compileJsonPath
+	 * @param expectedValue jsonValue to compare in jsonData based on jsonPath
+	 * @param fieldNameForCustomReport value supplied with be used in customReport 
+	 * @return boolean true if condition matches else returns false
+	 * @throws Throwable java.lang.Exception
+	 */
+	public boolean assertJsonElement(RESTJsonDocument document, JsonPath jsonPath, String expectedValue,
+			String fieldNameForCustomReport) throws Throwable {
+		return verifyJsonElement(document.getJsonData(), document, jsonPath, null, expectedValue, fieldNameForCustomReport);
+	}
+
+	/**
+	 * Verifies the json element, either the compiled jsonPath or the jsonPathExpression is passed.
+	 */
+	private boolean verifyJsonElement(String jsonData, RESTJsonDocument document, JsonPath jsonPath, String jsonPathExpression,
+			String expectedValue, String fieldNameForCustomReport) throws Throwable {
 		String actualVal = null;
 		boolean flag = true;
 		try {
-			LOG.info("Class name : " + getCallerClassName() + "Method name : " + getCallerMethodName());
+			RESTLog.logCaller(LOG);
 
-			actualVal = JsonUtil.getJsonElement(jsonData, jsonPathExpression);
+			if (document == null) {
+				document = getParsedJson(jsonData);
+			}
+			if (jsonPath == null) {
+				jsonPath = RESTJsonPathCache.getInstance().compile(jsonPathExpression);
+			}
+			actualVal = document.getJsonElement(jsonPath);
             if(actualVal == null){
             	failureReportForJsonWebService("Verifying property value :: " + fieldNameForCustomReport,
 						"Retrieved Property value is not as expected  ::" + actualVal, jsonData);
@@ -1726,7 +1592,7 @@ public class RESTActions {
 		String actualVal = null;
 		boolean flag = true;		
 		try {
-			LOG.info("Class name : " + getCallerClassName() + "Method name : " + getCallerMethodName());
+			RESTLog.logCaller(LOG);
 
 			actualVal = XmlUtil.getXmlElement(xmlData, xmlPathExpression);
 
@@ -1760,6 +1626,7 @@ public class RESTActions {
 	/**<pre>
 	 * Verify the jsonData(i.e. json string) against the jsonPathExpressaion and expectedData.
 	 *   - This method verify against multiple jsonItem/JsonElement, with in the single parent JsonItem/JsonElement         
+	 *   - jsonData is parsed only once for all the jsonItems, see parseJson.
 	 * </pre>
 	 * @param jsonData input jsonData as java.lang.String
 	 * @param jsonPathExpression jsonPathExpression as java.lang.String 
@@ -1768,7 +1635,7 @@ public class RESTActions {
 	 * @throws Throwable java.lang.Throwable
 	 */
 	public boolean assertJsonElements(String jsonData, String jsonPathExpression, Hashtable<String, String> expectedData) throws Throwable {
-		LOG.info("Class name : " + getCallerClassName() + "Method name : " + getCallerMethodName());
+		RESTLog.logCaller(LOG);
 		
 		if(jsonData==null || jsonData.trim().length()==0){
 			LOG.error("Json data is null or blank");
@@ -1805,6 +1672,49 @@ public class RESTActions {
 		}
 	}
 
+	/**<pre>
+	 * Verify the parsed json document against the jsonPathExpressaion and expectedData.
+	 *   - This method verify against multiple jsonItem/JsonElement, with in the single parent JsonItem/JsonElement         
+	 * </pre>
+	 * @param document json document returned by parseJson
+	 * @param jsonPathExpression jsonPathExpression as java.lang.String 
+	 * @param expectedData java.util.Hashtable
+	 *        expectedData(i.e. Hashtable) should contain both the jsonItem name and its value.             
+	 * @throws Throwable java.lang.Throwable
+	 */
+	public boolean assertJsonElements(RESTJsonDocument document, String jsonPathExpression, Hashtable<String, String> expectedData) throws Throwable {
+		RESTLog.logCaller(LOG);
+		
+		if(jsonPathExpression==null || jsonPathExpression.trim().length()==0){
+			LOG.error("jsonPathExpression is null or blank");
+			return false;
+		}		
+		
+		if(expectedData==null || expectedData.size()==0){
+			LOG.error("expectedData is null or blank");
+			return false;
+		}
+		
+		
+		List<Boolean> flagList = new ArrayList<Boolean>() ;
+		jsonPathExpression = jsonPathExpression.trim();
+		
+		for(String key : expectedData.keySet()){
+			try{
+				boolean flag = assertJsonElement(document, jsonPathExpression+"."+key, expectedData.get(key), key);
+				flagList.add(flag);
+			}catch (Exception e) {
+				LOG.error(Log4jUtil.getStackTrace(e));
+			}
+		}
+		
+		if(flagList.contains(false)){
+			return false;
+		}else{
+			return true;
+		}
+	}
+
 	/**<pre>
 	 * Verify the xmlData(i.e. xml string) against the xmlPathExpressaion and expectedData.
 	 *   - This method verify against multiple xmlItem/XmlElement, with in the single parent XmlItem/XmlElement
@@ -1816,7 +1726,7 @@ public class RESTActions {
 	 * @throws Throwable java.lang.Throwable
 	 */
 	public void assertXmlElements(String xmlData, String xmlPathExpression, Hashtable<String, String> expectedData) throws Throwable {
-		LOG.info("Class name : " + getCallerClassName() + "Method name : " + getCallerMethodName());
+		RESTLog.logCaller(LOG);
 		
 		if(xmlData==null || xmlData.trim().length()==0){
 			LOG.error("Xml data is null or blank");
@@ -1844,26 +1754,6 @@ public class RESTActions {
 		}
 	}
 	
-	/**
-	 * getCallerClassName
-	 * 
-	 * @return String
-	 */
-	private static String getCallerClassName() {
-		StackTraceElement[] stElements = Thread.currentThread().getStackTrace();
-		return stElements[3].getClassName();
-	}
-
-	/**
-	 * getCallerMethodName
-	 * 
-	 * @return String
-	 */
-	private static String getCallerMethodName() {
-		StackTraceElement[] stElements = Thread.currentThread().getStackTrace();
-		return stElements[3].getMethodName();
-	}
-	
 	/**
 	 * Compares two string values
 	 * @param actText text1
@@ -1874,7 +1764,7 @@ public class RESTActions {
 		boolean flag = false;
 		try {
 			LOG.info("+++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++");
-			LOG.info("Class name : " + getCallerClassName() + "Method name : " + getCallerMethodName());
+			RESTLog.logCaller(LOG);
 			String ActualText = actText.trim();
 			LOG.info("act - " + ActualText);
 			LOG.info("exp - " + expText);
@@ -1898,30 +1788,6 @@ public class RESTActions {
 		return flag;
 	}
 
-	private void addPatchToArrayReflection(){
-		try {
-			Field methodsField = HttpURLConnection.class.getDeclaredField("methods");
-			methodsField.setAccessible(true);
-			// get the methods field modifiers
-			Field modifiersField = Field.class.getDeclaredField("modifiers");
-			// bypass the "private" modifier
-			modifiersField.setAccessible(true);
-
-			// remove the "final" modifier
-			modifiersField.setInt(methodsField, methodsField.getModifiers() & ~Modifier.FINAL);
-
-			/* valid HTTP methods */
-			String[] methods = {
-					"GET", "POST", "HEAD", "OPTIONS", "PUT", "DELETE", "TRACE", "PATCH"
-			};
-			// set the new methods - including patch
-			methodsField.set(null, methods);
-
-		} catch (SecurityException | IllegalArgumentException | IllegalAccessException | NoSuchFieldException e) {
-			e.printStackTrace();
-		}
-	}
- 
 	/**
 	 * Generic to process the "PATCH" request.
 	 * 
@@ -1938,47 +1804,7 @@ public class RESTActions {
 	 */
 	public ClientResponse patchClientResponse(String url, String input, Hashtable<String, String> requestHeaders,
 			Hashtable<String, String> urlQueryParameters, String contentType) throws Throwable {
-		ClientResponse clientResponse = null;
-		try {
-			
-			DefaultClientConfig config = new DefaultClientConfig();
-
-			//https://stackoverflow.com/questions/22355235/patch-request-using-jersey-client/26341128
-			config.getProperties().put(URLConnectionClientHandler.PROPERTY_HTTP_URL_CONNECTION_SET_METHOD_WORKAROUND, true);
-
-			WebResource resource = Client.create(config).resource(url);
-
-			addPatchToArrayReflection();
-
-			// If url query parameters are present
-			if ((urlQueryParameters != null) && (urlQueryParameters.keySet().toArray().length > 0)) {
-				MultivaluedMap<String, String> queryParams = convertHashTableToMultivaluedMap(urlQueryParameters);
-				resource = resource.queryParams(queryParams);
-			}
-
-			WebResource.Builder builder = resource.accept(contentType);
-
-			// If request headers are present
-			if ((requestHeaders != null) && (requestHeaders.keySet().toArray().length > 0)) {
-				for (String key : requestHeaders.keySet()) {
-					builder.header(key, requestHeaders.get(key));
-				}
-			}
-
-			if (input == null) {
-				clientResponse = builder.method("PATCH", ClientResponse.class);
-			} else {
-				clientResponse = builder.method("PATCH", ClientResponse.class, input);
-			}
-
-			LOG.info("Response : "+clientResponse);
-		} catch (Exception e) {
-			LOG.fatal(Log4jUtil.getStackTrace(e));
-			e.printStackTrace();
-			failureReport("Retrieving Client Response ",e.toString());			
-			throw new RuntimeException(e);
-		}
-		return clientResponse;
+		return execute(RESTRequest.of("PATCH", url, input, requestHeaders, urlQueryParameters, contentType, null));
 	}	
 
 	/**
@@ -1999,52 +1825,7 @@ public class RESTActions {
 	 */
 	public ClientResponse patchClientResponse(String url, String input, Hashtable<String, String> requestHeaders,
 			Hashtable<String, String> urlQueryParameters, String contentType, Hashtable<String, String> options) throws Throwable {
-		ClientResponse clientResponse = null;
-		try {
-			
-			DefaultClientConfig config = new DefaultClientConfig();
-
-			//https://stackoverflow.com/questions/22355235/patch-request-using-jersey-client/26341128
-			config.getProperties().put(URLConnectionClientHandler.PROPERTY_HTTP_URL_CONNECTION_SET_METHOD_WORKAROUND, true);
-
-			WebResource resource = Client.create(config).resource(url);
-
-			addPatchToArrayReflection();
-
-			// If url query parameters are present
-			if ((urlQueryParameters != null) && (urlQueryParameters.keySet().toArray().length > 0)) {
-				MultivaluedMap<String, String> queryParams = convertHashTableToMultivaluedMap(urlQueryParameters);
-				resource = resource.queryParams(queryParams);
-			}
-
-			WebResource.Builder builder = resource.accept(contentType);
-
-			// If request headers are present
-			if ((requestHeaders != null) && (requestHeaders.keySet().toArray().length > 0)) {
-				for (String key : requestHeaders.keySet()) {
-					builder.header(key, requestHeaders.get(key));
-				}
-			}
-
-			if (input == null) {
-				clientResponse = builder.method("PATCH", ClientResponse.class);
-			} else {
-				clientResponse = builder.method("PATCH", ClientResponse.class, input);
-			}
-
-			LOG.info("Response : "+clientResponse);
-		} catch (Exception e) {
-			
-			//IF exception handling is disabled then exception will not be thrown and failure report is not added.
-			//Below logic is added for handling the negative scenarios(i.e. test scripts).
-			if(!isExceptionDisabled(options)){
-				LOG.fatal(Log4jUtil.getStackTrace(e));
-				e.printStackTrace();
-				failureReport("Retrieving Client Response ",e.toString());
-				throw new RuntimeException(e);
-			}			
-		}
-		return clientResponse;
+		return execute(RESTRequest.of("PATCH", url, input, requestHeaders, urlQueryParameters, contentType, options));
 	}	
 
 	/**<pre>
@@ -2077,7 +1858,7 @@ public class RESTActions {
 			MultivaluedMap<String, String> multivaluedMap = clientResponse.getHeaders();
 
 			// If multivaluedMap is not null and length greater than zero
-			if ((multivaluedMap != null) && (multivaluedMap.keySet().toArray().length > 0)) {
+			if ((multivaluedMap != null) && !multivaluedMap.isEmpty()) {
 				responseHeaderAndResponseBodyTable = new Hashtable<String, String>();
 				for (String key : multivaluedMap.keySet()) {
 					responseHeaderAndResponseBodyTable.put(key, multivaluedMap.get(key).get(0));
@@ -2226,6 +2007,420 @@ public class RESTActions {
 		return clientResponse;
 	}
 	
+	/**<pre>
+	 * Asynchronous "GET" request
+	 *  - Request is executed on the asynchronous executor of RESTClientRegistry, failures are added to the custom report
+	 *    by the calling thread(i.e. on its next report step or flush) same as getClientResponse and the future is completed exceptionally.
+	 * </pre>
+	 * @param url End point url
+	 * @param requestHeaders Request header information,<br> 
+	 * 							 if 'headerParameters' are null then 'headerParameters' are ignored.  
+	 * @param urlQueryParameters url parameters, <br>
+	 * 							   if 'urlQueryParameters' are null then 'urlQueryParameters' are ignored.  
+	 * @param contentType java.lang.String<br>
+	 *                      Ex: contentType = "application/json"
+	 * @return java.util.concurrent.CompletableFuture&lt;RESTResponse&gt;
+	 */
+	public CompletableFuture<RESTResponse> getAsync(String url, Hashtable<String, String> requestHeaders,
+			Hashtable<String, String> urlQueryParameters, String contentType) {
+		Hashtable<String, String> headers = copyOf(requestHeaders);
+		Hashtable<String, String> queryParameters = copyOf(urlQueryParameters);
+		return supplyAsync(() -> getClientResponse(url, headers, queryParameters, contentType));
+	}
+
+	/**<pre>
+	 * Asynchronous "POST" request
+	 *  - Request is executed on the asynchronous executor of RESTClientRegistry, failures are added to the custom report
+	 *    by the calling thread(i.e. on its next report step or flush) same as postClientResponse and the future is completed exceptionally.
+	 * </pre>
+	 * @param url End point url
+	 * @param input input restWebservices request input data 
+	 * @param requestHeaders Request header information,<br> 
+	 * 							 if 'headerParameters' are null then 'headerParameters' are ignored.  
+	 * @param urlQueryParameters url parameters, <br>
+	 * 							   if 'urlQueryParameters' are null then 'urlQueryParameters' are ignored.  
+	 * @param contentType java.lang.String<br>
+	 *                      Ex: contentType = "application/json"
+	 * @return java.util.concurrent.CompletableFuture&lt;RESTResponse&gt;
+	 */
+	public CompletableFuture<RESTResponse> postAsync(String url, String input, Hashtable<String, String> requestHeaders,
+			Hashtable<String, String> urlQueryParameters, String contentType) {
+		Hashtable<String, String> headers = copyOf(requestHeaders);
+		Hashtable<String, String> queryParameters = copyOf(urlQueryParameters);
+		return supplyAsync(() -> postClientResponse(url, input, headers, queryParameters, contentType));
+	}
+
+	/**<pre>
+	 * Asynchronous "PUT" request
+	 *  - Request is executed on the asynchronous executor of RESTClientRegistry, failures are added to the custom report
+	 *    by the calling thread(i.e. on its next report step or flush) same as putClientResponse and the future is completed exceptionally.
+	 * </pre>
+	 * @param url End point url
+	 * @param input input restWebservices request input data 
+	 * @param requestHeaders Request header information,<br> 
+	 * 							 if 'headerParameters' are null then 'headerParameters' are ignored.  
+	 * @param urlQueryParameters url parameters, <br>
+	 * 							   if 'urlQueryParameters' are null then 'urlQueryParameters' are ignored.  
+	 * @param contentType java.lang.String<br>
+	 *                      Ex: contentType = "application/json"
+	 * @return java.util.concurrent.CompletableFuture&lt;RESTResponse&gt;
+	 */
+	public CompletableFuture<RESTResponse> putAsync(String url, String input, Hashtable<String, String> requestHeaders,
+			Hashtable<String, String> urlQueryParameters, String contentType) {
+		Hashtable<String, String> headers = copyOf(requestHeaders);
+		Hashtable<String, String> queryParameters = copyOf(urlQueryParameters);
+		return supplyAsync(() -> putClientResponse(url, input, headers, queryParameters, contentType));
+	}
+
+	/**<pre>
+	 * Asynchronous "DELETE" request
+	 *  - Request is executed on the asynchronous executor of RESTClientRegistry, failures are added to the custom report
+	 *    by the calling thread(i.e. on its next report step or flush) same as deleteClientResponse and the future is completed exceptionally.
+	 * </pre>
+	 * @param url End point url
+	 * @param requestHeaders Request header information,<br> 
+	 * 							 if 'headerParameters' are null then 'headerParameters' are ignored.  
+	 * @param urlQueryParameters url parameters, <br>
+	 * 							   if 'urlQueryParameters' are null then 'urlQueryParameters' are ignored.  
+	 * @param contentType java.lang.String<br>
+	 *                      Ex: contentType = "application/json"
+	 * @return java.util.concurrent.CompletableFuture&lt;RESTResponse&gt;
+	 */
+	public CompletableFuture<RESTResponse> deleteAsync(String url, Hashtable<String, String> requestHeaders,
+			Hashtable<String, String> urlQueryParameters, String contentType) {
+		Hashtable<String, String> headers = copyOf(requestHeaders);
+		Hashtable<String, String> queryParameters = copyOf(urlQueryParameters);
+		return supplyAsync(() -> deleteClientResponse(url, headers, queryParameters, contentType));
+	}
+
+	/**<pre>
+	 * Asynchronous "PATCH" request
+	 *  - Request is executed on the asynchronous executor of RESTClientRegistry, failures are added to the custom report
+	 *    by the calling thread(i.e. on its next report step or flush) same as patchClientResponse and the future is completed exceptionally.
+	 * </pre>
+	 * @param url End point url
+	 * @param input input restWebservices request input data 
+	 * @param requestHeaders Request header information,<br> 
+	 * 							 if 'headerParameters' are null then 'headerParameters' are ignored.  
+	 * @param urlQueryParameters url parameters, <br>
+	 * 							   if 'urlQueryParameters' are null then 'urlQueryParameters' are ignored.  
+	 * @param contentType java.lang.String<br>
+	 *                      Ex: contentType = "application/json"
+	 * @return java.util.concurrent.CompletableFuture&lt;RESTResponse&gt;
+	 */
+	public CompletableFuture<RESTResponse> patchAsync(String url, String input, Hashtable<String, String> requestHeaders,
+			Hashtable<String, String> urlQueryParameters, String contentType) {
+		Hashtable<String, String> headers = copyOf(requestHeaders);
+		Hashtable<String, String> queryParameters = copyOf(urlQueryParameters);
+		return supplyAsync(() -> patchClientResponse(url, input, headers, queryParameters, contentType));
+	}
+
+	/**
+	 * Request which returns the jersey ClientResponse, used for executing the requests asynchronously.
+	 */
+	private interface ClientResponseCall {
+		ClientResponse call() throws Throwable;
+	}
+
+	/**
+	 * Executes the request on the asynchronous executor of RESTClientRegistry and reads the response completely.
+	 * 
+	 * @param call request to be executed
+	 * @return java.util.concurrent.CompletableFuture&lt;RESTResponse&gt;
+	 */
+	private CompletableFuture<RESTResponse> supplyAsync(ClientResponseCall call) {
+		return CompletableFuture.supplyAsync(() -> {
+			asyncRequestThread.set(Boolean.TRUE);
+			try {
+				return RESTResponse.from(call.call());
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new CompletionException(e);
+			} finally {
+				asyncRequestThread.remove();
+			}
+		}, RESTClientRegistry.getInstance().getAsyncExecutor());
+	}
+
+	/**
+	 * Copies the request headers/url parameters, so the caller can reuse them while the request is in progress.
+	 */
+	private static Hashtable<String, String> copyOf(Hashtable<String, String> table) {
+		return (table == null) ? null : new Hashtable<String, String>(table);
+	}
+
+	/**<pre>
+	 * Executes the requests concurrently, at most 'maxConcurrency' requests are in flight at a time.
+	 *  - Responses are returned in the order of the requests, the response bodies are read completely.
+	 *  - Only one step is added to the custom report for the whole batch(i.e. request count, failures, status codes and elapsed time),
+	 *    individual requests are not reported.
+	 *  - If a request fails and the exception handling is NOT disabled for the request(i.e. RESTConstants.DISABLE_EXCEPTIONS option),
+	 *    then the failure step is added and RuntimeException is thrown after all the requests are completed.
+	 *  - If the exception handling is disabled for the request, then the failure is ignored and the response is null.
+	 *  - When the batch timeout is elapsed, the requests in progress are cancelled and reported as failed(TimeoutException),
+	 *    only the requests completed before the timeout are in the responses and the report.
+	 *  - With maxConcurrency 1 the requests are sent from the current thread, or from one worker thread when the batch timeout is set.
+	 * 
+	 * Ex: List&lt;RESTRequest&gt; requests = new ArrayList&lt;&gt;();
+	 *     for (String account : accounts) {
+	 *         requests.add(RESTRequest.post(url, account).withHeaders(headers));
+	 *     }
+	 *     List&lt;RESTResponse&gt; responses = restActions.executeBatch(requests, new RESTBatchOptions().maxConcurrency(32));
+	 * </pre>
+	 * @param requests requests to be executed
+	 * @param batchOptions options of the batch, default options are used if null
+	 * @return java.util.List&lt;RESTResponse&gt; responses in the order of the requests
+	 */
+	public List<RESTResponse> executeBatch(List<RESTRequest> requests, RESTBatchOptions batchOptions) {
+		RESTBatchOptions options = (batchOptions == null) ? new RESTBatchOptions() : batchOptions;
+		List<RESTRequest> batch = new ArrayList<RESTRequest>(requests);
+		int size = batch.size();
+		// Result(RESTResponse or Throwable) of every request, set only once so the late results are not taken after the timeout
+		AtomicReferenceArray<Object> results = new AtomicReferenceArray<Object>(size);
+		AtomicInteger nextIndex = new AtomicInteger();
+		AtomicBoolean stopped = new AtomicBoolean();
+
+		long startTime = System.nanoTime();
+		int workerCount = Math.min(options.getMaxConcurrency(), size);
+		if (workerCount == 1 && options.getTimeoutInSeconds() == 0) {
+			runBatchWorker(batch, results, nextIndex, stopped, options.isFailFast());
+		} else if (workerCount > 0) {
+			// Batch timeout is enforced by the workers path, even for a single worker
+			// Requests sent from the workers are notified to the listener of the current thread as well.
+			RESTRequestListener currentThreadListener = RESTRequestListenerFilter.getThreadListener();
+			AtomicInteger threadCount = new AtomicInteger();
+			ExecutorService workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+				Thread thread = new Thread(runnable, "rest-batch-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+			for (int i = 0; i < workerCount; i++) {
+				workers.execute(() -> {
+					RESTRequestListenerFilter.setThreadListener(currentThreadListener);
+					try {
+						runBatchWorker(batch, results, nextIndex, stopped, options.isFailFast());
+					} finally {
+						RESTRequestListenerFilter.setThreadListener(null);
+					}
+				});
+			}
+			workers.shutdown();
+			long timeoutInSeconds = options.getTimeoutInSeconds();
+			try {
+				if (!workers.awaitTermination((timeoutInSeconds == 0) ? Long.MAX_VALUE : timeoutInSeconds, TimeUnit.SECONDS)) {
+					cancelBatch(results, nextIndex, stopped, workers, "Request is not completed in the batch timeout of " + timeoutInSeconds + " seconds");
+				}
+			} catch (InterruptedException e) {
+				cancelBatch(results, nextIndex, stopped, workers, "Batch is interrupted");
+				Thread.currentThread().interrupt();
+			}
+		}
+		long elapsedInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+		// Snapshot of the results, the cancelled requests can't be changed by the straggler workers any more
+		RESTResponse[] responses = new RESTResponse[size];
+		Throwable[] failures = new Throwable[size];
+		for (int i = 0; i < size; i++) {
+			Object result = results.get(i);
+			if (result instanceof RESTResponse) {
+				responses[i] = (RESTResponse) result;
+			} else if (result instanceof Throwable) {
+				failures[i] = (Throwable) result;
+			}
+		}
+
+		return reportBatch(batch, responses, failures, options, workerCount, elapsedInMillis);
+	}
+
+	/**
+	 * Takes the next request of the batch till all the requests are taken or the batch is stopped.
+	 * The result is discarded if the request is cancelled meanwhile(i.e. batch timeout).
+	 */
+	private void runBatchWorker(List<RESTRequest> batch, AtomicReferenceArray<Object> results,
+			AtomicInteger nextIndex, AtomicBoolean stopped, boolean failFast) {
+		int index;
+		while (!stopped.get() && (index = nextIndex.getAndIncrement()) < batch.size()) {
+			RESTRequest request = batch.get(index);
+			try {
+				results.compareAndSet(index, null, RESTResponse.from(executeRequest(request)));
+			} catch (Throwable e) {
+				if (results.compareAndSet(index, null, e) && failFast && !request.isExceptionDisabled()) {
+					stopped.set(true);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stops the batch and cancels the requests in progress(i.e. interrupts the workers), the requests in progress
+	 * are failed with TimeoutException and the requests not taken yet are left as not sent.
+	 */
+	private static void cancelBatch(AtomicReferenceArray<Object> results, AtomicInteger nextIndex, AtomicBoolean stopped,
+			ExecutorService workers, String reason) {
+		stopped.set(true);
+		workers.shutdownNow();
+		int takenCount = Math.min(nextIndex.get(), results.length());
+		for (int i = 0; i < results.length(); i++) {
+			results.compareAndSet(i, null, (i < takenCount) ? new TimeoutException(reason) : BATCH_REQUEST_NOT_SENT);
+		}
+	}
+
+	/**
+	 * Adds the aggregated step of the batch to the custom report, throws RuntimeException if a request failed
+	 * and the exception handling is not disabled for the request.
+	 */
+	private List<RESTResponse> reportBatch(List<RESTRequest> batch, RESTResponse[] responses, Throwable[] failures,
+			RESTBatchOptions options, int workerCount, long elapsedInMillis) {
+		TreeMap<Integer, Integer> statusCounts = new TreeMap<Integer, Integer>();
+		int failedCount = 0;
+		int notSentCount = 0;
+		Throwable firstFailure = null;
+		StringBuilder failedRequests = new StringBuilder();
+		for (int i = 0; i < batch.size(); i++) {
+			if (responses[i] != null) {
+				statusCounts.merge(responses[i].getStatus(), 1, Integer::sum);
+				continue;
+			}
+			if (failures[i] == null) {
+				notSentCount++;
+				failures[i] = new IllegalStateException("Request is not sent, the batch is stopped");
+			} else {
+				failedCount++;
+			}
+			if (batch.get(i).isExceptionDisabled()) {
+				continue;
+			}
+			if (firstFailure == null) {
+				firstFailure = failures[i];
+			}
+			if (failedRequests.length() < 2000) {
+				failedRequests.append("<br>").append(batch.get(i)).append(" :: ").append(failures[i]);
+			}
+		}
+
+		String description = "Requests : " + batch.size() + ", Failed : " + failedCount + ", Not sent : " + notSentCount
+				+ ", Status codes : " + statusCounts + ", Concurrency : " + workerCount + ", Elapsed : " + elapsedInMillis + " ms";
+		LOG.info(options.getStepName() + " :: " + description);
+		if (firstFailure != null) {
+			LOG.fatal(Log4jUtil.getStackTrace(firstFailure));
+			failureReport(options.getStepName(), description + failedRequests);
+			throw new RuntimeException(firstFailure);
+		}
+		successReport(options.getStepName(), description);
+		return Arrays.asList(responses);
+	}
+	
+	/**<pre>
+	 * Sends the request and returns the response body as stream, the body is never loaded into the heap as a String.
+	 *  - Use this method for the large responses(ex: bulk exports), instead of the *ResponseAsString methods.
+	 *  - Returned response must be closed, use try-with-resources or withResponseStream.
+	 * </pre>
+	 * @param httpMethod GET, POST, PUT, DELETE or PATCH
+	 * @param url End point url
+	 * @param input input restWebservices request input data, null if there is no request body
+	 * @param requestHeaders Request header information,<br> 
+	 * 							 if 'headerParameters' are null then 'headerParameters' are ignored.  
+	 * @param urlQueryParameters url parameters, <br>
+	 * 							   if 'urlQueryParameters' are null then 'urlQueryParameters' are ignored.  
+	 * @param contentType java.lang.String<br>
+	 *                      Ex: contentType = "application/json"
+	 * @return RESTStreamingResponse
+	 */
+	public RESTStreamingResponse openResponseStream(String httpMethod, String url, String input, Hashtable<String, String> requestHeaders,
+			Hashtable<String, String> urlQueryParameters, String contentType) {
+		return openResponseStream(httpMethod, url, input, requestHeaders, urlQueryParameters, contentType, null);
+	}
+
+	/**<pre>
+	 * Sends the request and returns the response body as stream, the body is never loaded into the heap as a String.
+	 *  - Returned response must be closed, use try-with-resources or withResponseStream.
+	 *  - If the exception handling is disabled for the request(i.e. RESTConstants.DISABLE_EXCEPTIONS option), null is returned
+	 *    when the request fails and the failure is not added to the custom report.
+	 * </pre>
+	 * @param httpMethod GET, POST, PUT, DELETE or PATCH
+	 * @param url End point url
+	 * @param input input restWebservices request input data, null if there is no request body
+	 * @param requestHeaders Request header information,<br> 
+	 * 							 if 'headerParameters' are null then 'headerParameters' are ignored.  
+	 * @param urlQueryParameters url parameters, <br>
+	 * 							   if 'urlQueryParameters' are null then 'urlQueryParameters' are ignored.  
+	 * @param contentType java.lang.String<br>
+	 *                      Ex: contentType = "application/json"
+	 * @param options Options to override the default behavior of the method.<br>
+	 *                      Ex: options.put(RESTConstants.DISABLE_EXCEPTIONS, "true")
+	 * @return RESTStreamingResponse
+	 */
+	public RESTStreamingResponse openResponseStream(String httpMethod, String url, String input, Hashtable<String, String> requestHeaders,
+			Hashtable<String, String> urlQueryParameters, String contentType, Hashtable<String, String> options) {
+		// execute logs the caller, reports every failure(i.e. Error as well) and honours the options
+		ClientResponse clientResponse = execute(RESTRequest.of(httpMethod, url, input, requestHeaders, urlQueryParameters, contentType, options));
+		return (clientResponse == null) ? null : new RESTStreamingResponse(clientResponse);
+	}
+
+	/**<pre>
+	 * Sends the "GET" request and returns the response body as stream.
+	 *  - Returned response must be closed, use try-with-resources or withResponseStream.
+	 * </pre>
+	 * @param url End point url
+	 * @param requestHeaders Request header information,<br> 
+	 * 							 if 'headerParameters' are null then 'headerParameters' are ignored.  
+	 * @param urlQueryParameters url parameters, <br>
+	 * 							   if 'urlQueryParameters' are null then 'urlQueryParameters' are ignored.  
+	 * @param contentType java.lang.String<br>
+	 *                      Ex: contentType = "application/json"
+	 * @return RESTStreamingResponse
+	 */
+	public RESTStreamingResponse getResponseStream(String url, Hashtable<String, String> requestHeaders,
+			Hashtable<String, String> urlQueryParameters, String contentType) {
+		return openResponseStream("GET", url, null, requestHeaders, urlQueryParameters, contentType);
+	}
+
+	/**<pre>
+	 * Sends the "POST" request and returns the response body as stream.
+	 *  - Returned response must be closed, use try-with-resources or withResponseStream.
+	 * </pre>
+	 * @param url End point url
+	 * @param input input restWebservices request input data 
+	 * @param requestHeaders Request header information,<br> 
+	 * 							 if 'headerParameters' are null then 'headerParameters' are ignored.  
+	 * @param urlQueryParameters url parameters, <br>
+	 * 							   if 'urlQueryParameters' are null then 'urlQueryParameters' are ignored.  
+	 * @param contentType java.lang.String<br>
+	 *                      Ex: contentType = "application/json"
+	 * @return RESTStreamingResponse
+	 */
+	public RESTStreamingResponse postResponseStream(String url, String input, Hashtable<String, String> requestHeaders,
+			Hashtable<String, String> urlQueryParameters, String contentType) {
+		return openResponseStream("POST", url, input, requestHeaders, urlQueryParameters, contentType);
+	}
+
+	/**<pre>
+	 * Sends the request, passes the streaming response to the handler and closes the response, even if the handler fails.
+	 * 
+	 * Ex: long count = restActions.withResponseStream("GET", url, null, headers, null, RESTConstants.APPLICATION_JSON,
+	 *                       response -&gt; response.extractJson("$.records[*].id").get("$.records[*].id").size());
+	 * </pre>
+	 * @param httpMethod GET, POST, PUT, DELETE or PATCH
+	 * @param url End point url
+	 * @param input input restWebservices request input data, null if there is no request body
+	 * @param requestHeaders Request header information,<br> 
+	 * 							 if 'headerParameters' are null then 'headerParameters' are ignored.  
+	 * @param urlQueryParameters url parameters, <br>
+	 * 							   if 'urlQueryParameters' are null then 'urlQueryParameters' are ignored.  
+	 * @param contentType java.lang.String<br>
+	 *                      Ex: contentType = "application/json"
+	 * @param handler reads the streaming response
+	 * @return value returned by the handler
+	 * @throws Throwable
+	 */
+	public <T> T withResponseStream(String httpMethod, String url, String input, Hashtable<String, String> requestHeaders,
+			Hashtable<String, String> urlQueryParameters, String contentType, RESTStreamingResponse.Handler<T> handler) throws Throwable {
+		try (RESTStreamingResponse response = openResponseStream(httpMethod, url, input, requestHeaders, urlQueryParameters, contentType)) {
+			return handler.handle(response);
+		}
+	}
+
 	/**
 	 * Asserts the condition
 	 * @param condition of boolean
@@ -2240,7 +2435,7 @@ public class RESTActions {
 				return false;
 		} catch (Exception e) {
 			LOG.info("++++++++++++++++++++++++++++Catch Block Start+++++++++++++++++++++++++++++++++++++++++++");
-			LOG.info("Class name" + getCallerClassName() + "Method name : " + getCallerMethodName());
+			RESTLog.logCaller(LOG);
 			LOG.info("++++++++++++++++++++++++++++Catch Block End+++++++++++++++++++++++++++++++++++++++++++");
 			LOG.error(Log4jUtil.getStackTrace(e));
 			return false;
@@ -2292,52 +2487,54 @@ public class RESTActions {
 		}  
 	}
 	
+	/**
+	 * Returns the shared client for the configured SSL mode from the suite level RESTClientRegistry,
+	 * the client is created only on the first request of the suite.
+	 *  - If a client certificate is configured for the host of the url, then the client of that certificate profile is returned.
+	 * 
+	 * @param url End point url
+	 * @return com.sun.jersey.api.client.Client
+	 */
+	private Client getRestClient(String url) {
+		if(isSSLCertificationVerificationValue==null){
+			isSSLCertificationVerificationValue="ON";
+		}
+		boolean isSSLCertificationVerificationOff = isSSLCertificationVerificationValue.equalsIgnoreCase("off");
+		
+		RESTSSLProfiles.SSLProfile clientCertificateProfile = RESTSSLProfiles.getClientCertificateProfile(url, isSSLCertificationVerificationOff);
+		if(clientCertificateProfile != null){
+			return RESTClientRegistry.getInstance().getClient(clientCertificateProfile.getName(), () -> createSSLClient(clientCertificateProfile));
+		}
+		
+		if(isSSLCertificationVerificationOff){
+			//Specific to SSL
+			String profileKey = (addExternalSSLCertificateFlag==null || addExternalSSLCertificateFlag.equalsIgnoreCase("FALSE")) ?
+									RESTSSLProfiles.TRUST_ALL : RESTSSLProfiles.EXTERNAL_CERTIFICATE;
+			return RESTClientRegistry.getInstance().getClient(profileKey, this::hostIgnoringClient);
+		}else{
+			//With out SSL
+			return RESTClientRegistry.getInstance().getClient(RESTSSLProfiles.DEFAULT, () -> {
+				DefaultClientConfig config = new DefaultClientConfig();
+				config.getProperties().put(HTTPSProperties.PROPERTY_HTTPS_PROPERTIES, RESTSSLProfiles.getDefaultProfile().getHTTPSProperties());
+				return RESTClientRegistry.createClient(config);
+			});
+		}
+	}
+	
+	/**
+	 * Creates the client which ignores the SSL certificate verification.
+	 *  - RESTActions uses the shared instance from RESTClientRegistry, this method creates a new client on every call.
+	 *  - SSLContext and certificates are loaded only once, see RESTSSLProfiles.
+	 * 
+	 * @return com.sun.jersey.api.client.Client
+	 */
 	public Client hostIgnoringClient() {
 
 		if(addExternalSSLCertificateFlag==null){
 			addExternalSSLCertificateFlag="FALSE";
 		}
 		if(addExternalSSLCertificateFlag.equalsIgnoreCase("FALSE")){
-			try{
-				
-				
-				
-				TrustManager[] trustAllCerts = new TrustManager[]{new X509TrustManager() {
-					public X509Certificate[] getAcceptedIssuers() {
-						// TODO Auto-generated method stub
-						return new X509Certificate[0];
-					}
-					public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException {
-						// TODO Auto-generated method stub
-					}
-					public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException {
-						// TODO Auto-generated method stub
-						
-					}
-				}};
-				
-				SSLContext sslcontext = SSLContext.getInstance( "TLS" );
-				sslcontext.init( null, trustAllCerts, new java.security.SecureRandom());
-				DefaultClientConfig config = new DefaultClientConfig();
-				Map<String, Object> properties = config.getProperties();
-				HTTPSProperties httpsProperties = new HTTPSProperties(
-						new HostnameVerifier()
-						{
-							@Override
-							public boolean verify( String s, SSLSession sslSession )
-							{
-								return true;
-							}
-						}, sslcontext
-						);
-				properties.put( HTTPSProperties.PROPERTY_HTTPS_PROPERTIES, httpsProperties );
-				config.getClasses().add( JacksonJsonProvider.class );
-				return Client.create(config);
-			}
-			catch ( KeyManagementException | NoSuchAlgorithmException e )
-			{
-				throw new RuntimeException( e );
-			}
+			return createSSLClient(RESTSSLProfiles.getTrustAllProfile());
 		}else {
 			/*
 			 * This block implemented to add SSL certificate before invoking the REST API calls
@@ -2346,29 +2543,22 @@ public class RESTActions {
 			 * addExternalSSLCertificateJKSPath : Relative path of the certificate file where it is available in the project folder. The extension of the file should be pxf
 			 * addExternalSSLCertificatePassword : Password of the security certificate
 			 */
-				try{
-					
-					LOG.info("++++++++++++++++++++++++++++try Block Start+++++++++++++++++++++++++++++++++++++++++++");
-					LOG.info("Class name" + getCallerClassName() + "Method name : " + getCallerMethodName());
-					
-					LOG.info("addExternalSSLCertificatePath:::::::"+addExternalSSLCertificatePath);
-					
-					System.setProperty("javax.net.ssl.keyStoreType","pkcs12"); 
-					System.setProperty("javax.net.ssl.keyStore",addExternalSSLCertificatePath);
-					System.setProperty("javax.net.ssl.keyStorePassword", addExternalSSLCertificatePassword);
-
-				DefaultClientConfig config = new DefaultClientConfig();
-				Map<String, Object> properties = config.getProperties();
-				config.getClasses().add( JacksonJsonProvider.class );
-				LOG.info("Properties:::::::"+properties.get(HTTPSProperties.PROPERTY_HTTPS_PROPERTIES));
-				LOG.info("++++++++++++++++++++++++++++Try Block End+++++++++++++++++++++++++++++++++++++++++++");
-				return Client.create(config);
-			}
-				finally {
-					LOG.info("Done.....");
-				}
+			return createSSLClient(RESTSSLProfiles.getExternalCertificateProfile());
 		}
 	}
+	
+	/**
+	 * Creates the client using the cached SSLContext/SSLSocketFactory of the profile.
+	 * 
+	 * @param sslProfile RESTSSLProfiles.SSLProfile
+	 * @return com.sun.jersey.api.client.Client
+	 */
+	private Client createSSLClient(RESTSSLProfiles.SSLProfile sslProfile) {
+		DefaultClientConfig config = new DefaultClientConfig();
+		config.getProperties().put( HTTPSProperties.PROPERTY_HTTPS_PROPERTIES, sslProfile.getHTTPSProperties() );
+		config.getClasses().add( JacksonJsonProvider.class );
+		return RESTClientRegistry.createClient(config);
+	}
 
 	
 }
\ No newline at end of file
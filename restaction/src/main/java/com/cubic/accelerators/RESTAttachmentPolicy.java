@@ -0,0 +1,176 @@
+package com.cubic.accelerators;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Hashtable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.log4j.Logger;
+
+import com.cubic.genericutils.GenericConstants;
+
+/**
+ * <pre>
+ * Policy of the response attachments of the success steps(i.e. successReportFor*WebService), so the suites with many
+ * passing steps don't write the full response of every step. Failure steps always attach the full response.
+ *  - Sampling : only the configured fraction of the success steps attach the response, the other success steps are
+ *               written without the attachment.
+ *  - Size cap : responses longer than the maximum are truncated, the head and the tail of the response are kept
+ *               (i.e. half of the maximum each) with a marker of the truncated characters in between.
+ *  - The truncated response is streamed to the attachment when the RESTAttachmentStore is started, otherwise the
+ *    truncated copy of the response is attached through CustomReports.
+ * </pre>
+ * Below properties can be defined in the GenericFrameworkConfig.properties at project level
+ * <pre>
+ *  restSuccessAttachmentSampleRate : fraction of the success steps attaching the response, 0.0 to 1.0 (default 1.0)
+ *  restSuccessAttachmentMaxChars : maximum characters of the success step attachments, -1 to attach the full response (default -1)
+ * </pre>
+ * @since 1.5
+ */
+public final class RESTAttachmentPolicy {
+	private static final Logger LOG = Logger.getLogger(RESTAttachmentPolicy.class.getName());
+
+	private static final double sampleRate = getSampleRate(GenericConstants.GENERIC_FW_CONFIG_PROPERTIES);
+	private static final int maxChars = getMaxChars(GenericConstants.GENERIC_FW_CONFIG_PROPERTIES);
+
+	private static final LongAdder skippedAttachments = new LongAdder();
+	private static final LongAdder truncatedAttachments = new LongAdder();
+	private static final LongAdder truncatedChars = new LongAdder();
+
+	private RESTAttachmentPolicy() {
+	}
+
+	/**
+	 * Returns true when the success attachments are sampled or truncated.
+	 *
+	 * @return boolean
+	 */
+	public static boolean isEnabled() {
+		return sampleRate < 1.0 || maxChars >= 0;
+	}
+
+	/**
+	 * Returns true if the response should be attached to the success step, counts the skipped attachments.
+	 *
+	 * @return boolean
+	 */
+	static boolean isSuccessAttachmentSampled() {
+		if (sampleRate >= 1.0 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate)) {
+			return true;
+		}
+		skippedAttachments.increment();
+		return false;
+	}
+
+	/**
+	 * Returns the maximum characters of the success step attachment of the response, -1 if the response is not truncated.
+	 * Counts the truncated attachments.
+	 *
+	 * @param response response to be attached
+	 * @return int
+	 */
+	static int getSuccessAttachmentMaxChars(String response) {
+		if (response == null || !isTruncated(response, maxChars)) {
+			return -1;
+		}
+		truncatedAttachments.increment();
+		truncatedChars.add(response.length() - maxChars);
+		return maxChars;
+	}
+
+	/**
+	 * Returns the response truncated to the maximum characters, the response as is if it's not longer than the maximum.
+	 *
+	 * @param response response to be attached
+	 * @param maxChars maximum characters, -1 for the full response
+	 * @return java.lang.String
+	 */
+	static String truncate(String response, int maxChars) {
+		if (!isTruncated(response, maxChars)) {
+			return response;
+		}
+		StringWriter writer = new StringWriter(maxChars + 64);
+		try {
+			write(writer, response, maxChars);
+		} catch (IOException e) {
+			// StringWriter doesn't throw IOException
+			throw new IllegalStateException(e);
+		}
+		return writer.toString();
+	}
+
+	/**
+	 * Writes the response truncated to the maximum characters(i.e. head, marker and tail) to the writer.
+	 *
+	 * @param writer Writer of the attachment
+	 * @param response response to be attached
+	 * @param maxChars maximum characters, -1 for the full response
+	 * @throws IOException
+	 */
+	static void write(Writer writer, String response, int maxChars) throws IOException {
+		if (!isTruncated(response, maxChars)) {
+			writer.write(response);
+			return;
+		}
+		int headEnd = maxChars / 2;
+		int tailStart = response.length() - (maxChars - headEnd);
+		// Surrogate pairs are not split
+		if (headEnd > 0 && Character.isHighSurrogate(response.charAt(headEnd - 1))) {
+			headEnd--;
+		}
+		if (tailStart < response.length() && Character.isLowSurrogate(response.charAt(tailStart))) {
+			tailStart++;
+		}
+		writer.write(response, 0, headEnd);
+		writer.write("\n... [" + (tailStart - headEnd) + " characters truncated] ...\n");
+		writer.write(response, tailStart, response.length() - tailStart);
+	}
+
+	private static boolean isTruncated(String response, int maxChars) {
+		return maxChars >= 0 && response.length() > maxChars;
+	}
+
+	/**
+	 * Returns the skipped and truncated success attachments since the start of the suite,
+	 * ex: "Attachment policy [sampleRate=0.1, maxChars=65536 : skipped=900, truncated=12 (4500000 characters)]"
+	 *
+	 * @return java.lang.String
+	 */
+	public static String getAttachmentPolicySummary() {
+		return "Attachment policy [sampleRate=" + sampleRate + ", maxChars=" + maxChars
+				+ " : skipped=" + skippedAttachments.sum() + ", truncated=" + truncatedAttachments.sum()
+				+ " (" + truncatedChars.sum() + " characters)]";
+	}
+
+	private static double getSampleRate(Hashtable<String, String> propTable) {
+		String value = propTable.get(RESTConstants.SUCCESS_ATTACHMENT_SAMPLE_RATE);
+		if (value == null || value.trim().length() == 0) {
+			return 1.0;
+		}
+		try {
+			double rate = Double.parseDouble(value.trim());
+			if (rate < 0 || rate > 1 || Double.isNaN(rate)) {
+				throw new NumberFormatException();
+			}
+			return rate;
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid value '" + value + "' for the property " + RESTConstants.SUCCESS_ATTACHMENT_SAMPLE_RATE + ", using the default value 1.0");
+			return 1.0;
+		}
+	}
+
+	private static int getMaxChars(Hashtable<String, String> propTable) {
+		String value = propTable.get(RESTConstants.SUCCESS_ATTACHMENT_MAX_CHARS);
+		if (value == null || value.trim().length() == 0) {
+			return -1;
+		}
+		try {
+			return Math.max(-1, Integer.parseInt(value.trim()));
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid value '" + value + "' for the property " + RESTConstants.SUCCESS_ATTACHMENT_MAX_CHARS + ", using the default value -1");
+			return -1;
+		}
+	}
+}
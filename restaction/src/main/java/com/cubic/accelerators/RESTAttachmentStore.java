@@ -0,0 +1,264 @@
+package com.cubic.accelerators;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Hashtable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.log4j.Logger;
+
+/**
+ * <pre>
+ * Content addressed store of the response attachments of the report steps, every response is written once and
+ * the steps link to the shared file(i.e. the same response asserted on 40 fields is written once, not 40 times).
+ *  - Attachments are named by the SHA-256 of the response, ex: attachments/3a7bd3e2...c9.json
+ *  - The hash of the last response is reused when the same response(i.e. same String instance) is attached again,
+ *    so assertJsonElements hashes the response once for all the expected fields.
+ *  - Responses are streamed to the attachments(i.e. hashed and written without an encoded copy), truncated as per
+ *    the RESTAttachmentPolicy for the success steps.
+ *  - Attachments are written before the step, on the RESTReportWriter thread when restAsyncReportingEnabled is true.
+ *  - Store is started by RESTEngine in beforeSuite, RESTActions used without RESTEngine attach the responses
+ *    through CustomReports(i.e. one file per step).
+ * </pre>
+ * Below properties can be defined in the GenericFrameworkConfig.properties at project level
+ * <pre>
+ *  restAttachmentStoreEnabled : true to store the response attachments once per content (default false)
+ *  restAttachmentStoreCompression : true to write the attachments with gzip(i.e. .json.gz), browsers download
+ *                                   the compressed attachments instead of showing them (default false)
+ *  restAttachmentLinkBase : prefix of the attachment links in the report steps, relative to the detailed report
+ *                           (default attachments/)
+ * </pre>
+ * @since 1.5
+ */
+public final class RESTAttachmentStore {
+	private static final Logger LOG = Logger.getLogger(RESTAttachmentStore.class.getName());
+	static final String ATTACHMENTS_FOLDER = "attachments";
+
+	private static volatile RESTAttachmentStore instance = null;
+
+	private final File folder;
+	private final boolean compression;
+	private final String linkBase;
+	private final ConcurrentHashMap<String, Boolean> storedAttachments = new ConcurrentHashMap<>();
+	private final LongAdder attachments = new LongAdder();
+	private final LongAdder attachedBytes = new LongAdder();
+	private final LongAdder storedBytes = new LongAdder();
+	private volatile LastAttachment lastAttachment = null;
+
+	private RESTAttachmentStore(File folder, boolean compression, String linkBase) {
+		this.folder = folder;
+		this.compression = compression;
+		this.linkBase = linkBase;
+	}
+
+	/**
+	 * Starts the store if restAttachmentStoreEnabled is true, should be called before the first test(i.e. before suite).
+	 *
+	 * @param propTable GenericFrameworkConfig properties
+	 * @param reportFolderPath custom report folder of the suite, attachments are written to its 'attachments' folder
+	 */
+	public static synchronized void start(Hashtable<String, String> propTable, String reportFolderPath) {
+		if (!"true".equalsIgnoreCase(propTable.get(RESTConstants.ATTACHMENT_STORE_ENABLED)) || instance != null) {
+			return;
+		}
+		String linkBase = propTable.get(RESTConstants.ATTACHMENT_LINK_BASE);
+		if (linkBase == null || linkBase.trim().length() == 0) {
+			linkBase = ATTACHMENTS_FOLDER + "/";
+		} else {
+			linkBase = linkBase.trim().endsWith("/") ? linkBase.trim() : linkBase.trim() + "/";
+		}
+		instance = new RESTAttachmentStore(new File(reportFolderPath, ATTACHMENTS_FOLDER),
+				"true".equalsIgnoreCase(propTable.get(RESTConstants.ATTACHMENT_STORE_COMPRESSION)), linkBase);
+		LOG.info("Attachment store is enabled :: " + instance.folder.getAbsolutePath());
+	}
+
+	/**
+	 * Stops the store, the responses are attached through CustomReports afterwards.
+	 */
+	public static synchronized void stop() {
+		RESTAttachmentStore store = instance;
+		if (store != null) {
+			instance = null;
+			LOG.info("Attachment store is stopped :: " + store);
+		}
+	}
+
+	/**
+	 * Returns true if the store is started.
+	 *
+	 * @return boolean
+	 */
+	public static boolean isActive() {
+		return instance != null;
+	}
+
+	/**
+	 * Writes the response to the store(i.e. only when it's not written already) and adds its link to the step description.
+	 * Returns the description as is if the store is not started.
+	 *
+	 * @param description step description
+	 * @param response response to be attached
+	 * @param extension extension of the attachment, ex: json, xml, txt
+	 * @param maxChars maximum characters of the attachment(see RESTAttachmentPolicy), -1 for the full response
+	 * @return java.lang.String description with the link to the response
+	 * @throws IOException if the response can't be written
+	 */
+	public static String attach(String description, String response, String extension, int maxChars) throws IOException {
+		RESTAttachmentStore store = instance;
+		if (store == null || response == null) {
+			return description;
+		}
+		String fileName = store.store(response, extension, maxChars);
+		return description + "<br><a href='" + store.linkBase + fileName + "' target='_blank'>Response</a>";
+	}
+
+	/**
+	 * The response is streamed twice, once to hash it and once to write it when the hash is new,
+	 * so the encoded response(i.e. byte[] as large as the response) is never held in memory.
+	 */
+	private String store(String response, String extension, int maxChars) throws IOException {
+		attachments.increment();
+		LastAttachment last = lastAttachment;
+		if (last != null && last.response.get() == response && last.extension.equals(extension) && last.maxChars == maxChars) {
+			attachedBytes.add(last.bytes);
+			return last.fileName;
+		}
+
+		MessageDigest digest = newDigest();
+		LongAdder bytes = new LongAdder();
+		writeResponse(new DigestOutputStream(new CountingOutputStream(bytes), digest), response, maxChars);
+		attachedBytes.add(bytes.sum());
+		String fileName = toHex(digest.digest()) + "." + extension + (compression ? ".gz" : "");
+		if (!storedAttachments.containsKey(fileName)) {
+			try {
+				// Concurrent steps attaching the same response wait till the first one writes it
+				storedAttachments.computeIfAbsent(fileName, key -> {
+					try {
+						write(new File(folder, key), response, maxChars);
+						return Boolean.TRUE;
+					} catch (IOException e) {
+						throw new RuntimeException(e);
+					}
+				});
+			} catch (RuntimeException e) {
+				if (e.getCause() instanceof IOException) {
+					throw (IOException) e.getCause();
+				}
+				throw e;
+			}
+		}
+		lastAttachment = new LastAttachment(response, extension, maxChars, fileName, bytes.sum());
+		return fileName;
+	}
+
+	/**
+	 * Writes the attachment to a temporary file and renames it, so a partially written attachment is never linked.
+	 * Attachment already in the folder(i.e. written by an earlier suite to the same folder) is not written again.
+	 */
+	private void write(File file, String response, int maxChars) throws IOException {
+		if (file.isFile()) {
+			return;
+		}
+		Files.createDirectories(folder.toPath());
+		File tempFile = File.createTempFile(file.getName(), ".tmp", folder);
+		try {
+			OutputStream out = Files.newOutputStream(tempFile.toPath());
+			writeResponse(compression ? new GZIPOutputStream(out, 8192) : out, response, maxChars);
+			long length = tempFile.length();
+			try {
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			storedBytes.add(length);
+		} finally {
+			Files.deleteIfExists(tempFile.toPath());
+		}
+	}
+
+	/**
+	 * Writes the response encoded with UTF-8 and closes the stream.
+	 */
+	private static void writeResponse(OutputStream out, String response, int maxChars) throws IOException {
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192)) {
+			RESTAttachmentPolicy.write(writer, response, maxChars);
+		}
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(byte[] digest) {
+		StringBuilder hex = new StringBuilder(digest.length * 2);
+		for (byte b : digest) {
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+
+	@Override
+	public String toString() {
+		return "RESTAttachmentStore [attachments=" + attachments.sum() + ", stored=" + storedAttachments.size()
+				+ ", attached=" + RESTRequestTiming.formatBytes(attachedBytes.sum())
+				+ ", written=" + RESTRequestTiming.formatBytes(storedBytes.sum()) + "]";
+	}
+
+	/**
+	 * Last attached response, the response is weakly referenced so a large response is not retained by the store.
+	 */
+	private static final class LastAttachment {
+		private final WeakReference<String> response;
+		private final String extension;
+		private final int maxChars;
+		private final String fileName;
+		private final long bytes;
+
+		private LastAttachment(String response, String extension, int maxChars, String fileName, long bytes) {
+			this.response = new WeakReference<>(response);
+			this.extension = extension;
+			this.maxChars = maxChars;
+			this.fileName = fileName;
+			this.bytes = bytes;
+		}
+	}
+
+	/**
+	 * Counts the bytes written, the bytes are discarded.
+	 */
+	private static final class CountingOutputStream extends OutputStream {
+		private final LongAdder count;
+
+		private CountingOutputStream(LongAdder count) {
+			this.count = count;
+		}
+
+		@Override
+		public void write(int b) {
+			count.increment();
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count.add(len);
+		}
+	}
+}
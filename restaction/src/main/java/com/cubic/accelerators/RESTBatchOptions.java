@@ -0,0 +1,93 @@
+package com.cubic.accelerators;
+
+import java.util.Hashtable;
+
+import org.apache.log4j.Logger;
+
+import com.cubic.genericutils.GenericConstants;
+
+/**
+ * <pre>
+ * Options of RESTActions.executeBatch.
+ *  - maxConcurrency : maximum number of requests in flight at a time
+ *  - failFast : stop sending the remaining requests after the first failure(default false, all the requests are sent)
+ *  - stepName : step name of the aggregated step added to the custom report(default "Batch Requests")
+ *  - timeoutInSeconds : maximum time for the whole batch, 0 for no timeout(default 0)
+ *
+ * Ex: restActions.executeBatch(requests, new RESTBatchOptions().maxConcurrency(32).stepName("Create accounts"));
+ * </pre>
+ * Below properties can be defined in the GenericFrameworkConfig.properties at project level
+ * <pre>
+ *  restBatchMaxConcurrency : default maxConcurrency of the batches (default 8)
+ * </pre>
+ * @since 1.5
+ */
+public class RESTBatchOptions {
+	private static final Logger LOG = Logger.getLogger(RESTBatchOptions.class.getName());
+	private static final int DEFAULT_MAX_CONCURRENCY = getDefaultMaxConcurrency(GenericConstants.GENERIC_FW_CONFIG_PROPERTIES);
+
+	private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+	private boolean failFast = false;
+	private String stepName = "Batch Requests";
+	private long timeoutInSeconds = 0;
+
+	public RESTBatchOptions maxConcurrency(int maxConcurrency) {
+		if (maxConcurrency <= 0) {
+			throw new IllegalArgumentException("maxConcurrency should be greater than 0");
+		}
+		this.maxConcurrency = maxConcurrency;
+		return this;
+	}
+
+	public RESTBatchOptions failFast(boolean failFast) {
+		this.failFast = failFast;
+		return this;
+	}
+
+	public RESTBatchOptions stepName(String stepName) {
+		this.stepName = stepName;
+		return this;
+	}
+
+	public RESTBatchOptions timeoutInSeconds(long timeoutInSeconds) {
+		if (timeoutInSeconds < 0) {
+			throw new IllegalArgumentException("timeoutInSeconds should not be negative");
+		}
+		this.timeoutInSeconds = timeoutInSeconds;
+		return this;
+	}
+
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	public boolean isFailFast() {
+		return failFast;
+	}
+
+	public String getStepName() {
+		return stepName;
+	}
+
+	public long getTimeoutInSeconds() {
+		return timeoutInSeconds;
+	}
+
+	private static int getDefaultMaxConcurrency(Hashtable<String, String> propTable) {
+		String value = propTable.get(RESTConstants.BATCH_MAX_CONCURRENCY);
+		if (value != null && value.trim().length() > 0) {
+			try {
+				return Math.max(1, Integer.parseInt(value.trim()));
+			} catch (NumberFormatException e) {
+				LOG.warn("Invalid value '" + value + "' for the property " + RESTConstants.BATCH_MAX_CONCURRENCY + ", using the default value 8");
+			}
+		}
+		return 8;
+	}
+
+	@Override
+	public String toString() {
+		return "RESTBatchOptions [maxConcurrency=" + maxConcurrency + ", failFast=" + failFast + ", stepName=" + stepName
+				+ ", timeoutInSeconds=" + timeoutInSeconds + "]";
+	}
+}
@@ -0,0 +1,277 @@
+package com.cubic.accelerators;
+
+import java.util.Hashtable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.log4j.Logger;
+
+import com.cubic.genericutils.GenericConstants;
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.config.ClientConfig;
+import com.sun.jersey.api.client.config.DefaultClientConfig;
+import com.sun.jersey.client.urlconnection.URLConnectionClientHandler;
+
+/**
+ * <pre>
+ * Suite level registry of the Jersey clients used by RESTActions.
+ *  - Clients are created once per SSL mode/certificate profile and shared by all the test threads
+ *    (com.sun.jersey.api.client.Client is thread safe, only the WebResource.Builder is per request).
+ *  - Keep-alive connection pooling is configured once, before the first connection is opened.
+ *  - RESTEngine opens the registry in beforeSuite and closes it in afterSuite, frameworks which
+ *    doesn't extend RESTEngine get a registry created on first use.
+ * </pre>
+ * Below properties can be defined in the GenericFrameworkConfig.properties at project level
+ * <pre>
+ *  restClientKeepAlive : TRUE or FALSE, reuse the connections between the requests (default TRUE)
+ *  restClientMaxConnectionsPerHost : maximum idle connections kept per host (default 20)
+ *  restClientIdleTimeoutInSeconds : idle connections are evicted after this time (default 5)
+ *  restClientConnectTimeoutInMillis : connect timeout of the shared clients
+ *  restClientReadTimeoutInMillis : read timeout of the shared clients
+ *  restAsyncThreadPoolSize : number of threads executing the asynchronous requests (default 16)
+ *  restTransport/restTransportHosts : transport of the requests per host, see RESTTransports
+ *  restCompressionEnabled : TRUE or FALSE, request and decompress the gzip/deflate responses, see RESTCompressionFilter
+ *  restRateLimits : requests per second of the hosts/url prefixes, see RESTRateLimitFilter
+ *  restRetryMaxAttempts/restHedgePercentile/restCircuitBreakerFailureThreshold : see RESTResilienceFilter
+ *  restResponseCacheEnabled : TRUE or FALSE, cache the GET responses, see RESTResponseCache
+ *  restRecordReplayMode : OFF, RECORD or REPLAY, see RESTRecordReplay
+ * </pre>
+ * @since 1.5
+ */
+public class RESTClientRegistry {
+	private static final Logger LOG = Logger.getLogger(RESTClientRegistry.class.getName());
+	private static volatile RESTClientRegistry instance = null;
+
+	private final ConcurrentHashMap<String, Client> clients = new ConcurrentHashMap<>();
+	private final Integer connectTimeout;
+	private final Integer readTimeout;
+	private final int asyncThreadPoolSize;
+	private volatile ExecutorService asyncExecutor = null;
+
+	private RESTClientRegistry(Hashtable<String, String> propTable) {
+		configureConnectionPool(propTable);
+		connectTimeout = getIntegerProperty(propTable, RESTConstants.CLIENT_CONNECT_TIMEOUT, null);
+		readTimeout = getIntegerProperty(propTable, RESTConstants.CLIENT_READ_TIMEOUT, null);
+		asyncThreadPoolSize = getIntegerProperty(propTable, RESTConstants.ASYNC_THREAD_POOL_SIZE, 16);
+	}
+
+	/**
+	 * Opens the registry for the suite, should be called before the first request is sent(i.e. before suite).
+	 *
+	 * @return RESTClientRegistry the suite level registry
+	 */
+	public static synchronized RESTClientRegistry open() {
+		if (instance == null) {
+			instance = new RESTClientRegistry(GenericConstants.GENERIC_FW_CONFIG_PROPERTIES);
+			LOG.info("Rest client registry is opened");
+		}
+		return instance;
+	}
+
+	/**
+	 * Returns the suite level registry, the registry is opened if it is not opened yet.
+	 *
+	 * @return RESTClientRegistry the suite level registry
+	 */
+	public static RESTClientRegistry getInstance() {
+		RESTClientRegistry registry = instance;
+		if (registry == null) {
+			registry = open();
+		}
+		return registry;
+	}
+
+	/**
+	 * Destroys all the shared clients, should be called at the end of the suite(i.e. after suite).
+	 */
+	public static synchronized void close() {
+		if (instance != null) {
+			for (Client client : instance.clients.values()) {
+				try {
+					client.destroy();
+				} catch (Exception e) {
+					LOG.warn("Unable to destroy the rest client :: " + e);
+				}
+			}
+			instance.clients.clear();
+			RESTTransports.close();
+			RESTResilienceFilter.close();
+			RESTRateLimitFilter.close();
+			RESTResponseCache.getInstance().close();
+			if (instance.asyncExecutor != null) {
+				instance.asyncExecutor.shutdown();
+				try {
+					instance.asyncExecutor.awaitTermination(30, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			instance = null;
+			LOG.info("Rest client registry is closed");
+		}
+	}
+
+	/**
+	 * Returns the shared client for the profile, the client is created by the clientFactory
+	 * only once per profile.
+	 *
+	 * @param profileKey SSL mode/certificate profile of the client
+	 * @param clientFactory creates the client when the profile is not present in the registry
+	 * @return com.sun.jersey.api.client.Client
+	 */
+	public Client getClient(String profileKey, Supplier<Client> clientFactory) {
+		return clients.computeIfAbsent(profileKey, key -> {
+			LOG.info("Creating the shared rest client for the profile :: " + key);
+			return clientFactory.get();
+		});
+	}
+
+	/**
+	 * Removes the shared client of the profile, the next request of the profile creates a new client(i.e. the
+	 * profile is registered again with another certificate).
+	 *  - The removed client is not destroyed, the requests in progress on the other threads can still complete.
+	 *
+	 * @param profileKey SSL mode/certificate profile of the client
+	 */
+	public static void evictClient(String profileKey) {
+		RESTClientRegistry registry = instance;
+		if (registry != null && registry.clients.remove(profileKey) != null) {
+			LOG.info("Removed the shared rest client for the profile :: " + profileKey);
+		}
+	}
+
+	/**
+	 * Returns the executor of the asynchronous requests, a fixed thread pool of 'restAsyncThreadPoolSize' threads
+	 * is created on first use unless an executor is set using setAsyncExecutor.
+	 *
+	 * @return java.util.concurrent.ExecutorService
+	 */
+	public ExecutorService getAsyncExecutor() {
+		ExecutorService executor = asyncExecutor;
+		if (executor == null) {
+			synchronized (this) {
+				if (asyncExecutor == null) {
+					AtomicInteger threadCount = new AtomicInteger();
+					asyncExecutor = Executors.newFixedThreadPool(asyncThreadPoolSize, runnable -> {
+						Thread thread = new Thread(runnable, "rest-async-" + threadCount.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					});
+				}
+				executor = asyncExecutor;
+			}
+		}
+		return executor;
+	}
+
+	/**
+	 * Sets the executor of the asynchronous requests, the executor is shut down when the registry is closed.
+	 *
+	 * @param executor java.util.concurrent.ExecutorService
+	 */
+	public synchronized void setAsyncExecutor(ExecutorService executor) {
+		if (asyncExecutor != null && asyncExecutor != executor) {
+			asyncExecutor.shutdown();
+		}
+		asyncExecutor = executor;
+	}
+
+	/**
+	 * Creates the client with the settings common to all the shared clients.
+	 *  - PATCH workaround is enabled so the same client can be used for all the verbs(i.e. URLCONNECTION transport).
+	 *  - Requests are sent by the RESTTransport configured for the host of the request.
+	 *  - RESTCompressionFilter is added when the compression is enabled(i.e. restCompressionEnabled).
+	 *  - RESTRateLimitFilter is added when the rate limits are configured(i.e. restRateLimits).
+	 *  - RESTRequestListenerFilter is added, so the RESTRequestListeners are notified after every request.
+	 *  - RESTRecordReplayFilter is added when the record and replay mode is active(i.e. restRecordReplayMode).
+	 *  - RESTResilienceFilter is added when the retries, hedged requests or circuit breakers are enabled.
+	 *  - RESTResponseCacheFilter is added when the response cache is enabled(i.e. restResponseCacheEnabled).
+	 *
+	 * @param config com.sun.jersey.api.client.config.DefaultClientConfig
+	 * @return com.sun.jersey.api.client.Client
+	 */
+	public static Client createClient(DefaultClientConfig config) {
+		//https://stackoverflow.com/questions/22355235/patch-request-using-jersey-client/26341128
+		config.getProperties().put(URLConnectionClientHandler.PROPERTY_HTTP_URL_CONNECTION_SET_METHOD_WORKAROUND, true);
+
+		RESTClientRegistry registry = instance;
+		if (registry != null) {
+			if (registry.connectTimeout != null) {
+				config.getProperties().put(ClientConfig.PROPERTY_CONNECT_TIMEOUT, registry.connectTimeout);
+			}
+			if (registry.readTimeout != null) {
+				config.getProperties().put(ClientConfig.PROPERTY_READ_TIMEOUT, registry.readTimeout);
+			}
+		}
+		// Requests are sent by the transport selected for the host, see RESTTransports.
+		Client client = new Client(RESTTransports.createClientHandler(config, RESTSSLProfiles.getProfile(config)), config);
+		if (RESTCompressionFilter.isEnabled()) {
+			// Added first(i.e. runs last), all the other filters see the uncompressed request and response bodies
+			client.addFilter(new RESTCompressionFilter());
+		}
+		if (RESTRecordReplay.isActive()) {
+			// Runs just before RESTCompressionFilter, the uncompressed requests are recorded or sent to the stub server
+			client.addFilter(new RESTRecordReplayFilter());
+		}
+		if (RESTRateLimitFilter.isEnabled()) {
+			// Runs after RESTRequestListenerFilter, the waiting time is added to the timing of the request
+			client.addFilter(new RESTRateLimitFilter());
+		}
+		client.addFilter(new RESTRequestListenerFilter());
+		if (RESTResilienceFilter.isEnabled()) {
+			// Runs before RESTRequestListenerFilter, every attempt is notified to the listeners
+			client.addFilter(new RESTResilienceFilter());
+		}
+		if (RESTResponseCache.getInstance().isEnabled()) {
+			// Added last(i.e. runs first), the cached responses are returned without notifying the listeners
+			client.addFilter(new RESTResponseCacheFilter(client.getMessageBodyWorkers()));
+		}
+		return client;
+	}
+
+	/**
+	 * Configures the keep-alive connection pool of HttpURLConnection, which is used by the jersey clients.
+	 *  - Values passed with -D at JVM level are not overridden.
+	 *  - The pool reads these values once, before the first connection is opened.
+	 *
+	 * @param propTable GenericFrameworkConfig properties
+	 */
+	private void configureConnectionPool(Hashtable<String, String> propTable) {
+		String keepAlive = propTable.get(RESTConstants.CLIENT_KEEP_ALIVE);
+		keepAlive = (keepAlive == null || keepAlive.trim().length() == 0) ? "true" : keepAlive.trim().toLowerCase();
+		setPoolProperty("http.keepAlive", keepAlive);
+
+		Integer maxConnectionsPerHost = getIntegerProperty(propTable, RESTConstants.CLIENT_MAX_CONNECTIONS_PER_HOST, 20);
+		setPoolProperty("http.maxConnections", "" + maxConnectionsPerHost);
+
+		Integer idleTimeoutInSeconds = getIntegerProperty(propTable, RESTConstants.CLIENT_IDLE_TIMEOUT, null);
+		if (idleTimeoutInSeconds != null) {
+			setPoolProperty("http.keepAlive.time.server", "" + idleTimeoutInSeconds);
+			setPoolProperty("http.keepAlive.time.proxy", "" + idleTimeoutInSeconds);
+		}
+	}
+
+	private void setPoolProperty(String key, String value) {
+		if (System.getProperty(key) == null) {
+			System.setProperty(key, value);
+		}
+		LOG.info("Rest client connection pool :: " + key + " = " + System.getProperty(key));
+	}
+
+	private static Integer getIntegerProperty(Hashtable<String, String> propTable, String key, Integer defaultValue) {
+		String value = propTable.get(key);
+		if (value == null || value.trim().length() == 0) {
+			return defaultValue;
+		}
+		try {
+			return Integer.valueOf(value.trim());
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid value '" + value + "' for the property " + key + ", using the default value " + defaultValue);
+			return defaultValue;
+		}
+	}
+}
@@ -0,0 +1,361 @@
+package com.cubic.accelerators;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.log4j.Logger;
+
+import com.cubic.genericutils.GenericConstants;
+import com.sun.jersey.api.client.AbstractClientRequestAdapter;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientRequestAdapter;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.filter.ClientFilter;
+
+/**
+ * <pre>
+ * Client filter added to every shared rest client, compresses the requests and decompresses the responses transparently.
+ *  - "Accept-Encoding: gzip, deflate" is added to the requests which doesn't have an Accept-Encoding header,
+ *    gzip and deflate responses of these requests are decompressed while the body is read(i.e. streamed, not buffered).
+ *    Requests with an Accept-Encoding header get the response as sent by the server.
+ *  - Request bodies(String, byte[] and File) of at least 'restRequestCompressionThresholdInBytes' bytes are sent with gzip.
+ *  - Compressed and uncompressed bytes of every request are logged at DEBUG level and added to the RESTRequestTiming
+ *    (i.e. when the request timing is enabled), suite totals are returned by getCompressionSummary.
+ *  - Added first(i.e. runs last), so the other filters, the recordings and the cached responses see the uncompressed bodies.
+ * </pre>
+ * Below properties can be defined in the GenericFrameworkConfig.properties at project level
+ * <pre>
+ *  restCompressionEnabled : TRUE or FALSE, add Accept-Encoding and decompress the responses (default TRUE)
+ *  restRequestCompressionThresholdInBytes : request bodies of at least this size are compressed, -1 to disable (default -1)
+ * </pre>
+ * @since 1.5
+ */
+public class RESTCompressionFilter extends ClientFilter {
+	private static final Logger LOG = Logger.getLogger(RESTCompressionFilter.class.getName());
+	static final String ACCEPT_ENCODING = "gzip, deflate";
+
+	private static final boolean compressionEnabled = !"false".equalsIgnoreCase(
+			GenericConstants.GENERIC_FW_CONFIG_PROPERTIES.get(RESTConstants.COMPRESSION_ENABLED));
+	private static final long requestCompressionThreshold = getRequestCompressionThreshold();
+
+	private static final LongAdder requestBytes = new LongAdder();
+	private static final LongAdder compressedRequestBytes = new LongAdder();
+	private static final LongAdder responseBytes = new LongAdder();
+	private static final LongAdder compressedResponseBytes = new LongAdder();
+
+	/**
+	 * Returns true when the filter should be added to the shared clients.
+	 *
+	 * @return boolean
+	 */
+	public static boolean isEnabled() {
+		return compressionEnabled || requestCompressionThreshold >= 0;
+	}
+
+	/**
+	 * Returns the bytes sent and received with compression since the start of the suite,
+	 * ex: "Compression [requests 1.2 MB -&gt; 150.0 KB, responses 8.0 MB -&gt; 900.5 KB]"
+	 *
+	 * @return java.lang.String
+	 */
+	public static String getCompressionSummary() {
+		return "Compression [requests " + RESTRequestTiming.formatBytes(requestBytes.sum())
+				+ " -> " + RESTRequestTiming.formatBytes(compressedRequestBytes.sum())
+				+ ", responses " + RESTRequestTiming.formatBytes(responseBytes.sum())
+				+ " -> " + RESTRequestTiming.formatBytes(compressedResponseBytes.sum()) + "]";
+	}
+
+	@Override
+	public ClientResponse handle(ClientRequest cr) throws ClientHandlerException {
+		RESTRequestTiming timing = RESTRequestTiming.getInFlightTiming();
+		if (isCompressionRequired(cr)) {
+			cr.getHeaders().putSingle("Content-Encoding", "gzip");
+			cr.setAdapter(new GzipRequestAdapter(cr.getAdapter(), timing));
+		}
+		boolean acceptEncodingAdded = false;
+		if (compressionEnabled && !cr.getHeaders().containsKey("Accept-Encoding")) {
+			cr.getHeaders().putSingle("Accept-Encoding", ACCEPT_ENCODING);
+			acceptEncodingAdded = true;
+		}
+
+		ClientResponse response = getNext().handle(cr);
+		if (!acceptEncodingAdded) {
+			return response;
+		}
+		String contentEncoding = response.getHeaders().getFirst("Content-Encoding");
+		if (contentEncoding == null) {
+			return response;
+		}
+		contentEncoding = contentEncoding.trim().toLowerCase();
+		if (!"gzip".equals(contentEncoding) && !"x-gzip".equals(contentEncoding) && !"deflate".equals(contentEncoding)) {
+			return response;
+		}
+		InputStream entityInputStream = response.getEntityInputStream();
+		if (entityInputStream != null) {
+			response.setEntityInputStream(new DecompressingInputStream(entityInputStream, contentEncoding, timing, cr));
+		}
+		// Headers describe the decompressed body from here on
+		response.getHeaders().remove("Content-Encoding");
+		response.getHeaders().remove("Content-Length");
+		return response;
+	}
+
+	/**
+	 * Request body is compressed when its size is known before it's written, i.e. the headers are sent before the body.
+	 */
+	private static boolean isCompressionRequired(ClientRequest cr) {
+		Object entity = cr.getEntity();
+		if (requestCompressionThreshold < 0 || entity == null || cr.getHeaders().containsKey("Content-Encoding")) {
+			return false;
+		}
+		if (entity instanceof String) {
+			// UTF-8 encoded length is never less than the number of chars
+			return ((String) entity).length() >= requestCompressionThreshold;
+		} else if (entity instanceof byte[]) {
+			return ((byte[]) entity).length >= requestCompressionThreshold;
+		} else if (entity instanceof File) {
+			return ((File) entity).length() >= requestCompressionThreshold;
+		}
+		return false;
+	}
+
+	private static long getRequestCompressionThreshold() {
+		String threshold = GenericConstants.GENERIC_FW_CONFIG_PROPERTIES.get(RESTConstants.REQUEST_COMPRESSION_THRESHOLD);
+		if (threshold == null || threshold.trim().length() == 0) {
+			return -1;
+		}
+		try {
+			return Long.parseLong(threshold.trim());
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid value '" + threshold + "' for the property " + RESTConstants.REQUEST_COMPRESSION_THRESHOLD + ", request compression is disabled");
+			return -1;
+		}
+	}
+
+	/**
+	 * Compresses the request entity with gzip. The compression is done below the adapters of the other filters,
+	 * so they see the uncompressed bytes.
+	 */
+	private static final class GzipRequestAdapter extends AbstractClientRequestAdapter {
+		private final RESTRequestTiming timing;
+
+		private GzipRequestAdapter(ClientRequestAdapter adapter, RESTRequestTiming timing) {
+			super(adapter);
+			this.timing = timing;
+		}
+
+		@Override
+		public OutputStream adapt(ClientRequest request, OutputStream out) throws IOException {
+			LongAdder compressedBytes = new LongAdder();
+			LongAdder uncompressedBytes = new LongAdder();
+			OutputStream gzip = new GZIPOutputStream(new CountingOutputStream(out, compressedBytes), 8192);
+			return getAdapter().adapt(request, new CountingOutputStream(gzip, uncompressedBytes) {
+				private boolean closed = false;
+
+				@Override
+				public void close() throws IOException {
+					super.close();
+					if (!closed) {
+						closed = true;
+						requestBytes.add(uncompressedBytes.sum());
+						compressedRequestBytes.add(compressedBytes.sum());
+						if (LOG.isDebugEnabled()) {
+							LOG.debug("Request body of " + request.getMethod() + " " + request.getURI() + " :: gzip "
+									+ RESTRequestTiming.formatBytes(uncompressedBytes.sum()) + " -> " + RESTRequestTiming.formatBytes(compressedBytes.sum()));
+						}
+						if (timing != null) {
+							timing.markRequestEncoding("gzip");
+							timing.addCompressedBytesSent(compressedBytes.sum());
+						}
+					}
+				}
+			});
+		}
+	}
+
+	private static class CountingOutputStream extends FilterOutputStream {
+		private final LongAdder count;
+
+		private CountingOutputStream(OutputStream out, LongAdder count) {
+			super(out);
+			this.count = count;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count.increment();
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count.add(len);
+		}
+	}
+
+	/**
+	 * Decompresses the response entity while it's read. The decompressor is created on the first read,
+	 * so the empty bodies(i.e. HEAD, 204 and 304) are read without an error.
+	 */
+	private static final class DecompressingInputStream extends FilterInputStream {
+		private final InputStream compressed;
+		private final String contentEncoding;
+		private final RESTRequestTiming timing;
+		private final ClientRequest request;
+		private final LongAdder compressedBytes = new LongAdder();
+		private long decompressedBytes = 0;
+		private InputStream decompressed = null;
+		private Inflater inflater = null;
+		private boolean completed = false;
+
+		private DecompressingInputStream(InputStream in, String contentEncoding, RESTRequestTiming timing, ClientRequest request) {
+			super(in);
+			this.compressed = in;
+			this.contentEncoding = contentEncoding;
+			this.timing = timing;
+			this.request = request;
+			if (timing != null) {
+				timing.markResponseEncoding(contentEncoding);
+			}
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			int count = read(b, 0, 1);
+			return (count == -1) ? -1 : b[0] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (decompressed == null) {
+				decompressed = createDecompressor();
+			}
+			int count = decompressed.read(b, off, len);
+			if (count == -1) {
+				complete();
+			} else {
+				responseBytes.add(count);
+				decompressedBytes += count;
+			}
+			return count;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			byte[] buffer = new byte[(int) Math.min(8192, Math.max(n, 1))];
+			long skipped = 0;
+			while (skipped < n) {
+				int count = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+				if (count == -1) {
+					break;
+				}
+				skipped += count;
+			}
+			return skipped;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return (decompressed == null) ? 0 : decompressed.available();
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				if (decompressed != null) {
+					decompressed.close();
+				} else {
+					compressed.close();
+				}
+			} finally {
+				if (inflater != null) {
+					inflater.end();
+				}
+				complete();
+			}
+		}
+
+		private InputStream createDecompressor() throws IOException {
+			PushbackInputStream in = new PushbackInputStream(new CountingInputStream(compressed, compressedBytes), 2);
+			byte[] header = new byte[2];
+			int count = in.read(header, 0, 2);
+			if (count == -1) {
+				return in;
+			}
+			if (count == 1) {
+				int next = in.read();
+				if (next != -1) {
+					header[1] = (byte) next;
+					count = 2;
+				}
+			}
+			in.unread(header, 0, count);
+			if (!"deflate".equals(contentEncoding)) {
+				return new GZIPInputStream(in, 8192);
+			}
+			// deflate is the zlib format as per the RFC, but a few servers send the raw deflate data
+			boolean zlibWrapped = count == 2 && (header[0] & 0x0F) == 8 && (((header[0] & 0xFF) << 8) | (header[1] & 0xFF)) % 31 == 0;
+			inflater = new Inflater(!zlibWrapped);
+			return new InflaterInputStream(in, inflater, 8192);
+		}
+
+		private void complete() {
+			if (!completed) {
+				completed = true;
+				compressedResponseBytes.add(compressedBytes.sum());
+				if (timing != null) {
+					timing.addCompressedBytesReceived(compressedBytes.sum());
+				}
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Response body of " + request.getMethod() + " " + request.getURI() + " :: " + contentEncoding + " "
+							+ RESTRequestTiming.formatBytes(compressedBytes.sum()) + " -> " + RESTRequestTiming.formatBytes(decompressedBytes));
+				}
+			}
+		}
+	}
+
+	private static final class CountingInputStream extends FilterInputStream {
+		private final LongAdder count;
+
+		private CountingInputStream(InputStream in, LongAdder count) {
+			super(in);
+			this.count = count;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b != -1) {
+				count.increment();
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = super.read(b, off, len);
+			if (read > 0) {
+				count.add(read);
+			}
+			return read;
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package com.cubic.accelerators;
+
+public interface RESTConstants {
+	//Below are the constant for Rest Webservices
+	String RESPONSE_BODY = "ResponseBody";
+	String RESPONSE_CODE = "ResponseCode";
+	String APPLICATION_JSON = "application/json";
+	String APPLICATION_XML = "application/xml";
+	String APPLICATION_TEXT = "application/text";
+	String TEXT_XML = "text/xml";
+	String DISABLE_EXCEPTIONS = "disableExceptions";
+	String CUSTOM_REPORTS = "customReports";
+
+	//Below are the GenericFrameworkConfig properties for the shared rest clients
+	String CLIENT_KEEP_ALIVE = "restClientKeepAlive";
+	String CLIENT_MAX_CONNECTIONS_PER_HOST = "restClientMaxConnectionsPerHost";
+	String CLIENT_IDLE_TIMEOUT = "restClientIdleTimeoutInSeconds";
+	String CLIENT_CONNECT_TIMEOUT = "restClientConnectTimeoutInMillis";
+	String CLIENT_READ_TIMEOUT = "restClientReadTimeoutInMillis";
+	String ASYNC_THREAD_POOL_SIZE = "restAsyncThreadPoolSize";
+	String BATCH_MAX_CONCURRENCY = "restBatchMaxConcurrency";
+	String TRANSPORT = "restTransport";
+	String TRANSPORT_HOSTS = "restTransportHosts";
+
+	//Below are the GenericFrameworkConfig properties for the request timing
+	String REQUEST_TIMING_ENABLED = "restRequestTimingEnabled";
+	String REPORT_REQUEST_TIMING = "restReportRequestTiming";
+
+	//Below are the GenericFrameworkConfig properties for the JSON assertions
+	String JSON_PATH_CACHE_SIZE = "jsonPathCacheSize";
+
+	//Below are the GenericFrameworkConfig properties for the async logging
+	String ASYNC_LOGGING_ENABLED = "restAsyncLoggingEnabled";
+	String ASYNC_LOGGING_BUFFER_SIZE = "restAsyncLoggingBufferSize";
+	String ASYNC_LOGGING_BLOCKING = "restAsyncLoggingBlocking";
+	String ASYNC_LOGGING_LOCATION_INFO = "restAsyncLoggingLocationInfo";
+
+	//Below are the GenericFrameworkConfig properties for the async reporting
+	String ASYNC_REPORTING_ENABLED = "restAsyncReportingEnabled";
+	String ASYNC_REPORTING_QUEUE_SIZE = "restAsyncReportingQueueSize";
+	String ASYNC_REPORTING_BLOCKING = "restAsyncReportingBlocking";
+
+	//Below are the GenericFrameworkConfig properties for the report attachments
+	String ATTACHMENT_STORE_ENABLED = "restAttachmentStoreEnabled";
+	String ATTACHMENT_STORE_COMPRESSION = "restAttachmentStoreCompression";
+	String ATTACHMENT_LINK_BASE = "restAttachmentLinkBase";
+	String SUCCESS_ATTACHMENT_SAMPLE_RATE = "restSuccessAttachmentSampleRate";
+	String SUCCESS_ATTACHMENT_MAX_CHARS = "restSuccessAttachmentMaxChars";
+
+	//Below are the GenericFrameworkConfig properties for the TestRail publisher
+	String TESTRAIL_PUBLISHER_ENABLED = "restTestRailPublisherEnabled";
+	String TESTRAIL_PUBLISHER_BATCH_SIZE = "restTestRailPublisherBatchSize";
+	String TESTRAIL_PUBLISHER_FLUSH_INTERVAL = "restTestRailPublisherFlushIntervalInMillis";
+	String TESTRAIL_PUBLISHER_MAX_ATTEMPTS = "restTestRailPublisherMaxAttempts";
+	String TESTRAIL_PUBLISHER_BACKOFF = "restTestRailPublisherBackoffInMillis";
+	String TESTRAIL_API_URL = "restTestRailApiUrl";
+	String TESTRAIL_API_USER = "restTestRailApiUser";
+	String TESTRAIL_API_KEY = "restTestRailApiKey";
+	String TESTRAIL_API_STATUS_IDS = "restTestRailApiStatusIds";
+
+	//Below are the GenericFrameworkConfig properties for the request metrics
+	String METRICS_ENABLED = "restMetricsEnabled";
+	String METRICS_PUSH_INTERVAL = "restMetricsPushIntervalInSeconds";
+	String METRICS_PUSH_URL = "restMetricsPushUrl";
+
+	//Below are the GenericFrameworkConfig properties for the sharded suites
+	String SHARD_RESULTS_FOLDER = "restShardResultsFolder";
+	String SHARD_MERGE_TIMEOUT = "restShardMergeTimeoutInMinutes";
+	String SHARD_RUN_ID = "restShardRunId";
+
+	//Below are the GenericFrameworkConfig properties for the compression
+	String COMPRESSION_ENABLED = "restCompressionEnabled";
+	String REQUEST_COMPRESSION_THRESHOLD = "restRequestCompressionThresholdInBytes";
+
+	//Below are the GenericFrameworkConfig properties for the retries, hedged requests and circuit breakers
+	String RETRY_MAX_ATTEMPTS = "restRetryMaxAttempts";
+	String RETRY_BACKOFF = "restRetryBackoffInMillis";
+	String RETRY_MAX_BACKOFF = "restRetryMaxBackoffInMillis";
+	String RETRY_STATUS_CODES = "restRetryStatusCodes";
+	String HEDGE_PERCENTILE = "restHedgePercentile";
+	String HEDGE_MIN_DELAY = "restHedgeMinDelayInMillis";
+	String CIRCUIT_BREAKER_FAILURE_THRESHOLD = "restCircuitBreakerFailureThreshold";
+	String CIRCUIT_BREAKER_OPEN_TIME = "restCircuitBreakerOpenTimeInSeconds";
+
+	//Below are the GenericFrameworkConfig properties for the rate limits
+	String RATE_LIMITS = "restRateLimits";
+
+	//Below are the GenericFrameworkConfig properties for the response cache
+	String RESPONSE_CACHE_ENABLED = "restResponseCacheEnabled";
+	String RESPONSE_CACHE_MAX_ENTRIES = "restResponseCacheMaxEntries";
+	String RESPONSE_CACHE_MAX_SIZE = "restResponseCacheMaxSizeInMB";
+	String RESPONSE_CACHE_DIRECTORY = "restResponseCacheDirectory";
+	String RESPONSE_CACHE_DISK_MAX_SIZE = "restResponseCacheDiskMaxSizeInMB";
+	String RESPONSE_CACHE_CREDENTIAL_HEADERS = "restResponseCacheCredentialHeaders";
+
+	//Below are the GenericFrameworkConfig properties for the record and replay
+	String RECORD_REPLAY_MODE = "restRecordReplayMode";
+	String RECORD_REPLAY_ARCHIVE = "restRecordReplayArchive";
+	String REPLAY_PORT = "restReplayPort";
+
+	//Below are the GenericFrameworkConfig properties for the SSL profiles
+	String SSL_EXTERNAL_CERTIFICATE_TYPE = "addExternalSSLCertificateType";
+	String SSL_SESSION_CACHE_SIZE = "sslSessionCacheSize";
+	String SSL_SESSION_TIMEOUT = "sslSessionTimeoutInSeconds";
+	String SSL_CLIENT_CERTIFICATE_PROFILES = "sslClientCertificateProfiles";
+	String SSL_CLIENT_CERTIFICATE_PREFIX = "sslClientCertificate.";
+}
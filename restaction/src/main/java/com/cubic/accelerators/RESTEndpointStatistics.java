@@ -0,0 +1,212 @@
+package com.cubic.accelerators;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * <pre>
+ * Suite level latency percentiles and timing breakdown per endpoint(http method, host and templated path, see
+ * RESTRequestListenerFilter.getEndpoint), recorded from the RESTRequestTiming of every request.
+ *  - Latencies are recorded into HdrHistogram in microseconds, from sending the request till the response body is read.
+ *  - When the request timing is disabled(i.e. restRequestTimingEnabled), only the count, the errors and the latency
+ *    till the response headers are recorded.
+ *  - At most 500 endpoints are tracked, the requests of the other endpoints are recorded under "OTHER".
+ *  - RESTEngine registers the statistics in beforeSuite and writes EndpointLatencySummary.txt to the custom
+ *    report folder in generateSummaryReport.
+ * </pre>
+ * @since 1.5
+ */
+public class RESTEndpointStatistics implements RESTRequestListener {
+	private static final RESTEndpointStatistics instance = new RESTEndpointStatistics();
+	private static final int MAX_ENDPOINTS = 500;
+	private static final String OTHER_ENDPOINTS = "OTHER";
+
+	private final ConcurrentHashMap<String, EndpointStatistics> endpoints = new ConcurrentHashMap<>();
+
+	private RESTEndpointStatistics() {
+	}
+
+	/**
+	 * Returns the suite level endpoint statistics.
+	 *
+	 * @return RESTEndpointStatistics
+	 */
+	public static RESTEndpointStatistics getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Clears all the endpoints, should be called at the start of the suite(i.e. before suite).
+	 */
+	public void reset() {
+		endpoints.clear();
+	}
+
+	@Override
+	public void onRequestCompleted(String method, URI uri, int status, long durationInNanos, Throwable failure) {
+		if (!RESTRequestListenerFilter.isTimingEnabled()) {
+			getStatistics(RESTRequestListenerFilter.getEndpoint(method, uri)).record(status, durationInNanos, failure);
+		}
+	}
+
+	@Override
+	public void onRequestTimed(RESTRequestTiming timing) {
+		getStatistics(timing.getEndpoint()).record(timing);
+	}
+
+	private EndpointStatistics getStatistics(String endpoint) {
+		EndpointStatistics statistics = endpoints.get(endpoint);
+		if (statistics == null) {
+			statistics = endpoints.computeIfAbsent((endpoints.size() >= MAX_ENDPOINTS) ? OTHER_ENDPOINTS : endpoint,
+					key -> new EndpointStatistics());
+		}
+		return statistics;
+	}
+
+	/**
+	 * Returns the endpoints called in the suite, sorted by name.
+	 *
+	 * @return java.util.List
+	 */
+	public List<String> getEndpoints() {
+		List<String> endpointNames = new ArrayList<>(endpoints.keySet());
+		Collections.sort(endpointNames);
+		return endpointNames;
+	}
+
+	/**
+	 * Returns the number of requests recorded for the endpoint.
+	 *
+	 * @param endpoint endpoint name, ex: "GET api.cubic.com/accounts/{id}"
+	 * @return long 0 if the endpoint is not called
+	 */
+	public long getRequestCount(String endpoint) {
+		EndpointStatistics statistics = endpoints.get(endpoint);
+		return (statistics == null) ? 0 : statistics.count.sum();
+	}
+
+	/**
+	 * Returns the latency of the endpoint at the percentile.
+	 *
+	 * @param endpoint endpoint name, ex: "GET api.cubic.com/accounts/{id}"
+	 * @param percentile ex: 99.9
+	 * @return long latency in microseconds, 0 if the endpoint is not called
+	 */
+	public long getLatencyInMicros(String endpoint, double percentile) {
+		EndpointStatistics statistics = endpoints.get(endpoint);
+		return (statistics == null) ? 0 : statistics.histogram.getValueAtPercentile(percentile);
+	}
+
+	/**
+	 * Writes the endpoint summary to the file, the file is not written if no request is recorded.
+	 *
+	 * @param summaryFile summary file
+	 * @throws IOException
+	 */
+	public void writeSummary(File summaryFile) throws IOException {
+		if (endpoints.isEmpty()) {
+			return;
+		}
+		summaryFile.getParentFile().mkdirs();
+		try (PrintWriter writer = new PrintWriter(summaryFile, StandardCharsets.UTF_8.name())) {
+			writer.print(toString());
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append(RESTRequestListenerFilter.isTimingEnabled() ? "Latencies are in milliseconds, from sending the request till the response body is read\n"
+				: "Latencies are in milliseconds, from sending the request till the response headers are received(i.e. restRequestTimingEnabled is FALSE)\n");
+		builder.append("DNS/Connect/TLS/TTFB/Body are averages, n/a if the phase can't be measured for the connection\n");
+		builder.append("Wait is the average rate limit wait, it is not included in the latencies\n\n");
+		builder.append(String.format("%-60s %8s %7s %9s %9s %9s %9s %9s %8s %8s %8s %8s %9s %9s %10s %10s%n",
+				"Endpoint", "Count", "Errors", "p50", "p90", "p99", "p99.9", "Max",
+				"Wait", "DNS", "Connect", "TLS", "TTFB", "Body", "Sent", "Received"));
+		for (String endpoint : getEndpoints()) {
+			EndpointStatistics statistics = endpoints.get(endpoint);
+			Histogram histogram = statistics.histogram;
+			builder.append(String.format("%-60s %8d %7d %9.3f %9.3f %9.3f %9.3f %9.3f %8s %8s %8s %8s %9s %9s %10s %10s%n",
+					endpoint, statistics.count.sum(), statistics.errors.sum(),
+					histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(90) / 1000.0,
+					histogram.getValueAtPercentile(99) / 1000.0, histogram.getValueAtPercentile(99.9) / 1000.0,
+					histogram.getMaxValue() / 1000.0, statistics.wait.averageMillis(),
+					statistics.dns.averageMillis(), statistics.connect.averageMillis(), statistics.tls.averageMillis(),
+					statistics.timeToFirstByte.averageMillis(), statistics.bodyRead.averageMillis(),
+					RESTRequestTiming.formatBytes(statistics.bytesSent.sum()),
+					RESTRequestTiming.formatBytes(statistics.bytesReceived.sum())));
+		}
+		return builder.toString();
+	}
+
+	private static class EndpointStatistics {
+		private final Histogram histogram = new ConcurrentHistogram(3);
+		private final LongAdder count = new LongAdder();
+		private final LongAdder errors = new LongAdder();
+		private final PhaseAverage wait = new PhaseAverage();
+		private final PhaseAverage dns = new PhaseAverage();
+		private final PhaseAverage connect = new PhaseAverage();
+		private final PhaseAverage tls = new PhaseAverage();
+		private final PhaseAverage timeToFirstByte = new PhaseAverage();
+		private final PhaseAverage bodyRead = new PhaseAverage();
+		private final LongAdder bytesSent = new LongAdder();
+		private final LongAdder bytesReceived = new LongAdder();
+
+		private void record(int status, long durationInNanos, Throwable failure) {
+			count.increment();
+			if (failure != null || status >= 400) {
+				errors.increment();
+			}
+			if (durationInNanos >= 0) {
+				histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(durationInNanos));
+			}
+		}
+
+		private void record(RESTRequestTiming timing) {
+			count.increment();
+			if (timing.getFailure() != null || timing.getStatus() >= 400) {
+				errors.increment();
+			}
+			if (timing.getTotalNanos() >= 0) {
+				histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(timing.getTotalNanos()));
+			}
+			wait.add(timing.getWaitNanos());
+			dns.add(timing.getDnsNanos());
+			connect.add(timing.getConnectNanos());
+			tls.add(timing.getTlsNanos());
+			timeToFirstByte.add(timing.getTimeToFirstByteNanos());
+			bodyRead.add(timing.getBodyReadNanos());
+			bytesSent.add(timing.getBytesSent());
+			bytesReceived.add(timing.getBytesReceived());
+		}
+	}
+
+	private static class PhaseAverage {
+		private final LongAdder totalNanos = new LongAdder();
+		private final LongAdder count = new LongAdder();
+
+		private void add(long nanos) {
+			if (nanos >= 0) {
+				totalNanos.add(nanos);
+				count.increment();
+			}
+		}
+
+		private String averageMillis() {
+			long measured = count.sum();
+			return (measured == 0) ? "n/a" : RESTRequestTiming.formatMillis(totalNanos.sum() / measured).replace(" ms", "");
+		}
+	}
+}
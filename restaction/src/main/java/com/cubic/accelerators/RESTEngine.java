@@ -1,18 +1,23 @@
 package com.cubic.accelerators;
 
+import java.io.File;
+import java.io.IOException;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Date;
 import java.util.Hashtable;
 import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.Logger;
 import org.testng.ITestContext;
 import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.Listeners;
 import org.testng.annotations.Optional;
 import org.testng.annotations.Parameters;
 
@@ -27,38 +32,61 @@ import com.cubic.testrail.TestRailUtil;
 
 /**
  * BaseRestTest have all the generic methods to execute to drive the test cases.
+ *  - Safe for TestNG parallel="methods", test case state is kept per test case name/thread
+ *    and suite counters are aggregated in RESTSuiteStatistics.
+ *  - Suite can be sharded between several JVMs with the shardIndex/shardCount parameters(see RESTShardInterceptor).
  *
  * @since 1.0
  */
+@Listeners(RESTShardInterceptor.class)
 public class RESTEngine{
 
-	private Hashtable<String, RESTActions> restActionsList =  null;
+	private static final ThreadLocal<RESTActions> currentRestActions = new ThreadLocal<>();
+	private final Map<String, RESTActions> restActionsList = new ConcurrentHashMap<>();
 	private Hashtable<String , String> propTable = GenericConstants.GENERIC_FW_CONFIG_PROPERTIES;
 	private String testRailProjectID;
 	private String testRailSuiteID;
 	private String testRailRunID;
 	private boolean testRailFlag;
 	private final Logger LOG = Logger.getLogger(this.getClass().getName());
+	private static volatile String reportFolderPath = null;
+	private static volatile int[] shard = null;
 
 	/**
 	 * This method will be executed before the suite.
-	 * CustomReport folder structure is created in this phase.
+	 * CustomReport folder structure and the shared rest clients are created in this phase.
 	 *
 	 * @param context
 	 *
 	 */
 	@BeforeSuite(alwaysRun=true)
-	@Parameters({"projectID","suiteID","runID","test_Rail_Integration_Enable_Flag","runName"})
+	@Parameters({"projectID","suiteID","runID","test_Rail_Integration_Enable_Flag","runName","shardIndex","shardCount"})
 	public void beforeSuite(ITestContext context,
 			@Optional String projectID,
 			@Optional String suiteID,
 			@Optional String runID,
 			@Optional String test_Rail_Integration_Enable_Flag,
-			@Optional String runName) {
+			@Optional String runName,
+			@Optional String shardIndex,
+			@Optional String shardCount) {
 
 		String reportFilePath = generateFilePath();
+		reportFolderPath = reportFilePath;
 		Log4jUtil.setTestDir(reportFilePath); // Used if paths aren't defined in GenericFrameworkConfig
 		Log4jUtil.configureLog4j(GenericConstants.LOG4J_FILEPATH);
+		RESTLog.installAsyncAppender(propTable);
+		RESTReportWriter.start(propTable);
+
+		// Shared rest clients(i.e. connection pool) used by all the tests in the suite.
+		RESTClientRegistry.open();
+		// Record and replay mode(i.e. restRecordReplayMode), must be started before the shared clients are created.
+		RESTRecordReplay.start(propTable);
+		RESTSuiteStatistics.getInstance().reset();
+		RESTEndpointStatistics.getInstance().reset();
+		RESTRequestListenerFilter.addListener(RESTEndpointStatistics.getInstance());
+		// Request metrics for the dashboards(i.e. restMetricsEnabled), exported as Prometheus text and JSON.
+		RESTMetricsRegistry.start(propTable, reportFilePath);
+		shard = RESTShardInterceptor.getShard(shardIndex, shardCount);
 
 		try{
 		testRailProjectID=TestRailUtil.getTestRailProjectID(projectID);
@@ -69,18 +97,30 @@ public class RESTEngine{
 		// Create custom report folder structure.
 
 		createFolderStructureForCustomReport(context, testRailFlag, reportFilePath);
+		// Response attachments are written once per content to the attachments folder of the report.
+		RESTAttachmentStore.start(propTable, reportFilePath);
 		if(testRailFlag){
 
 			if((runID==null) || (runID.equalsIgnoreCase("0") || runID.equalsIgnoreCase("%runID%") || runID.equalsIgnoreCase("${runID}") )){
+				if (shard != null) {
+					// Every shard would create its own run, the results of the shards are published to one run
+					throw new IllegalStateException("runID parameter should be passed to all the shards when the suite is sharded"
+							+ " with the TestRail integration, create the TestRail run before the shards are started");
+				}
 				    // Need to generate the Test Run JSON (with Test Cases) to filter out the test cases that need to be added to the TestRail Run
 				    TestRailUtil.generateTestRunJSONFromTestNG(context, testRailProjectID, testRailSuiteID);
 
 			        // Generate Test Run in TestRail
+					long runCreatedAfter = System.currentTimeMillis();
 					TestRailUtil.generateTestRunsForTestCases(testRailProjectID, testRailSuiteID, customReports.getCustomReportBean().getSuiteStartDateAndTime(), runName);
+					// ID of the generated run for the bulk API of the TestRail publisher
+					testRailRunID = RESTTestRailPublisher.findCreatedRunID(propTable, testRailProjectID, testRailSuiteID, runName, runCreatedAfter);
 			}else if(runID!=null && !(runID.equals("0"))){
 				testRailRunID = runID;
 				TestRailUtil.setExistingTestRunID(testRailRunID);
 			}
+			// Results of the test cases are published in the background(i.e. restTestRailPublisherEnabled).
+			RESTTestRailPublisher.start(propTable, testRailRunID);
 
 			}
 
@@ -88,6 +128,10 @@ public class RESTEngine{
 			LOG.error(Log4jUtil.getStackTrace(e));
 			throw new RuntimeException(e);
 	    }
+		// Results of the shard are written for RESTShardMerger when the suite is sharded, the TestRail run ID is known here.
+		if (shard != null) {
+			RESTShardResult.start(RESTShardResult.getRunID(propTable, testRailRunID), shard[0], shard[1], reportFilePath, propTable);
+		}
 	}
 
 	private String generateFilePath() {
@@ -98,7 +142,7 @@ public class RESTEngine{
 
 	/**
 	 * This method will be executed after the suite.
-	 * Generating summary report and freeing up the custom report instances are done in this phase.
+	 * Generating summary report, freeing up the custom report instances and closing the shared rest clients are done in this phase.
 	 *
 	 * @param context
 	 * @throws Exception
@@ -111,10 +155,17 @@ public class RESTEngine{
 
 		// Update test execution results into the Test Run under Test Rail project
 		LOG.info("::::After Suite::::testRailFlag " + testRailFlag);
+		// Queued report steps are written before the summary report is generated.
+		RESTReportWriter.stop();
+		RESTAttachmentStore.stop();
+		// Queued TestRail results are published before the results of the suite are updated.
+		RESTTestRailPublisher.stop();
 		// Generates the Summary report.
 				generateSummaryReport(context,testRailFlag);
+		// Results of the shards are published to TestRail once, by RESTShardMerger.
+		File shardResultFile = RESTShardResult.stop();
 
-		if(testRailFlag){
+		if(testRailFlag && shardResultFile == null){
 			try{
 				if((propTable.get("Test_Rail_Results_Update_End_of_Suite")==null)||(propTable.get("Test_Rail_Results_Update_End_of_Suite").equalsIgnoreCase("true"))){
 					TestRailUtil.updateTestResultsinTestRail();
@@ -126,7 +177,34 @@ public class RESTEngine{
 			}
 		}
 
+		if (shardResultFile != null && shard[0] == 0) {
+			mergeShards();
+		} else if (shardResultFile != null && testRailFlag) {
+			// Shard completed after the merge is started(i.e. the wait time of the shard 0 is elapsed) publishes its own results.
+			RESTShardMerger.publishUnmerged(shardResultFile, propTable, testRailRunID);
+		}
+
 		cleanUpCustomReports();
+		if (RESTResponseCache.getInstance().isEnabled()) {
+			LOG.info("Response cache :: " + RESTResponseCache.getInstance());
+		}
+		if (RESTAttachmentPolicy.isEnabled()) {
+			LOG.info(RESTAttachmentPolicy.getAttachmentPolicySummary());
+		}
+		if (RESTCompressionFilter.isEnabled()) {
+			LOG.info(RESTCompressionFilter.getCompressionSummary());
+		}
+		if (RESTResilienceFilter.isEnabled()) {
+			LOG.info(RESTResilienceFilter.getResilienceSummary());
+		}
+		if (RESTRateLimitFilter.isEnabled()) {
+			LOG.info(RESTRateLimitFilter.getRateLimitSummary());
+		}
+		RESTMetricsRegistry.stop();
+		RESTClientRegistry.close();
+		RESTRecordReplay.stop();
+		LOG.info("JSON path cache :: " + RESTJsonPathCache.getInstance());
+		RESTLog.uninstallAsyncAppender();
 	}
 
 	/**
@@ -138,7 +216,6 @@ public class RESTEngine{
 	@BeforeClass(alwaysRun=true)
 	public void beforeClass(ITestContext context) {
 		customReports = (CustomReports) context.getAttribute(RESTConstants.CUSTOM_REPORTS);
-		restActionsList = new Hashtable<>();
 	}
 
 	/**
@@ -163,6 +240,7 @@ public class RESTEngine{
 			setupReport(context, testCaseName);
 			restActions = getRestActions(testCaseName);
 			restActionsList.put(testCaseName, restActions);
+			currentRestActions.set(restActions);
 
 		}catch (Exception e) {
 			LOG.error(Log4jUtil.getStackTrace(e));
@@ -195,12 +273,20 @@ public class RESTEngine{
 			// This details will be used for generating summary report.
 			LOG.info("::::testRailFlag value in teardownAutomationTest:::::: " + testRailFlag);
 			LOG.info("::::testRailFlag value in Test Util:::::: " + TestRailUtil.testRailFlag);
+			// Queued report steps(and the steps of the asynchronous requests) decide the status of the test case.
+			RESTActions restActions = restActionsList.get(testCaseName);
+			if (restActions != null) {
+				restActions.writeDeferredSteps();
+			}
+			RESTReportWriter.flush(testCaseName);
 			teardownReport(context, testCaseName, TestRailUtil.testRailFlag);
 
 			restActionsList.remove(testCaseName);
+			currentRestActions.remove();
 
 			// If test is fail then assert false, this is for testNG
-			assert !Objects.equals(this.customReports.getCustomReportBean().getDetailedReportMap().get(testCaseName).getOverallStatus().toLowerCase(), "fail");
+			CustomReports customReports = (CustomReports) context.getAttribute(RESTConstants.CUSTOM_REPORTS);
+			assert !Objects.equals(getDetailedReportBean(customReports, testCaseName).getOverallStatus().toLowerCase(), "fail");
 
 		}catch (Exception e) {
 			LOG.error(Log4jUtil.getStackTrace(e));
@@ -219,7 +305,40 @@ public class RESTEngine{
 		return actionEngineRest;
 	}
 
-	public CustomReports customReports = null;
+	/**
+	 * Returns the RESTActions instance of the test case running in the current thread.
+	 *
+	 * @return RESTActions, null if setupAutomationTest is not called in the current thread
+	 */
+	protected RESTActions getCurrentRestActions() {
+		return currentRestActions.get();
+	}
+
+	/**
+	 * Returns the suite level CustomReports instance.
+	 *
+	 * @return com.cubic.reportengine.report.CustomReports
+	 */
+	public CustomReports getCustomReports() {
+		return customReports;
+	}
+
+	/**
+	 * Returns the custom report folder of the current suite, null if the suite is not started by RESTEngine.
+	 *
+	 * @return java.lang.String
+	 */
+	public static String getReportFolderPath() {
+		return reportFolderPath;
+	}
+
+	/**
+	 * Suite level CustomReports instance, assigned only at suite and class level.
+	 *
+	 * @deprecated kept public for the existing frameworks, use getCustomReports()
+	 */
+	@Deprecated
+	public volatile CustomReports customReports = null;
 
 	/**
 	 * Creates the custom report folder structure.
@@ -252,7 +371,25 @@ public class RESTEngine{
 	protected void generateSummaryReport(ITestContext context,boolean testRailFlag) throws Exception{
 		customReports = (CustomReports) context.getAttribute(RESTConstants.CUSTOM_REPORTS);
 		LOG.info("::::Generate Summary Report::::testRailFlag " + testRailFlag);
+
+		// Counters of all the test threads are merged before generating the summary report.
+		RESTSuiteStatistics.getInstance().mergeInto(customReports.getCustomReportBean());
 		customReports.generateSummaryReport(testRailFlag);
+
+		// Latency percentiles and timing breakdown per endpoint, next to the summary report.
+		String folderPath = (reportFolderPath != null) ? reportFolderPath : GenericConstants.CUSTOM_REPORTS_RESULTS;
+		try {
+			RESTEndpointStatistics.getInstance().writeSummary(new File(folderPath, "EndpointLatencySummary.txt"));
+		} catch (IOException e) {
+			LOG.error("Unable to write the endpoint latency summary :: " + Log4jUtil.getStackTrace(e));
+		}
+
+		// Hit and revalidation counts of the response cache(i.e. only when the cache is enabled).
+		try {
+			RESTResponseCache.getInstance().writeSummary(new File(folderPath, "ResponseCacheSummary.txt"));
+		} catch (IOException e) {
+			LOG.error("Unable to write the response cache summary :: " + Log4jUtil.getStackTrace(e));
+		}
 	}
 
 	/** Initialize the detailed report for the test case(at test method level @Test)
@@ -264,27 +401,27 @@ public class RESTEngine{
 	private boolean setupReport(ITestContext context, String testCaseName){
 		boolean flag;
 		try{
-			customReports = (CustomReports) context.getAttribute(RESTConstants.CUSTOM_REPORTS);
+			CustomReports customReports = (CustomReports) context.getAttribute(RESTConstants.CUSTOM_REPORTS);
 
 			CustomReportBean customReportBean = customReports.getCustomReportBean();
 			LinkedHashMap<String, DetailedReportBean> detailedReportMap = customReportBean.getDetailedReportMap();
 
-			//Check test case is already present.
-			if(detailedReportMap.get(testCaseName) == null){
-
-				//Create the detailed report, holds information related to test case.
-				 DetailedReportBean detailedReportBean = new DetailedReportBean();
-				 detailedReportBean.setTestCaseName(testCaseName);
-				 detailedReportBean.setTestCaseStartTime(TimeUtil.getCurrentInstant());
+			// detailedReportMap is not thread safe, it is shared by all the test threads.
+			synchronized (detailedReportMap) {
+				//Check test case is already present.
+				if(detailedReportMap.get(testCaseName) == null){
 
-				 //Add the detailed report map having test case information to detailed report map.
-				 detailedReportMap.put(testCaseName, detailedReportBean);
+					//Create the detailed report, holds information related to test case.
+					 DetailedReportBean detailedReportBean = new DetailedReportBean();
+					 detailedReportBean.setTestCaseName(testCaseName);
+					 detailedReportBean.setTestCaseStartTime(TimeUtil.getCurrentInstant());
 
-				 customReports.intializeDetailedReport(testCaseName);
+					 //Add the detailed report map having test case information to detailed report map.
+					 detailedReportMap.put(testCaseName, detailedReportBean);
 
-				 customReportBean.setDetailedReportMap(detailedReportMap);
-				 context.setAttribute(RESTConstants.CUSTOM_REPORTS, customReports);
-				 LOG.info("Test Case ID :::: "+testCaseName.split(":")[0]);
+					 customReports.intializeDetailedReport(testCaseName);
+					 LOG.info("Test Case ID :::: "+testCaseName.split(":")[0]);
+				}
 			}
 
 			flag = true;
@@ -312,11 +449,8 @@ public class RESTEngine{
 		LOG.info("::::testRailFlag value in teardownReport:::::: "+testRailFlag);
 		try{
 			CustomReports customReports =(CustomReports) context.getAttribute(RESTConstants.CUSTOM_REPORTS);
-			CustomReportBean customReportBean = customReports.getCustomReportBean();
 
-			LinkedHashMap<String, DetailedReportBean> detailedReportMap = customReportBean.getDetailedReportMap();
-
-			DetailedReportBean detailedReportBean = detailedReportMap.get(testCaseName);
+			DetailedReportBean detailedReportBean = getDetailedReportBean(customReports, testCaseName);
 			if(detailedReportBean != null){
 
 				Instant endTime = TimeUtil.getCurrentInstant();
@@ -325,24 +459,14 @@ public class RESTEngine{
 				detailedReportBean.setTestCaseEndTime(endTime);
 				detailedReportBean.setTotalTimeForTestCase(testCaseTotalTime);
 
-				long overallExecutionTimeInMillis = customReportBean.getOverallExecutionTimeInMillis();
-				int totalTestScriptsPassed = customReportBean.getTotalTestScriptsPassed();
-				int totalTestScriptsFailed = customReportBean.getTotalTestScriptsFailed();
-
-				if(GenericConstants.TEST_CASE_PASS.equalsIgnoreCase(detailedReportBean.getOverallStatus())){
-					totalTestScriptsPassed = totalTestScriptsPassed + 1;
-				}else{
-					totalTestScriptsFailed = totalTestScriptsFailed + 1;
-				}
-				overallExecutionTimeInMillis = overallExecutionTimeInMillis + TimeUtil.getTimeDifferenceInMillis(startTime, endTime);
-
-				customReportBean.setOverallExecutionTimeInMillis(overallExecutionTimeInMillis);
-				customReportBean.setTotalTestScriptsPassed(totalTestScriptsPassed);
-				customReportBean.setTotalTestScriptsFailed(totalTestScriptsFailed);
-				context.setAttribute(RESTConstants.CUSTOM_REPORTS, customReports);
+				// Suite counters are merged into the CustomReportBean at the end of the suite.
+				RESTSuiteStatistics.getInstance().recordTestCase(
+						GenericConstants.TEST_CASE_PASS.equalsIgnoreCase(detailedReportBean.getOverallStatus()),
+						TimeUtil.getTimeDifferenceInMillis(startTime, endTime));
 				testCaseID=detailedReportBean.getTestCaseID();
 				finalResult=detailedReportBean.getOverallStatus();
 				comment=detailedReportBean.getFailStepDescription();
+				RESTShardResult.record(testCaseName, testCaseID, finalResult, comment, startTime, endTime);
 			}
 
 			flag = true;
@@ -361,13 +485,16 @@ public class RESTEngine{
 				testResultsUpdateFlag=true;
 			}
 
-			if(testRailFlag){
+			if(testRailFlag && !RESTShardResult.isActive()){
 				try{
 					if(testResultsUpdateFlag){
 						if(comment==null){
 							comment="";
 						}
-						TestRailUtil.updateTestResultinTestRail(testCaseID,finalResult,comment);
+						// Queued to the background publisher when it's started, otherwise updated in the test thread.
+						if(!RESTTestRailPublisher.publish(testCaseID,finalResult,comment)){
+							TestRailUtil.updateTestResultinTestRail(testCaseID,finalResult,comment);
+						}
 					}
 
 				}catch (Exception e) {
@@ -379,6 +506,50 @@ public class RESTEngine{
 		return flag;
 	}
 
+	/**
+	 * Merges the results of all the shards in the shard 0, it waits up to restShardMergeTimeoutInMinutes for the other shards.
+	 * When restShardMergeTimeoutInMinutes is 0, RESTShardMerger must be run once all the shards are completed.
+	 */
+	private void mergeShards() {
+		String mergeTimeout = propTable.get(RESTConstants.SHARD_MERGE_TIMEOUT);
+		long mergeTimeoutInMinutes = RESTShardMerger.DEFAULT_MERGE_TIMEOUT_IN_MINUTES;
+		try {
+			if (mergeTimeout != null && mergeTimeout.trim().length() > 0) {
+				mergeTimeoutInMinutes = Long.parseLong(mergeTimeout.trim());
+			}
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid value '" + mergeTimeout + "' for the property " + RESTConstants.SHARD_MERGE_TIMEOUT + ", using the default value "
+					+ RESTShardMerger.DEFAULT_MERGE_TIMEOUT_IN_MINUTES);
+		}
+		if (mergeTimeoutInMinutes <= 0) {
+			LOG.info("Results of the shards are not merged, run RESTShardMerger once all the shards are completed"
+					+ (testRailFlag ? " to publish the results to TestRail" : ""));
+			return;
+		}
+		RESTShardMerger merger = RESTShardMerger.merge(RESTShardResult.getResultsFolder(propTable), RESTShardResult.getRunID(propTable, testRailRunID),
+				shard[1], TimeUnit.MINUTES.toMillis(mergeTimeoutInMinutes));
+		merger.writeSummary();
+		if (testRailFlag && testRailRunID != null) {
+			merger.publishToTestRail(propTable, testRailRunID);
+		} else if (testRailFlag) {
+			LOG.warn("Results of the shards are not published to TestRail, runID parameter should be passed to all the shards");
+		}
+	}
+
+	/**
+	 * Returns the detailed report of the test case, detailedReportMap is shared by all the test threads.
+	 *
+	 * @param customReports com.cubic.reportengine.report.CustomReports
+	 * @param testCaseName
+	 * @return com.cubic.reportengine.bean.DetailedReportBean, null if the test case is not present
+	 */
+	private DetailedReportBean getDetailedReportBean(CustomReports customReports, String testCaseName){
+		LinkedHashMap<String, DetailedReportBean> detailedReportMap = customReports.getCustomReportBean().getDetailedReportMap();
+		synchronized (detailedReportMap) {
+			return detailedReportMap.get(testCaseName);
+		}
+	}
+
 	/** Frees up the customReport instance.
 	 *  This method should be called in after suite(i.e. at the end of the suite.)
 	 *
@@ -0,0 +1,96 @@
+package com.cubic.accelerators;
+
+import java.util.List;
+import java.util.Map;
+
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.spi.json.JacksonJsonProvider;
+import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
+
+/**
+ * <pre>
+ * JSON document parsed once and reused for reading any number of JSON paths.
+ *  - Create it with RESTActions.parseJson(jsonData) and pass it to the assert methods, instead of the json string.
+ *  - The document is read only, it can be shared by multiple threads.
+ *  - Objects/arrays are returned as JSON strings, all the other values as their text(null for JSON null).
+ *  - Parsed with Jackson same as JsonUtil, so the numbers and nulls are read the same way as the other JSON validations.
+ * </pre>
+ * @since 1.5
+ */
+public final class RESTJsonDocument {
+	private static final Configuration CONFIGURATION = Configuration.builder().jsonProvider(new JacksonJsonProvider())
+			.mappingProvider(new JacksonMappingProvider()).build();
+
+	private final String jsonData;
+	private final Object document;
+
+	RESTJsonDocument(String jsonData) {
+		this.jsonData = jsonData;
+		this.document = CONFIGURATION.jsonProvider().parse(jsonData);
+	}
+
+	/**
+	 * Returns the json string from which the document is parsed.
+	 *
+	 * @return java.lang.String
+	 */
+	public String getJsonData() {
+		return jsonData;
+	}
+
+	/**
+	 * Reads the value of the JSON path, the path is compiled once and cached(i.e. RESTJsonPathCache).
+	 *
+	 * @param jsonPathExpression jsonPathExpression as java.lang.String, ex: $.accounts[0].id
+	 * @return value as parsed by the JSON provider(i.e. String, Number, Boolean, Map or List)
+	 */
+	public <T> T read(String jsonPathExpression) {
+		return read(RESTJsonPathCache.getInstance().compile(jsonPathExpression));
+	}
+
+	/**
+	 * Reads the value of the compiled JSON path.
+	 *
+	 * @param jsonPath compiled com.jayway.jsonpath.JsonPath
+	 * @return value as parsed by the JSON provider(i.e. String, Number, Boolean, Map or List)
+	 */
+	public <T> T read(JsonPath jsonPath) {
+		return jsonPath.read(document, CONFIGURATION);
+	}
+
+	/**
+	 * Returns value from the document based on jsonPathExpression.
+	 *
+	 * @param jsonPathExpression jsonPathExpression as java.lang.String, ex: $.accounts[0].id
+	 * @return java.lang.String value of the JSON path
+	 */
+	public String getJsonElement(String jsonPathExpression) {
+		return toText(read(jsonPathExpression));
+	}
+
+	/**
+	 * Returns value from the document based on the compiled JSON path.
+	 *
+	 * @param jsonPath compiled com.jayway.jsonpath.JsonPath
+	 * @return java.lang.String value of the JSON path
+	 */
+	public String getJsonElement(JsonPath jsonPath) {
+		return toText(read(jsonPath));
+	}
+
+	private static String toText(Object value) {
+		if (value == null) {
+			return null;
+		}
+		if (value instanceof Map || value instanceof List) {
+			return CONFIGURATION.jsonProvider().toJson(value);
+		}
+		return value.toString();
+	}
+
+	@Override
+	public String toString() {
+		return "RESTJsonDocument [length=" + jsonData.length() + "]";
+	}
+}
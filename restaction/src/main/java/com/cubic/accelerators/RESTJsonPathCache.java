@@ -0,0 +1,181 @@
+package com.cubic.accelerators;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.log4j.Logger;
+
+import com.cubic.genericutils.GenericConstants;
+import com.jayway.jsonpath.JsonPath;
+
+/**
+ * <pre>
+ * JVM level cache of the compiled JSON paths, shared by all the test threads.
+ *  - Lookups never lock, the least recently used paths are evicted when the cache is full.
+ *  - Hit/miss/eviction counts are kept, RESTEngine logs them at the end of the suite.
+ * </pre>
+ * Below properties can be defined in the GenericFrameworkConfig.properties at project level
+ * <pre>
+ *  jsonPathCacheSize : maximum number of compiled JSON paths kept in the cache (default 1024)
+ * </pre>
+ * @since 1.5
+ */
+public class RESTJsonPathCache {
+	private static final Logger LOG = Logger.getLogger(RESTJsonPathCache.class.getName());
+	private static final RESTJsonPathCache instance = new RESTJsonPathCache(GenericConstants.GENERIC_FW_CONFIG_PROPERTIES);
+
+	private final int capacity;
+	private final ConcurrentHashMap<String, CachedPath> paths = new ConcurrentHashMap<>();
+	private final ReentrantLock evictionLock = new ReentrantLock();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	private RESTJsonPathCache(Hashtable<String, String> propTable) {
+		int cacheSize = 1024;
+		String value = propTable.get(RESTConstants.JSON_PATH_CACHE_SIZE);
+		if (value != null && value.trim().length() > 0) {
+			try {
+				cacheSize = Math.max(1, Integer.parseInt(value.trim()));
+			} catch (NumberFormatException e) {
+				LOG.warn("Invalid value '" + value + "' for the property " + RESTConstants.JSON_PATH_CACHE_SIZE + ", using the default value " + cacheSize);
+			}
+		}
+		this.capacity = cacheSize;
+	}
+
+	/**
+	 * Returns the JVM level cache.
+	 *
+	 * @return RESTJsonPathCache
+	 */
+	public static RESTJsonPathCache getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Returns the compiled JSON path, the path is compiled only on the first call.
+	 *
+	 * @param jsonPathExpression jsonPathExpression as java.lang.String, ex: $.accounts[0].id
+	 * @return com.jayway.jsonpath.JsonPath
+	 */
+	public JsonPath compile(String jsonPathExpression) {
+		CachedPath cachedPath = paths.get(jsonPathExpression);
+		if (cachedPath != null) {
+			hits.increment();
+			cachedPath.lastAccessTime = System.nanoTime();
+			return cachedPath.jsonPath;
+		}
+
+		misses.increment();
+		JsonPath jsonPath = JsonPath.compile(jsonPathExpression);
+		paths.putIfAbsent(jsonPathExpression, new CachedPath(jsonPath));
+		if (paths.size() > capacity) {
+			evict();
+		}
+		return jsonPath;
+	}
+
+	/**
+	 * Removes the least recently used paths, only one thread evicts at a time and the others carry on.
+	 * About 10% of the capacity is freed so the eviction is not repeated for every new path.
+	 */
+	private void evict() {
+		if (!evictionLock.tryLock()) {
+			return;
+		}
+		try {
+			int target = capacity - Math.max(1, capacity / 10);
+			if (paths.size() <= capacity) {
+				return;
+			}
+			// Access times keep changing while sorting, the sort uses a copy taken once(i.e. consistent comparator)
+			List<AccessTime> accessTimes = new ArrayList<>(paths.size());
+			for (Map.Entry<String, CachedPath> entry : paths.entrySet()) {
+				accessTimes.add(new AccessTime(entry.getKey(), entry.getValue()));
+			}
+			accessTimes.sort(Comparator.comparingLong(accessTime -> accessTime.lastAccessTime));
+			for (int i = 0; i < accessTimes.size() && paths.size() > target; i++) {
+				if (paths.remove(accessTimes.get(i).jsonPathExpression, accessTimes.get(i).cachedPath)) {
+					evictions.increment();
+				}
+			}
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	/**
+	 * Removes all the compiled paths, the statistics are not reset.
+	 */
+	public void clear() {
+		paths.clear();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public int size() {
+		return paths.size();
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Returns the ratio of the lookups served from the cache.
+	 *
+	 * @return double between 0 and 1, 0 if there is no lookup
+	 */
+	public double getHitRatio() {
+		long hitCount = hits.sum();
+		long total = hitCount + misses.sum();
+		return (total == 0) ? 0 : (double) hitCount / total;
+	}
+
+	@Override
+	public String toString() {
+		return "RESTJsonPathCache [size=" + size() + ", capacity=" + capacity + ", hits=" + getHitCount() + ", misses="
+				+ getMissCount() + ", evictions=" + getEvictionCount() + ", hitRatio=" + String.format("%.3f", getHitRatio()) + "]";
+	}
+
+	/**
+	 * Access time of a cached path, copied when the eviction starts.
+	 */
+	private static final class AccessTime {
+		private final String jsonPathExpression;
+		private final CachedPath cachedPath;
+		private final long lastAccessTime;
+
+		private AccessTime(String jsonPathExpression, CachedPath cachedPath) {
+			this.jsonPathExpression = jsonPathExpression;
+			this.cachedPath = cachedPath;
+			this.lastAccessTime = cachedPath.lastAccessTime;
+		}
+	}
+
+	private static final class CachedPath {
+		private final JsonPath jsonPath;
+		private volatile long lastAccessTime = System.nanoTime();
+
+		private CachedPath(JsonPath jsonPath) {
+			this.jsonPath = jsonPath;
+		}
+	}
+}
@@ -0,0 +1,444 @@
+package com.cubic.accelerators;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.apache.log4j.Logger;
+
+import com.cubic.genericutils.GenericConstants;
+import com.cubic.logutils.Log4jUtil;
+
+/**
+ * <pre>
+ * Drives a functional scenario(i.e. a lambda over RESTActions) at a target arrival rate, so the same flow can be
+ * reused as a load test.
+ *  - Phases are executed in the order they are added, ex: rampUp(60, 50).steadyState(300, 50).spike(30, 200)
+ *  - Arrivals are open loop, an iteration is started at its intended time even if the previous iterations are
+ *    still running. When all the 'maxConcurrency' threads are busy, iterations wait in the queue.
+ *  - Scenario latencies are measured from the intended start time of the iteration(i.e. corrected for coordinated
+ *    omission), so the queueing delay caused by a slow server is part of the reported percentiles.
+ *  - Per-step HTML reporting is disabled, the scenario gets a RESTActions instance without CustomReports.
+ *  - Latencies are recorded into HdrHistogram in microseconds, per endpoint(http method, host and templated path, see
+ *    RESTRequestListenerFilter.getEndpoint) and for the whole scenario. The summary is written to the custom report folder of the suite.
+ *
+ * Ex:
+ *  RESTLoadRunner.LoadSummary summary = new RESTLoadRunner("Get Accounts", restActions -&gt; {
+ *          String response = restActions.getJSONResponseAsString(url, headers, null);
+ *          restActions.assertTrue(response.contains("accountId"), "Accounts are returned");
+ *      }).rampUp(30, 20).steadyState(120, 20).spike(10, 100).maxConcurrency(50).run();
+ * </pre>
+ * @since 1.5
+ */
+public class RESTLoadRunner {
+	private static final Logger LOG = Logger.getLogger(RESTLoadRunner.class.getName());
+	private static final String SCENARIO_ENDPOINT = "SCENARIO";
+
+	/**
+	 * Functional flow executed once per iteration.
+	 */
+	@FunctionalInterface
+	public interface Scenario {
+		void run(RESTActions restActions) throws Throwable;
+	}
+
+	private final String scenarioName;
+	private final Scenario scenario;
+	private final List<Phase> phases = new ArrayList<>();
+	private int maxConcurrency = 32;
+	private long drainTimeoutInSeconds = 60;
+	private String outputFolderPath = null;
+
+	/**
+	 * Constructor (creates the RESTLoadRunner instance)
+	 *
+	 * @param scenarioName name of the scenario, used in the summary and the summary file name
+	 * @param scenario functional flow executed once per iteration
+	 */
+	public RESTLoadRunner(String scenarioName, Scenario scenario) {
+		this.scenarioName = scenarioName;
+		this.scenario = scenario;
+	}
+
+	/**
+	 * Adds a phase increasing the arrival rate linearly, from the rate of the previous phase(0 for the first phase)
+	 * to the target rate.
+	 *
+	 * @param durationInSeconds duration of the phase
+	 * @param targetRatePerSecond arrival rate(iterations per second) at the end of the phase
+	 * @return RESTLoadRunner
+	 */
+	public RESTLoadRunner rampUp(int durationInSeconds, double targetRatePerSecond) {
+		return addPhase("Ramp Up", durationInSeconds, getLastRate(), targetRatePerSecond);
+	}
+
+	/**
+	 * Adds a phase with a constant arrival rate.
+	 *
+	 * @param durationInSeconds duration of the phase
+	 * @param ratePerSecond arrival rate(iterations per second)
+	 * @return RESTLoadRunner
+	 */
+	public RESTLoadRunner steadyState(int durationInSeconds, double ratePerSecond) {
+		return addPhase("Steady State", durationInSeconds, ratePerSecond, ratePerSecond);
+	}
+
+	/**
+	 * Adds a phase with a sudden constant arrival rate, usually higher than the steady state rate.
+	 *
+	 * @param durationInSeconds duration of the phase
+	 * @param ratePerSecond arrival rate(iterations per second)
+	 * @return RESTLoadRunner
+	 */
+	public RESTLoadRunner spike(int durationInSeconds, double ratePerSecond) {
+		return addPhase("Spike", durationInSeconds, ratePerSecond, ratePerSecond);
+	}
+
+	/**
+	 * Sets the maximum number of iterations executed at the same time(default 32).
+	 *
+	 * @param maxConcurrency number of threads executing the scenario
+	 * @return RESTLoadRunner
+	 */
+	public RESTLoadRunner maxConcurrency(int maxConcurrency) {
+		if (maxConcurrency < 1) {
+			throw new IllegalArgumentException("maxConcurrency should be greater than 0 :: " + maxConcurrency);
+		}
+		this.maxConcurrency = maxConcurrency;
+		return this;
+	}
+
+	/**
+	 * Sets the time to wait for the queued and running iterations after the last phase(default 60 seconds).
+	 *
+	 * @param drainTimeoutInSeconds drain timeout
+	 * @return RESTLoadRunner
+	 */
+	public RESTLoadRunner drainTimeout(long drainTimeoutInSeconds) {
+		this.drainTimeoutInSeconds = drainTimeoutInSeconds;
+		return this;
+	}
+
+	/**
+	 * Sets the folder of the summary file, by default the custom report folder of the suite is used.
+	 *
+	 * @param outputFolderPath folder path
+	 * @return RESTLoadRunner
+	 */
+	public RESTLoadRunner outputFolder(String outputFolderPath) {
+		this.outputFolderPath = outputFolderPath;
+		return this;
+	}
+
+	/**
+	 * Executes all the phases and writes the summary file.
+	 *
+	 * @return LoadSummary latency percentiles per endpoint and for the whole scenario
+	 */
+	public LoadSummary run() {
+		if (phases.isEmpty()) {
+			throw new IllegalStateException("No load phase is added for the scenario :: " + scenarioName);
+		}
+
+		LoadSummary summary = new LoadSummary(scenarioName);
+		AtomicInteger threadCount = new AtomicInteger();
+		ThreadPoolExecutor workers = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(), runnable -> {
+					Thread thread = new Thread(runnable, "rest-load-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		ThreadLocal<RESTActions> restActions = ThreadLocal.withInitial(() -> new RESTActions(null, scenarioName));
+
+		LOG.info("Load test is started :: " + scenarioName);
+		long startTime = System.nanoTime();
+		try {
+			long phaseStartTime = startTime;
+			for (Phase phase : phases) {
+				LOG.info("Load phase '" + phase.name + "' is started :: " + phase.durationInSeconds + " seconds, "
+						+ phase.startRate + " -> " + phase.endRate + " iterations per second");
+				dispatch(phase, phaseStartTime, workers, restActions, summary);
+				phaseStartTime += TimeUnit.SECONDS.toNanos(phase.durationInSeconds);
+			}
+		} finally {
+			workers.shutdown();
+		}
+
+		try {
+			if (!workers.awaitTermination(drainTimeoutInSeconds, TimeUnit.SECONDS)) {
+				List<Runnable> pending = workers.shutdownNow();
+				LOG.warn("Load test drain timeout is reached, " + pending.size() + " queued iterations are not executed");
+			}
+		} catch (InterruptedException e) {
+			workers.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+		summary.durationInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+		LOG.info("Load test is completed :: " + scenarioName + "\n" + summary);
+
+		writeSummary(summary);
+		return summary;
+	}
+
+	/**
+	 * Submits the iterations of the phase at their intended start times. The intended start time of the k-th iteration
+	 * is the time at which the expected number of arrivals(i.e. integral of the arrival rate) reaches k.
+	 */
+	private void dispatch(Phase phase, long phaseStartTime, ExecutorService workers,
+			ThreadLocal<RESTActions> restActions, LoadSummary summary) {
+		double durationInSeconds = phase.durationInSeconds;
+		double a = (phase.endRate - phase.startRate) / (2 * durationInSeconds);
+		double b = phase.startRate;
+		double totalIterations = (a * durationInSeconds + b) * durationInSeconds;
+
+		for (long k = 1; k <= totalIterations; k++) {
+			double offsetInSeconds = (a == 0) ? k / b : (-b + Math.sqrt(b * b + 4 * a * k)) / (2 * a);
+			long intendedStartTime = phaseStartTime + (long) (offsetInSeconds * 1_000_000_000L);
+			long waitTime;
+			while ((waitTime = intendedStartTime - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(waitTime);
+			}
+			workers.execute(() -> runIteration(intendedStartTime, restActions.get(), summary));
+		}
+	}
+
+	private void runIteration(long intendedStartTime, RESTActions restActions, LoadSummary summary) {
+		boolean passed = false;
+		RESTRequestListenerFilter.setThreadListener(summary::recordRequest);
+		try {
+			scenario.run(restActions);
+			passed = true;
+		} catch (Throwable e) {
+			LOG.debug("Load test iteration is failed :: " + e);
+			summary.recordScenarioFailure(e);
+		} finally {
+			RESTRequestListenerFilter.setThreadListener(null);
+			// Latency from the intended start time already includes the queueing delay, it is not corrected again
+			summary.record(SCENARIO_ENDPOINT, System.nanoTime() - intendedStartTime, !passed);
+		}
+	}
+
+	private void writeSummary(LoadSummary summary) {
+		String folderPath = outputFolderPath;
+		if (folderPath == null) {
+			folderPath = (RESTEngine.getReportFolderPath() != null) ? RESTEngine.getReportFolderPath() : GenericConstants.CUSTOM_REPORTS_RESULTS;
+		}
+		String fileName = "LoadSummary_" + scenarioName.replaceAll("[^A-Za-z0-9_-]+", "_") + "_"
+				+ LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss")) + ".txt";
+		File summaryFile = new File(folderPath, fileName);
+		try {
+			summaryFile.getParentFile().mkdirs();
+			try (PrintWriter writer = new PrintWriter(summaryFile, StandardCharsets.UTF_8.name())) {
+				writer.print(summary.toString());
+			}
+			summary.summaryFilePath = summaryFile.getAbsolutePath();
+			LOG.info("Load test summary is written to :: " + summary.summaryFilePath);
+		} catch (IOException e) {
+			LOG.error("Unable to write the load test summary :: " + Log4jUtil.getStackTrace(e));
+		}
+	}
+
+	private RESTLoadRunner addPhase(String name, int durationInSeconds, double startRate, double endRate) {
+		if (durationInSeconds < 1 || startRate < 0 || endRate < 0 || (startRate == 0 && endRate == 0)) {
+			throw new IllegalArgumentException("Invalid load phase '" + name + "' :: duration " + durationInSeconds
+					+ " seconds, rate " + startRate + " -> " + endRate);
+		}
+		phases.add(new Phase(name, durationInSeconds, startRate, endRate));
+		return this;
+	}
+
+	private double getLastRate() {
+		return phases.isEmpty() ? 0 : phases.get(phases.size() - 1).endRate;
+	}
+
+	private static class Phase {
+		private final String name;
+		private final int durationInSeconds;
+		private final double startRate;
+		private final double endRate;
+
+		private Phase(String name, int durationInSeconds, double startRate, double endRate) {
+			this.name = name;
+			this.durationInSeconds = durationInSeconds;
+			this.startRate = startRate;
+			this.endRate = endRate;
+		}
+	}
+
+	/**
+	 * <pre>
+	 * Result of the load test, latencies are in microseconds.
+	 *  - Endpoint latencies are measured from sending the request till the response headers are received.
+	 *  - SCENARIO latencies are measured from the intended start time till the end of the iteration.
+	 *  - Requests failed with an exception or with a response code 400 and above are counted as errors.
+	 * </pre>
+	 */
+	public static class LoadSummary {
+		private final String scenarioName;
+		private final Map<String, EndpointStatistics> endpoints = new ConcurrentHashMap<>();
+		private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+		private volatile long durationInMillis;
+		private volatile String summaryFilePath;
+
+		private LoadSummary(String scenarioName) {
+			this.scenarioName = scenarioName;
+		}
+
+		private void recordRequest(String method, URI uri, int status, long durationInNanos, Throwable failure) {
+			boolean error = (failure != null) || status >= 400;
+			record(RESTRequestListenerFilter.getEndpoint(method, uri), durationInNanos, error);
+		}
+
+		private void record(String endpoint, long durationInNanos, boolean error) {
+			EndpointStatistics statistics = endpoints.computeIfAbsent(endpoint, key -> new EndpointStatistics());
+			statistics.histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(durationInNanos));
+			statistics.count.increment();
+			if (error) {
+				statistics.errors.increment();
+			}
+		}
+
+		private void recordScenarioFailure(Throwable e) {
+			String reason = e.getClass().getSimpleName() + ((e.getMessage() == null) ? "" : " : " + e.getMessage());
+			if (reason.length() > 200) {
+				reason = reason.substring(0, 200);
+			}
+			failures.computeIfAbsent(reason, key -> new LongAdder()).increment();
+		}
+
+		public String getScenarioName() {
+			return scenarioName;
+		}
+
+		public long getDurationInMillis() {
+			return durationInMillis;
+		}
+
+		/**
+		 * Returns the path of the summary file, null if the summary file is not written.
+		 *
+		 * @return java.lang.String
+		 */
+		public String getSummaryFilePath() {
+			return summaryFilePath;
+		}
+
+		/**
+		 * Returns the endpoints(http method, host and templated path) called by the scenario, sorted by name.
+		 *
+		 * @return java.util.List
+		 */
+		public List<String> getEndpoints() {
+			List<String> endpointNames = new ArrayList<>(endpoints.keySet());
+			endpointNames.remove(SCENARIO_ENDPOINT);
+			Collections.sort(endpointNames);
+			return endpointNames;
+		}
+
+		/**
+		 * Returns a copy of the latency histogram(in microseconds) of the endpoint, use "SCENARIO" for the whole scenario.
+		 *
+		 * @param endpoint endpoint name, ex: "GET api.cubic.com/accounts/{id}"
+		 * @return org.HdrHistogram.Histogram null if the endpoint is not called
+		 */
+		public Histogram getHistogram(String endpoint) {
+			EndpointStatistics statistics = endpoints.get(endpoint);
+			return (statistics == null) ? null : statistics.histogram.copy();
+		}
+
+		/**
+		 * Returns the latency of the endpoint at the percentile, use "SCENARIO" for the whole scenario.
+		 *
+		 * @param endpoint endpoint name, ex: "GET api.cubic.com/accounts/{id}"
+		 * @param percentile ex: 99.9
+		 * @return long latency in microseconds, 0 if the endpoint is not called
+		 */
+		public long getLatencyInMicros(String endpoint, double percentile) {
+			EndpointStatistics statistics = endpoints.get(endpoint);
+			return (statistics == null) ? 0 : statistics.histogram.getValueAtPercentile(percentile);
+		}
+
+		public long getIterations() {
+			EndpointStatistics statistics = endpoints.get(SCENARIO_ENDPOINT);
+			return (statistics == null) ? 0 : statistics.count.sum();
+		}
+
+		public long getFailedIterations() {
+			EndpointStatistics statistics = endpoints.get(SCENARIO_ENDPOINT);
+			return (statistics == null) ? 0 : statistics.errors.sum();
+		}
+
+		/**
+		 * Returns the reasons of the failed iterations with their count.
+		 *
+		 * @return java.util.Map
+		 */
+		public Map<String, Long> getFailures() {
+			Map<String, Long> failureCounts = new TreeMap<>();
+			for (Map.Entry<String, LongAdder> failure : failures.entrySet()) {
+				failureCounts.put(failure.getKey(), failure.getValue().sum());
+			}
+			return failureCounts;
+		}
+
+		@Override
+		public String toString() {
+			Map<String, EndpointStatistics> rows = new LinkedHashMap<>();
+			for (String endpoint : getEndpoints()) {
+				rows.put(endpoint, endpoints.get(endpoint));
+			}
+			if (endpoints.containsKey(SCENARIO_ENDPOINT)) {
+				rows.put(SCENARIO_ENDPOINT, endpoints.get(SCENARIO_ENDPOINT));
+			}
+
+			StringBuilder builder = new StringBuilder();
+			builder.append("Scenario : ").append(scenarioName).append("\n");
+			builder.append("Duration : ").append(durationInMillis).append(" ms\n");
+			builder.append("Latencies are in milliseconds, SCENARIO is measured from the intended start time of the iteration\n\n");
+			builder.append(String.format("%-60s %10s %8s %10s %10s %10s %10s %10s%n",
+					"Endpoint", "Count", "Errors", "p50", "p90", "p99", "p99.9", "Max"));
+			for (Map.Entry<String, EndpointStatistics> row : rows.entrySet()) {
+				Histogram histogram = row.getValue().histogram;
+				builder.append(String.format("%-60s %10d %8d %10.3f %10.3f %10.3f %10.3f %10.3f%n",
+						row.getKey(), row.getValue().count.sum(), row.getValue().errors.sum(),
+						histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(90) / 1000.0,
+						histogram.getValueAtPercentile(99) / 1000.0, histogram.getValueAtPercentile(99.9) / 1000.0,
+						histogram.getMaxValue() / 1000.0));
+			}
+			Map<String, Long> failureCounts = getFailures();
+			if (!failureCounts.isEmpty()) {
+				builder.append("\nFailed iterations\n");
+				for (Map.Entry<String, Long> failure : failureCounts.entrySet()) {
+					builder.append(String.format("%10d  %s%n", failure.getValue(), failure.getKey()));
+				}
+			}
+			return builder.toString();
+		}
+	}
+
+	private static class EndpointStatistics {
+		private final Histogram histogram = new ConcurrentHistogram(3);
+		private final LongAdder count = new LongAdder();
+		private final LongAdder errors = new LongAdder();
+	}
+}
@@ -0,0 +1,226 @@
+package com.cubic.accelerators;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.log4j.Appender;
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.AsyncAppender;
+import org.apache.log4j.EnhancedPatternLayout;
+import org.apache.log4j.HTMLLayout;
+import org.apache.log4j.Layout;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.spi.LoggingEvent;
+import org.apache.log4j.xml.XMLLayout;
+
+import com.sun.jersey.api.client.ClientResponse;
+
+/**
+ * <pre>
+ * Level guarded logging used in the request path of RESTActions, nothing is built or captured when the level is disabled.
+ *  - Call site(i.e. test class and method) is logged at DEBUG level, the stack is captured only when DEBUG is enabled.
+ *  - Responses are logged at INFO level as key=value pairs, ex: Response : method=GET url=... status=200 type=application/json length=512
+ *  - Async logging wraps the appenders of the root logger with a log4j AsyncAppender, the test threads only queue
+ *    the events and a single thread writes them. RESTEngine installs it in beforeSuite and flushes it in afterSuite.
+ * </pre>
+ * Below properties can be defined in the GenericFrameworkConfig.properties at project level
+ * <pre>
+ *  restAsyncLoggingEnabled : true to write the logs from a background thread (default false)
+ *  restAsyncLoggingBufferSize : maximum number of queued log events (default 8192)
+ *  restAsyncLoggingBlocking : true to wait when the queue is full, false to discard the events and log the discarded count (default true)
+ *  restAsyncLoggingLocationInfo : true to capture the location(i.e. %C, %M, %L, %F of the layouts) of the queued events,
+ *                                 expensive to capture (default true if a layout of the root logger prints the location)
+ * </pre>
+ * @since 1.5
+ */
+final class RESTLog {
+	private static final Logger LOG = Logger.getLogger(RESTLog.class.getName());
+	private static final String ASYNC_APPENDER_NAME = "REST_ASYNC";
+	// Conversion characters of the location, ex: %C, %-20M, %L, %F, %l
+	private static final Pattern LOCATION_CONVERSION = Pattern.compile("%-?\\d*(\\.\\d+)?[CFLMl]");
+
+	private static List<Appender> wrappedAppenders = null;
+
+	private RESTLog() {
+	}
+
+	/**
+	 * Logs the class and method calling RESTActions, the stack is captured only if DEBUG is enabled.
+	 *
+	 * @param log logger of the calling accelerator
+	 */
+	static void logCaller(Logger log) {
+		if (!log.isDebugEnabled()) {
+			return;
+		}
+		StackTraceElement caller = findCaller(new Throwable().getStackTrace());
+		if (caller != null) {
+			log.debug("Class name : " + caller.getClassName() + " Method name : " + caller.getMethodName());
+		}
+	}
+
+	/**
+	 * Returns the first frame outside this package(i.e. the test calling the accelerator).
+	 */
+	private static StackTraceElement findCaller(StackTraceElement[] stackTrace) {
+		String packagePrefix = RESTLog.class.getPackage().getName() + ".";
+		for (StackTraceElement element : stackTrace) {
+			String className = element.getClassName();
+			if (!className.startsWith(packagePrefix) || className.indexOf('.', packagePrefix.length()) > 0) {
+				return element;
+			}
+		}
+		return (stackTrace.length > 0) ? stackTrace[stackTrace.length - 1] : null;
+	}
+
+	/**
+	 * Logs the response at INFO level, the message is built only if INFO is enabled.
+	 *
+	 * @param log logger of the calling accelerator
+	 * @param method http method
+	 * @param url request url
+	 * @param clientResponse com.sun.jersey.api.client.ClientResponse
+	 */
+	static void logResponse(Logger log, String method, String url, ClientResponse clientResponse) {
+		if (!log.isInfoEnabled() || clientResponse == null) {
+			return;
+		}
+		StringBuilder message = new StringBuilder(128 + url.length());
+		message.append("Response : method=").append(method)
+				.append(" url=").append(url)
+				.append(" status=").append(clientResponse.getStatus())
+				.append(" type=").append(clientResponse.getType())
+				.append(" length=").append(clientResponse.getLength());
+		log.info(message);
+	}
+
+	/**
+	 * Wraps the appenders of the root logger with an AsyncAppender if restAsyncLoggingEnabled is true,
+	 * should be called after log4j is configured.
+	 *
+	 * @param propTable GenericFrameworkConfig properties
+	 */
+	static synchronized void installAsyncAppender(Hashtable<String, String> propTable) {
+		if (!"true".equalsIgnoreCase(propTable.get(RESTConstants.ASYNC_LOGGING_ENABLED)) || wrappedAppenders != null) {
+			return;
+		}
+		Logger rootLogger = Logger.getRootLogger();
+		List<Appender> appenders = new ArrayList<>();
+		Enumeration<?> allAppenders = rootLogger.getAllAppenders();
+		while (allAppenders.hasMoreElements()) {
+			appenders.add((Appender) allAppenders.nextElement());
+		}
+		if (appenders.isEmpty()) {
+			return;
+		}
+
+		AsyncAppender asyncAppender = new AsyncAppender();
+		asyncAppender.setName(ASYNC_APPENDER_NAME);
+		asyncAppender.setBufferSize(getInt(propTable, RESTConstants.ASYNC_LOGGING_BUFFER_SIZE, 8192));
+		asyncAppender.setBlocking(!"false".equalsIgnoreCase(propTable.get(RESTConstants.ASYNC_LOGGING_BLOCKING)));
+		asyncAppender.setLocationInfo(isLocationInfoRequired(propTable, appenders));
+		for (Appender appender : appenders) {
+			rootLogger.removeAppender(appender);
+			asyncAppender.addAppender(new NonClosingAppender(appender));
+		}
+		rootLogger.addAppender(asyncAppender);
+		wrappedAppenders = appenders;
+		LOG.info("Async logging is enabled with buffer size " + asyncAppender.getBufferSize() + ", location info " + asyncAppender.getLocationInfo());
+	}
+
+	/**
+	 * Returns restAsyncLoggingLocationInfo, or true if any of the layouts prints the location when it is not defined.
+	 * Location of the queued event can't be captured later, without it the layouts print '?'.
+	 */
+	private static boolean isLocationInfoRequired(Hashtable<String, String> propTable, List<Appender> appenders) {
+		String locationInfo = propTable.get(RESTConstants.ASYNC_LOGGING_LOCATION_INFO);
+		if (locationInfo != null && locationInfo.trim().length() > 0) {
+			if ("false".equalsIgnoreCase(locationInfo.trim()) && usesLocation(appenders)) {
+				LOG.warn("Location info of the async logging is disabled, the location in the log layouts is printed as '?'");
+			}
+			return !"false".equalsIgnoreCase(locationInfo.trim());
+		}
+		return usesLocation(appenders);
+	}
+
+	private static boolean usesLocation(List<Appender> appenders) {
+		for (Appender appender : appenders) {
+			Layout layout = appender.getLayout();
+			if ((layout instanceof PatternLayout && usesLocation(((PatternLayout) layout).getConversionPattern()))
+					|| (layout instanceof EnhancedPatternLayout && usesLocation(((EnhancedPatternLayout) layout).getConversionPattern()))
+					|| (layout instanceof HTMLLayout && ((HTMLLayout) layout).getLocationInfo())
+					|| (layout instanceof XMLLayout && ((XMLLayout) layout).getLocationInfo())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean usesLocation(String conversionPattern) {
+		return conversionPattern != null && LOCATION_CONVERSION.matcher(conversionPattern.replace("%%", "")).find();
+	}
+
+	/**
+	 * Writes the queued log events and restores the appenders of the root logger, does nothing if async logging is not installed.
+	 */
+	static synchronized void uninstallAsyncAppender() {
+		if (wrappedAppenders == null) {
+			return;
+		}
+		Logger rootLogger = Logger.getRootLogger();
+		Appender asyncAppender = rootLogger.getAppender(ASYNC_APPENDER_NAME);
+		if (asyncAppender != null) {
+			rootLogger.removeAppender(asyncAppender);
+			// Waits till the queued events are written.
+			asyncAppender.close();
+		}
+		for (Appender appender : wrappedAppenders) {
+			rootLogger.addAppender(appender);
+		}
+		wrappedAppenders = null;
+	}
+
+	private static int getInt(Hashtable<String, String> propTable, String key, int defaultValue) {
+		String value = propTable.get(key);
+		if (value == null || value.trim().length() == 0) {
+			return defaultValue;
+		}
+		try {
+			return Math.max(1, Integer.parseInt(value.trim()));
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid value '" + value + "' for the property " + key + ", using the default value " + defaultValue);
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Keeps the wrapped appender open when the AsyncAppender is closed, the appender is given back to the root logger.
+	 */
+	private static class NonClosingAppender extends AppenderSkeleton {
+		private final Appender appender;
+
+		private NonClosingAppender(Appender appender) {
+			this.appender = appender;
+			setName(appender.getName());
+		}
+
+		@Override
+		protected void append(LoggingEvent event) {
+			appender.doAppend(event);
+		}
+
+		@Override
+		public boolean requiresLayout() {
+			return false;
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+}
@@ -0,0 +1,389 @@
+package com.cubic.accelerators;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import org.apache.log4j.Logger;
+
+import com.cubic.logutils.Log4jUtil;
+
+/**
+ * <pre>
+ * Suite level request metrics for the dashboards, recorded from every request sent through the shared rest clients
+ * and exported as Prometheus text(i.e. exposition format 0.0.4) and JSON.
+ *  - Requests are counted per http method, host(and port), templated path and status class(i.e. 2xx, 3xx, 4xx, 5xx, or
+ *    'error' when the response is not received). Numbers, UUIDs and long hex segments of the path are replaced
+ *    with {id}, ex: /accounts/1234/cards -&gt; /accounts/{id}/cards
+ *  - Durations(i.e. sending the request till the response headers, excluding the rate limit wait) are recorded
+ *    into a histogram with fixed buckets.
+ *  - At most 1000 series are tracked, the requests of the other series are recorded with the path "OTHER".
+ *  - RESTEngine starts the registry in beforeSuite and writes metrics.prom and metrics.json to the custom report
+ *    folder in afterSuite.
+ *  - Long runs can be monitored in flight, the metrics are written(or pushed to restMetricsPushUrl, ex: a Prometheus
+ *    Pushgateway) every 'restMetricsPushIntervalInSeconds'.
+ * </pre>
+ * Below properties can be defined in the GenericFrameworkConfig.properties at project level
+ * <pre>
+ *  restMetricsEnabled : true to record the request metrics (default false)
+ *  restMetricsPushIntervalInSeconds : interval of writing the metrics while the suite runs, 0 to write only at the end (default 0)
+ *  restMetricsPushUrl : url the Prometheus text is sent to(i.e. PUT), ex: http://pushgateway:9091/metrics/job/api-tests (default none)
+ * </pre>
+ * @since 1.5
+ */
+public final class RESTMetricsRegistry implements RESTRequestListener {
+	private static final Logger LOG = Logger.getLogger(RESTMetricsRegistry.class.getName());
+	private static final int MAX_SERIES = 1000;
+	private static final String OTHER_PATHS = "OTHER";
+	private static final double[] BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+	private static final Pattern ID_SEGMENT = Pattern.compile(
+			"\\d+|[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}|[0-9a-fA-F]{16,}");
+	static final String PROMETHEUS_FILE = "metrics.prom";
+	static final String JSON_FILE = "metrics.json";
+
+	private static volatile RESTMetricsRegistry instance = null;
+
+	private final ConcurrentHashMap<SeriesKey, Series> series = new ConcurrentHashMap<>();
+	private final File folder;
+	private final String pushUrl;
+	private final ScheduledExecutorService pushExecutor;
+
+	private RESTMetricsRegistry(File folder, String pushUrl, int pushIntervalSeconds) {
+		this.folder = folder;
+		this.pushUrl = pushUrl;
+		if (pushIntervalSeconds > 0) {
+			pushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "rest-metrics-writer");
+				thread.setDaemon(true);
+				return thread;
+			});
+			pushExecutor.scheduleWithFixedDelay(this::export, pushIntervalSeconds, pushIntervalSeconds, TimeUnit.SECONDS);
+		} else {
+			pushExecutor = null;
+		}
+	}
+
+	/**
+	 * Starts recording the request metrics if restMetricsEnabled is true, should be called before the first test(i.e. before suite).
+	 *
+	 * @param propTable GenericFrameworkConfig properties
+	 * @param reportFolderPath custom report folder of the suite, the metrics files are written to it
+	 */
+	public static synchronized void start(Hashtable<String, String> propTable, String reportFolderPath) {
+		if (!"true".equalsIgnoreCase(propTable.get(RESTConstants.METRICS_ENABLED)) || instance != null) {
+			return;
+		}
+		String pushUrl = propTable.get(RESTConstants.METRICS_PUSH_URL);
+		instance = new RESTMetricsRegistry(new File(reportFolderPath),
+				(pushUrl == null || pushUrl.trim().length() == 0) ? null : pushUrl.trim(),
+				getPushInterval(propTable));
+		RESTRequestListenerFilter.addListener(instance);
+		LOG.info("Request metrics are enabled");
+	}
+
+	/**
+	 * Stops recording the request metrics and exports them(i.e. writes the files and pushes them to restMetricsPushUrl).
+	 */
+	public static synchronized void stop() {
+		RESTMetricsRegistry registry = instance;
+		if (registry == null) {
+			return;
+		}
+		instance = null;
+		RESTRequestListenerFilter.removeListener(registry);
+		if (registry.pushExecutor != null) {
+			registry.pushExecutor.shutdownNow();
+		}
+		registry.export();
+	}
+
+	/**
+	 * Returns the registry of the suite.
+	 *
+	 * @return RESTMetricsRegistry null if the metrics are not enabled
+	 */
+	public static RESTMetricsRegistry getInstance() {
+		return instance;
+	}
+
+	@Override
+	public void onRequestCompleted(String method, URI uri, int status, long durationInNanos, Throwable failure) {
+		String statusClass = (failure != null || status < 100) ? "error" : (status / 100) + "xx";
+		String host = (uri.getHost() == null) ? "" : uri.getHost().toLowerCase(Locale.ENGLISH) + ((uri.getPort() == -1) ? "" : ":" + uri.getPort());
+		SeriesKey key = new SeriesKey(method, host, getPathTemplate(uri.getRawPath()), statusClass);
+		Series values = series.get(key);
+		if (values == null) {
+			if (series.size() >= MAX_SERIES) {
+				key = new SeriesKey(method, host, OTHER_PATHS, statusClass);
+			}
+			values = series.computeIfAbsent(key, seriesKey -> new Series());
+		}
+		values.record(durationInNanos);
+	}
+
+	/**
+	 * Returns the path with the ID segments replaced with {id}.
+	 *
+	 * @param path raw path of the request
+	 * @return java.lang.String
+	 */
+	static String getPathTemplate(String path) {
+		if (path == null || path.length() == 0) {
+			return "/";
+		}
+		String[] segments = path.split("/", -1);
+		StringBuilder template = new StringBuilder(path.length());
+		for (int i = 0; i < segments.length; i++) {
+			template.append((i == 0) ? "" : "/").append(ID_SEGMENT.matcher(segments[i]).matches() ? "{id}" : segments[i]);
+		}
+		return template.toString();
+	}
+
+	/**
+	 * Returns the metrics in the Prometheus text format.
+	 *
+	 * @return java.lang.String
+	 */
+	public String toPrometheusText() {
+		List<SeriesKey> keys = getSeriesKeys();
+		StringBuilder builder = new StringBuilder();
+		builder.append("# HELP rest_client_requests_total Requests sent through the shared rest clients.\n");
+		builder.append("# TYPE rest_client_requests_total counter\n");
+		for (SeriesKey key : keys) {
+			builder.append("rest_client_requests_total{").append(key.toLabels()).append("} ").append(series.get(key).count.sum()).append('\n');
+		}
+		builder.append("# HELP rest_client_request_duration_seconds Time from sending the request till the response headers are received.\n");
+		builder.append("# TYPE rest_client_request_duration_seconds histogram\n");
+		for (SeriesKey key : keys) {
+			Series values = series.get(key);
+			String labels = key.toLabels();
+			long cumulative = 0;
+			for (int i = 0; i < BUCKETS.length; i++) {
+				cumulative += values.buckets[i].sum();
+				builder.append("rest_client_request_duration_seconds_bucket{").append(labels).append(",le=\"")
+						.append(BUCKETS[i]).append("\"} ").append(cumulative).append('\n');
+			}
+			long count = values.count.sum();
+			builder.append("rest_client_request_duration_seconds_bucket{").append(labels).append(",le=\"+Inf\"} ").append(count).append('\n');
+			builder.append("rest_client_request_duration_seconds_sum{").append(labels).append("} ").append(values.getSumSeconds()).append('\n');
+			builder.append("rest_client_request_duration_seconds_count{").append(labels).append("} ").append(count).append('\n');
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Returns the metrics as JSON, ex:
+	 * {"timestamp":1700000000000,"series":[{"method":"GET","host":"api.cubic.com","path":"/accounts/{id}","status":"2xx",
+	 *   "count":10,"durationSecondsSum":1.25,"durationSecondsBuckets":{"0.005":0,...,"+Inf":10}}]}
+	 *
+	 * @return java.lang.String
+	 */
+	public String toJson() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("{\"timestamp\":").append(System.currentTimeMillis()).append(",\"series\":[");
+		boolean first = true;
+		for (SeriesKey key : getSeriesKeys()) {
+			Series values = series.get(key);
+			builder.append(first ? "" : ",").append("\n{\"method\":\"").append(escapeJson(key.method))
+					.append("\",\"host\":\"").append(escapeJson(key.host))
+					.append("\",\"path\":\"").append(escapeJson(key.path))
+					.append("\",\"status\":\"").append(key.status)
+					.append("\",\"count\":").append(values.count.sum())
+					.append(",\"durationSecondsSum\":").append(values.getSumSeconds())
+					.append(",\"durationSecondsBuckets\":{");
+			long cumulative = 0;
+			for (int i = 0; i < BUCKETS.length; i++) {
+				cumulative += values.buckets[i].sum();
+				builder.append('"').append(BUCKETS[i]).append("\":").append(cumulative).append(',');
+			}
+			builder.append("\"+Inf\":").append(values.count.sum()).append("}}");
+			first = false;
+		}
+		return builder.append("\n]}\n").toString();
+	}
+
+	private List<SeriesKey> getSeriesKeys() {
+		List<SeriesKey> keys = new ArrayList<>(series.keySet());
+		Collections.sort(keys);
+		return keys;
+	}
+
+	/**
+	 * Writes the metrics files and pushes the Prometheus text, failures are logged since the metrics are not part of the test results.
+	 */
+	private void export() {
+		String prometheusText = toPrometheusText();
+		try {
+			write(new File(folder, PROMETHEUS_FILE), prometheusText);
+			write(new File(folder, JSON_FILE), toJson());
+		} catch (IOException e) {
+			LOG.error("Unable to write the request metrics :: " + Log4jUtil.getStackTrace(e));
+		}
+		if (pushUrl != null) {
+			try {
+				push(prometheusText);
+			} catch (IOException e) {
+				LOG.warn("Unable to push the request metrics to " + pushUrl + " :: " + e);
+			}
+		}
+	}
+
+	/**
+	 * Writes to a temporary file and renames it, so a scraper(ex: textfile collector) never reads a partial file.
+	 */
+	private static void write(File file, String content) throws IOException {
+		Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+		File tempFile = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+		Files.write(tempFile.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		try {
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private void push(String prometheusText) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(pushUrl).openConnection();
+		try {
+			connection.setRequestMethod("PUT");
+			connection.setDoOutput(true);
+			connection.setConnectTimeout(5000);
+			connection.setReadTimeout(10000);
+			connection.setRequestProperty("Content-Type", "text/plain; version=0.0.4");
+			try (OutputStream out = connection.getOutputStream()) {
+				out.write(prometheusText.getBytes(StandardCharsets.UTF_8));
+			}
+			int status = connection.getResponseCode();
+			if (status / 100 != 2) {
+				throw new IOException("status " + status);
+			}
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	private static int getPushInterval(Hashtable<String, String> propTable) {
+		String value = propTable.get(RESTConstants.METRICS_PUSH_INTERVAL);
+		if (value == null || value.trim().length() == 0) {
+			return 0;
+		}
+		try {
+			return Math.max(0, Integer.parseInt(value.trim()));
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid value '" + value + "' for the property " + RESTConstants.METRICS_PUSH_INTERVAL + ", using the default value 0");
+			return 0;
+		}
+	}
+
+	private static String escapeLabel(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+	private static String escapeJson(String value) {
+		StringBuilder escaped = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				escaped.append('\\').append(c);
+			} else if (c < 0x20) {
+				escaped.append(String.format("\\u%04x", (int) c));
+			} else {
+				escaped.append(c);
+			}
+		}
+		return escaped.toString();
+	}
+
+	private static final class SeriesKey implements Comparable<SeriesKey> {
+		private final String method;
+		private final String host;
+		private final String path;
+		private final String status;
+
+		private SeriesKey(String method, String host, String path, String status) {
+			this.method = method;
+			this.host = host;
+			this.path = path;
+			this.status = status;
+		}
+
+		private String toLabels() {
+			return "method=\"" + escapeLabel(method) + "\",host=\"" + escapeLabel(host)
+					+ "\",path=\"" + escapeLabel(path) + "\",status=\"" + status + "\"";
+		}
+
+		@Override
+		public int compareTo(SeriesKey other) {
+			int result = host.compareTo(other.host);
+			if (result == 0) {
+				result = path.compareTo(other.path);
+			}
+			if (result == 0) {
+				result = method.compareTo(other.method);
+			}
+			return (result == 0) ? status.compareTo(other.status) : result;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof SeriesKey)) {
+				return false;
+			}
+			SeriesKey other = (SeriesKey) object;
+			return method.equals(other.method) && host.equals(other.host) && path.equals(other.path) && status.equals(other.status);
+		}
+
+		@Override
+		public int hashCode() {
+			return ((method.hashCode() * 31 + host.hashCode()) * 31 + path.hashCode()) * 31 + status.hashCode();
+		}
+	}
+
+	private static final class Series {
+		private final LongAdder count = new LongAdder();
+		private final LongAdder sumNanos = new LongAdder();
+		private final LongAdder[] buckets = new LongAdder[BUCKETS.length];
+
+		private Series() {
+			for (int i = 0; i < buckets.length; i++) {
+				buckets[i] = new LongAdder();
+			}
+		}
+
+		private void record(long durationInNanos) {
+			// Count is incremented first, so an export never sees a bucket above the count
+			count.increment();
+			long nanos = Math.max(0, durationInNanos);
+			double seconds = nanos / (double) TimeUnit.SECONDS.toNanos(1);
+			for (int i = 0; i < BUCKETS.length; i++) {
+				if (seconds <= BUCKETS[i]) {
+					buckets[i].increment();
+					break;
+				}
+			}
+			sumNanos.add(nanos);
+		}
+
+		private double getSumSeconds() {
+			return sumNanos.sum() / (double) TimeUnit.SECONDS.toNanos(1);
+		}
+	}
+}
@@ -0,0 +1,232 @@
+package com.cubic.accelerators;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+import com.cubic.genericutils.GenericConstants;
+import com.sun.jersey.api.client.ClientHandler;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.TerminatingClientHandler;
+import com.sun.jersey.api.client.config.ClientConfig;
+import com.sun.jersey.core.header.InBoundHeaders;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * <pre>
+ * OkHttp based transport, registered in RESTTransports as HTTP2 and H2C.
+ *  - HTTP2 negotiates HTTP/2 with ALPN for https(JDK 8u252 or later), the concurrent requests to the same host share
+ *    one connection. Plain http and the servers without HTTP/2 use HTTP/1.1 connections from the pool.
+ *  - H2C uses HTTP/2 without TLS(i.e. prior knowledge), all the hosts of the transport must support cleartext HTTP/2.
+ *  - All the http methods including PATCH are sent natively, no reflection workaround is needed.
+ *  - Idle connections are kept as configured for RESTClientRegistry(i.e. restClientMaxConnectionsPerHost and
+ *    restClientIdleTimeoutInSeconds), connect/read timeouts are taken from the client config.
+ * </pre>
+ * @since 1.5
+ */
+public class RESTOkHttpTransport implements RESTTransport {
+	private static final Logger LOG = Logger.getLogger(RESTOkHttpTransport.class.getName());
+	private static final byte[] EMPTY_BODY = new byte[0];
+
+	private final String name;
+	private final boolean priorKnowledge;
+	private final List<OkHttpClient> clients = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Constructor (creates the RESTOkHttpTransport instance)
+	 *
+	 * @param name transport name used in the GenericFrameworkConfig.properties
+	 * @param priorKnowledge true for HTTP/2 over plain http, false for HTTP/2 negotiated with ALPN
+	 */
+	public RESTOkHttpTransport(String name, boolean priorKnowledge) {
+		this.name = name;
+		this.priorKnowledge = priorKnowledge;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public ClientHandler createClientHandler(ClientConfig config, RESTSSLProfiles.SSLProfile sslProfile) {
+		Hashtable<String, String> propTable = GenericConstants.GENERIC_FW_CONFIG_PROPERTIES;
+		int maxIdleConnections = getInt(propTable, RESTConstants.CLIENT_MAX_CONNECTIONS_PER_HOST, 20);
+		int idleTimeoutInSeconds = getInt(propTable, RESTConstants.CLIENT_IDLE_TIMEOUT, 5);
+
+		OkHttpClient.Builder builder = new OkHttpClient.Builder()
+				.protocols(priorKnowledge ? Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE) : Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+				.connectionPool(new ConnectionPool(maxIdleConnections, idleTimeoutInSeconds, TimeUnit.SECONDS))
+				.followRedirects(!Boolean.FALSE.equals(config.getProperties().get(ClientConfig.PROPERTY_FOLLOW_REDIRECTS)))
+				.eventListenerFactory(TimingEventListener.FACTORY)
+				// HttpURLConnection doesn't time out unless the timeouts are configured
+				.connectTimeout(getTimeout(config, ClientConfig.PROPERTY_CONNECT_TIMEOUT), TimeUnit.MILLISECONDS)
+				.readTimeout(getTimeout(config, ClientConfig.PROPERTY_READ_TIMEOUT), TimeUnit.MILLISECONDS)
+				.writeTimeout(getTimeout(config, ClientConfig.PROPERTY_READ_TIMEOUT), TimeUnit.MILLISECONDS);
+		if (sslProfile != null) {
+			builder.sslSocketFactory(sslProfile.getSSLContext().getSocketFactory(), sslProfile.getTrustManager());
+			if (sslProfile.getHostnameVerifier() != null) {
+				builder.hostnameVerifier(sslProfile.getHostnameVerifier());
+			}
+		}
+		OkHttpClient client = builder.build();
+		clients.add(client);
+		return new OkHttpClientHandler(client);
+	}
+
+	@Override
+	public void close() {
+		for (OkHttpClient client : clients) {
+			client.connectionPool().evictAll();
+		}
+		clients.clear();
+	}
+
+	private static int getTimeout(ClientConfig config, String property) {
+		Object timeout = config.getProperties().get(property);
+		return (timeout instanceof Integer) ? (Integer) timeout : 0;
+	}
+
+	private static int getInt(Hashtable<String, String> propTable, String key, int defaultValue) {
+		String value = propTable.get(key);
+		if (value == null || value.trim().length() == 0) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Converts the jersey request to the OkHttp request and the OkHttp response to the jersey response,
+	 * the response body is streamed(i.e. the connection is released when the entity is read or closed).
+	 */
+	private static final class OkHttpClientHandler extends TerminatingClientHandler {
+		private final OkHttpClient client;
+
+		private OkHttpClientHandler(OkHttpClient client) {
+			this.client = client;
+		}
+
+		@Override
+		public ClientResponse handle(ClientRequest cr) throws ClientHandlerException {
+			try {
+				// Entity is written first, the writer adds the Content-Type header if it is not set
+				RequestBody requestBody = null;
+				if (cr.getEntity() != null) {
+					RequestEntityWriter entityWriter = getRequestEntityWriter(cr);
+					long size = entityWriter.getSize();
+					ByteArrayOutputStream entity = new ByteArrayOutputStream((size > 0 && size < Integer.MAX_VALUE) ? (int) size : 512);
+					entityWriter.writeRequestEntity(entity);
+					javax.ws.rs.core.MediaType mediaType = entityWriter.getMediaType();
+					requestBody = RequestBody.create((mediaType == null) ? null : MediaType.parse(mediaType.toString()), entity.toByteArray());
+				} else if (requiresRequestBody(cr.getMethod())) {
+					requestBody = RequestBody.create(null, EMPTY_BODY);
+				}
+
+				Request.Builder request = new Request.Builder().url(cr.getURI().toString()).method(cr.getMethod(), requestBody);
+				for (Map.Entry<String, List<Object>> header : cr.getHeaders().entrySet()) {
+					for (Object value : header.getValue()) {
+						request.addHeader(header.getKey(), ClientRequest.getHeaderValue(value));
+					}
+				}
+
+				Response response = client.newCall(request.build()).execute();
+
+				InBoundHeaders headers = new InBoundHeaders();
+				Headers responseHeaders = response.headers();
+				for (int i = 0; i < responseHeaders.size(); i++) {
+					headers.add(responseHeaders.name(i), responseHeaders.value(i));
+				}
+				ResponseBody responseBody = response.body();
+				InputStream entityInputStream = (responseBody == null) ? new ByteArrayInputStream(EMPTY_BODY) : responseBody.byteStream();
+				return new ClientResponse(response.code(), headers, entityInputStream, getMessageBodyWorkers());
+			} catch (IOException e) {
+				throw new ClientHandlerException(e);
+			}
+		}
+
+		private static boolean requiresRequestBody(String method) {
+			return "POST".equals(method) || "PUT".equals(method) || "PATCH".equals(method);
+		}
+	}
+
+	/**
+	 * Records the connect and the TLS handshake of the new connections in the RESTRequestTiming of the request.
+	 * Events are notified on the thread sending the request, so the phases are measured for plain http as well.
+	 */
+	private static final class TimingEventListener extends EventListener {
+		private static final EventListener.Factory FACTORY = call -> {
+			RESTRequestTiming timing = RESTRequestTiming.getInFlightTiming();
+			return (timing == null) ? EventListener.NONE : new TimingEventListener(timing);
+		};
+
+		private final RESTRequestTiming timing;
+		private boolean connectStarted = false;
+
+		private TimingEventListener(RESTRequestTiming timing) {
+			this.timing = timing;
+		}
+
+		@Override
+		public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+			connectStarted = true;
+		}
+
+		@Override
+		public void secureConnectStart(Call call) {
+			timing.markConnected();
+		}
+
+		@Override
+		public void secureConnectEnd(Call call, Handshake handshake) {
+			timing.markHandshakeCompleted();
+		}
+
+		@Override
+		public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+			if (!call.request().isHttps()) {
+				timing.markConnected();
+			}
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Connected to " + inetSocketAddress + " using " + protocol);
+			}
+		}
+
+		@Override
+		public void connectionAcquired(Call call, Connection connection) {
+			if (!connectStarted) {
+				timing.markConnectionReused();
+			}
+		}
+	}
+}
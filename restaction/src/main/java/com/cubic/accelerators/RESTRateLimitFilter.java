@@ -0,0 +1,243 @@
+package com.cubic.accelerators;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import org.apache.log4j.Logger;
+
+import com.cubic.genericutils.GenericConstants;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.filter.ClientFilter;
+
+/**
+ * <pre>
+ * Client filter added to every shared rest client when the rate limits are configured, limits the requests sent
+ * to a host or url prefix from all the test threads of the JVM(i.e. token bucket).
+ *  - Every request takes a token, a request without a token waits till the bucket is refilled. The waiting requests
+ *    get the tokens in the order they arrived.
+ *  - Host patterns get one bucket per matching host, url prefixes get one bucket per prefix.
+ *    The first matching rule is used, requests not matching any rule are not limited.
+ *  - Waiting time is added to the RESTRequestTiming(i.e. Wait) and to the waiting time of the thread(see getThreadWaitNanos),
+ *    so the throttling is not reported as the latency of the service.
+ *  - Added after RESTRequestListenerFilter, so every attempt(i.e. retries and hedged requests) takes a token.
+ *  - Requests are not limited in the REPLAY mode, they are sent to the local stub server.
+ * </pre>
+ * Below properties can be defined in the GenericFrameworkConfig.properties at project level
+ * <pre>
+ *  restRateLimits : comma separated hostPattern=rate or urlPrefix=rate, rate is requests per second with an optional
+ *                   burst(i.e. rate:burst, default burst is the rate). '*' of the host pattern matches any characters.
+ *                   Ex: restRateLimits=*.payments.cubic.com=10,https://api.cubic.com/v1/search=5:20
+ * </pre>
+ * @since 1.5
+ */
+public class RESTRateLimitFilter extends ClientFilter {
+	private static final Logger LOG = Logger.getLogger(RESTRateLimitFilter.class.getName());
+
+	private static final List<RateLimit> rateLimits = getRateLimits(GenericConstants.GENERIC_FW_CONFIG_PROPERTIES);
+	private static final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+	// Waiting time of the requests sent by the thread, an array so the wait is added without boxing
+	private static final ThreadLocal<long[]> threadWaitNanos = ThreadLocal.withInitial(() -> new long[1]);
+
+	/**
+	 * Returns true when the filter should be added to the shared clients.
+	 *
+	 * @return boolean
+	 */
+	public static boolean isEnabled() {
+		return !rateLimits.isEmpty();
+	}
+
+	/**
+	 * Returns the throttled requests and the waiting time of every bucket since the start of the suite,
+	 * ex: "Rate limits [api.cubic.com:443=10.0/s : requests=200, throttled=150, wait=14500.0 ms]"
+	 *
+	 * @return java.lang.String
+	 */
+	public static String getRateLimitSummary() {
+		List<String> bucketNames = new ArrayList<>(buckets.keySet());
+		Collections.sort(bucketNames);
+		StringBuilder builder = new StringBuilder();
+		for (String bucketName : bucketNames) {
+			TokenBucket bucket = buckets.get(bucketName);
+			builder.append((builder.length() == 0) ? "" : ", ").append(bucketName).append("=").append(bucket.rate)
+					.append("/s : requests=").append(bucket.requests.sum())
+					.append(", throttled=").append(bucket.throttled.sum())
+					.append(", wait=").append(RESTRequestTiming.formatMillis(bucket.waitNanos.sum()));
+		}
+		return "Rate limits [" + builder + "]";
+	}
+
+	/**
+	 * Clears the buckets, called when the RESTClientRegistry is closed.
+	 */
+	static void close() {
+		buckets.clear();
+	}
+
+	/**
+	 * Returns the total rate limit waiting time of the current thread, RESTRequestListenerFilter subtracts the waiting
+	 * time of the request from its duration(i.e. also when the request timing is not enabled).
+	 *
+	 * @return long waiting time in nanoseconds
+	 */
+	static long getThreadWaitNanos() {
+		return threadWaitNanos.get()[0];
+	}
+
+	@Override
+	public ClientResponse handle(ClientRequest cr) throws ClientHandlerException {
+		if (RESTRecordReplay.REPLAY.equals(RESTRecordReplay.getMode())) {
+			return getNext().handle(cr);
+		}
+		TokenBucket bucket = getBucket(cr.getURI());
+		if (bucket != null) {
+			long waitNanos = bucket.acquire();
+			if (waitNanos > 0) {
+				threadWaitNanos.get()[0] += waitNanos;
+				RESTRequestTiming timing = RESTRequestTiming.getInFlightTiming();
+				if (timing != null) {
+					timing.addWaitNanos(waitNanos);
+				}
+			}
+		}
+		return getNext().handle(cr);
+	}
+
+	private static TokenBucket getBucket(URI uri) {
+		if (uri.getHost() == null) {
+			return null;
+		}
+		String host = uri.getHost().toLowerCase();
+		String url = null;
+		for (RateLimit rateLimit : rateLimits) {
+			if (rateLimit.urlPrefix != null) {
+				if (url == null) {
+					url = uri.getScheme().toLowerCase() + "://" + host + ((uri.getPort() == -1) ? "" : ":" + uri.getPort())
+							+ ((uri.getRawPath() == null) ? "" : uri.getRawPath());
+				}
+				if (url.startsWith(rateLimit.urlPrefix)) {
+					return buckets.computeIfAbsent(rateLimit.urlPrefix, key -> new TokenBucket(rateLimit.rate, rateLimit.burst));
+				}
+			} else if (rateLimit.hostPattern.matcher(host).matches()) {
+				return buckets.computeIfAbsent(RESTResilienceFilter.getHost(uri), key -> new TokenBucket(rateLimit.rate, rateLimit.burst));
+			}
+		}
+		return null;
+	}
+
+	private static List<RateLimit> getRateLimits(Hashtable<String, String> propTable) {
+		String value = propTable.get(RESTConstants.RATE_LIMITS);
+		if (value == null || value.trim().length() == 0) {
+			return Collections.emptyList();
+		}
+		List<RateLimit> limits = new ArrayList<>();
+		for (String rateLimit : value.split(",")) {
+			int separator = rateLimit.lastIndexOf('=');
+			try {
+				if (separator <= 0) {
+					throw new NumberFormatException();
+				}
+				String[] rate = rateLimit.substring(separator + 1).trim().split(":");
+				double requestsPerSecond = Double.parseDouble(rate[0].trim());
+				double burst = (rate.length > 1) ? Double.parseDouble(rate[1].trim()) : Math.max(1, requestsPerSecond);
+				if (requestsPerSecond <= 0 || burst < 1) {
+					throw new NumberFormatException();
+				}
+				limits.add(new RateLimit(rateLimit.substring(0, separator), requestsPerSecond, burst));
+			} catch (NumberFormatException e) {
+				LOG.warn("Invalid value '" + rateLimit + "' in the property " + RESTConstants.RATE_LIMITS
+						+ ", expected hostPattern=requestsPerSecond or urlPrefix=requestsPerSecond:burst");
+			}
+		}
+		LOG.info("Rest rate limits :: " + limits);
+		return Collections.unmodifiableList(limits);
+	}
+
+	private static final class RateLimit {
+		private final Pattern hostPattern;
+		private final String urlPrefix;
+		private final double rate;
+		private final double burst;
+
+		private RateLimit(String target, double rate, double burst) {
+			target = target.trim().toLowerCase();
+			if (target.startsWith("http://") || target.startsWith("https://")) {
+				this.urlPrefix = target;
+				this.hostPattern = null;
+			} else {
+				this.urlPrefix = null;
+				this.hostPattern = Pattern.compile(("\\Q" + target + "\\E").replace("*", "\\E.*\\Q"));
+			}
+			this.rate = rate;
+			this.burst = burst;
+		}
+
+		@Override
+		public String toString() {
+			return ((urlPrefix != null) ? urlPrefix : hostPattern.pattern()) + "=" + rate + ":" + burst;
+		}
+	}
+
+	/**
+	 * Token bucket refilled at the rate, holding at most the burst tokens. A request without a token reserves
+	 * the next token(i.e. the tokens go negative) and waits for it outside the lock.
+	 */
+	private static final class TokenBucket {
+		private final double rate;
+		private final double burst;
+		private final LongAdder requests = new LongAdder();
+		private final LongAdder throttled = new LongAdder();
+		private final LongAdder waitNanos = new LongAdder();
+		private double tokens;
+		private long refillTime;
+
+		private TokenBucket(double rate, double burst) {
+			this.rate = rate;
+			this.burst = burst;
+			this.tokens = burst;
+			this.refillTime = System.nanoTime();
+		}
+
+		/**
+		 * Takes a token, waits till the token is available.
+		 *
+		 * @return long waiting time in nanoseconds
+		 */
+		private long acquire() {
+			requests.increment();
+			long wait = reserve();
+			if (wait <= 0) {
+				return 0;
+			}
+			throttled.increment();
+			long startTime = System.nanoTime();
+			try {
+				TimeUnit.NANOSECONDS.sleep(wait);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ClientHandlerException(e);
+			} finally {
+				wait = System.nanoTime() - startTime;
+				waitNanos.add(wait);
+			}
+			return wait;
+		}
+
+		private synchronized long reserve() {
+			long now = System.nanoTime();
+			tokens = Math.min(burst, tokens + (now - refillTime) * rate / TimeUnit.SECONDS.toNanos(1));
+			refillTime = now;
+			tokens -= 1;
+			return (tokens >= 0) ? 0 : (long) (-tokens * TimeUnit.SECONDS.toNanos(1) / rate);
+		}
+	}
+}
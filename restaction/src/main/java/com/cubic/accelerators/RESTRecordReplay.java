@@ -0,0 +1,317 @@
+package com.cubic.accelerators;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.log4j.Logger;
+
+import com.cubic.logutils.Log4jUtil;
+
+/**
+ * <pre>
+ * Record and replay mode of the rest requests, switched on by RESTEngine in beforeSuite.
+ *  - RECORD : every request/response sent through RESTActions is appended to the archive(i.e. gzip compressed),
+ *             the response body is read completely before it's returned to the test.
+ *  - REPLAY : the archive is served by an embedded local http server(see RESTStubServer) and all the requests
+ *             are sent to it instead of the real hosts, the suite runs offline.
+ *  - Requests are matched on http method, path, url query parameters(in any order) and SHA-256 of the request body.
+ *    If the same request was recorded more than once, the recordings are replayed in the recorded order
+ *    and the last recording is repeated after that.
+ * </pre>
+ * Below properties can be defined in the GenericFrameworkConfig.properties at project level
+ * <pre>
+ *  restRecordReplayMode : OFF, RECORD or REPLAY (default OFF)
+ *  restRecordReplayArchive : archive file of the recordings (default RESTRecordings.gz)
+ *  restReplayPort : port of the local stub server in REPLAY mode (default 0, i.e. any free port)
+ * </pre>
+ * @since 1.5
+ */
+public final class RESTRecordReplay {
+	private static final Logger LOG = Logger.getLogger(RESTRecordReplay.class.getName());
+	private static final int ARCHIVE_FORMAT = 0x52455253;
+	private static final int ARCHIVE_FORMAT_WITH_MODIFIED_UTF = 0x52455252;
+
+	public static final String OFF = "OFF";
+	public static final String RECORD = "RECORD";
+	public static final String REPLAY = "REPLAY";
+
+	private static volatile String mode = OFF;
+	private static File archiveFile = null;
+	private static DataOutputStream archiveWriter = null;
+	private static int recordedCount = 0;
+	private static volatile RESTStubServer stubServer = null;
+
+	private RESTRecordReplay() {
+	}
+
+	/**
+	 * Starts the mode configured in the GenericFrameworkConfig.properties, should be called before the first request
+	 * of the suite(i.e. before suite).
+	 *
+	 * @param propTable GenericFrameworkConfig properties
+	 */
+	public static synchronized void start(Hashtable<String, String> propTable) {
+		String configuredMode = propTable.get(RESTConstants.RECORD_REPLAY_MODE);
+		configuredMode = (configuredMode == null || configuredMode.trim().length() == 0) ? OFF : configuredMode.trim().toUpperCase();
+		String archivePath = propTable.get(RESTConstants.RECORD_REPLAY_ARCHIVE);
+		File archive = new File((archivePath == null || archivePath.trim().length() == 0) ? "RESTRecordings.gz" : archivePath.trim());
+
+		if (RECORD.equals(configuredMode)) {
+			startRecording(archive);
+		} else if (REPLAY.equals(configuredMode)) {
+			String port = propTable.get(RESTConstants.REPLAY_PORT);
+			startReplay(archive, (port == null || port.trim().length() == 0) ? 0 : Integer.parseInt(port.trim()));
+		} else if (!OFF.equals(configuredMode)) {
+			throw new IllegalArgumentException("Invalid value '" + configuredMode + "' for the property " + RESTConstants.RECORD_REPLAY_MODE
+					+ ", expected OFF, RECORD or REPLAY");
+		}
+	}
+
+	/**
+	 * Starts recording all the requests into the archive, the existing archive is replaced.
+	 *
+	 * @param archive archive file of the recordings
+	 */
+	public static synchronized void startRecording(File archive) {
+		stop();
+		try {
+			if (archive.getAbsoluteFile().getParentFile() != null) {
+				archive.getAbsoluteFile().getParentFile().mkdirs();
+			}
+			archiveWriter = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(archive), 8192)));
+			archiveWriter.writeInt(ARCHIVE_FORMAT);
+		} catch (IOException e) {
+			LOG.fatal(Log4jUtil.getStackTrace(e));
+			throw new RuntimeException("Unable to create the recording archive " + archive.getAbsolutePath(), e);
+		}
+		archiveFile = archive;
+		recordedCount = 0;
+		mode = RECORD;
+		LOG.info("Recording the rest requests into " + archive.getAbsolutePath());
+	}
+
+	/**
+	 * Starts the local stub server serving the recordings of the archive, all the requests are sent to the stub server.
+	 *
+	 * @param archive archive file of the recordings
+	 * @param port port of the stub server, 0 for any free port
+	 */
+	public static synchronized void startReplay(File archive, int port) {
+		stop();
+		RESTStubServer server = new RESTStubServer(readArchive(archive));
+		server.start(port);
+		stubServer = server;
+		archiveFile = archive;
+		mode = REPLAY;
+		LOG.info("Replaying the rest requests from " + archive.getAbsolutePath() + " on port " + server.getPort());
+	}
+
+	/**
+	 * Completes the archive in RECORD mode and stops the stub server in REPLAY mode, should be called at the end of the suite.
+	 */
+	public static synchronized void stop() {
+		if (archiveWriter != null) {
+			try {
+				archiveWriter.writeBoolean(false);
+				archiveWriter.close();
+				LOG.info("Recorded " + recordedCount + " rest requests into " + archiveFile.getAbsolutePath());
+			} catch (IOException e) {
+				LOG.error("Unable to complete the recording archive " + archiveFile.getAbsolutePath() + " :: " + e);
+			}
+			archiveWriter = null;
+		}
+		if (stubServer != null) {
+			LOG.info("Stub server :: " + stubServer);
+			stubServer.stop();
+			stubServer = null;
+		}
+		mode = OFF;
+	}
+
+	/**
+	 * Returns the current mode, OFF, RECORD or REPLAY.
+	 *
+	 * @return java.lang.String
+	 */
+	public static String getMode() {
+		return mode;
+	}
+
+	public static boolean isActive() {
+		return !OFF.equals(mode);
+	}
+
+	/**
+	 * Returns the stub server of the REPLAY mode, null in the other modes.
+	 *
+	 * @return RESTStubServer
+	 */
+	public static RESTStubServer getStubServer() {
+		return stubServer;
+	}
+
+	/**
+	 * Appends the recording to the archive, ignored if the recording is stopped.
+	 */
+	static synchronized void record(Recording recording) {
+		if (archiveWriter == null) {
+			return;
+		}
+		try {
+			// Serialised before it's appended, a recording failing half way never corrupts the archive
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(recording.body.length + 1024);
+			try (DataOutputStream out = new DataOutputStream(bytes)) {
+				out.writeBoolean(true);
+				recording.write(out);
+			}
+			bytes.writeTo(archiveWriter);
+			recordedCount++;
+		} catch (IOException | RuntimeException e) {
+			LOG.error("Unable to record " + recording.method + " " + recording.url + " :: " + e);
+		}
+	}
+
+	/**
+	 * Reads all the recordings of the archive.
+	 *
+	 * @param archive archive file of the recordings
+	 * @return recordings in the recorded order
+	 */
+	static List<Recording> readArchive(File archive) {
+		List<Recording> recordings = new ArrayList<>();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(archive), 8192)))) {
+			int format = in.readInt();
+			if (format == ARCHIVE_FORMAT_WITH_MODIFIED_UTF) {
+				throw new IOException("Recording archive of an older version, record the suite again");
+			} else if (format != ARCHIVE_FORMAT) {
+				throw new IOException("Not a recording archive");
+			}
+			while (in.readBoolean()) {
+				recordings.add(Recording.read(in));
+			}
+		} catch (EOFException e) {
+			// Archive of an interrupted recording, the complete recordings are used
+			LOG.warn("Recording archive " + archive.getAbsolutePath() + " is incomplete, " + recordings.size() + " recordings are read");
+		} catch (IOException e) {
+			LOG.fatal(Log4jUtil.getStackTrace(e));
+			throw new RuntimeException("Unable to read the recording archive " + archive.getAbsolutePath(), e);
+		}
+		return recordings;
+	}
+
+	/**
+	 * Returns the key used for matching the request with the recordings.
+	 *
+	 * @param method http method
+	 * @param rawPath encoded path of the url
+	 * @param rawQuery encoded query of the url, null if there are no url query parameters
+	 * @param bodyHash SHA-256 of the request body
+	 * @return java.lang.String
+	 */
+	static String getMatchKey(String method, String rawPath, String rawQuery, String bodyHash) {
+		String query = "";
+		if (rawQuery != null && rawQuery.length() > 0) {
+			String[] parameters = rawQuery.split("&");
+			Arrays.sort(parameters);
+			query = String.join("&", parameters);
+		}
+		return method.toUpperCase() + " " + ((rawPath == null || rawPath.length() == 0) ? "/" : rawPath) + "?" + query + " " + bodyHash;
+	}
+
+	/**
+	 * Recorded request/response.
+	 */
+	static final class Recording {
+		final String method;
+		final String url;
+		final String matchKey;
+		final int status;
+		final Map<String, List<String>> headers;
+		final byte[] body;
+
+		Recording(String method, String url, String matchKey, int status, Map<String, List<String>> headers, byte[] body) {
+			this.method = method;
+			this.url = url;
+			this.matchKey = matchKey;
+			this.status = status;
+			this.headers = headers;
+			this.body = body;
+		}
+
+		private void write(DataOutputStream out) throws IOException {
+			writeString(out, method);
+			writeString(out, url);
+			writeString(out, matchKey);
+			out.writeInt(status);
+			out.writeInt(headers.size());
+			for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+				writeString(out, header.getKey());
+				out.writeInt(header.getValue().size());
+				for (String value : header.getValue()) {
+					writeString(out, value);
+				}
+			}
+			out.writeInt(body.length);
+			out.write(body);
+		}
+
+		private static Recording read(DataInputStream in) throws IOException {
+			String method = readString(in);
+			String url = readString(in);
+			String matchKey = readString(in);
+			int status = in.readInt();
+			Map<String, List<String>> headers = new LinkedHashMap<>();
+			for (int i = in.readInt(); i > 0; i--) {
+				String name = readString(in);
+				List<String> values = new ArrayList<>();
+				for (int j = in.readInt(); j > 0; j--) {
+					values.add(readString(in));
+				}
+				headers.put(name, values);
+			}
+			byte[] body = new byte[in.readInt()];
+			in.readFully(body);
+			return new Recording(method, url, matchKey, status, headers, body);
+		}
+
+		/**
+		 * Strings are written as UTF-8 bytes with the length(-1 for null), DataOutputStream.writeUTF is limited to 64 KB(ex: a long url).
+		 */
+		private static void writeString(DataOutputStream out, String value) throws IOException {
+			if (value == null) {
+				out.writeInt(-1);
+				return;
+			}
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+
+		private static String readString(DataInputStream in) throws IOException {
+			int length = in.readInt();
+			if (length < 0) {
+				return null;
+			}
+			byte[] bytes = new byte[length];
+			in.readFully(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package com.cubic.accelerators;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sun.jersey.api.client.AbstractClientRequestAdapter;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientRequestAdapter;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.filter.ClientFilter;
+
+/**
+ * <pre>
+ * Client filter added to every shared rest client when the record and replay mode is active(see RESTRecordReplay).
+ *  - RECORD : the request body is captured while it's written, the response is recorded after the body is read.
+ *  - REPLAY : the url is rewritten to the local stub server(i.e. scheme, host and port), path and query are kept.
+ *    The original url is set back once the stub server responds, so the other filters(i.e. RESTRequestListenerFilter
+ *    and RESTResilienceFilter) only see the original url of the request.
+ * </pre>
+ * @since 1.5
+ */
+public class RESTRecordReplayFilter extends ClientFilter {
+
+	@Override
+	public ClientResponse handle(ClientRequest cr) throws ClientHandlerException {
+		String mode = RESTRecordReplay.getMode();
+		if (RESTRecordReplay.REPLAY.equals(mode)) {
+			RESTStubServer stubServer = RESTRecordReplay.getStubServer();
+			if (stubServer != null) {
+				URI uri = cr.getURI();
+				cr.setURI(URI.create("http://" + "127.0.0.1:" + stubServer.getPort()
+						+ ((uri.getRawPath() == null || uri.getRawPath().length() == 0) ? "/" : uri.getRawPath())
+						+ ((uri.getRawQuery() == null) ? "" : "?" + uri.getRawQuery())));
+				try {
+					return getNext().handle(cr);
+				} finally {
+					cr.setURI(uri);
+				}
+			}
+			return getNext().handle(cr);
+		}
+		if (!RESTRecordReplay.RECORD.equals(mode)) {
+			return getNext().handle(cr);
+		}
+
+		ByteArrayOutputStream requestBody = new ByteArrayOutputStream();
+		if (cr.getEntity() != null) {
+			cr.setAdapter(new CapturingRequestAdapter(cr.getAdapter(), requestBody));
+		}
+		URI uri = cr.getURI();
+		ClientResponse response = getNext().handle(cr);
+
+		byte[] responseBody;
+		try {
+			responseBody = readBody(response.getEntityInputStream());
+		} catch (IOException e) {
+			throw new ClientHandlerException(e);
+		}
+		response.setEntityInputStream(new ByteArrayInputStream(responseBody));
+
+		Map<String, List<String>> headers = new LinkedHashMap<>();
+		for (Map.Entry<String, List<String>> header : response.getHeaders().entrySet()) {
+			headers.put(header.getKey(), new ArrayList<>(header.getValue()));
+		}
+		String matchKey = RESTRecordReplay.getMatchKey(cr.getMethod(), uri.getRawPath(), uri.getRawQuery(),
+				RESTResponseCache.sha256(requestBody.toByteArray()));
+		RESTRecordReplay.record(new RESTRecordReplay.Recording(cr.getMethod(), uri.toString(), matchKey, response.getStatus(), headers, responseBody));
+		return response;
+	}
+
+	private static byte[] readBody(InputStream in) throws IOException {
+		if (in == null) {
+			return new byte[0];
+		}
+		try {
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int count;
+			while ((count = in.read(buffer)) != -1) {
+				body.write(buffer, 0, count);
+			}
+			return body.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Copies the bytes of the request entity, i.e. the same bytes sent to the server.
+	 */
+	private static final class CapturingRequestAdapter extends AbstractClientRequestAdapter {
+		private final ByteArrayOutputStream requestBody;
+
+		private CapturingRequestAdapter(ClientRequestAdapter adapter, ByteArrayOutputStream requestBody) {
+			super(adapter);
+			this.requestBody = requestBody;
+		}
+
+		@Override
+		public OutputStream adapt(ClientRequest request, OutputStream out) throws IOException {
+			return new FilterOutputStream(getAdapter().adapt(request, out)) {
+				@Override
+				public void write(int b) throws IOException {
+					out.write(b);
+					requestBody.write(b);
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) throws IOException {
+					out.write(b, off, len);
+					requestBody.write(b, off, len);
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,291 @@
+package com.cubic.accelerators;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.log4j.Logger;
+
+import com.cubic.logutils.Log4jUtil;
+
+/**
+ * <pre>
+ * Background writer of the custom report steps added by RESTActions, the test threads only queue the steps and
+ * a single thread writes them(i.e. the response attachments are not written on the test thread).
+ *  - Steps are written in the order they are queued, so the order of the steps of a test case is preserved.
+ *  - The writer drains up to 256 queued steps per wake up and writes them as one batch.
+ *  - flush(testCaseName) waits till the queued steps of the test case are written, RESTEngine calls it before
+ *    the test case status is read in teardownAutomationTest. stop() writes all the queued steps, RESTEngine calls it
+ *    in afterSuite before the summary report is generated. Steps written while the writer is stopping are written
+ *    on the test thread once the queued steps are all written, so the order of the steps is preserved.
+ *  - When the queue is full the test thread waits(i.e. blocking), or the success step is discarded and counted
+ *    (i.e. non blocking). Failure steps are never discarded.
+ *  - IOException of a step is logged, it is not thrown to the test since the step is written later.
+ * </pre>
+ * Below properties can be defined in the GenericFrameworkConfig.properties at project level
+ * <pre>
+ *  restAsyncReportingEnabled : true to write the report steps from a background thread (default false)
+ *  restAsyncReportingQueueSize : maximum number of queued report steps (default 10000)
+ *  restAsyncReportingBlocking : true to wait when the queue is full, false to discard the success steps (default true)
+ * </pre>
+ * @since 1.5
+ */
+public final class RESTReportWriter {
+	private static final Logger LOG = Logger.getLogger(RESTReportWriter.class.getName());
+	private static final int BATCH_SIZE = 256;
+	private static final ReportStep STOP = () -> {
+	};
+	private static final QueuedStep STOP_STEP = new QueuedStep(STOP, null);
+
+	private static volatile RESTReportWriter instance = null;
+
+	private final BlockingQueue<QueuedStep> queue;
+	private final boolean blocking;
+	private final ConcurrentHashMap<String, AtomicInteger> pendingSteps = new ConcurrentHashMap<>();
+	private final LongAdder writtenSteps = new LongAdder();
+	private final LongAdder discardedSteps = new LongAdder();
+	private final LongAdder failedSteps = new LongAdder();
+	private final Thread writerThread;
+	// Queuing threads hold the read lock, stop() closes the gate with the write lock so the STOP step is the last queued step
+	private final ReentrantReadWriteLock gate = new ReentrantReadWriteLock();
+	private boolean closed = false;
+
+	/**
+	 * Writes a report step, i.e. one call to CustomReports.
+	 */
+	@FunctionalInterface
+	public interface ReportStep {
+		void write() throws IOException;
+	}
+
+	private RESTReportWriter(int queueSize, boolean blocking) {
+		this.queue = new ArrayBlockingQueue<>(queueSize);
+		this.blocking = blocking;
+		writerThread = new Thread(this::writeSteps, "rest-report-writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	/**
+	 * Starts the background writer if restAsyncReportingEnabled is true, should be called before the first test(i.e. before suite).
+	 *
+	 * @param propTable GenericFrameworkConfig properties
+	 */
+	public static synchronized void start(Hashtable<String, String> propTable) {
+		if (!"true".equalsIgnoreCase(propTable.get(RESTConstants.ASYNC_REPORTING_ENABLED)) || instance != null) {
+			return;
+		}
+		int queueSize = getInt(propTable, RESTConstants.ASYNC_REPORTING_QUEUE_SIZE, 10000);
+		instance = new RESTReportWriter(queueSize, !"false".equalsIgnoreCase(propTable.get(RESTConstants.ASYNC_REPORTING_BLOCKING)));
+		LOG.info("Async reporting is enabled with queue size " + queueSize);
+	}
+
+	/**
+	 * Writes all the queued steps and stops the background writer, the steps are written on the test thread afterwards.
+	 */
+	public static synchronized void stop() {
+		RESTReportWriter writer = instance;
+		if (writer == null) {
+			return;
+		}
+		writer.gate.writeLock().lock();
+		try {
+			writer.closed = true;
+		} finally {
+			writer.gate.writeLock().unlock();
+		}
+		try {
+			writer.queue.put(STOP_STEP);
+			writer.writerThread.join(TimeUnit.MINUTES.toMillis(5));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		// Cleared once the queued steps are written, the steps written meanwhile wait for the writer(see write)
+		instance = null;
+		LOG.info("Async reporting is stopped :: " + writer);
+	}
+
+	/**
+	 * Returns true if the background writer is started.
+	 *
+	 * @return boolean
+	 */
+	public static boolean isActive() {
+		return instance != null;
+	}
+
+	/**
+	 * Queues the step if the background writer is started, otherwise the step is written on the current thread.
+	 *
+	 * @param testCaseName test case of the step
+	 * @param success true for the success steps, which can be discarded when the queue is full
+	 * @param step ReportStep
+	 * @throws IOException only when the step is written on the current thread
+	 */
+	public static void write(String testCaseName, boolean success, ReportStep step) throws IOException {
+		RESTReportWriter writer = instance;
+		if (writer != null && writer.enqueue(testCaseName, success, step)) {
+			return;
+		} else if (writer != null) {
+			// Writer is stopping, the queued steps(i.e. earlier steps of the test case) are written first
+			writer.awaitStopped();
+		}
+		step.write();
+	}
+
+	/**
+	 * Waits till the queued steps of the test case are written, returns immediately if the writer is not started.
+	 *
+	 * @param testCaseName test case name
+	 */
+	public static void flush(String testCaseName) {
+		RESTReportWriter writer = instance;
+		if (writer == null || testCaseName == null) {
+			return;
+		}
+		AtomicInteger pending = writer.pendingSteps.get(testCaseName);
+		if (pending == null) {
+			return;
+		}
+		synchronized (pending) {
+			while (pending.get() > 0 && writer.writerThread.isAlive()) {
+				try {
+					pending.wait(1000);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+		// Removed unless a step of the test case is queued meanwhile, so the map doesn't grow with every test case
+		writer.pendingSteps.computeIfPresent(testCaseName, (key, count) -> (count.get() == 0) ? null : count);
+	}
+
+	private void awaitStopped() {
+		try {
+			writerThread.join(TimeUnit.MINUTES.toMillis(5));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Queues the step, returns false if the writer is stopped(i.e. the step is written by the caller).
+	 */
+	private boolean enqueue(String testCaseName, boolean success, ReportStep step) {
+		gate.readLock().lock();
+		try {
+			if (closed) {
+				return false;
+			}
+			enqueueStep(testCaseName, success, step);
+			return true;
+		} finally {
+			gate.readLock().unlock();
+		}
+	}
+
+	private void enqueueStep(String testCaseName, boolean success, ReportStep step) {
+		AtomicInteger pending = null;
+		if (testCaseName != null) {
+			// Incremented in compute, so flush never removes the counter of a queued step
+			pending = pendingSteps.compute(testCaseName, (key, count) -> {
+				AtomicInteger steps = (count == null) ? new AtomicInteger() : count;
+				steps.incrementAndGet();
+				return steps;
+			});
+		}
+		QueuedStep queuedStep = new QueuedStep(step, pending);
+		try {
+			if (blocking || !success) {
+				queue.put(queuedStep);
+			} else if (!queue.offer(queuedStep)) {
+				discardedSteps.increment();
+				queuedStep.done();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			queuedStep.done();
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void writeSteps() {
+		List<QueuedStep> batch = new ArrayList<>(BATCH_SIZE);
+		boolean stopped = false;
+		while (!stopped || !queue.isEmpty()) {
+			try {
+				batch.add(queue.take());
+			} catch (InterruptedException e) {
+				LOG.warn("Async report writer is interrupted, " + queue.size() + " queued steps are not written");
+				return;
+			}
+			queue.drainTo(batch, BATCH_SIZE - 1);
+			for (QueuedStep queuedStep : batch) {
+				if (queuedStep.step == STOP) {
+					// Steps after STOP(i.e. queued in the same batch) are still written
+					stopped = true;
+					continue;
+				}
+				try {
+					queuedStep.step.write();
+					writtenSteps.increment();
+				} catch (Exception e) {
+					failedSteps.increment();
+					LOG.error("Unable to write the report step :: " + Log4jUtil.getStackTrace(e));
+				} finally {
+					queuedStep.done();
+				}
+			}
+			batch.clear();
+		}
+	}
+
+	private static int getInt(Hashtable<String, String> propTable, String key, int defaultValue) {
+		String value = propTable.get(key);
+		if (value == null || value.trim().length() == 0) {
+			return defaultValue;
+		}
+		try {
+			return Math.max(1, Integer.parseInt(value.trim()));
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid value '" + value + "' for the property " + key + ", using the default value " + defaultValue);
+			return defaultValue;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "RESTReportWriter [written=" + writtenSteps.sum() + ", discarded=" + discardedSteps.sum()
+				+ ", failed=" + failedSteps.sum() + ", queued=" + queue.size() + "]";
+	}
+
+	private static final class QueuedStep {
+		private final ReportStep step;
+		private final AtomicInteger pending;
+
+		private QueuedStep(ReportStep step, AtomicInteger pending) {
+			this.step = step;
+			this.pending = pending;
+		}
+
+		/**
+		 * Wakes up the threads flushing the test case when its last queued step is written.
+		 */
+		private void done() {
+			if (pending != null && pending.decrementAndGet() == 0) {
+				synchronized (pending) {
+					pending.notifyAll();
+				}
+			}
+		}
+	}
+}
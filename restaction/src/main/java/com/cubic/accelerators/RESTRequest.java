@@ -0,0 +1,306 @@
+package com.cubic.accelerators;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.Map;
+
+import javax.ws.rs.core.UriBuilder;
+
+/**
+ * <pre>
+ * Immutable rest webservice request(i.e. http method, url, request headers, url query parameters, request body,
+ * content type and options), all the requests of RESTActions are executed from this model(see RESTActions.execute).
+ *  - Every with* method returns a new request, so a request can be used as template and shared by multiple threads.
+ *  - The url with the encoded query parameters and the request headers are computed once per request instance,
+ *    keep the request and execute it again to send the same request repeatedly.
+ *  - Options are same as the 'options' of the *ClientResponse methods of RESTActions,
+ *    ex: withOption(RESTConstants.DISABLE_EXCEPTIONS, "true")
+ *
+ * Ex: RESTRequest request = RESTRequest.post(url, input).withHeader("Authorization", token)
+ *                              .withContentType(RESTConstants.APPLICATION_JSON);
+ * </pre>
+ * @since 1.5
+ */
+public final class RESTRequest {
+	private final String method;
+	private final String url;
+	private final Map<String, String> requestHeaders;
+	private final Map<String, String> urlQueryParameters;
+	private final String input;
+	private final String contentType;
+	private final Map<String, String> options;
+	private volatile Encoded encoded = null;
+
+	private RESTRequest(String method, String url, Map<String, String> requestHeaders, Map<String, String> urlQueryParameters,
+			String input, String contentType, Map<String, String> options) {
+		if (method == null || method.trim().length() == 0) {
+			throw new IllegalArgumentException("http method is required");
+		}
+		if (url == null || url.trim().length() == 0) {
+			throw new IllegalArgumentException("url is required");
+		}
+		this.method = method.trim().toUpperCase();
+		this.url = url;
+		this.requestHeaders = requestHeaders;
+		this.urlQueryParameters = urlQueryParameters;
+		this.input = input;
+		this.contentType = contentType;
+		this.options = options;
+	}
+
+	/**
+	 * Creates the request.
+	 *
+	 * @param method http method, ex: GET
+	 * @param url End point url
+	 * @param input input restWebservices request input data, null if there is no request body
+	 * @return RESTRequest
+	 */
+	public static RESTRequest of(String method, String url, String input) {
+		return new RESTRequest(method, url, Collections.<String, String>emptyMap(), Collections.<String, String>emptyMap(),
+				input, RESTConstants.APPLICATION_JSON, Collections.<String, String>emptyMap());
+	}
+
+	/**
+	 * Creates the request from the arguments of the RESTActions methods, the tables are copied since the caller can
+	 * change them after the request is created(i.e. async and batch requests).
+	 */
+	static RESTRequest of(String method, String url, String input, Hashtable<String, String> requestHeaders,
+			Hashtable<String, String> urlQueryParameters, String contentType, Hashtable<String, String> options) {
+		return new RESTRequest(method, url, emptyIfNull(requestHeaders), emptyIfNull(urlQueryParameters), input, contentType,
+				emptyIfNull(options));
+	}
+
+	public static RESTRequest get(String url) {
+		return of("GET", url, null);
+	}
+
+	public static RESTRequest post(String url, String input) {
+		return of("POST", url, input);
+	}
+
+	public static RESTRequest put(String url, String input) {
+		return of("PUT", url, input);
+	}
+
+	public static RESTRequest delete(String url) {
+		return of("DELETE", url, null);
+	}
+
+	public static RESTRequest patch(String url, String input) {
+		return of("PATCH", url, input);
+	}
+
+	/**
+	 * Returns the request with the header added, the existing header with the same name is replaced.
+	 *
+	 * @param name header name
+	 * @param value header value
+	 * @return RESTRequest
+	 */
+	public RESTRequest withHeader(String name, String value) {
+		return new RESTRequest(method, url, with(requestHeaders, name, value), urlQueryParameters, input, contentType, options);
+	}
+
+	/**
+	 * Returns the request with the headers added, the existing headers with the same names are replaced.
+	 *
+	 * @param headers request headers, ignored if null
+	 * @return RESTRequest
+	 */
+	public RESTRequest withHeaders(Map<String, String> headers) {
+		return new RESTRequest(method, url, with(requestHeaders, headers), urlQueryParameters, input, contentType, options);
+	}
+
+	public RESTRequest withQueryParameter(String name, String value) {
+		return new RESTRequest(method, url, requestHeaders, with(urlQueryParameters, name, value), input, contentType, options);
+	}
+
+	public RESTRequest withQueryParameters(Map<String, String> queryParameters) {
+		return new RESTRequest(method, url, requestHeaders, with(urlQueryParameters, queryParameters), input, contentType, options);
+	}
+
+	public RESTRequest withInput(String newInput) {
+		return new RESTRequest(method, url, requestHeaders, urlQueryParameters, newInput, contentType, options);
+	}
+
+	/**
+	 * Returns the request with the content type, sent as the accept header(default application/json), same as the
+	 * 'contentType' of the RESTActions methods. Set the request body type with the Content-Type header.
+	 *
+	 * @param newContentType java.lang.String, Ex: contentType = "application/json"
+	 * @return RESTRequest
+	 */
+	public RESTRequest withContentType(String newContentType) {
+		return new RESTRequest(method, url, requestHeaders, urlQueryParameters, input, newContentType, options);
+	}
+
+	public RESTRequest withOption(String name, String value) {
+		return new RESTRequest(method, url, requestHeaders, urlQueryParameters, input, contentType, with(options, name, value));
+	}
+
+	public RESTRequest withOptions(Map<String, String> newOptions) {
+		return new RESTRequest(method, url, requestHeaders, urlQueryParameters, input, contentType, with(options, newOptions));
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	/**
+	 * Returns the copy of the request headers, same as the 'requestHeaders' of the RESTActions methods.
+	 *
+	 * @return java.util.Hashtable
+	 */
+	public Hashtable<String, String> getRequestHeaders() {
+		return new Hashtable<String, String>(requestHeaders);
+	}
+
+	/**
+	 * Returns the copy of the url query parameters, same as the 'urlQueryParameters' of the RESTActions methods.
+	 *
+	 * @return java.util.Hashtable
+	 */
+	public Hashtable<String, String> getUrlQueryParameters() {
+		return new Hashtable<String, String>(urlQueryParameters);
+	}
+
+	public String getInput() {
+		return input;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	/**
+	 * Returns the copy of the options, same as the 'options' of the *ClientResponse methods of RESTActions.
+	 *
+	 * @return java.util.Hashtable
+	 */
+	public Hashtable<String, String> getOptions() {
+		return new Hashtable<String, String>(options);
+	}
+
+	/**
+	 * Returns the value of the option.
+	 *
+	 * @param name option name, ex: RESTConstants.DISABLE_EXCEPTIONS
+	 * @return java.lang.String option value, null if the option is not set
+	 */
+	public String getOption(String name) {
+		return options.get(name);
+	}
+
+	/**
+	 * Returns true if the exception handling is disabled for the request(i.e. RESTConstants.DISABLE_EXCEPTIONS option is true).
+	 *
+	 * @return boolean
+	 */
+	public boolean isExceptionDisabled() {
+		String disableExceptions = options.get(RESTConstants.DISABLE_EXCEPTIONS);
+		return disableExceptions != null && disableExceptions.trim().equalsIgnoreCase("true");
+	}
+
+	/**
+	 * Returns the url with the encoded url query parameters.
+	 *
+	 * @return java.net.URI
+	 */
+	public URI getURI() {
+		return getEncoded().uri;
+	}
+
+	String[] getHeaderNames() {
+		return getEncoded().headerNames;
+	}
+
+	String[] getHeaderValues() {
+		return getEncoded().headerValues;
+	}
+
+	/**
+	 * Encodes the url and the headers on first use, computing twice from two threads is harmless since the request is immutable.
+	 */
+	private Encoded getEncoded() {
+		Encoded currentEncoded = encoded;
+		if (currentEncoded == null) {
+			currentEncoded = new Encoded(this);
+			encoded = currentEncoded;
+		}
+		return currentEncoded;
+	}
+
+	private static Map<String, String> emptyIfNull(Hashtable<String, String> values) {
+		return (values == null || values.isEmpty()) ? Collections.<String, String>emptyMap()
+				: Collections.unmodifiableMap(new Hashtable<String, String>(values));
+	}
+
+	/**
+	 * Returns the copy of the values with the value added, the value is removed if null(i.e. Hashtable doesn't allow null).
+	 */
+	private static Map<String, String> with(Map<String, String> values, String name, String value) {
+		Hashtable<String, String> newValues = new Hashtable<String, String>(values);
+		if (value == null) {
+			newValues.remove(name);
+		} else {
+			newValues.put(name, value);
+		}
+		return Collections.unmodifiableMap(newValues);
+	}
+
+	private static Map<String, String> with(Map<String, String> values, Map<String, String> addedValues) {
+		if (addedValues == null || addedValues.isEmpty()) {
+			return values;
+		}
+		Hashtable<String, String> newValues = new Hashtable<String, String>(values);
+		for (Map.Entry<String, String> addedValue : addedValues.entrySet()) {
+			if (addedValue.getValue() == null) {
+				newValues.remove(addedValue.getKey());
+			} else {
+				newValues.put(addedValue.getKey(), addedValue.getValue());
+			}
+		}
+		return Collections.unmodifiableMap(newValues);
+	}
+
+	@Override
+	public String toString() {
+		return "RESTRequest [" + method + " " + url + "]";
+	}
+
+	/**
+	 * Url with the query parameters encoded the same way as jersey WebResource.queryParams, and the headers as arrays.
+	 */
+	private static final class Encoded {
+		private final URI uri;
+		private final String[] headerNames;
+		private final String[] headerValues;
+
+		private Encoded(RESTRequest request) {
+			if (request.urlQueryParameters.isEmpty()) {
+				uri = URI.create(request.url);
+			} else {
+				UriBuilder uriBuilder = UriBuilder.fromUri(request.url);
+				for (Map.Entry<String, String> queryParameter : request.urlQueryParameters.entrySet()) {
+					uriBuilder.queryParam(queryParameter.getKey(), queryParameter.getValue());
+				}
+				uri = uriBuilder.build();
+			}
+
+			// Arrays are taken from one snapshot of the entries, never sized separately from the iteration
+			Map.Entry<?, ?>[] headers = request.requestHeaders.entrySet().toArray(new Map.Entry<?, ?>[0]);
+			headerNames = new String[headers.length];
+			headerValues = new String[headers.length];
+			for (int i = 0; i < headers.length; i++) {
+				headerNames[i] = (String) headers[i].getKey();
+				headerValues[i] = (String) headers[i].getValue();
+			}
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package com.cubic.accelerators;
+
+import java.net.URI;
+
+/**
+ * Listener notified by RESTRequestListenerFilter, after every request sent through the shared rest clients.
+ *
+ * @since 1.5
+ */
+public interface RESTRequestListener {
+
+	/**
+	 * Called once the response headers are received or the request is failed.
+	 *
+	 * @param method http method of the request, ex: GET
+	 * @param uri request uri including the url query parameters
+	 * @param status response code, -1 if the request is failed before receiving the response
+	 * @param durationInNanos time taken from sending the request till receiving the response headers
+	 * @param failure exception thrown while sending the request, null if the response is received
+	 */
+	void onRequestCompleted(String method, URI uri, int status, long durationInNanos, Throwable failure);
+
+	/**
+	 * Called once the response body is read completely or closed(or the request is failed), with the timing breakdown
+	 * of the request. Not called when the request timing is disabled(i.e. restRequestTimingEnabled = FALSE).
+	 *
+	 * @param timing timing breakdown of the request
+	 */
+	default void onRequestTimed(RESTRequestTiming timing) {
+	}
+}
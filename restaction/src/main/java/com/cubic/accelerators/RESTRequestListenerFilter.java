@@ -0,0 +1,307 @@
+package com.cubic.accelerators;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.log4j.Logger;
+
+import com.cubic.genericutils.GenericConstants;
+import com.sun.jersey.api.client.AbstractClientRequestAdapter;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientRequestAdapter;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.filter.ClientFilter;
+
+/**
+ * <pre>
+ * Client filter added to every shared rest client, notifies the RESTRequestListeners after every request.
+ *  - Global listeners are notified for the requests of all the threads.
+ *  - Thread listener is notified only for the requests sent from the current thread.
+ *  - Timing breakdown of every request is captured when the request timing is enabled(i.e. RESTRequestTiming), the timing
+ *    is completed when the response body is read completely or closed. The host name is resolved before the request only
+ *    to measure the DNS time, so it is done only when the timing is enabled.
+ *  - When the request timing is disabled and no listener is present, the request is passed on without any measurement.
+ * </pre>
+ * Below properties can be defined in the GenericFrameworkConfig.properties at project level
+ * <pre>
+ *  restRequestTimingEnabled : TRUE or FALSE, capture the timing breakdown of every request (default FALSE)
+ * </pre>
+ * @since 1.5
+ */
+public class RESTRequestListenerFilter extends ClientFilter {
+	private static final Logger LOG = Logger.getLogger(RESTRequestListenerFilter.class.getName());
+	private static final List<RESTRequestListener> listeners = new CopyOnWriteArrayList<>();
+	private static final ThreadLocal<RESTRequestListener> threadListener = new ThreadLocal<>();
+	private static final boolean timingEnabled = "true".equalsIgnoreCase(
+			GenericConstants.GENERIC_FW_CONFIG_PROPERTIES.get(RESTConstants.REQUEST_TIMING_ENABLED));
+
+	/**
+	 * Adds the listener notified for the requests of all the threads.
+	 *
+	 * @param listener RESTRequestListener
+	 */
+	public static void addListener(RESTRequestListener listener) {
+		((CopyOnWriteArrayList<RESTRequestListener>) listeners).addIfAbsent(listener);
+	}
+
+	/**
+	 * Removes the listener added using addListener.
+	 *
+	 * @param listener RESTRequestListener
+	 */
+	public static void removeListener(RESTRequestListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Sets the listener notified only for the requests sent from the current thread, null removes the listener.
+	 *
+	 * @param listener RESTRequestListener
+	 */
+	public static void setThreadListener(RESTRequestListener listener) {
+		if (listener == null) {
+			threadListener.remove();
+		} else {
+			threadListener.set(listener);
+		}
+	}
+
+	/**
+	 * Returns the listener of the current thread, null if the listener is not set.
+	 *
+	 * @return RESTRequestListener
+	 */
+	static RESTRequestListener getThreadListener() {
+		return threadListener.get();
+	}
+
+	/**
+	 * Returns true if the timing breakdown of the requests is captured(i.e. restRequestTimingEnabled).
+	 *
+	 * @return boolean
+	 */
+	static boolean isTimingEnabled() {
+		return timingEnabled;
+	}
+
+	/**
+	 * Returns the endpoint name of the request(i.e. http method, host and templated path without url query parameters),
+	 * the ID segments of the path are replaced with {id} same as RESTMetricsRegistry. Used as the key of the endpoint
+	 * statistics, the load runner summary and the hedged requests.
+	 *
+	 * @param method http method of the request, ex: GET
+	 * @param uri request uri
+	 * @return java.lang.String Ex: "GET api.cubic.com/accounts/{id}"
+	 */
+	public static String getEndpoint(String method, URI uri) {
+		String host = (uri.getPort() == -1) ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+		return method + " " + host + RESTMetricsRegistry.getPathTemplate(uri.getRawPath());
+	}
+
+	@Override
+	public ClientResponse handle(ClientRequest cr) throws ClientHandlerException {
+		RESTRequestListener currentThreadListener = threadListener.get();
+		if (!timingEnabled && listeners.isEmpty() && currentThreadListener == null) {
+			return getNext().handle(cr);
+		}
+
+		long startTime = System.nanoTime();
+		long startWaitNanos = RESTRateLimitFilter.getThreadWaitNanos();
+		// Listeners are notified with the url of the request, the next filters can change it(i.e. REPLAY)
+		URI uri = cr.getURI();
+		RESTRequestTiming timing = null;
+		if (timingEnabled) {
+			timing = new RESTRequestTiming(cr.getMethod(), uri);
+			resolveHost(uri, timing);
+			cr.setAdapter(new CountingRequestAdapter(cr.getAdapter(), timing));
+			RESTRequestTiming.setInFlightTiming(timing);
+		}
+
+		int status = -1;
+		Throwable failure = null;
+		try {
+			ClientResponse clientResponse = getNext().handle(cr);
+			status = clientResponse.getStatus();
+			if (timing != null) {
+				timing.markHeadersReceived(status);
+				InputStream entityInputStream = clientResponse.getEntityInputStream();
+				if (entityInputStream == null) {
+					completeTiming(timing, null, currentThreadListener);
+				} else {
+					clientResponse.setEntityInputStream(new TimingInputStream(entityInputStream, timing, currentThreadListener));
+				}
+			}
+			return clientResponse;
+		} catch (RuntimeException e) {
+			failure = e;
+			if (timing != null) {
+				completeTiming(timing, e, currentThreadListener);
+			}
+			throw e;
+		} finally {
+			RESTRequestTiming.setInFlightTiming(null);
+			// Rate limit wait is not the latency of the service, subtracted with or without the request timing
+			long durationInNanos = System.nanoTime() - startTime - (RESTRateLimitFilter.getThreadWaitNanos() - startWaitNanos);
+			if (currentThreadListener != null) {
+				notifyListener(currentThreadListener, cr.getMethod(), uri, status, durationInNanos, failure);
+			}
+			for (RESTRequestListener listener : listeners) {
+				notifyListener(listener, cr.getMethod(), uri, status, durationInNanos, failure);
+			}
+		}
+	}
+
+	/**
+	 * Resolves the host name before the request is sent, so the DNS time is measured separately.
+	 * The address is cached by the JVM, HttpURLConnection gets it from the cache.
+	 * Not resolved while replaying, the request is sent to the local stub server.
+	 */
+	private void resolveHost(URI uri, RESTRequestTiming timing) {
+		String host = uri.getHost();
+		if (host == null || System.getProperty("http.proxyHost") != null || System.getProperty("https.proxyHost") != null
+				|| RESTRecordReplay.REPLAY.equals(RESTRecordReplay.getMode())) {
+			return;
+		}
+		try {
+			InetAddress.getAllByName(host);
+		} catch (UnknownHostException e) {
+			// Request fails with the same exception while connecting
+		}
+		timing.markDnsResolved();
+	}
+
+	private static void completeTiming(RESTRequestTiming timing, Throwable failure, RESTRequestListener currentThreadListener) {
+		if (!timing.complete(failure)) {
+			return;
+		}
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(timing);
+		}
+		if (currentThreadListener != null) {
+			notifyTimingListener(currentThreadListener, timing);
+		}
+		for (RESTRequestListener listener : listeners) {
+			notifyTimingListener(listener, timing);
+		}
+	}
+
+	private static void notifyTimingListener(RESTRequestListener listener, RESTRequestTiming timing) {
+		try {
+			listener.onRequestTimed(timing);
+		} catch (RuntimeException e) {
+			LOG.warn("Rest request listener failed :: " + e);
+		}
+	}
+
+	private void notifyListener(RESTRequestListener listener, String method, URI uri, int status, long durationInNanos, Throwable failure) {
+		try {
+			listener.onRequestCompleted(method, uri, status, durationInNanos, failure);
+		} catch (RuntimeException e) {
+			LOG.warn("Rest request listener failed :: " + e);
+		}
+	}
+
+	/**
+	 * Counts the bytes of the request entity.
+	 */
+	private static final class CountingRequestAdapter extends AbstractClientRequestAdapter {
+		private final RESTRequestTiming timing;
+
+		private CountingRequestAdapter(ClientRequestAdapter adapter, RESTRequestTiming timing) {
+			super(adapter);
+			this.timing = timing;
+		}
+
+		@Override
+		public OutputStream adapt(ClientRequest request, OutputStream out) throws IOException {
+			return new FilterOutputStream(getAdapter().adapt(request, out)) {
+				@Override
+				public void write(int b) throws IOException {
+					out.write(b);
+					timing.addBytesSent(1);
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) throws IOException {
+					out.write(b, off, len);
+					timing.addBytesSent(len);
+				}
+			};
+		}
+	}
+
+	/**
+	 * Counts the bytes of the response entity and completes the timing when the entity is read completely or closed.
+	 */
+	private static final class TimingInputStream extends FilterInputStream {
+		private final RESTRequestTiming timing;
+		private final RESTRequestListener currentThreadListener;
+
+		private TimingInputStream(InputStream in, RESTRequestTiming timing, RESTRequestListener currentThreadListener) {
+			super(in);
+			this.timing = timing;
+			this.currentThreadListener = currentThreadListener;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = readOrFail(() -> super.read());
+			if (b == -1) {
+				completeTiming(timing, null, currentThreadListener);
+			} else {
+				timing.addBytesReceived(1);
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int count = readOrFail(() -> super.read(b, off, len));
+			if (count == -1) {
+				completeTiming(timing, null, currentThreadListener);
+			} else {
+				timing.addBytesReceived(count);
+			}
+			return count;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			timing.addBytesReceived(skipped);
+			return skipped;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			} finally {
+				completeTiming(timing, null, currentThreadListener);
+			}
+		}
+
+		private int readOrFail(IOCall call) throws IOException {
+			try {
+				return call.read();
+			} catch (IOException e) {
+				completeTiming(timing, e, currentThreadListener);
+				throw e;
+			}
+		}
+	}
+
+	@FunctionalInterface
+	private interface IOCall {
+		int read() throws IOException;
+	}
+}
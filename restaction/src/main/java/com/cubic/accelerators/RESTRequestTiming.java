@@ -0,0 +1,356 @@
+package com.cubic.accelerators;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <pre>
+ * Timing breakdown of a single request sent through the shared rest clients, captured by RESTRequestListenerFilter.
+ *  - DNS : time taken to resolve the host name(JVM DNS cache hits are close to 0).
+ *  - Wait : time the request waited for the rate limit of the host(see RESTRateLimitFilter), excluded from the other
+ *           phases and the total, so the throttling is not reported as the latency of the service.
+ *  - Connect : time taken to open the TCP connection, 0 if a keep-alive connection is reused,
+ *              -1 if it can't be measured(i.e. plain http connections of HttpURLConnection).
+ *  - TLS : time taken for the TLS handshake, 0 if a keep-alive connection is reused, -1 for plain http.
+ *  - TTFB : time to the first byte of the response once the connection is ready(i.e. server time and network latency),
+ *           includes the connect time when the connect time can't be measured.
+ *  - Body : time taken to read the response body.
+ *  - Sent/Received : bytes of the request and response entities, uncompressed bytes when the entity is compressed.
+ *  - Compressed sent/received : bytes sent/received with the content encoding(i.e. gzip or deflate), see RESTCompressionFilter.
+ * All the durations are in nanoseconds.
+ * </pre>
+ * @since 1.5
+ */
+public final class RESTRequestTiming {
+	private static final ThreadLocal<RESTRequestTiming> inFlightTiming = new ThreadLocal<>();
+	private static final ThreadLocal<RESTRequestTiming> lastTiming = new ThreadLocal<>();
+
+	private final String method;
+	private final URI uri;
+	private final long startTime;
+	private final boolean secure;
+	private final AtomicBoolean completed = new AtomicBoolean();
+	private final LongAdder bytesSent = new LongAdder();
+	private final LongAdder bytesReceived = new LongAdder();
+	private final LongAdder waitNanos = new LongAdder();
+	private final LongAdder compressedBytesSent = new LongAdder();
+	private final LongAdder compressedBytesReceived = new LongAdder();
+	private volatile String requestEncoding = null;
+	private volatile String responseEncoding = null;
+	private volatile long dnsResolvedTime;
+	private volatile long connectedTime;
+	private volatile long handshakeCompletedTime;
+	private volatile boolean connectionReused = false;
+	private volatile long headersReceivedTime;
+	private volatile long completedTime;
+	private volatile int status = -1;
+	private volatile Throwable failure;
+
+	RESTRequestTiming(String method, URI uri) {
+		this.method = method;
+		this.uri = uri;
+		this.secure = "https".equalsIgnoreCase(uri.getScheme());
+		this.startTime = System.nanoTime();
+		this.dnsResolvedTime = startTime;
+	}
+
+	/**
+	 * Returns the timing of the last request sent from the current thread.
+	 *
+	 * @return RESTRequestTiming null if no request is sent from the current thread
+	 */
+	public static RESTRequestTiming getLastRequestTiming() {
+		return lastTiming.get();
+	}
+
+	/**
+	 * Returns the timing of the last request sent from the current thread and clears it,
+	 * so the same timing is never attached to two report steps.
+	 *
+	 * @return RESTRequestTiming null if no request is sent after the last call
+	 */
+	public static RESTRequestTiming takeLastRequestTiming() {
+		RESTRequestTiming timing = lastTiming.get();
+		lastTiming.remove();
+		return timing;
+	}
+
+	/**
+	 * Sets the last timing of the current thread, used when the request is sent from another thread(i.e. hedged requests).
+	 */
+	static void setLastRequestTiming(RESTRequestTiming timing) {
+		lastTiming.set(timing);
+	}
+
+	static RESTRequestTiming getInFlightTiming() {
+		return inFlightTiming.get();
+	}
+
+	static void setInFlightTiming(RESTRequestTiming timing) {
+		if (timing == null) {
+			inFlightTiming.remove();
+		} else {
+			inFlightTiming.set(timing);
+			lastTiming.set(timing);
+		}
+	}
+
+	void markDnsResolved() {
+		dnsResolvedTime = System.nanoTime();
+	}
+
+	void markConnected() {
+		connectedTime = System.nanoTime();
+	}
+
+	void markHandshakeCompleted() {
+		handshakeCompletedTime = System.nanoTime();
+	}
+
+	/**
+	 * Marks the request as sent on a pooled connection, used by the transports which can tell it for plain http as well.
+	 */
+	void markConnectionReused() {
+		connectionReused = true;
+	}
+
+	void markHeadersReceived(int status) {
+		this.status = status;
+		headersReceivedTime = System.nanoTime();
+	}
+
+	void addBytesSent(long bytes) {
+		bytesSent.add(bytes);
+	}
+
+	void addBytesReceived(long bytes) {
+		bytesReceived.add(bytes);
+	}
+
+	void addWaitNanos(long nanos) {
+		waitNanos.add(nanos);
+	}
+
+	void markRequestEncoding(String encoding) {
+		requestEncoding = encoding;
+	}
+
+	void markResponseEncoding(String encoding) {
+		responseEncoding = encoding;
+	}
+
+	void addCompressedBytesSent(long bytes) {
+		compressedBytesSent.add(bytes);
+	}
+
+	void addCompressedBytesReceived(long bytes) {
+		compressedBytesReceived.add(bytes);
+	}
+
+	/**
+	 * Marks the request as completed, returns true only for the first call.
+	 */
+	boolean complete(Throwable failure) {
+		if (!completed.compareAndSet(false, true)) {
+			return false;
+		}
+		this.failure = failure;
+		completedTime = System.nanoTime();
+		return true;
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	public URI getUri() {
+		return uri;
+	}
+
+	/**
+	 * Returns the endpoint name of the request, ex: "GET api.cubic.com/accounts/{id}"
+	 *
+	 * @return java.lang.String
+	 */
+	public String getEndpoint() {
+		return RESTRequestListenerFilter.getEndpoint(method, uri);
+	}
+
+	/**
+	 * Returns the response code, -1 if the request is failed before receiving the response.
+	 *
+	 * @return int
+	 */
+	public int getStatus() {
+		return status;
+	}
+
+	public Throwable getFailure() {
+		return failure;
+	}
+
+	public boolean isCompleted() {
+		return completed.get();
+	}
+
+	public long getDnsNanos() {
+		return dnsResolvedTime - startTime;
+	}
+
+	/**
+	 * Returns the time the request waited for the rate limit, 0 if the request is not throttled.
+	 *
+	 * @return long
+	 */
+	public long getWaitNanos() {
+		return waitNanos.sum();
+	}
+
+	public long getConnectNanos() {
+		if (connectedTime != 0) {
+			return connectedTime - getSendStartTime();
+		}
+		return (secure || connectionReused) && headersReceivedTime != 0 ? 0 : -1;
+	}
+
+	public long getTlsNanos() {
+		if (!secure) {
+			return -1;
+		}
+		if (connectedTime != 0) {
+			return isHandshakeMeasured() ? handshakeCompletedTime - connectedTime : -1;
+		}
+		return headersReceivedTime != 0 ? 0 : -1;
+	}
+
+	/**
+	 * Handshake completion is notified asynchronously by the SSLSocket, it is ignored if it is notified
+	 * after the response headers.
+	 */
+	private boolean isHandshakeMeasured() {
+		return handshakeCompletedTime > connectedTime
+				&& (headersReceivedTime == 0 || handshakeCompletedTime <= headersReceivedTime);
+	}
+
+	public long getTimeToFirstByteNanos() {
+		if (headersReceivedTime == 0) {
+			return -1;
+		}
+		long connectionReadyTime = getSendStartTime();
+		if (connectedTime != 0) {
+			connectionReadyTime = isHandshakeMeasured() ? handshakeCompletedTime : connectedTime;
+		}
+		return headersReceivedTime - connectionReadyTime;
+	}
+
+	public long getBodyReadNanos() {
+		if (headersReceivedTime == 0 || completedTime == 0) {
+			return -1;
+		}
+		return completedTime - headersReceivedTime;
+	}
+
+	/**
+	 * Returns the total time of the request excluding the rate limit wait, -1 till the response body is read completely or closed.
+	 *
+	 * @return long
+	 */
+	public long getTotalNanos() {
+		return (completedTime == 0) ? -1 : completedTime - startTime - getWaitNanos();
+	}
+
+	/**
+	 * Request is sent to the transport after the host is resolved and the rate limit wait.
+	 */
+	private long getSendStartTime() {
+		return dnsResolvedTime + getWaitNanos();
+	}
+
+	public long getBytesSent() {
+		return bytesSent.sum();
+	}
+
+	public long getBytesReceived() {
+		return bytesReceived.sum();
+	}
+
+	/**
+	 * Returns the content encoding of the request entity, null if the request entity is not compressed.
+	 *
+	 * @return java.lang.String Ex: gzip
+	 */
+	public String getRequestEncoding() {
+		return requestEncoding;
+	}
+
+	/**
+	 * Returns the content encoding of the response entity decompressed by RESTCompressionFilter, null if the response is not compressed.
+	 *
+	 * @return java.lang.String Ex: gzip, deflate
+	 */
+	public String getResponseEncoding() {
+		return responseEncoding;
+	}
+
+	/**
+	 * Returns the compressed bytes of the request entity, -1 if the request entity is not compressed.
+	 *
+	 * @return long
+	 */
+	public long getCompressedBytesSent() {
+		return (requestEncoding == null) ? -1 : compressedBytesSent.sum();
+	}
+
+	/**
+	 * Returns the compressed bytes of the response entity, -1 if the response is not compressed.
+	 *
+	 * @return long
+	 */
+	public long getCompressedBytesReceived() {
+		return (responseEncoding == null) ? -1 : compressedBytesReceived.sum();
+	}
+
+	/**
+	 * Returns the breakdown in the format added to the report steps, Wait is added only for the throttled requests, ex:
+	 * "[DNS 0.1 ms | Connect 1.2 ms | TLS 15.3 ms | TTFB 40.2 ms | Body 2.0 ms | Sent 120 B | Received 3.4 KB (gzip 1.1 KB)]"
+	 *
+	 * @return java.lang.String
+	 */
+	public String toReportString() {
+		return "[DNS " + formatMillis(getDnsNanos())
+				+ ((getWaitNanos() > 0) ? " | Wait " + formatMillis(getWaitNanos()) : "")
+				+ " | Connect " + formatMillis(getConnectNanos())
+				+ " | TLS " + formatMillis(getTlsNanos())
+				+ " | TTFB " + formatMillis(getTimeToFirstByteNanos())
+				+ " | Body " + formatMillis(getBodyReadNanos())
+				+ " | Sent " + formatBytes(getBytesSent()) + formatEncoding(requestEncoding, getCompressedBytesSent())
+				+ " | Received " + formatBytes(getBytesReceived()) + formatEncoding(responseEncoding, getCompressedBytesReceived()) + "]";
+	}
+
+	@Override
+	public String toString() {
+		return "RESTRequestTiming [" + getEndpoint() + ", status=" + status + "] " + toReportString();
+	}
+
+	static String formatMillis(long nanos) {
+		if (nanos < 0) {
+			return "n/a";
+		}
+		return String.format("%.1f ms", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+	}
+
+	private static String formatEncoding(String encoding, long compressedBytes) {
+		return (encoding == null) ? "" : " (" + encoding + " " + formatBytes(compressedBytes) + ")";
+	}
+
+	static String formatBytes(long bytes) {
+		if (bytes < 1024) {
+			return bytes + " B";
+		} else if (bytes < 1024 * 1024) {
+			return String.format("%.1f KB", bytes / 1024.0);
+		}
+		return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+	}
+}
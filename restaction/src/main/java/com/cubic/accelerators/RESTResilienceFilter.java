@@ -0,0 +1,488 @@
+package com.cubic.accelerators;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.log4j.Logger;
+
+import com.cubic.genericutils.GenericConstants;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.filter.ClientFilter;
+
+/**
+ * <pre>
+ * Client filter added to every shared rest client when any of the below features is enabled, keeps the tail latency
+ * and the suite time bounded when the test environment is unhealthy.
+ *  - Retry : idempotent requests(GET, HEAD, OPTIONS, PUT, DELETE) failed to connect/read or responded with one of
+ *            the 'restRetryStatusCodes' are retried with an exponential backoff and jitter, Retry-After is honoured
+ *            when it is within the maximum backoff.
+ *  - Hedged GET : when a GET is slower than the 'restHedgePercentile' latency of its endpoint(see RESTEndpointStatistics),
+ *                 a second attempt is sent and the first successful response is used, the other one is closed.
+ *  - Circuit breaker : after 'restCircuitBreakerFailureThreshold' consecutive failures of a host, the requests to the host
+ *                      fail fast with CircuitOpenException for 'restCircuitBreakerOpenTimeInSeconds', then one request is
+ *                      let through and the circuit is closed if it succeeds.
+ *  - Added before RESTResponseCacheFilter and after RESTRequestListenerFilter, so every attempt is notified to
+ *    the listeners and the cached responses are returned without an attempt.
+ * </pre>
+ * Below properties can be defined in the GenericFrameworkConfig.properties at project level
+ * <pre>
+ *  restRetryMaxAttempts : attempts of the idempotent requests including the first one (default 1, i.e. no retry)
+ *  restRetryBackoffInMillis : backoff before the first retry, doubled for every retry (default 100)
+ *  restRetryMaxBackoffInMillis : maximum backoff between the attempts (default 2000)
+ *  restRetryStatusCodes : response codes treated as failures, comma separated (default 502,503,504)
+ *  restHedgePercentile : latency percentile of the endpoint after which the hedged GET is sent, ex: 95 (default disabled)
+ *  restHedgeMinDelayInMillis : minimum delay before the hedged GET is sent (default 10)
+ *  restCircuitBreakerFailureThreshold : consecutive failures which open the circuit of a host (default 0, i.e. disabled)
+ *  restCircuitBreakerOpenTimeInSeconds : time the circuit stays open before a trial request (default 30)
+ * </pre>
+ * @since 1.5
+ */
+public class RESTResilienceFilter extends ClientFilter {
+	private static final Logger LOG = Logger.getLogger(RESTResilienceFilter.class.getName());
+	// Latency percentile of an endpoint is used only after these many requests
+	private static final long HEDGE_MIN_SAMPLES = 20;
+
+	private static final int retryMaxAttempts = Math.max(1,
+			getIntegerProperty(GenericConstants.GENERIC_FW_CONFIG_PROPERTIES, RESTConstants.RETRY_MAX_ATTEMPTS, 1));
+	private static final long retryBackoff = getIntegerProperty(GenericConstants.GENERIC_FW_CONFIG_PROPERTIES,
+			RESTConstants.RETRY_BACKOFF, 100);
+	private static final long retryMaxBackoff = getIntegerProperty(GenericConstants.GENERIC_FW_CONFIG_PROPERTIES,
+			RESTConstants.RETRY_MAX_BACKOFF, 2000);
+	private static final Set<Integer> retryStatusCodes = getStatusCodes(GenericConstants.GENERIC_FW_CONFIG_PROPERTIES);
+	private static final double hedgePercentile = getHedgePercentile(GenericConstants.GENERIC_FW_CONFIG_PROPERTIES);
+	private static final long hedgeMinDelay = getIntegerProperty(GenericConstants.GENERIC_FW_CONFIG_PROPERTIES,
+			RESTConstants.HEDGE_MIN_DELAY, 10);
+	private static final int circuitBreakerFailureThreshold = getIntegerProperty(GenericConstants.GENERIC_FW_CONFIG_PROPERTIES,
+			RESTConstants.CIRCUIT_BREAKER_FAILURE_THRESHOLD, 0);
+	private static final long circuitBreakerOpenTime = TimeUnit.SECONDS.toNanos(getIntegerProperty(
+			GenericConstants.GENERIC_FW_CONFIG_PROPERTIES, RESTConstants.CIRCUIT_BREAKER_OPEN_TIME, 30));
+
+	private static final ConcurrentHashMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+	private static final LongAdder retries = new LongAdder();
+	private static final LongAdder hedgedRequests = new LongAdder();
+	private static final LongAdder hedgeWins = new LongAdder();
+	private static final LongAdder rejectedRequests = new LongAdder();
+	private static volatile ExecutorService hedgeExecutor = null;
+
+	/**
+	 * Returns true when the filter should be added to the shared clients.
+	 *
+	 * @return boolean
+	 */
+	public static boolean isEnabled() {
+		return retryMaxAttempts > 1 || hedgePercentile > 0 || circuitBreakerFailureThreshold > 0;
+	}
+
+	/**
+	 * Returns the retries, hedged requests and the circuit breakers since the start of the suite,
+	 * ex: "Resilience [retries=3, hedged=10 (won 4), rejected=25, open circuits=[api.cubic.com:443]]"
+	 *
+	 * @return java.lang.String
+	 */
+	public static String getResilienceSummary() {
+		StringBuilder openCircuits = new StringBuilder();
+		for (CircuitBreaker circuitBreaker : circuitBreakers.values()) {
+			if (circuitBreaker.state != CircuitBreaker.CLOSED) {
+				openCircuits.append(openCircuits.length() == 0 ? "" : ", ").append(circuitBreaker.host);
+			}
+		}
+		return "Resilience [retries=" + retries.sum() + ", hedged=" + hedgedRequests.sum() + " (won " + hedgeWins.sum()
+				+ "), rejected=" + rejectedRequests.sum() + ", open circuits=[" + openCircuits + "]]";
+	}
+
+	/**
+	 * Closes the circuits of all the hosts and stops the threads of the hedged requests, called when the
+	 * RESTClientRegistry is closed.
+	 */
+	static synchronized void close() {
+		circuitBreakers.clear();
+		if (hedgeExecutor != null) {
+			hedgeExecutor.shutdown();
+			hedgeExecutor = null;
+		}
+	}
+
+	@Override
+	public ClientResponse handle(ClientRequest cr) throws ClientHandlerException {
+		CircuitBreaker circuitBreaker = null;
+		if (circuitBreakerFailureThreshold > 0) {
+			String host = getHost(cr.getURI());
+			circuitBreaker = circuitBreakers.computeIfAbsent(host, CircuitBreaker::new);
+		}
+		int maxAttempts = isRetryable(cr) ? retryMaxAttempts : 1;
+		long hedgeDelay = getHedgeDelay(cr);
+
+		for (int attempt = 1;; attempt++) {
+			if (circuitBreaker != null && !circuitBreaker.allowRequest()) {
+				rejectedRequests.increment();
+				throw new CircuitOpenException(circuitBreaker);
+			}
+			ClientRequest request = (maxAttempts == 1 && hedgeDelay < 0) ? cr : copy(cr);
+			ClientResponse response;
+			try {
+				response = (hedgeDelay < 0) ? getNext().handle(request) : sendHedged(request, hedgeDelay);
+			} catch (RuntimeException e) {
+				if (circuitBreaker != null) {
+					circuitBreaker.onFailure();
+				}
+				if (attempt >= maxAttempts || !(e instanceof ClientHandlerException)) {
+					throw e;
+				}
+				LOG.warn("Retrying " + cr.getMethod() + " " + cr.getURI() + ", attempt " + attempt + " failed :: " + e);
+				backoff(attempt, null);
+				continue;
+			} catch (Error e) {
+				// Trial request of the half open circuit must end, otherwise the circuit never closes or opens again
+				if (circuitBreaker != null) {
+					circuitBreaker.onFailure();
+				}
+				throw e;
+			}
+
+			boolean failed = retryStatusCodes.contains(response.getStatus());
+			if (circuitBreaker != null) {
+				if (failed) {
+					circuitBreaker.onFailure();
+				} else {
+					circuitBreaker.onSuccess();
+				}
+			}
+			if (!failed || attempt >= maxAttempts) {
+				return response;
+			}
+			LOG.warn("Retrying " + cr.getMethod() + " " + cr.getURI() + ", attempt " + attempt + " returned " + response.getStatus());
+			String retryAfter = response.getHeaders().getFirst("Retry-After");
+			closeQuietly(response);
+			backoff(attempt, retryAfter);
+		}
+	}
+
+	/**
+	 * Sends the GET from a hedge thread, a second attempt is sent if no response is received within the delay.
+	 */
+	private ClientResponse sendHedged(ClientRequest cr, long hedgeDelay) {
+		RESTRequestListener threadListener = RESTRequestListenerFilter.getThreadListener();
+		CompletableFuture<Attempt> primary = sendAsync(cr, threadListener);
+		try {
+			return primary.get(hedgeDelay, TimeUnit.MILLISECONDS).get();
+		} catch (TimeoutException e) {
+			// Slower than the percentile of the endpoint, the hedged request is sent below
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			primary.thenAccept(Attempt::close);
+			throw new ClientHandlerException(e);
+		} catch (ExecutionException e) {
+			throw new ClientHandlerException(e.getCause());
+		}
+
+		hedgedRequests.increment();
+		CompletableFuture<Attempt> hedge = sendAsync(copy(cr), threadListener);
+		try {
+			Attempt winner = (Attempt) CompletableFuture.anyOf(primary, hedge).get();
+			CompletableFuture<Attempt> other = (primary.getNow(null) == winner) ? hedge : primary;
+			if (winner.isFailed()) {
+				Attempt otherAttempt = other.get();
+				if (otherAttempt.isFailed()) {
+					otherAttempt.close();
+					return winner.get();
+				}
+				winner.close();
+				winner = otherAttempt;
+			} else {
+				other.thenAccept(Attempt::close);
+			}
+			if (hedge.getNow(null) == winner) {
+				hedgeWins.increment();
+			}
+			return winner.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			primary.thenAccept(Attempt::close);
+			hedge.thenAccept(Attempt::close);
+			throw new ClientHandlerException(e);
+		} catch (ExecutionException e) {
+			throw new ClientHandlerException(e.getCause());
+		}
+	}
+
+	/**
+	 * Sends the request from a hedge thread, the thread listener of the caller is notified for the request.
+	 */
+	private CompletableFuture<Attempt> sendAsync(ClientRequest cr, RESTRequestListener threadListener) {
+		return CompletableFuture.supplyAsync(() -> {
+			RESTRequestListenerFilter.setThreadListener(threadListener);
+			try {
+				return new Attempt(getNext().handle(cr), null, RESTRequestTiming.getLastRequestTiming());
+			} catch (RuntimeException e) {
+				return new Attempt(null, e, RESTRequestTiming.getLastRequestTiming());
+			} finally {
+				RESTRequestListenerFilter.setThreadListener(null);
+				RESTRequestTiming.takeLastRequestTiming();
+			}
+		}, getHedgeExecutor());
+	}
+
+	private static ExecutorService getHedgeExecutor() {
+		ExecutorService executor = hedgeExecutor;
+		if (executor == null) {
+			synchronized (RESTResilienceFilter.class) {
+				if (hedgeExecutor == null) {
+					AtomicInteger threadCount = new AtomicInteger();
+					hedgeExecutor = Executors.newCachedThreadPool(runnable -> {
+						Thread thread = new Thread(runnable, "rest-hedge-" + threadCount.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					});
+				}
+				executor = hedgeExecutor;
+			}
+		}
+		return executor;
+	}
+
+	/**
+	 * Returns the delay of the hedged request in milliseconds, -1 if the request is not hedged.
+	 */
+	private static long getHedgeDelay(ClientRequest cr) {
+		if (hedgePercentile <= 0 || !"GET".equals(cr.getMethod()) || cr.getEntity() != null) {
+			return -1;
+		}
+		String endpoint = RESTRequestListenerFilter.getEndpoint(cr.getMethod(), cr.getURI());
+		RESTEndpointStatistics statistics = RESTEndpointStatistics.getInstance();
+		if (statistics.getRequestCount(endpoint) < HEDGE_MIN_SAMPLES) {
+			return -1;
+		}
+		return Math.max(hedgeMinDelay, TimeUnit.MICROSECONDS.toMillis(statistics.getLatencyInMicros(endpoint, hedgePercentile)));
+	}
+
+	private static boolean isRetryable(ClientRequest cr) {
+		String method = cr.getMethod();
+		boolean idempotent = "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)
+				|| "PUT".equals(method) || "DELETE".equals(method);
+		// Stream entities can't be sent again
+		return idempotent && !(cr.getEntity() instanceof InputStream);
+	}
+
+	/**
+	 * Sleeps before the next attempt, the backoff is doubled for every attempt and half of it is random(i.e. jitter),
+	 * so the tests waiting for the same host doesn't retry at the same time.
+	 */
+	private static void backoff(int attempt, String retryAfter) {
+		retries.increment();
+		long backoff = Math.min(retryMaxBackoff, retryBackoff << Math.min(attempt - 1, 20));
+		backoff = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+		if (retryAfter != null) {
+			try {
+				long retryAfterMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+				if (retryAfterMillis <= retryMaxBackoff) {
+					backoff = Math.max(backoff, retryAfterMillis);
+				}
+			} catch (NumberFormatException e) {
+				// Retry-After as http date is ignored
+			}
+		}
+		try {
+			Thread.sleep(backoff);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ClientHandlerException(e);
+		}
+	}
+
+	/**
+	 * Copies the request, the inner filters change the request(i.e. adapter, headers) for every attempt.
+	 */
+	private static ClientRequest copy(ClientRequest cr) {
+		ClientRequest copy = cr.clone();
+		copy.getProperties().putAll(cr.getProperties());
+		copy.setAdapter(cr.getAdapter());
+		return copy;
+	}
+
+	private static void closeQuietly(ClientResponse response) {
+		try {
+			response.close();
+		} catch (RuntimeException e) {
+			LOG.debug("Unable to close the response :: " + e);
+		}
+	}
+
+	static String getHost(URI uri) {
+		int port = uri.getPort();
+		if (port == -1) {
+			port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+		}
+		return uri.getHost() + ":" + port;
+	}
+
+	private static Integer getIntegerProperty(Hashtable<String, String> propTable, String key, Integer defaultValue) {
+		String value = propTable.get(key);
+		if (value == null || value.trim().length() == 0) {
+			return defaultValue;
+		}
+		try {
+			return Integer.valueOf(value.trim());
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid value '" + value + "' for the property " + key + ", using the default value " + defaultValue);
+			return defaultValue;
+		}
+	}
+
+	private static double getHedgePercentile(Hashtable<String, String> propTable) {
+		String value = propTable.get(RESTConstants.HEDGE_PERCENTILE);
+		if (value == null || value.trim().length() == 0) {
+			return 0;
+		}
+		try {
+			double percentile = Double.parseDouble(value.trim());
+			if (percentile > 0 && percentile < 100) {
+				return percentile;
+			}
+		} catch (NumberFormatException e) {
+			// warned below
+		}
+		LOG.warn("Invalid value '" + value + "' for the property " + RESTConstants.HEDGE_PERCENTILE + ", hedged requests are disabled");
+		return 0;
+	}
+
+	private static Set<Integer> getStatusCodes(Hashtable<String, String> propTable) {
+		String value = propTable.get(RESTConstants.RETRY_STATUS_CODES);
+		if (value == null || value.trim().length() == 0) {
+			value = "502,503,504";
+		}
+		Set<Integer> statusCodes = new HashSet<>();
+		for (String statusCode : value.split(",")) {
+			try {
+				statusCodes.add(Integer.valueOf(statusCode.trim()));
+			} catch (NumberFormatException e) {
+				LOG.warn("Invalid status code '" + statusCode + "' in the property " + RESTConstants.RETRY_STATUS_CODES);
+			}
+		}
+		return statusCodes;
+	}
+
+	/**
+	 * Result of an attempt sent from a hedge thread.
+	 */
+	private static final class Attempt {
+		private final ClientResponse response;
+		private final RuntimeException failure;
+		private final RESTRequestTiming timing;
+
+		private Attempt(ClientResponse response, RuntimeException failure, RESTRequestTiming timing) {
+			this.response = response;
+			this.failure = failure;
+			this.timing = timing;
+		}
+
+		private boolean isFailed() {
+			return failure != null || retryStatusCodes.contains(response.getStatus());
+		}
+
+		/**
+		 * Returns the response to the caller, the timing of the attempt becomes the last timing of the caller thread.
+		 */
+		private ClientResponse get() {
+			if (timing != null) {
+				RESTRequestTiming.setLastRequestTiming(timing);
+			}
+			if (failure != null) {
+				throw failure;
+			}
+			return response;
+		}
+
+		private void close() {
+			if (response != null) {
+				closeQuietly(response);
+			}
+		}
+	}
+
+	/**
+	 * Circuit breaker of a host : CLOSED -&gt; OPEN after the consecutive failures, OPEN -&gt; HALF_OPEN after the open time
+	 * (i.e. one trial request), HALF_OPEN -&gt; CLOSED if the trial request succeeds, otherwise OPEN again.
+	 */
+	static final class CircuitBreaker {
+		private static final int CLOSED = 0;
+		private static final int OPEN = 1;
+		private static final int HALF_OPEN = 2;
+
+		private final String host;
+		private volatile int state = CLOSED;
+		private int consecutiveFailures = 0;
+		private long openedTime = 0;
+
+		private CircuitBreaker(String host) {
+			this.host = host;
+		}
+
+		private synchronized boolean allowRequest() {
+			if (state == CLOSED) {
+				return true;
+			}
+			if (state == OPEN && System.nanoTime() - openedTime >= circuitBreakerOpenTime) {
+				state = HALF_OPEN;
+				LOG.info("Circuit breaker of " + host + " is half open, sending a trial request");
+				return true;
+			}
+			return false;
+		}
+
+		private synchronized void onSuccess() {
+			if (state != CLOSED) {
+				LOG.info("Circuit breaker of " + host + " is closed");
+			}
+			state = CLOSED;
+			consecutiveFailures = 0;
+		}
+
+		private synchronized void onFailure() {
+			consecutiveFailures++;
+			if (state == HALF_OPEN || (state == CLOSED && consecutiveFailures >= circuitBreakerFailureThreshold)) {
+				state = OPEN;
+				openedTime = System.nanoTime();
+				LOG.warn("Circuit breaker of " + host + " is open after " + consecutiveFailures + " consecutive failures");
+			}
+		}
+
+		private synchronized String describe() {
+			long remainingNanos = circuitBreakerOpenTime - (System.nanoTime() - openedTime);
+			return "Circuit breaker of " + host + " is open after " + consecutiveFailures + " consecutive failures, requests fail fast for "
+					+ Math.max(0, TimeUnit.NANOSECONDS.toSeconds(remainingNanos + TimeUnit.SECONDS.toNanos(1) - 1)) + " more seconds";
+		}
+	}
+
+	/**
+	 * Thrown when the circuit of the host is open, the request is not sent.
+	 */
+	public static class CircuitOpenException extends ClientHandlerException {
+		private static final long serialVersionUID = 1L;
+
+		private final String host;
+
+		private CircuitOpenException(CircuitBreaker circuitBreaker) {
+			super(circuitBreaker.describe());
+			this.host = circuitBreaker.host;
+		}
+
+		public String getHost() {
+			return host;
+		}
+	}
+}
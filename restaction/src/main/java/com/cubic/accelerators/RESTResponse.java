@@ -0,0 +1,126 @@
+package com.cubic.accelerators;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.ws.rs.core.MultivaluedMap;
+
+import com.sun.jersey.api.client.ClientResponse;
+
+/**
+ * <pre>
+ * Immutable response of a rest webservice call(i.e. response code, response headers and response body).
+ *  - The response body is read completely, so the connection is released as soon as the instance is created.
+ *  - Response header names are case insensitive.
+ * </pre>
+ * @since 1.5
+ */
+public final class RESTResponse {
+	private final int status;
+	private final Map<String, List<String>> headers;
+	private final String body;
+
+	/**
+	 * Constructor (creates the RESTResponse instance)
+	 *
+	 * @param status response code
+	 * @param headers response headers
+	 * @param body response body, if null then the body is considered as blank
+	 */
+	public RESTResponse(int status, Map<String, List<String>> headers, String body) {
+		TreeMap<String, List<String>> headerMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		if (headers != null) {
+			for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+				if (header.getKey() != null && header.getValue() != null) {
+					headerMap.put(header.getKey(), Collections.unmodifiableList(new ArrayList<>(header.getValue())));
+				}
+			}
+		}
+		this.status = status;
+		this.headers = Collections.unmodifiableMap(headerMap);
+		this.body = (body == null) ? "" : body;
+	}
+
+	/**
+	 * Creates the RESTResponse from the jersey ClientResponse, the response entity is consumed.
+	 *
+	 * @param clientResponse com.sun.jersey.api.client.ClientResponse
+	 * @return RESTResponse
+	 */
+	public static RESTResponse from(ClientResponse clientResponse) {
+		MultivaluedMap<String, String> multivaluedMap = clientResponse.getHeaders();
+		String strResponse = null;
+		try {
+			strResponse = clientResponse.getEntity(String.class);
+		} catch (Exception e) {
+			strResponse = "";
+		}
+		return new RESTResponse(clientResponse.getStatus(), multivaluedMap, strResponse);
+	}
+
+	/**
+	 * Returns the response code.
+	 *
+	 * @return int response code
+	 */
+	public int getStatus() {
+		return status;
+	}
+
+	/**
+	 * Returns all the response headers.
+	 *
+	 * @return java.util.Map unmodifiable map of response headers
+	 */
+	public Map<String, List<String>> getHeaders() {
+		return headers;
+	}
+
+	/**
+	 * Returns the first value of the response header.
+	 *
+	 * @param name response header name
+	 * @return java.lang.String header value, null if the header is not present
+	 */
+	public String getHeader(String name) {
+		List<String> values = headers.get(name);
+		return (values == null || values.isEmpty()) ? null : values.get(0);
+	}
+
+	/**
+	 * Returns the response body.
+	 *
+	 * @return java.lang.String response body, blank if there is no response body
+	 */
+	public String getBody() {
+		return body;
+	}
+
+	/**
+	 * <pre>
+	 * Returns both response and response headers in java.util.Hashtable, same as the *ResponseHeadersAndBody methods of RESTActions.
+	 *  - To fetch the response, you can use hashTable.get(RestConstants.RESPONSE_BODY)
+	 * </pre>
+	 * @return java.util.Hashtable
+	 */
+	public Hashtable<String, String> toHashtable() {
+		Hashtable<String, String> responseHeaderAndResponseBodyTable = new Hashtable<String, String>();
+		for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+			if (!header.getValue().isEmpty()) {
+				responseHeaderAndResponseBodyTable.put(header.getKey(), header.getValue().get(0));
+			}
+		}
+		responseHeaderAndResponseBodyTable.put(RESTConstants.RESPONSE_CODE, "" + status);
+		responseHeaderAndResponseBodyTable.put(RESTConstants.RESPONSE_BODY, body);
+		return responseHeaderAndResponseBodyTable;
+	}
+
+	@Override
+	public String toString() {
+		return "RESTResponse [status=" + status + ", headers=" + headers + "]";
+	}
+}
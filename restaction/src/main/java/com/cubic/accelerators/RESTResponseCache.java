@@ -0,0 +1,626 @@
+package com.cubic.accelerators;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.log4j.Logger;
+
+import com.cubic.genericutils.GenericConstants;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.core.header.InBoundHeaders;
+import com.sun.jersey.core.header.reader.HttpHeaderReader;
+import com.sun.jersey.spi.MessageBodyWorkers;
+
+/**
+ * <pre>
+ * JVM level cache of the GET responses, used by RESTResponseCacheFilter when the cache is enabled.
+ *  - Only the 200 responses allowed by the server are cached(i.e. Cache-Control max-age or Expires), responses with
+ *    an ETag or Last-Modified are cached as well and revalidated with If-None-Match/If-Modified-Since.
+ *  - Cache-Control no-store and private are never cached(i.e. the cache is shared by all the users of the suite),
+ *    no-cache is always revalidated before the cached response is used.
+ *  - Responses are cached per user, the credential headers of the request(i.e. Authorization and
+ *    restResponseCacheCredentialHeaders) are hashed into the cache key.
+ *  - Responses with a Vary header are cached per variant, the Vary header names of the url are kept(i.e. in the memory
+ *    and the disk cache) so the variant of the next request is found before it is sent.
+ *  - The least recently used responses are evicted when the number of entries or the total size exceeds the limits,
+ *    a single response is cached only if it's not bigger than 10% of the total size.
+ *  - When restResponseCacheDirectory is set, the responses are written to the directory as well and read back
+ *    in the next suite run(i.e. the stale responses are revalidated, the server returns 304 if they are not changed).
+ *  - Hit/revalidation/miss counts are kept, RESTEngine writes them next to the summary report.
+ * </pre>
+ * Below properties can be defined in the GenericFrameworkConfig.properties at project level
+ * <pre>
+ *  restResponseCacheEnabled : TRUE or FALSE, cache the GET responses (default FALSE)
+ *  restResponseCacheMaxEntries : maximum number of responses kept in the memory (default 1000)
+ *  restResponseCacheMaxSizeInMB : maximum total size of the responses kept in the memory (default 64)
+ *  restResponseCacheDirectory : directory of the disk cache, responses are cached only in the memory if not set
+ *  restResponseCacheDiskMaxSizeInMB : the oldest files are deleted at the end of the suite above this size (default 512)
+ *  restResponseCacheCredentialHeaders : comma separated request headers identifying the user, besides Authorization
+ *                                       (default Cookie,Proxy-Authorization,X-API-Key)
+ * </pre>
+ * @since 1.5
+ */
+public class RESTResponseCache {
+	private static final Logger LOG = Logger.getLogger(RESTResponseCache.class.getName());
+	private static final RESTResponseCache instance = new RESTResponseCache(GenericConstants.GENERIC_FW_CONFIG_PROPERTIES);
+	private static final int DISK_FORMAT = 0x52455331;
+	private static final List<String> NOT_UPDATED_HEADERS = Arrays.asList("content-length", "content-encoding", "transfer-encoding");
+
+	private final boolean enabled;
+	private final int maxEntries;
+	private final long maxBytes;
+	private final File directory;
+	private final long diskMaxBytes;
+	private final List<String> credentialHeaderNames;
+	private final LinkedHashMap<String, CachedResponse> responses = new LinkedHashMap<>(64, 0.75f, true);
+	private long totalBytes = 0;
+	private final Map<String, List<String>> varyHeaderNames = new ConcurrentHashMap<>();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder diskHits = new LongAdder();
+	private final LongAdder revalidations = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder stored = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	private RESTResponseCache(Hashtable<String, String> propTable) {
+		enabled = "true".equalsIgnoreCase(trim(propTable.get(RESTConstants.RESPONSE_CACHE_ENABLED)));
+		maxEntries = (int) getLong(propTable, RESTConstants.RESPONSE_CACHE_MAX_ENTRIES, 1000);
+		maxBytes = getLong(propTable, RESTConstants.RESPONSE_CACHE_MAX_SIZE, 64) * 1024 * 1024;
+		diskMaxBytes = getLong(propTable, RESTConstants.RESPONSE_CACHE_DISK_MAX_SIZE, 512) * 1024 * 1024;
+		String credentialHeaders = trim(propTable.get(RESTConstants.RESPONSE_CACHE_CREDENTIAL_HEADERS));
+		List<String> headerNames = new ArrayList<>();
+		headerNames.add("authorization");
+		for (String name : ((credentialHeaders == null) ? "Cookie,Proxy-Authorization,X-API-Key" : credentialHeaders).split(",")) {
+			if (trim(name) != null && !headerNames.contains(name.trim().toLowerCase())) {
+				headerNames.add(name.trim().toLowerCase());
+			}
+		}
+		credentialHeaderNames = Collections.unmodifiableList(headerNames);
+
+		String directoryPath = trim(propTable.get(RESTConstants.RESPONSE_CACHE_DIRECTORY));
+		File cacheDirectory = null;
+		if (enabled && directoryPath != null) {
+			cacheDirectory = new File(directoryPath);
+			if (!cacheDirectory.isDirectory() && !cacheDirectory.mkdirs()) {
+				LOG.warn("Unable to create the response cache directory " + cacheDirectory.getAbsolutePath() + ", responses are cached only in the memory");
+				cacheDirectory = null;
+			}
+		}
+		directory = cacheDirectory;
+		if (enabled) {
+			LOG.info("Response cache is enabled :: maxEntries = " + maxEntries + ", maxSize = " + RESTRequestTiming.formatBytes(maxBytes)
+					+ ", directory = " + ((directory == null) ? "NONE" : directory.getAbsolutePath()));
+		}
+	}
+
+	/**
+	 * Returns the JVM level cache.
+	 *
+	 * @return RESTResponseCache
+	 */
+	public static RESTResponseCache getInstance() {
+		return instance;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Returns the lower case names of the request headers identifying the user, Authorization is always included.
+	 */
+	List<String> getCredentialHeaderNames() {
+		return credentialHeaderNames;
+	}
+
+	/**
+	 * Maximum size of a single cached response, bigger responses are passed on without caching.
+	 */
+	long getMaxEntryBytes() {
+		return maxBytes / 10;
+	}
+
+	/**
+	 * Returns the cached response from the memory, or from the disk if it's not present in the memory.
+	 *
+	 * @param key cache key of the request, see RESTResponseCacheFilter
+	 * @return CachedResponse, null if the response is not cached
+	 */
+	CachedResponse get(String key) {
+		CachedResponse cachedResponse;
+		synchronized (responses) {
+			cachedResponse = responses.get(key);
+		}
+		if (cachedResponse == null && directory != null) {
+			cachedResponse = readFromDisk(key);
+			if (cachedResponse != null) {
+				diskHits.increment();
+				putInMemory(cachedResponse);
+			}
+		}
+		return cachedResponse;
+	}
+
+	/**
+	 * Caches the response, the response is written to the disk as well if the disk cache is enabled.
+	 */
+	void put(CachedResponse cachedResponse) {
+		if (cachedResponse.size() > getMaxEntryBytes()) {
+			return;
+		}
+		stored.increment();
+		putInMemory(cachedResponse);
+		if (directory != null) {
+			writeToDisk(cachedResponse);
+		}
+	}
+
+	/**
+	 * Returns the Vary header names of the last cached response of the request, empty if the response has no Vary header.
+	 *
+	 * @param baseKey cache key of the request without the Vary headers, see RESTResponseCacheFilter
+	 * @return java.util.List sorted lower case header names
+	 */
+	List<String> getVaryHeaderNames(String baseKey) {
+		List<String> names = varyHeaderNames.get(baseKey);
+		if (names == null && directory != null) {
+			names = readVaryHeaderNames(baseKey);
+			if (!names.isEmpty()) {
+				varyHeaderNames.put(baseKey, names);
+			}
+		}
+		return (names == null) ? Collections.<String>emptyList() : names;
+	}
+
+	/**
+	 * Keeps the Vary header names of the request, written to the disk as well if the disk cache is enabled.
+	 */
+	void putVaryHeaderNames(String baseKey, List<String> names) {
+		List<String> previous = names.isEmpty() ? varyHeaderNames.remove(baseKey) : varyHeaderNames.put(baseKey, names);
+		if (varyHeaderNames.size() > maxEntries) {
+			// Names are read back from the disk or the next response, the index is only a shortcut
+			varyHeaderNames.clear();
+		}
+		if (directory != null && !names.equals(previous)) {
+			writeVaryHeaderNames(baseKey, names);
+		}
+	}
+
+	void recordHit() {
+		hits.increment();
+	}
+
+	void recordRevalidation() {
+		revalidations.increment();
+	}
+
+	void recordMiss() {
+		misses.increment();
+	}
+
+	private void putInMemory(CachedResponse cachedResponse) {
+		synchronized (responses) {
+			CachedResponse previous = responses.put(cachedResponse.key, cachedResponse);
+			if (previous != null) {
+				totalBytes -= previous.size();
+			}
+			totalBytes += cachedResponse.size();
+
+			Iterator<CachedResponse> leastRecentlyUsed = responses.values().iterator();
+			while ((responses.size() > maxEntries || totalBytes > maxBytes) && leastRecentlyUsed.hasNext()) {
+				CachedResponse evicted = leastRecentlyUsed.next();
+				leastRecentlyUsed.remove();
+				totalBytes -= evicted.size();
+				evictions.increment();
+			}
+		}
+	}
+
+	/**
+	 * Removes all the responses from the memory and the disk.
+	 */
+	public void clear() {
+		synchronized (responses) {
+			responses.clear();
+			totalBytes = 0;
+		}
+		varyHeaderNames.clear();
+		if (directory != null) {
+			for (File file : listCacheFiles()) {
+				file.delete();
+			}
+		}
+	}
+
+	/**
+	 * Releases the responses kept in the memory and deletes the oldest files of the disk cache above
+	 * restResponseCacheDiskMaxSizeInMB, called when RESTClientRegistry is closed.
+	 */
+	void close() {
+		synchronized (responses) {
+			responses.clear();
+			totalBytes = 0;
+		}
+		varyHeaderNames.clear();
+		if (directory == null) {
+			return;
+		}
+		List<File> files = listCacheFiles();
+		long diskBytes = 0;
+		for (File file : files) {
+			diskBytes += file.length();
+		}
+		Collections.sort(files, Comparator.comparingLong(File::lastModified));
+		for (File file : files) {
+			if (diskBytes <= diskMaxBytes) {
+				break;
+			}
+			diskBytes -= file.length();
+			file.delete();
+		}
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getRevalidationCount() {
+		return revalidations.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * Writes the counts of the cache to the file, nothing is written if the cache is disabled.
+	 *
+	 * @param summaryFile java.io.File
+	 * @throws IOException
+	 */
+	public void writeSummary(File summaryFile) throws IOException {
+		if (!enabled) {
+			return;
+		}
+		summaryFile.getParentFile().mkdirs();
+		try (PrintWriter writer = new PrintWriter(summaryFile, StandardCharsets.UTF_8.name())) {
+			writer.println(toString());
+		}
+	}
+
+	@Override
+	public String toString() {
+		int entries;
+		long bytes;
+		synchronized (responses) {
+			entries = responses.size();
+			bytes = totalBytes;
+		}
+		return "RESTResponseCache [hits=" + hits.sum() + " (from disk " + diskHits.sum() + "), revalidated=" + revalidations.sum()
+				+ ", misses=" + misses.sum() + ", stored=" + stored.sum() + ", evicted=" + evictions.sum()
+				+ ", entries=" + entries + "/" + maxEntries + ", size=" + RESTRequestTiming.formatBytes(bytes) + "/"
+				+ RESTRequestTiming.formatBytes(maxBytes) + "]";
+	}
+
+	private List<File> listCacheFiles() {
+		File[] files = directory.listFiles((dir, name) -> name.endsWith(".cache") || name.endsWith(".vary"));
+		return (files == null) ? new ArrayList<File>() : new ArrayList<File>(Arrays.asList(files));
+	}
+
+	private File getCacheFile(String key) {
+		return new File(directory, sha256(key) + ".cache");
+	}
+
+	private File getVaryFile(String baseKey) {
+		return new File(directory, sha256(baseKey) + ".vary");
+	}
+
+	private List<String> readVaryHeaderNames(String baseKey) {
+		File file = getVaryFile(baseKey);
+		if (!file.isFile()) {
+			return Collections.<String>emptyList();
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != DISK_FORMAT || !baseKey.equals(in.readUTF())) {
+				return Collections.<String>emptyList();
+			}
+			List<String> names = new ArrayList<>();
+			for (int i = in.readInt(); i > 0; i--) {
+				names.add(in.readUTF());
+			}
+			return Collections.unmodifiableList(names);
+		} catch (IOException e) {
+			LOG.warn("Unable to read the vary headers " + file.getAbsolutePath() + ", the file is deleted :: " + e);
+			file.delete();
+			return Collections.<String>emptyList();
+		}
+	}
+
+	private void writeVaryHeaderNames(String baseKey, List<String> names) {
+		File file = getVaryFile(baseKey);
+		if (names.isEmpty()) {
+			file.delete();
+			return;
+		}
+		File tempFile = new File(directory, file.getName() + "." + Thread.currentThread().getId() + ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+				out.writeInt(DISK_FORMAT);
+				out.writeUTF(baseKey);
+				out.writeInt(names.size());
+				for (String name : names) {
+					out.writeUTF(name);
+				}
+			}
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			LOG.warn("Unable to write the vary headers to " + file.getAbsolutePath() + " :: " + e);
+			tempFile.delete();
+		}
+	}
+
+	private CachedResponse readFromDisk(String key) {
+		File file = getCacheFile(key);
+		if (!file.isFile()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != DISK_FORMAT || !key.equals(in.readUTF())) {
+				return null;
+			}
+			int status = in.readInt();
+			long expiresAtMillis = in.readLong();
+			Map<String, String> varyHeaders = new LinkedHashMap<>();
+			for (int i = in.readInt(); i > 0; i--) {
+				varyHeaders.put(in.readUTF(), in.readUTF());
+			}
+			Map<String, List<String>> headers = new LinkedHashMap<>();
+			for (int i = in.readInt(); i > 0; i--) {
+				String name = in.readUTF();
+				List<String> values = new ArrayList<>();
+				for (int j = in.readInt(); j > 0; j--) {
+					values.add(in.readUTF());
+				}
+				headers.put(name, values);
+			}
+			byte[] body = new byte[in.readInt()];
+			in.readFully(body);
+			return new CachedResponse(key, status, headers, body, varyHeaders, expiresAtMillis);
+		} catch (IOException e) {
+			LOG.warn("Unable to read the cached response " + file.getAbsolutePath() + ", the file is deleted :: " + e);
+			file.delete();
+			return null;
+		}
+	}
+
+	private void writeToDisk(CachedResponse cachedResponse) {
+		File file = getCacheFile(cachedResponse.key);
+		File tempFile = new File(directory, file.getName() + "." + Thread.currentThread().getId() + ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+				out.writeInt(DISK_FORMAT);
+				out.writeUTF(cachedResponse.key);
+				out.writeInt(cachedResponse.status);
+				out.writeLong(cachedResponse.expiresAtMillis);
+				out.writeInt(cachedResponse.varyHeaders.size());
+				for (Map.Entry<String, String> varyHeader : cachedResponse.varyHeaders.entrySet()) {
+					out.writeUTF(varyHeader.getKey());
+					out.writeUTF(varyHeader.getValue());
+				}
+				out.writeInt(cachedResponse.headers.size());
+				for (Map.Entry<String, List<String>> header : cachedResponse.headers.entrySet()) {
+					out.writeUTF(header.getKey());
+					out.writeInt(header.getValue().size());
+					for (String value : header.getValue()) {
+						out.writeUTF(value);
+					}
+				}
+				out.writeInt(cachedResponse.body.length);
+				out.write(cachedResponse.body);
+			}
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			LOG.warn("Unable to write the cached response to " + file.getAbsolutePath() + " :: " + e);
+			tempFile.delete();
+		}
+	}
+
+	static String sha256(String value) {
+		return sha256(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	static String sha256(byte[] value) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(value);
+			StringBuilder hex = new StringBuilder(digest.length * 2);
+			for (byte b : digest) {
+				hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String trim(String value) {
+		return (value == null || value.trim().length() == 0) ? null : value.trim();
+	}
+
+	private static long getLong(Hashtable<String, String> propTable, String key, long defaultValue) {
+		String value = trim(propTable.get(key));
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Math.max(1, Long.parseLong(value));
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid value '" + value + "' for the property " + key + ", using the default value " + defaultValue);
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Cached response(i.e. status, headers and body), immutable and shared by all the threads.
+	 */
+	static final class CachedResponse {
+		private final String key;
+		private final int status;
+		private final Map<String, List<String>> headers;
+		private final byte[] body;
+		private final Map<String, String> varyHeaders;
+		private final long expiresAtMillis;
+
+		CachedResponse(String key, int status, Map<String, List<String>> headers, byte[] body, Map<String, String> varyHeaders,
+				long expiresAtMillis) {
+			this.key = key;
+			this.status = status;
+			this.headers = headers;
+			this.body = body;
+			this.varyHeaders = varyHeaders;
+			this.expiresAtMillis = expiresAtMillis;
+		}
+
+		boolean isFresh(long nowInMillis) {
+			return nowInMillis < expiresAtMillis;
+		}
+
+		String getHeader(String name) {
+			return getFirst(headers, name);
+		}
+
+		Map<String, String> getVaryHeaders() {
+			return varyHeaders;
+		}
+
+		/**
+		 * Returns the response updated with the headers of the 304 response, the body is kept.
+		 */
+		CachedResponse revalidate(Map<String, List<String>> notModifiedHeaders, long nowInMillis) {
+			Map<String, List<String>> updatedHeaders = new LinkedHashMap<>(headers);
+			for (Map.Entry<String, List<String>> header : notModifiedHeaders.entrySet()) {
+				if (NOT_UPDATED_HEADERS.contains(header.getKey().toLowerCase())) {
+					continue;
+				}
+				for (Iterator<String> names = updatedHeaders.keySet().iterator(); names.hasNext();) {
+					if (names.next().equalsIgnoreCase(header.getKey())) {
+						names.remove();
+					}
+				}
+				updatedHeaders.put(header.getKey(), new ArrayList<>(header.getValue()));
+			}
+			return new CachedResponse(key, status, updatedHeaders, body, varyHeaders, getExpiresAtMillis(updatedHeaders, nowInMillis));
+		}
+
+		ClientResponse toClientResponse(MessageBodyWorkers workers) {
+			InBoundHeaders inBoundHeaders = new InBoundHeaders();
+			for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+				inBoundHeaders.put(header.getKey(), new ArrayList<>(header.getValue()));
+			}
+			return new ClientResponse(status, inBoundHeaders, new ByteArrayInputStream(body), workers);
+		}
+
+		long size() {
+			return body.length + 64L * headers.size() + key.length();
+		}
+	}
+
+	/**
+	 * Returns the time till the response is fresh, from Cache-Control max-age or Expires.
+	 * The current time is returned(i.e. always revalidated) for no-cache and when the server doesn't allow caching.
+	 */
+	static long getExpiresAtMillis(Map<String, List<String>> headers, long nowInMillis) {
+		String cacheControl = getAll(headers, "Cache-Control").toLowerCase();
+		if (cacheControl.contains("no-cache")) {
+			return nowInMillis;
+		}
+		long maxAge = getDirective(cacheControl, "max-age");
+		if (maxAge >= 0) {
+			long age = 0;
+			String ageHeader = getFirst(headers, "Age");
+			if (ageHeader != null) {
+				try {
+					age = Long.parseLong(ageHeader.trim());
+				} catch (NumberFormatException e) {
+					age = 0;
+				}
+			}
+			return nowInMillis + Math.max(0, maxAge - age) * 1000;
+		}
+		String expires = getFirst(headers, "Expires");
+		if (expires != null) {
+			try {
+				String date = getFirst(headers, "Date");
+				long serverNow = (date == null) ? nowInMillis : HttpHeaderReader.readDate(date).getTime();
+				return nowInMillis + Math.max(0, HttpHeaderReader.readDate(expires).getTime() - serverNow);
+			} catch (ParseException e) {
+				// Invalid date means already expired
+				return nowInMillis;
+			}
+		}
+		return nowInMillis;
+	}
+
+	/**
+	 * Returns the value of the Cache-Control directive in seconds, -1 if the directive is not present.
+	 */
+	static long getDirective(String cacheControl, String directive) {
+		for (String token : cacheControl.split(",")) {
+			String[] nameAndValue = token.trim().split("=", 2);
+			if (nameAndValue.length == 2 && nameAndValue[0].trim().equals(directive)) {
+				try {
+					return Long.parseLong(nameAndValue[1].trim().replace("\"", ""));
+				} catch (NumberFormatException e) {
+					return -1;
+				}
+			}
+		}
+		return -1;
+	}
+
+	static String getFirst(Map<String, List<String>> headers, String name) {
+		for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+			if (header.getKey() != null && header.getKey().equalsIgnoreCase(name) && !header.getValue().isEmpty()) {
+				return header.getValue().get(0);
+			}
+		}
+		return null;
+	}
+
+	static String getAll(Map<String, List<String>> headers, String name) {
+		StringBuilder values = new StringBuilder();
+		for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+			if (header.getKey() != null && header.getKey().equalsIgnoreCase(name)) {
+				for (String value : header.getValue()) {
+					values.append((values.length() > 0) ? "," : "").append(value);
+				}
+			}
+		}
+		return values.toString();
+	}
+}
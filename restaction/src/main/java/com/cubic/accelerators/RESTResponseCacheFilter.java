@@ -0,0 +1,224 @@
+package com.cubic.accelerators;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.MultivaluedMap;
+
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.filter.ClientFilter;
+import com.sun.jersey.spi.MessageBodyWorkers;
+
+/**
+ * <pre>
+ * Client filter added to every shared rest client when the response cache is enabled(see RESTResponseCache).
+ *  - Fresh cached responses are returned without sending the request.
+ *  - Stale cached responses with an ETag/Last-Modified are revalidated, the cached body is returned for 304.
+ *  - Requests are cached per url, Accept and the credential headers(i.e. Authorization, Cookie, X-API-Key, see
+ *    restResponseCacheCredentialHeaders), so the responses of different users are not shared, and the values of
+ *    the request headers listed in the Vary header of the response, every variant(ex: Accept-Language) of the url
+ *    is a separate cache entry.
+ *  - Requests with Cache-Control no-store are never cached, no-cache always revalidates the cached response.
+ *    Responses with Cache-Control no-store or private are never cached.
+ * </pre>
+ * @since 1.5
+ */
+public class RESTResponseCacheFilter extends ClientFilter {
+	private final RESTResponseCache cache = RESTResponseCache.getInstance();
+	private final MessageBodyWorkers workers;
+
+	/**
+	 * Constructor (creates the RESTResponseCacheFilter instance)
+	 *
+	 * @param workers message body workers of the client, used for reading the entity of the cached responses
+	 */
+	public RESTResponseCacheFilter(MessageBodyWorkers workers) {
+		this.workers = workers;
+	}
+
+	@Override
+	public ClientResponse handle(ClientRequest cr) throws ClientHandlerException {
+		if (!"GET".equals(cr.getMethod()) || cr.getEntity() != null) {
+			return getNext().handle(cr);
+		}
+		String requestCacheControl = getRequestHeader(cr, "Cache-Control").toLowerCase();
+		if (requestCacheControl.contains("no-store")) {
+			return getNext().handle(cr);
+		}
+		boolean noCache = requestCacheControl.contains("no-cache") || getRequestHeader(cr, "Pragma").toLowerCase().contains("no-cache");
+
+		String baseKey = getCacheKey(cr);
+		String key = getVariantKey(cr, baseKey, cache.getVaryHeaderNames(baseKey));
+		RESTResponseCache.CachedResponse cachedResponse = cache.get(key);
+		if (cachedResponse != null && !matchesVary(cr, cachedResponse)) {
+			cachedResponse = null;
+		}
+		if (cachedResponse != null && !noCache && cachedResponse.isFresh(System.currentTimeMillis())) {
+			cache.recordHit();
+			return cachedResponse.toClientResponse(workers);
+		}
+
+		boolean conditional = false;
+		if (cachedResponse != null && getRequestHeader(cr, "If-None-Match").isEmpty() && getRequestHeader(cr, "If-Modified-Since").isEmpty()) {
+			String etag = cachedResponse.getHeader("ETag");
+			String lastModified = cachedResponse.getHeader("Last-Modified");
+			if (etag != null) {
+				cr.getHeaders().putSingle("If-None-Match", etag);
+				conditional = true;
+			}
+			if (lastModified != null) {
+				cr.getHeaders().putSingle("If-Modified-Since", lastModified);
+				conditional = true;
+			}
+		}
+
+		ClientResponse response = getNext().handle(cr);
+		long nowInMillis = System.currentTimeMillis();
+		if (conditional && response.getStatus() == 304) {
+			RESTResponseCache.CachedResponse revalidatedResponse = cachedResponse.revalidate(response.getHeaders(), nowInMillis);
+			response.close();
+			cache.put(revalidatedResponse);
+			cache.recordRevalidation();
+			return revalidatedResponse.toClientResponse(workers);
+		}
+		cache.recordMiss();
+		if (isCacheable(response, nowInMillis)) {
+			store(cr, baseKey, response, nowInMillis);
+		}
+		return response;
+	}
+
+	/**
+	 * Response is cacheable if the server allows caching it, or it can be revalidated(i.e. ETag or Last-Modified).
+	 */
+	private boolean isCacheable(ClientResponse response, long nowInMillis) {
+		if (response.getStatus() != 200) {
+			return false;
+		}
+		MultivaluedMap<String, String> headers = response.getHeaders();
+		String cacheControl = RESTResponseCache.getAll(headers, "Cache-Control").toLowerCase();
+		if (cacheControl.contains("no-store") || cacheControl.contains("private") || RESTResponseCache.getAll(headers, "Vary").contains("*")) {
+			return false;
+		}
+		return RESTResponseCache.getExpiresAtMillis(headers, nowInMillis) > nowInMillis
+				|| RESTResponseCache.getFirst(headers, "ETag") != null || RESTResponseCache.getFirst(headers, "Last-Modified") != null;
+	}
+
+	/**
+	 * Reads the body and caches the response, the response is passed on without caching if the body is too big.
+	 */
+	private void store(ClientRequest cr, String baseKey, ClientResponse response, long nowInMillis) {
+		long maxEntryBytes = cache.getMaxEntryBytes();
+		if (response.getLength() > maxEntryBytes) {
+			return;
+		}
+		InputStream entityInputStream = response.getEntityInputStream();
+		try {
+			ByteArrayOutputStream body = new ByteArrayOutputStream((response.getLength() > 0) ? response.getLength() : 1024);
+			byte[] buffer = new byte[8192];
+			int count;
+			while ((count = entityInputStream.read(buffer)) != -1) {
+				body.write(buffer, 0, count);
+				if (body.size() > maxEntryBytes) {
+					response.setEntityInputStream(new SequenceInputStream(new ByteArrayInputStream(body.toByteArray()), entityInputStream));
+					return;
+				}
+			}
+			entityInputStream.close();
+			response.setEntityInputStream(new ByteArrayInputStream(body.toByteArray()));
+
+			Map<String, List<String>> headers = new LinkedHashMap<>();
+			for (Map.Entry<String, List<String>> header : response.getHeaders().entrySet()) {
+				headers.put(header.getKey(), new ArrayList<>(header.getValue()));
+			}
+			List<String> varyHeaderNames = getVaryHeaderNames(RESTResponseCache.getAll(headers, "Vary"));
+			Map<String, String> varyHeaders = new LinkedHashMap<>();
+			for (String name : varyHeaderNames) {
+				varyHeaders.put(name, getRequestHeader(cr, name));
+			}
+			cache.putVaryHeaderNames(baseKey, varyHeaderNames);
+			cache.put(new RESTResponseCache.CachedResponse(getVariantKey(cr, baseKey, varyHeaderNames), response.getStatus(), headers,
+					body.toByteArray(), varyHeaders, RESTResponseCache.getExpiresAtMillis(headers, nowInMillis)));
+		} catch (IOException e) {
+			throw new ClientHandlerException(e);
+		}
+	}
+
+	private static boolean matchesVary(ClientRequest cr, RESTResponseCache.CachedResponse cachedResponse) {
+		for (Map.Entry<String, String> varyHeader : cachedResponse.getVaryHeaders().entrySet()) {
+			if (!getRequestHeader(cr, varyHeader.getKey()).equals(varyHeader.getValue())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the key of the url, the values of the credential headers are hashed(i.e. never written to the disk cache).
+	 */
+	private String getCacheKey(ClientRequest cr) {
+		StringBuilder credentials = new StringBuilder();
+		for (String name : cache.getCredentialHeaderNames()) {
+			String value = getRequestHeader(cr, name);
+			if (!value.isEmpty()) {
+				credentials.append(name).append(": ").append(value).append('\n');
+			}
+		}
+		return cr.getURI() + "\nAccept: " + getRequestHeader(cr, "Accept")
+				+ ((credentials.length() == 0) ? "" : "\nCredentials: " + RESTResponseCache.sha256(credentials.toString()));
+	}
+
+	/**
+	 * Returns the key of the variant selected by the Vary request headers, the values are hashed(i.e. Cookie).
+	 */
+	private static String getVariantKey(ClientRequest cr, String baseKey, List<String> varyHeaderNames) {
+		if (varyHeaderNames.isEmpty()) {
+			return baseKey;
+		}
+		StringBuilder varyHeaders = new StringBuilder();
+		for (String name : varyHeaderNames) {
+			varyHeaders.append(name).append(": ").append(getRequestHeader(cr, name)).append('\n');
+		}
+		return baseKey + "\nVary: " + RESTResponseCache.sha256(varyHeaders.toString());
+	}
+
+	/**
+	 * Returns the sorted lower case names of the Vary header, so the same variant always has the same key.
+	 */
+	private static List<String> getVaryHeaderNames(String vary) {
+		List<String> names = new ArrayList<>();
+		for (String name : vary.split(",")) {
+			String trimmedName = name.trim().toLowerCase();
+			if (trimmedName.length() > 0 && !names.contains(trimmedName)) {
+				names.add(trimmedName);
+			}
+		}
+		Collections.sort(names);
+		return Collections.unmodifiableList(names);
+	}
+
+	/**
+	 * Returns the comma separated values of the request header, empty string if the header is not present.
+	 */
+	private static String getRequestHeader(ClientRequest cr, String name) {
+		StringBuilder values = new StringBuilder();
+		for (Map.Entry<String, List<Object>> header : cr.getHeaders().entrySet()) {
+			if (header.getKey().equalsIgnoreCase(name)) {
+				for (Object value : header.getValue()) {
+					values.append((values.length() > 0) ? "," : "").append(ClientRequest.getHeaderValue(value));
+				}
+			}
+		}
+		return values.toString();
+	}
+}
@@ -0,0 +1,480 @@
+package com.cubic.accelerators;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.security.KeyStore;
+import java.security.SecureRandom;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import javax.net.ssl.HandshakeCompletedEvent;
+import javax.net.ssl.HandshakeCompletedListener;
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+
+import org.apache.log4j.Logger;
+
+import com.cubic.genericutils.GenericConstants;
+import com.sun.jersey.api.client.config.ClientConfig;
+import com.sun.jersey.client.urlconnection.HTTPSProperties;
+
+/**
+ * <pre>
+ * Builds the SSL trust/key material once per JVM and caches the SSLContext/SSLSocketFactory of every profile.
+ *  - Keystores are parsed only once, no javax.net.ssl.* system properties are changed.
+ *  - The same SSLSocketFactory is handed to every connection of the profile, so the keep-alive
+ *    connections and the TLS sessions are reused between the requests.
+ *  - Client certificates can be configured per host pattern.
+ *  - TCP connect and TLS handshake of the new connections are recorded in the RESTRequestTiming of the request.
+ * </pre>
+ * Below properties can be defined in the GenericFrameworkConfig.properties at project level
+ * <pre>
+ *  addExternalSSLCertificateType : keystore type of addExternalSSLCertificateJKSPath (default pkcs12)
+ *  sslSessionCacheSize : number of TLS sessions cached for resumption per profile
+ *  sslSessionTimeoutInSeconds : lifetime of the cached TLS sessions
+ *  sslClientCertificateProfiles : comma separated profile names, ex: gateway,payments
+ *  sslClientCertificate.&lt;name&gt;.hostPattern : host name pattern, ex: *.gateway.cubic.com
+ *  sslClientCertificate.&lt;name&gt;.path : relative path of the certificate file in the project folder
+ *  sslClientCertificate.&lt;name&gt;.password : password of the certificate file
+ *  sslClientCertificate.&lt;name&gt;.type : keystore type of the certificate file (default pkcs12)
+ * </pre>
+ * @since 1.5
+ */
+public class RESTSSLProfiles {
+	private static final Logger LOG = Logger.getLogger(RESTSSLProfiles.class.getName());
+
+	public static final String DEFAULT = "SSL_DEFAULT";
+	public static final String TRUST_ALL = "SSL_TRUST_ALL";
+	public static final String EXTERNAL_CERTIFICATE = "SSL_EXTERNAL_CERTIFICATE";
+	public static final String CLIENT_CERTIFICATE = "SSL_CLIENT_CERTIFICATE:";
+	private static final String NO_PROFILE = "";
+
+	private static final ConcurrentHashMap<String, SSLProfile> profiles = new ConcurrentHashMap<>();
+	private static final List<HostCertificate> hostCertificates = new CopyOnWriteArrayList<>();
+	private static final ConcurrentHashMap<String, String> hostProfileCache = new ConcurrentHashMap<>();
+	private static volatile boolean hostCertificatesLoaded = false;
+
+	private RESTSSLProfiles() {
+	}
+
+	/**
+	 * Returns the profile with the JVM default SSLContext and host name verification.
+	 *
+	 * @return SSLProfile
+	 */
+	public static SSLProfile getDefaultProfile() {
+		return profiles.computeIfAbsent(DEFAULT, key -> {
+			try {
+				return new SSLProfile(key, SSLContext.getDefault(), null);
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+		});
+	}
+
+	/**
+	 * Returns the profile which trusts all the certificates and ignores the host name verification.
+	 *
+	 * @return SSLProfile
+	 */
+	public static SSLProfile getTrustAllProfile() {
+		return profiles.computeIfAbsent(TRUST_ALL, key -> {
+			TrustManager[] trustAllCerts = new TrustManager[]{new X509TrustManager() {
+				public X509Certificate[] getAcceptedIssuers() {
+					return new X509Certificate[0];
+				}
+				public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+				}
+				public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+				}
+			}};
+			return new SSLProfile(key, createSSLContext(null, trustAllCerts), (hostName, sslSession) -> true, trustAllCerts);
+		});
+	}
+
+	/**
+	 * <pre>
+	 * Returns the profile with the external SSL certificate defined in the GenericFrameworkConfig.properties
+	 *  - addExternalSSLCertificateJKSPath : Relative path of the certificate file where it is available in the project folder.
+	 *  - addExternalSSLCertificatePassword : Password of the security certificate
+	 * </pre>
+	 * @return SSLProfile
+	 */
+	public static SSLProfile getExternalCertificateProfile() {
+		return profiles.computeIfAbsent(EXTERNAL_CERTIFICATE, key -> {
+			Hashtable<String, String> propTable = GenericConstants.GENERIC_FW_CONFIG_PROPERTIES;
+			KeyManager[] keyManagers = loadKeyManagers(propTable.get("addExternalSSLCertificateJKSPath"),
+					propTable.get("addExternalSSLCertificatePassword"), propTable.get(RESTConstants.SSL_EXTERNAL_CERTIFICATE_TYPE));
+			return new SSLProfile(key, createSSLContext(keyManagers, null), null);
+		});
+	}
+
+	/**
+	 * Registers the client certificate for the hosts matching the hostPattern, the profile registered before with
+	 * the same name(and its shared clients) is replaced.
+	 *
+	 * @param name profile name
+	 * @param hostPattern host name pattern, '*' matches any characters. Ex: *.gateway.cubic.com
+	 * @param certificatePath relative path of the certificate file in the project folder (or absolute path)
+	 * @param password password of the certificate file
+	 * @param keyStoreType keystore type of the certificate file, if null then pkcs12 is used
+	 */
+	public static void registerClientCertificate(String name, String hostPattern, String certificatePath,
+			String password, String keyStoreType) {
+		hostCertificates.removeIf(hostCertificate -> hostCertificate.name.equals(name));
+		hostCertificates.add(new HostCertificate(name, hostPattern, certificatePath, password, keyStoreType));
+		profiles.remove(CLIENT_CERTIFICATE + name);
+		profiles.remove(CLIENT_CERTIFICATE + name + ":" + TRUST_ALL);
+		// Shared clients are created from the SSLContext of the profile, the clients of the old certificate are removed
+		RESTClientRegistry.evictClient(CLIENT_CERTIFICATE + name);
+		RESTClientRegistry.evictClient(CLIENT_CERTIFICATE + name + ":" + TRUST_ALL);
+		hostProfileCache.clear();
+		LOG.info("Registered the client certificate profile '" + name + "' for the host pattern :: " + hostPattern);
+	}
+
+	/**
+	 * Returns the client certificate profile matching the host of the url, returns null if none of the
+	 * registered host patterns matches.
+	 *
+	 * @param url End point url
+	 * @param trustAll true if the server certificates should not be verified
+	 * @return SSLProfile
+	 */
+	public static SSLProfile getClientCertificateProfile(String url, boolean trustAll) {
+		loadHostCertificates();
+		if (hostCertificates.isEmpty()) {
+			return null;
+		}
+
+		String host;
+		try {
+			host = URI.create(url).getHost();
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+		if (host == null) {
+			return null;
+		}
+
+		String name = hostProfileCache.computeIfAbsent(host.toLowerCase(), hostName -> {
+			for (HostCertificate hostCertificate : hostCertificates) {
+				if (hostCertificate.hostPattern.matcher(hostName).matches()) {
+					return hostCertificate.name;
+				}
+			}
+			return NO_PROFILE;
+		});
+		if (NO_PROFILE.equals(name)) {
+			return null;
+		}
+
+		String profileKey = CLIENT_CERTIFICATE + name + (trustAll ? ":" + TRUST_ALL : "");
+		SSLProfile trustAllProfile = trustAll ? getTrustAllProfile() : null;
+		return profiles.computeIfAbsent(profileKey, key -> {
+			HostCertificate hostCertificate = getHostCertificate(name);
+			KeyManager[] keyManagers = loadKeyManagers(hostCertificate.certificatePath, hostCertificate.password,
+					hostCertificate.keyStoreType);
+			if (trustAllProfile != null) {
+				return new SSLProfile(key, createSSLContext(keyManagers, trustAllProfile.trustManagers),
+						trustAllProfile.hostnameVerifier, trustAllProfile.trustManagers);
+			}
+			return new SSLProfile(key, createSSLContext(keyManagers, null), null);
+		});
+	}
+
+	private static HostCertificate getHostCertificate(String name) {
+		for (HostCertificate hostCertificate : hostCertificates) {
+			if (hostCertificate.name.equals(name)) {
+				return hostCertificate;
+			}
+		}
+		throw new RuntimeException("Client certificate profile is not registered :: " + name);
+	}
+
+	/**
+	 * Loads the per host client certificates defined in the GenericFrameworkConfig.properties, only once.
+	 */
+	private static void loadHostCertificates() {
+		if (hostCertificatesLoaded) {
+			return;
+		}
+		synchronized (RESTSSLProfiles.class) {
+			if (hostCertificatesLoaded) {
+				return;
+			}
+			Hashtable<String, String> propTable = GenericConstants.GENERIC_FW_CONFIG_PROPERTIES;
+			String profileNames = propTable.get(RESTConstants.SSL_CLIENT_CERTIFICATE_PROFILES);
+			if (profileNames != null && profileNames.trim().length() > 0) {
+				for (String name : profileNames.split(",")) {
+					name = name.trim();
+					if (name.length() == 0) {
+						continue;
+					}
+					String prefix = RESTConstants.SSL_CLIENT_CERTIFICATE_PREFIX + name + ".";
+					String hostPattern = propTable.get(prefix + "hostPattern");
+					if (hostPattern == null) {
+						LOG.warn("Host pattern is missing for the client certificate profile :: " + name);
+						continue;
+					}
+					registerClientCertificate(name, hostPattern, propTable.get(prefix + "path"),
+							propTable.get(prefix + "password"), propTable.get(prefix + "type"));
+				}
+			}
+			hostCertificatesLoaded = true;
+		}
+	}
+
+	private static KeyManager[] loadKeyManagers(String certificatePath, String password, String keyStoreType) {
+		if (certificatePath == null) {
+			throw new RuntimeException("SSL certificate path is not defined");
+		}
+		File certificateFile = new File(certificatePath);
+		if (!certificateFile.isAbsolute() || !certificateFile.exists()) {
+			certificateFile = new File(System.getProperty("user.dir") + certificatePath);
+		}
+		char[] passwordChars = (password == null) ? new char[0] : password.toCharArray();
+		String type = (keyStoreType == null || keyStoreType.trim().length() == 0) ? "pkcs12" : keyStoreType.trim();
+
+		LOG.info("Loading the SSL certificate :::::::" + certificateFile.getPath());
+		try (InputStream inputStream = new FileInputStream(certificateFile)) {
+			KeyStore keyStore = KeyStore.getInstance(type);
+			keyStore.load(inputStream, passwordChars);
+			KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+			keyManagerFactory.init(keyStore, passwordChars);
+			return keyManagerFactory.getKeyManagers();
+		} catch (Exception e) {
+			throw new RuntimeException("Unable to load the SSL certificate :: " + certificateFile.getPath(), e);
+		}
+	}
+
+	private static SSLContext createSSLContext(KeyManager[] keyManagers, TrustManager[] trustManagers) {
+		try {
+			SSLContext sslContext = SSLContext.getInstance("TLS");
+			sslContext.init(keyManagers, trustManagers, new SecureRandom());
+
+			// TLS session resumption, sessions are cached per SSLContext
+			Hashtable<String, String> propTable = GenericConstants.GENERIC_FW_CONFIG_PROPERTIES;
+			SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+			String sessionCacheSize = propTable.get(RESTConstants.SSL_SESSION_CACHE_SIZE);
+			if (sessionCacheSize != null && sessionCacheSize.trim().length() > 0) {
+				sessionContext.setSessionCacheSize(Integer.parseInt(sessionCacheSize.trim()));
+			}
+			String sessionTimeout = propTable.get(RESTConstants.SSL_SESSION_TIMEOUT);
+			if (sessionTimeout != null && sessionTimeout.trim().length() > 0) {
+				sessionContext.setSessionTimeout(Integer.parseInt(sessionTimeout.trim()));
+			}
+			return sslContext;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * SSLContext, SSLSocketFactory and HostnameVerifier of the profile, created once and shared by all the connections.
+	 */
+	public static final class SSLProfile {
+		private final String name;
+		private final SSLContext sslContext;
+		private final SSLSocketFactory socketFactory;
+		private final HostnameVerifier hostnameVerifier;
+		private final TrustManager[] trustManagers;
+		private final HTTPSProperties httpsProperties;
+
+		private SSLProfile(String name, SSLContext sslContext, HostnameVerifier hostnameVerifier) {
+			this(name, sslContext, hostnameVerifier, null);
+		}
+
+		private SSLProfile(String name, SSLContext sslContext, HostnameVerifier hostnameVerifier, TrustManager[] trustManagers) {
+			this.name = name;
+			this.sslContext = sslContext;
+			this.socketFactory = new TimingSSLSocketFactory(sslContext.getSocketFactory());
+			this.hostnameVerifier = hostnameVerifier;
+			this.trustManagers = trustManagers;
+			this.httpsProperties = new SharedSocketFactoryHTTPSProperties(this);
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public SSLContext getSSLContext() {
+			return sslContext;
+		}
+
+		public SSLSocketFactory getSocketFactory() {
+			return socketFactory;
+		}
+
+		public HostnameVerifier getHostnameVerifier() {
+			return hostnameVerifier;
+		}
+
+		/**
+		 * Returns the trust manager of the profile, the JVM default trust manager if the profile doesn't define one.
+		 * Used by the transports which are not based on HttpsURLConnection.
+		 *
+		 * @return javax.net.ssl.X509TrustManager
+		 */
+		public X509TrustManager getTrustManager() {
+			if (trustManagers != null) {
+				for (TrustManager trustManager : trustManagers) {
+					if (trustManager instanceof X509TrustManager) {
+						return (X509TrustManager) trustManager;
+					}
+				}
+			}
+			try {
+				TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+				trustManagerFactory.init((KeyStore) null);
+				for (TrustManager trustManager : trustManagerFactory.getTrustManagers()) {
+					if (trustManager instanceof X509TrustManager) {
+						return (X509TrustManager) trustManager;
+					}
+				}
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+			throw new IllegalStateException("No X509TrustManager is available for the SSL profile :: " + name);
+		}
+
+		/**
+		 * Returns the HTTPSProperties to be added to the client config(i.e. HTTPSProperties.PROPERTY_HTTPS_PROPERTIES).
+		 *
+		 * @return com.sun.jersey.client.urlconnection.HTTPSProperties
+		 */
+		public HTTPSProperties getHTTPSProperties() {
+			return httpsProperties;
+		}
+	}
+
+	/**
+	 * Returns the profile of the HTTPSProperties added to the client config, null if the client config doesn't have the
+	 * HTTPSProperties of a profile.
+	 *
+	 * @param config com.sun.jersey.api.client.config.ClientConfig
+	 * @return SSLProfile
+	 */
+	static SSLProfile getProfile(ClientConfig config) {
+		Object httpsProperties = config.getProperties().get(HTTPSProperties.PROPERTY_HTTPS_PROPERTIES);
+		return (httpsProperties instanceof SharedSocketFactoryHTTPSProperties) ? ((SharedSocketFactoryHTTPSProperties) httpsProperties).profile : null;
+	}
+
+	/**
+	 * HTTPSProperties creates a new SSLSocketFactory for every connection, the keep-alive cache of
+	 * HttpsURLConnection is keyed by the SSLSocketFactory, so the connections would never be reused.
+	 */
+	private static final class SharedSocketFactoryHTTPSProperties extends HTTPSProperties {
+		private final SSLProfile profile;
+
+		private SharedSocketFactoryHTTPSProperties(SSLProfile profile) {
+			super(profile.hostnameVerifier, profile.sslContext);
+			this.profile = profile;
+		}
+
+		@Override
+		public void setConnection(HttpsURLConnection connection) {
+			if (profile.hostnameVerifier != null) {
+				connection.setHostnameVerifier(profile.hostnameVerifier);
+			}
+			connection.setSSLSocketFactory(profile.socketFactory);
+		}
+	}
+
+	/**
+	 * Records the TCP connect and the TLS handshake of the new connections in the RESTRequestTiming of the request.
+	 * Unconnected sockets are not supported(i.e. createSocket() is not overridden), so HttpsURLConnection connects
+	 * a plain socket first and layers the TLS socket over it, which separates the connect time from the handshake time.
+	 */
+	private static final class TimingSSLSocketFactory extends SSLSocketFactory {
+		private final SSLSocketFactory delegate;
+
+		private TimingSSLSocketFactory(SSLSocketFactory delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public String[] getDefaultCipherSuites() {
+			return delegate.getDefaultCipherSuites();
+		}
+
+		@Override
+		public String[] getSupportedCipherSuites() {
+			return delegate.getSupportedCipherSuites();
+		}
+
+		@Override
+		public Socket createSocket(Socket socket, String host, int port, boolean autoClose) throws IOException {
+			return track(delegate.createSocket(socket, host, port, autoClose));
+		}
+
+		@Override
+		public Socket createSocket(String host, int port) throws IOException {
+			return track(delegate.createSocket(host, port));
+		}
+
+		@Override
+		public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+			return track(delegate.createSocket(host, port, localHost, localPort));
+		}
+
+		@Override
+		public Socket createSocket(InetAddress host, int port) throws IOException {
+			return track(delegate.createSocket(host, port));
+		}
+
+		@Override
+		public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+			return track(delegate.createSocket(address, port, localAddress, localPort));
+		}
+
+		private Socket track(Socket socket) {
+			RESTRequestTiming timing = RESTRequestTiming.getInFlightTiming();
+			if (timing != null && socket instanceof SSLSocket) {
+				timing.markConnected();
+				((SSLSocket) socket).addHandshakeCompletedListener(new HandshakeCompletedListener() {
+					@Override
+					public void handshakeCompleted(HandshakeCompletedEvent event) {
+						timing.markHandshakeCompleted();
+						event.getSocket().removeHandshakeCompletedListener(this);
+					}
+				});
+			}
+			return socket;
+		}
+	}
+
+	private static final class HostCertificate {
+		private final String name;
+		private final Pattern hostPattern;
+		private final String certificatePath;
+		private final String password;
+		private final String keyStoreType;
+
+		private HostCertificate(String name, String hostPattern, String certificatePath, String password, String keyStoreType) {
+			this.name = name;
+			this.hostPattern = Pattern.compile(("\\Q" + hostPattern.trim().toLowerCase() + "\\E").replace("*", "\\E.*\\Q"));
+			this.certificatePath = certificatePath;
+			this.password = password;
+			this.keyStoreType = keyStoreType;
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package com.cubic.accelerators;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.testng.IMethodInterceptor;
+import org.testng.IMethodInstance;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+
+/**
+ * <pre>
+ * Partitions the test methods of the suite between the shards, so a suite can be run by several JVMs(i.e. on one
+ * machine or on several machines), every shard runs the test methods of its partition.
+ *  - Shard of the test method is the hash of its class and method name modulo the shard count, the partition
+ *    doesn't depend on the order of the methods or the other methods of the suite(i.e. every shard computes the same partition).
+ *  - All the methods of a class having dependent methods(i.e. dependsOnMethods/dependsOnGroups) are run by one shard.
+ *  - Shard index and count are the 'shardIndex' and 'shardCount' parameters of the suite xml, or the system properties
+ *    with the same name(ex: -DshardIndex=0 -DshardCount=4), so the JVMs can share the same suite xml.
+ *  - Registered by RESTEngine(i.e. @Listeners), the methods are not partitioned when the shard parameters are not defined.
+ *  - Results of every shard are written by RESTShardResult and merged by RESTShardMerger.
+ * </pre>
+ * @since 1.5
+ */
+public class RESTShardInterceptor implements IMethodInterceptor {
+	private static final Logger LOG = Logger.getLogger(RESTShardInterceptor.class.getName());
+	public static final String SHARD_INDEX = "shardIndex";
+	public static final String SHARD_COUNT = "shardCount";
+
+	@Override
+	public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+		int[] shard = getShard(context.getCurrentXmlTest().getParameter(SHARD_INDEX), context.getCurrentXmlTest().getParameter(SHARD_COUNT));
+		if (shard == null) {
+			return methods;
+		}
+		Set<Class<?>> dependentClasses = new HashSet<>();
+		for (IMethodInstance method : methods) {
+			ITestNGMethod testMethod = method.getMethod();
+			if (testMethod.getMethodsDependedUpon().length > 0 || testMethod.getGroupsDependedUpon().length > 0) {
+				dependentClasses.add(testMethod.getRealClass());
+			}
+		}
+		List<IMethodInstance> shardMethods = new ArrayList<>();
+		for (IMethodInstance method : methods) {
+			ITestNGMethod testMethod = method.getMethod();
+			String partitionKey = dependentClasses.contains(testMethod.getRealClass()) ? testMethod.getRealClass().getName()
+					: testMethod.getRealClass().getName() + "." + testMethod.getMethodName();
+			if (getShardIndex(partitionKey, shard[1]) == shard[0]) {
+				shardMethods.add(method);
+			}
+		}
+		LOG.info("Shard " + shard[0] + " of " + shard[1] + " runs " + shardMethods.size() + " of " + methods.size()
+				+ " test methods of " + context.getName());
+		return shardMethods;
+	}
+
+	/**
+	 * Returns the shard of the partition key, String.hashCode is the same in every JVM.
+	 *
+	 * @param partitionKey class name or class and method name
+	 * @param shardCount number of shards
+	 * @return int
+	 */
+	static int getShardIndex(String partitionKey, int shardCount) {
+		// Spreads the hash of the similar names(i.e. test01, test02)
+		int hash = partitionKey.hashCode() * 0x9E3779B9;
+		return Math.floorMod(hash ^ (hash >>> 16), shardCount);
+	}
+
+	/**
+	 * Returns the shard index and count, from the parameters or the system properties when the parameters are not defined.
+	 *
+	 * @param shardIndex 'shardIndex' parameter of the suite, null if not defined
+	 * @param shardCount 'shardCount' parameter of the suite, null if not defined
+	 * @return int[] {shardIndex, shardCount}, null if the suite is not sharded
+	 */
+	public static int[] getShard(String shardIndex, String shardCount) {
+		String index = trim((trim(shardIndex) == null) ? System.getProperty(SHARD_INDEX) : shardIndex);
+		String count = trim((trim(shardCount) == null) ? System.getProperty(SHARD_COUNT) : shardCount);
+		if (index == null && count == null) {
+			return null;
+		}
+		try {
+			int[] shard = {Integer.parseInt(index), Integer.parseInt(count)};
+			if (shard[1] < 1 || shard[0] < 0 || shard[0] >= shard[1]) {
+				throw new NumberFormatException();
+			}
+			return (shard[1] == 1) ? null : shard;
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid shard '" + index + "' of '" + count + "', expected 0 <= " + SHARD_INDEX + " < " + SHARD_COUNT + ", all the test methods are run");
+			return null;
+		}
+	}
+
+	private static String trim(String value) {
+		return (value == null || value.trim().length() == 0) ? null : value.trim();
+	}
+}
@@ -0,0 +1,363 @@
+package com.cubic.accelerators;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+import com.cubic.genericutils.GenericConstants;
+import com.cubic.logutils.Log4jUtil;
+import com.cubic.testrail.TestRailUtil;
+
+/**
+ * <pre>
+ * Merges the results of all the shards of a sharded suite(see RESTShardResult) into one summary, and publishes the
+ * results of all the shards to TestRail at once.
+ *  - Waits till the result files of all the shards are written(i.e. the shards on the other machines are completed),
+ *    the available results are merged if a shard is not completed in the wait time.
+ *  - ShardSummary.txt is written to the results folder, with the totals, the shards(i.e. host and custom report
+ *    folder of the detailed reports) and every test case.
+ *  - Only the result files of the run are merged(i.e. restShardRunId or the TestRail run ID, see RESTShardResult.getRunID),
+ *    files of another run or an older version are skipped and the shard is reported as missing.
+ *  - Merged result files are renamed to .merged, so they are never merged into the summary of the next run.
+ *  - A shard completed after the merge is started(i.e. the wait time is elapsed) publishes its own results to TestRail,
+ *    the result file is renamed to .published by the shard or to .merged by the merger, never both.
+ *  - Run by the shard 0 in afterSuite(i.e. waits up to restShardMergeTimeoutInMinutes, default 60), or from the command
+ *    line once all the shards are started when restShardMergeTimeoutInMinutes is 0:
+ *      java -cp ... [-DrestShardRunId=&lt;runId&gt;] com.cubic.accelerators.RESTShardMerger &lt;resultsFolder&gt; &lt;shardCount&gt; [testRailRunID] [waitInMinutes]
+ * </pre>
+ * @since 1.5
+ */
+public final class RESTShardMerger {
+	private static final Logger LOG = Logger.getLogger(RESTShardMerger.class.getName());
+	static final String SUMMARY_FILE = "ShardSummary.txt";
+	static final long DEFAULT_MERGE_TIMEOUT_IN_MINUTES = 60;
+
+	private final File resultsFolder;
+	private final String runID;
+	private final int shardCount;
+	private final List<RESTShardResult> shardResults;
+	private final List<Integer> missingShards;
+
+	private RESTShardMerger(File resultsFolder, String runID, int shardCount, List<RESTShardResult> shardResults, List<Integer> missingShards) {
+		this.resultsFolder = resultsFolder;
+		this.runID = runID;
+		this.shardCount = shardCount;
+		this.shardResults = shardResults;
+		this.missingShards = missingShards;
+	}
+
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("Usage : RESTShardMerger <resultsFolder> <shardCount> [testRailRunID] [waitInMinutes]");
+			System.exit(2);
+		}
+		long waitMillis = TimeUnit.MINUTES.toMillis((args.length > 3) ? Long.parseLong(args[3]) : 0);
+		String testRailRunID = (args.length > 2 && args[2].trim().length() > 0 && !"0".equals(args[2].trim())) ? args[2].trim() : null;
+		String runID = RESTShardResult.getRunID(GenericConstants.GENERIC_FW_CONFIG_PROPERTIES, testRailRunID);
+		RESTShardMerger merger = merge(new File(args[0]), runID, Integer.parseInt(args[1]), waitMillis);
+		merger.writeSummary();
+		if (testRailRunID != null) {
+			merger.publishToTestRail(GenericConstants.GENERIC_FW_CONFIG_PROPERTIES, testRailRunID);
+		}
+		System.exit(merger.getTotalTestCasesFailed() == 0 && merger.getMissingShards().isEmpty() ? 0 : 1);
+	}
+
+	/**
+	 * Reads the results of all the shards, waits till all the shards are written or the wait time is elapsed.
+	 *
+	 * @param resultsFolder folder of the shard results
+	 * @param runID ID of the run shared by all the shards, null if not known
+	 * @param shardCount number of shards
+	 * @param waitMillis maximum time to wait for the shards which are not completed
+	 * @return RESTShardMerger
+	 */
+	public static RESTShardMerger merge(File resultsFolder, String runID, int shardCount, long waitMillis) {
+		long deadline = System.currentTimeMillis() + waitMillis;
+		List<Integer> missingShards = getMissingShards(resultsFolder, runID, shardCount);
+		while (!missingShards.isEmpty() && System.currentTimeMillis() < deadline) {
+			try {
+				TimeUnit.SECONDS.sleep(1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			missingShards = getMissingShards(resultsFolder, runID, shardCount);
+		}
+		if (!missingShards.isEmpty()) {
+			LOG.error("Results of the shards " + missingShards + " of " + shardCount + " of the run " + runID + " are not found in "
+					+ resultsFolder.getAbsolutePath() + ", merging the available results");
+		}
+
+		// Shards completed from now on publish their own results(see publishUnmerged), the marker is written before the
+		// result files are listed so a result file is either merged here or published by its shard.
+		File markerFile = new File(resultsFolder, RESTShardResult.getMergeMarkerFileName(runID, shardCount));
+		try {
+			Files.createDirectories(resultsFolder.toPath());
+			Files.write(markerFile.toPath(), Instant.now().toString().getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			LOG.fatal(Log4jUtil.getStackTrace(e));
+			throw new RuntimeException("Unable to write the shard merge marker " + markerFile.getAbsolutePath(), e);
+		}
+
+		List<RESTShardResult> shardResults = new ArrayList<>();
+		missingShards = new ArrayList<>();
+		for (int shardIndex = 0; shardIndex < shardCount; shardIndex++) {
+			File resultFile = RESTShardResult.getResultFile(resultsFolder, runID, shardIndex, shardCount);
+			if (!resultFile.isFile()) {
+				missingShards.add(shardIndex);
+				continue;
+			}
+			RESTShardResult shardResult;
+			try {
+				shardResult = RESTShardResult.read(resultFile);
+			} catch (IOException e) {
+				LOG.error("Results of the shard " + shardIndex + " are skipped, unable to read " + resultFile.getAbsolutePath() + " :: " + e);
+				missingShards.add(shardIndex);
+				continue;
+			}
+			// File name is the run ID without the special characters, different run IDs can have the same file name
+			if (!Objects.equals(runID, shardResult.getRunID()) || shardResult.getShardIndex() != shardIndex
+					|| shardResult.getShardCount() != shardCount) {
+				LOG.error("Results of the shard " + shardIndex + " are skipped, " + resultFile.getAbsolutePath() + " is written by the shard "
+						+ shardResult.getShardIndex() + " of " + shardResult.getShardCount() + " of the run " + shardResult.getRunID());
+				missingShards.add(shardIndex);
+				continue;
+			}
+			if (!claim(resultFile, ".merged")) {
+				LOG.warn("Results of the shard " + shardIndex + " are published by the shard, it's completed after the merge is started");
+				missingShards.add(shardIndex);
+				continue;
+			}
+			shardResults.add(shardResult);
+		}
+		Collections.sort(missingShards);
+		RESTShardMerger merger = new RESTShardMerger(resultsFolder, runID, shardCount, shardResults, missingShards);
+		merger.warnDuplicateTestCases();
+		return merger;
+	}
+
+	/**
+	 * Publishes the results of a shard completed after the merge of its run is started, otherwise the results are
+	 * published by the merger.
+	 *
+	 * @param resultFile result file written by the shard(see RESTShardResult.stop)
+	 * @param propTable GenericFrameworkConfig properties
+	 * @param testRailRunID TestRail run ID, the results are not published if it's null
+	 * @return boolean true if the results are published by the shard
+	 */
+	public static boolean publishUnmerged(File resultFile, Hashtable<String, String> propTable, String testRailRunID) {
+		if (testRailRunID == null) {
+			return false;
+		}
+		File resultsFolder = resultFile.getAbsoluteFile().getParentFile();
+		RESTShardResult shardResult;
+		try {
+			shardResult = RESTShardResult.read(resultFile);
+		} catch (IOException e) {
+			LOG.error("Unable to read the shard results " + resultFile.getAbsolutePath() + " :: " + e);
+			return false;
+		}
+		if (!new File(resultsFolder, RESTShardResult.getMergeMarkerFileName(shardResult.getRunID(), shardResult.getShardCount())).isFile()
+				|| !claim(resultFile, ".published")) {
+			return false;
+		}
+		LOG.warn("Shard " + shardResult.getShardIndex() + " is completed after the merge of the run " + shardResult.getRunID()
+				+ " is started, results of the shard are published by the shard");
+		new RESTShardMerger(resultsFolder, shardResult.getRunID(), shardResult.getShardCount(), Collections.singletonList(shardResult),
+				new ArrayList<>()).publishToTestRail(propTable, testRailRunID);
+		return true;
+	}
+
+	/**
+	 * Renames the result file with the suffix, false if the file is already renamed by the merger or the shard.
+	 */
+	private static boolean claim(File resultFile, String suffix) {
+		File claimedFile = new File(resultFile.getAbsoluteFile().getParentFile(), resultFile.getName() + suffix);
+		try {
+			try {
+				Files.move(resultFile.toPath(), claimedFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(resultFile.toPath(), claimedFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			return true;
+		} catch (NoSuchFileException e) {
+			return false;
+		} catch (IOException e) {
+			LOG.fatal(Log4jUtil.getStackTrace(e));
+			throw new RuntimeException("Unable to rename the shard results " + resultFile.getAbsolutePath(), e);
+		}
+	}
+
+	private static List<Integer> getMissingShards(File resultsFolder, String runID, int shardCount) {
+		List<Integer> missingShards = new ArrayList<>();
+		for (int shardIndex = 0; shardIndex < shardCount; shardIndex++) {
+			if (!RESTShardResult.getResultFile(resultsFolder, runID, shardIndex, shardCount).isFile()) {
+				missingShards.add(shardIndex);
+			}
+		}
+		return missingShards;
+	}
+
+	/**
+	 * Same test case in two shards(i.e. same test case name in two test classes) is counted twice, it is only logged.
+	 */
+	private void warnDuplicateTestCases() {
+		Map<String, Integer> shards = new HashMap<>();
+		for (RESTShardResult shardResult : shardResults) {
+			for (RESTShardResult.TestCaseResult testCase : shardResult.getTestCases()) {
+				Integer shardIndex = shards.put(testCase.getTestCaseName(), shardResult.getShardIndex());
+				if (shardIndex != null && shardIndex != shardResult.getShardIndex()) {
+					LOG.warn("Test case '" + testCase.getTestCaseName() + "' is run by the shards " + shardIndex + " and " + shardResult.getShardIndex());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the ID of the merged run.
+	 *
+	 * @return java.lang.String run ID, null if not known
+	 */
+	public String getRunID() {
+		return runID;
+	}
+
+	public List<RESTShardResult> getShardResults() {
+		return Collections.unmodifiableList(shardResults);
+	}
+
+	/**
+	 * Returns the shards which results are not found.
+	 *
+	 * @return java.util.List
+	 */
+	public List<Integer> getMissingShards() {
+		return Collections.unmodifiableList(missingShards);
+	}
+
+	public int getTotalTestCasesPassed() {
+		int passed = 0;
+		for (RESTShardResult shardResult : shardResults) {
+			for (RESTShardResult.TestCaseResult testCase : shardResult.getTestCases()) {
+				passed += testCase.isPassed() ? 1 : 0;
+			}
+		}
+		return passed;
+	}
+
+	public int getTotalTestCasesFailed() {
+		int failed = 0;
+		for (RESTShardResult shardResult : shardResults) {
+			for (RESTShardResult.TestCaseResult testCase : shardResult.getTestCases()) {
+				failed += testCase.isPassed() ? 0 : 1;
+			}
+		}
+		return failed;
+	}
+
+	/**
+	 * Writes ShardSummary.txt to the results folder.
+	 *
+	 * @return java.io.File summary file
+	 */
+	public File writeSummary() {
+		File summaryFile = new File(resultsFolder, SUMMARY_FILE);
+		try (PrintWriter writer = new PrintWriter(summaryFile, StandardCharsets.UTF_8.name())) {
+			writer.print(toString());
+		} catch (IOException e) {
+			LOG.fatal(Log4jUtil.getStackTrace(e));
+			throw new RuntimeException("Unable to write the shard summary " + summaryFile.getAbsolutePath(), e);
+		}
+		LOG.info("Shard summary is written to " + summaryFile.getAbsolutePath() + " :: passed " + getTotalTestCasesPassed()
+				+ ", failed " + getTotalTestCasesFailed());
+		return summaryFile;
+	}
+
+	/**
+	 * Publishes the results of all the shards to the TestRail run, through the RESTTestRailPublisher(i.e. batches and retries).
+	 *
+	 * @param propTable GenericFrameworkConfig properties
+	 * @param runID TestRail run ID
+	 */
+	public void publishToTestRail(Hashtable<String, String> propTable, String runID) {
+		TestRailUtil.setExistingTestRunID(runID);
+		Hashtable<String, String> publisherProperties = new Hashtable<>(propTable);
+		publisherProperties.put(RESTConstants.TESTRAIL_PUBLISHER_ENABLED, "true");
+		RESTTestRailPublisher.start(publisherProperties, runID);
+		int published = 0;
+		for (RESTShardResult shardResult : shardResults) {
+			for (RESTShardResult.TestCaseResult testCase : shardResult.getTestCases()) {
+				if (testCase.getTestCaseID() != null
+						&& RESTTestRailPublisher.publish(testCase.getTestCaseID(), testCase.getStatus(), testCase.getFailStepDescription())) {
+					published++;
+				}
+			}
+		}
+		RESTTestRailPublisher.stop();
+		LOG.info("Results of " + published + " test cases of " + shardResults.size() + " shards are published to the TestRail run " + runID);
+	}
+
+	@Override
+	public String toString() {
+		int passed = getTotalTestCasesPassed();
+		int failed = getTotalTestCasesFailed();
+		long executionTime = 0;
+		long startTime = Long.MAX_VALUE;
+		long endTime = 0;
+		List<String[]> rows = new ArrayList<>();
+		for (RESTShardResult shardResult : shardResults) {
+			startTime = Math.min(startTime, shardResult.getSuiteStartTime());
+			endTime = Math.max(endTime, shardResult.getSuiteEndTime());
+			for (RESTShardResult.TestCaseResult testCase : shardResult.getTestCases()) {
+				executionTime += testCase.getExecutionTimeInMillis();
+				rows.add(new String[] {testCase.getTestCaseName(), String.valueOf(testCase.getStatus()),
+						String.valueOf(testCase.getExecutionTimeInMillis()), String.valueOf(shardResult.getShardIndex()),
+						(testCase.getFailStepDescription() == null) ? "" : testCase.getFailStepDescription().replaceAll("\\s+", " ")});
+			}
+		}
+		rows.sort(Comparator.comparing((String[] row) -> row[0]));
+
+		StringBuilder builder = new StringBuilder();
+		builder.append("Run : ").append((runID == null) ? "" : runID).append('\n');
+		builder.append("Shards : ").append(shardResults.size()).append(" of ").append(shardCount)
+				.append(missingShards.isEmpty() ? "" : ", results not found for the shards " + missingShards).append('\n');
+		builder.append(String.format("Test cases : %d, Passed : %d, Failed : %d, Pass %% : %.2f%n", passed + failed, passed, failed,
+				(passed + failed == 0) ? 0.0 : passed * 100.0 / (passed + failed)));
+		if (!shardResults.isEmpty()) {
+			builder.append("Suite : ").append(Instant.ofEpochMilli(startTime)).append(" to ").append(Instant.ofEpochMilli(endTime))
+					.append(", total execution time of the test cases : ").append(executionTime).append(" ms\n");
+		}
+		builder.append(String.format("%n%-6s %-30s %8s %8s %8s  %s%n", "Shard", "Host", "Tests", "Passed", "Failed", "Detailed reports"));
+		for (RESTShardResult shardResult : shardResults) {
+			int shardPassed = 0;
+			for (RESTShardResult.TestCaseResult testCase : shardResult.getTestCases()) {
+				shardPassed += testCase.isPassed() ? 1 : 0;
+			}
+			builder.append(String.format("%-6d %-30s %8d %8d %8d  %s%n", shardResult.getShardIndex(), shardResult.getHostName(),
+					shardResult.getTestCases().size(), shardPassed, shardResult.getTestCases().size() - shardPassed,
+					shardResult.getReportFolderPath()));
+		}
+		builder.append(String.format("%n%-80s %-6s %10s %6s  %s%n", "Test case", "Status", "Time (ms)", "Shard", "Failed step"));
+		for (String[] row : rows) {
+			builder.append(String.format("%-80s %-6s %10s %6s  %s%n", (Object[]) row));
+		}
+		return builder.toString();
+	}
+}
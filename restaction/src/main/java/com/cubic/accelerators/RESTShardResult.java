@@ -0,0 +1,421 @@
+package com.cubic.accelerators;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+import com.cubic.genericutils.GenericConstants;
+import com.cubic.logutils.Log4jUtil;
+
+/**
+ * <pre>
+ * Results of the test cases run by one shard of a sharded suite(see RESTShardInterceptor), written to the shard
+ * results folder at the end of the suite and merged into one summary by RESTShardMerger.
+ *  - RESTEngine records the result of every test case in teardownAutomationTest and writes the file in afterSuite.
+ *  - Every shard writes its own file(i.e. shard-&lt;runId&gt;-&lt;index&gt;-of-&lt;count&gt;.dat), so the shards never write the same file.
+ *    The file is written to a temporary file and renamed, the merger never reads a partial file.
+ *  - Run ID is restShardRunId(i.e. GenericFrameworkConfig or system property) or the TestRail runID of the suite, it's
+ *    written in the file as well and the merger only merges the files of its run(i.e. not a previous or parallel run
+ *    writing to the same results folder). Without a run ID the file is shard-&lt;index&gt;-of-&lt;count&gt;.dat.
+ *  - The results folder can be a local folder(i.e. several JVMs on one machine) or a shared filesystem(i.e. NFS),
+ *    the custom report folder of every shard is kept in the results for the links of the merged summary.
+ * </pre>
+ * Below properties can be defined in the GenericFrameworkConfig.properties at project level
+ * <pre>
+ *  restShardResultsFolder : folder of the shard results, shared by all the shards (default &lt;CustomReports results&gt;/shards)
+ *  restShardMergeTimeoutInMinutes : the shard 0 waits up to this time for the other shards and merges the results,
+ *                                   0 to merge with RESTShardMerger from the command line (default 60)
+ *  restShardRunId : ID of the run shared by all the shards, ex: the CI build number (default the TestRail runID)
+ * </pre>
+ * @since 1.5
+ */
+public final class RESTShardResult {
+	private static final Logger LOG = Logger.getLogger(RESTShardResult.class.getName());
+	private static final int RESULT_FORMAT = 0x52455353;
+	private static final int RESULT_FORMAT_WITHOUT_RUN_ID = 0x52455352;
+	static final String RESULT_FILE_SUFFIX = ".dat";
+
+	private static volatile RESTShardResult current = null;
+
+	private final String runID;
+	private final int shardIndex;
+	private final int shardCount;
+	private final String hostName;
+	private final String reportFolderPath;
+	private final long suiteStartTime;
+	private long suiteEndTime;
+	private final List<TestCaseResult> testCases;
+	private File resultsFolder;
+
+	/**
+	 * Result of a test case.
+	 */
+	public static final class TestCaseResult {
+		private final String testCaseName;
+		private final String testCaseID;
+		private final String status;
+		private final String failStepDescription;
+		private final long startTime;
+		private final long endTime;
+
+		private TestCaseResult(String testCaseName, String testCaseID, String status, String failStepDescription, long startTime, long endTime) {
+			this.testCaseName = testCaseName;
+			this.testCaseID = testCaseID;
+			this.status = status;
+			this.failStepDescription = failStepDescription;
+			this.startTime = startTime;
+			this.endTime = endTime;
+		}
+
+		public String getTestCaseName() {
+			return testCaseName;
+		}
+
+		public String getTestCaseID() {
+			return testCaseID;
+		}
+
+		/**
+		 * Returns the overall status of the test case, ex: PASS, FAIL
+		 *
+		 * @return java.lang.String
+		 */
+		public String getStatus() {
+			return status;
+		}
+
+		public String getFailStepDescription() {
+			return failStepDescription;
+		}
+
+		public boolean isPassed() {
+			return GenericConstants.TEST_CASE_PASS.equalsIgnoreCase(status);
+		}
+
+		/**
+		 * Returns the start time of the test case in epoch milliseconds.
+		 *
+		 * @return long
+		 */
+		public long getStartTime() {
+			return startTime;
+		}
+
+		/**
+		 * Returns the end time of the test case in epoch milliseconds.
+		 *
+		 * @return long
+		 */
+		public long getEndTime() {
+			return endTime;
+		}
+
+		public long getExecutionTimeInMillis() {
+			return Math.max(0, endTime - startTime);
+		}
+	}
+
+	private RESTShardResult(String runID, int shardIndex, int shardCount, String hostName, String reportFolderPath, long suiteStartTime,
+			long suiteEndTime, List<TestCaseResult> testCases) {
+		this.runID = runID;
+		this.shardIndex = shardIndex;
+		this.shardCount = shardCount;
+		this.hostName = hostName;
+		this.reportFolderPath = reportFolderPath;
+		this.suiteStartTime = suiteStartTime;
+		this.suiteEndTime = suiteEndTime;
+		this.testCases = testCases;
+	}
+
+	/**
+	 * Starts recording the results of the shard, should be called before the first test(i.e. before suite).
+	 *
+	 * @param runID ID of the run shared by all the shards(see getRunID), null if not known
+	 * @param shardIndex index of the shard, 0 to shardCount - 1
+	 * @param shardCount number of shards of the suite
+	 * @param reportFolderPath custom report folder of the shard
+	 * @param propTable GenericFrameworkConfig properties
+	 */
+	public static synchronized void start(String runID, int shardIndex, int shardCount, String reportFolderPath, Hashtable<String, String> propTable) {
+		if (runID == null) {
+			LOG.warn("Run ID of the shards is not known, define " + RESTConstants.SHARD_RUN_ID + " or the TestRail runID so the results"
+					+ " of a previous run in the same results folder are never merged");
+		}
+		RESTShardResult result = new RESTShardResult(runID, shardIndex, shardCount, getLocalHostName(),
+				(reportFolderPath == null) ? "" : new File(reportFolderPath).getAbsolutePath(), System.currentTimeMillis(), 0,
+				Collections.synchronizedList(new ArrayList<>()));
+		result.resultsFolder = getResultsFolder(propTable);
+		if (shardIndex == 0) {
+			// Merge marker of a previous run with the same run ID
+			new File(result.resultsFolder, getMergeMarkerFileName(runID, shardCount)).delete();
+		}
+		current = result;
+		LOG.info("Running the shard " + shardIndex + " of " + shardCount + " of the run " + runID + ", results folder :: "
+				+ result.resultsFolder.getAbsolutePath());
+	}
+
+	/**
+	 * Returns true if the current suite is a shard.
+	 *
+	 * @return boolean
+	 */
+	public static boolean isActive() {
+		return current != null;
+	}
+
+	/**
+	 * Records the result of the test case, ignored if the current suite is not a shard.
+	 *
+	 * @param testCaseName test case name
+	 * @param testCaseID TestRail test case ID
+	 * @param status overall status of the test case
+	 * @param failStepDescription description of the failed step, null if the test case is passed
+	 * @param startTime start time of the test case
+	 * @param endTime end time of the test case
+	 */
+	public static void record(String testCaseName, String testCaseID, String status, String failStepDescription, Instant startTime, Instant endTime) {
+		RESTShardResult result = current;
+		if (result != null) {
+			result.testCases.add(new TestCaseResult(testCaseName, testCaseID, status, failStepDescription,
+					(startTime == null) ? 0 : startTime.toEpochMilli(), (endTime == null) ? 0 : endTime.toEpochMilli()));
+		}
+	}
+
+	/**
+	 * Writes the results of the shard to the results folder and stops recording.
+	 *
+	 * @return java.io.File result file, null if the current suite is not a shard
+	 */
+	public static synchronized File stop() {
+		RESTShardResult result = current;
+		if (result == null) {
+			return null;
+		}
+		current = null;
+		result.suiteEndTime = System.currentTimeMillis();
+		File resultFile = getResultFile(result.resultsFolder, result.runID, result.shardIndex, result.shardCount);
+		try {
+			result.write(resultFile);
+		} catch (IOException e) {
+			LOG.fatal(Log4jUtil.getStackTrace(e));
+			throw new RuntimeException("Unable to write the shard results " + resultFile.getAbsolutePath(), e);
+		}
+		LOG.info("Results of " + result.testCases.size() + " test cases are written to " + resultFile.getAbsolutePath());
+		return resultFile;
+	}
+
+	/**
+	 * Returns the results folder configured in the GenericFrameworkConfig properties.
+	 *
+	 * @param propTable GenericFrameworkConfig properties
+	 * @return java.io.File
+	 */
+	public static File getResultsFolder(Hashtable<String, String> propTable) {
+		String folder = propTable.get(RESTConstants.SHARD_RESULTS_FOLDER);
+		return (folder == null || folder.trim().length() == 0) ? new File(GenericConstants.CUSTOM_REPORTS_RESULTS, "shards") : new File(folder.trim());
+	}
+
+	/**
+	 * Returns the ID of the run shared by all the shards, restShardRunId of the GenericFrameworkConfig properties or
+	 * the system properties, otherwise the TestRail run ID.
+	 *
+	 * @param propTable GenericFrameworkConfig properties
+	 * @param testRailRunID TestRail run ID, null if the run is created by the suite
+	 * @return java.lang.String run ID, null if not known
+	 */
+	public static String getRunID(Hashtable<String, String> propTable, String testRailRunID) {
+		String runID = trim(propTable.get(RESTConstants.SHARD_RUN_ID));
+		if (runID == null) {
+			runID = trim(System.getProperty(RESTConstants.SHARD_RUN_ID));
+		}
+		return (runID == null) ? trim(testRailRunID) : runID;
+	}
+
+	/**
+	 * Returns the result file of the shard.
+	 *
+	 * @param resultsFolder folder of the shard results
+	 * @param runID ID of the run shared by all the shards, null if not known
+	 * @param shardIndex index of the shard
+	 * @param shardCount number of shards
+	 * @return java.io.File
+	 */
+	public static File getResultFile(File resultsFolder, String runID, int shardIndex, int shardCount) {
+		return new File(resultsFolder, "shard-" + getRunPrefix(runID) + shardIndex + "-of-" + shardCount + RESULT_FILE_SUFFIX);
+	}
+
+	/**
+	 * Returns the name of the file written by RESTShardMerger when the merge of the run is started, the shards completed
+	 * later publish their own results.
+	 */
+	static String getMergeMarkerFileName(String runID, int shardCount) {
+		return "shard-" + getRunPrefix(runID) + "merge-of-" + shardCount;
+	}
+
+	private static String getRunPrefix(String runID) {
+		return (runID == null) ? "" : runID.replaceAll("[^A-Za-z0-9._-]", "_") + "-";
+	}
+
+	/**
+	 * Reads the results of a shard.
+	 *
+	 * @param resultFile result file written by the shard
+	 * @return RESTShardResult
+	 * @throws IOException
+	 */
+	public static RESTShardResult read(File resultFile) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(resultFile)))) {
+			int format = in.readInt();
+			if (format == RESULT_FORMAT_WITHOUT_RUN_ID) {
+				throw new IOException("Shard result file of an older version without the run ID " + resultFile.getAbsolutePath());
+			} else if (format != RESULT_FORMAT) {
+				throw new IOException("Not a shard result file " + resultFile.getAbsolutePath());
+			}
+			String runID = readString(in);
+			int shardIndex = in.readInt();
+			int shardCount = in.readInt();
+			String hostName = readString(in);
+			String reportFolderPath = readString(in);
+			long suiteStartTime = in.readLong();
+			long suiteEndTime = in.readLong();
+			int count = in.readInt();
+			List<TestCaseResult> testCases = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				testCases.add(new TestCaseResult(readString(in), readString(in), readString(in), readString(in), in.readLong(), in.readLong()));
+			}
+			return new RESTShardResult(runID, shardIndex, shardCount, hostName, reportFolderPath, suiteStartTime, suiteEndTime, testCases);
+		}
+	}
+
+	private void write(File resultFile) throws IOException {
+		Files.createDirectories(resultFile.getAbsoluteFile().getParentFile().toPath());
+		File tempFile = new File(resultFile.getAbsoluteFile().getParentFile(), resultFile.getName() + ".tmp");
+		List<TestCaseResult> results;
+		synchronized (testCases) {
+			results = new ArrayList<>(testCases);
+		}
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+			out.writeInt(RESULT_FORMAT);
+			writeString(out, runID);
+			out.writeInt(shardIndex);
+			out.writeInt(shardCount);
+			writeString(out, hostName);
+			writeString(out, reportFolderPath);
+			out.writeLong(suiteStartTime);
+			out.writeLong(suiteEndTime);
+			out.writeInt(results.size());
+			for (TestCaseResult result : results) {
+				writeString(out, result.testCaseName);
+				writeString(out, result.testCaseID);
+				writeString(out, result.status);
+				writeString(out, result.failStepDescription);
+				out.writeLong(result.startTime);
+				out.writeLong(result.endTime);
+			}
+		}
+		try {
+			Files.move(tempFile.toPath(), resultFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tempFile.toPath(), resultFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Strings are written as UTF-8 bytes with the length(-1 for null), DataOutputStream.writeUTF is limited to 64 KB.
+	 */
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static String trim(String value) {
+		return (value == null || value.trim().length() == 0) ? null : value.trim();
+	}
+
+	private static String getLocalHostName() {
+		try {
+			return InetAddress.getLocalHost().getHostName();
+		} catch (IOException e) {
+			return "unknown";
+		}
+	}
+
+	/**
+	 * Returns the ID of the run shared by all the shards.
+	 *
+	 * @return java.lang.String run ID, null if not known
+	 */
+	public String getRunID() {
+		return runID;
+	}
+
+	public int getShardIndex() {
+		return shardIndex;
+	}
+
+	public int getShardCount() {
+		return shardCount;
+	}
+
+	public String getHostName() {
+		return hostName;
+	}
+
+	/**
+	 * Returns the custom report folder of the shard, it holds the detailed reports of the test cases run by the shard.
+	 *
+	 * @return java.lang.String
+	 */
+	public String getReportFolderPath() {
+		return reportFolderPath;
+	}
+
+	public long getSuiteStartTime() {
+		return suiteStartTime;
+	}
+
+	public long getSuiteEndTime() {
+		return suiteEndTime;
+	}
+
+	/**
+	 * Returns the results of the test cases in the order they are completed.
+	 *
+	 * @return java.util.List
+	 */
+	public List<TestCaseResult> getTestCases() {
+		return Collections.unmodifiableList(testCases);
+	}
+}
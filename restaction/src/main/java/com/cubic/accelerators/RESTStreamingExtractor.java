@@ -0,0 +1,403 @@
+package com.cubic.accelerators;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * <pre>
+ * Pulls the values out of a JSON/XML stream without building the whole document(i.e. Jackson streaming parser and StAX),
+ * so the memory used is independent of the response size.
+ *
+ * JSON paths(subset of JsonPath) :
+ *  - $.store.book[0].title  : field names and array indexes
+ *  - $.store.book[*].title  : '*' matches every array element or every field
+ *  - $..title               : '..' matches the following field at any depth
+ *  - If the path matches an object/array, the value is returned as compact JSON.
+ *
+ * XML paths(subset of XPath, namespace prefixes are ignored) :
+ *  - /store/book/title      : absolute element path
+ *  - /store/book/@id        : attribute of the element
+ *  - /store/&#42;/title        : '*' matches any element name
+ *  - //title                : '//' matches the following element at any depth
+ *  - The text of the matched element includes the text of its child elements.
+ *
+ * Reading of the JSON stream stops as soon as all the values are found, when none of the JSON paths contains a wildcard.
+ * </pre>
+ * @since 1.5
+ */
+public class RESTStreamingExtractor {
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+	private static final XMLInputFactory XML_INPUT_FACTORY = createXMLInputFactory();
+
+	private RESTStreamingExtractor() {
+	}
+
+	/**
+	 * Extracts the values of the JSON paths from the stream, the stream is not closed.
+	 *
+	 * @param inputStream JSON stream
+	 * @param jsonPaths paths of the values, ex: $.accounts[*].id
+	 * @return java.util.Map values of every path in the document order, empty list if the path is not found
+	 */
+	public static Map<String, List<String>> extractJson(InputStream inputStream, String... jsonPaths) {
+		Map<String, List<String>> values = createValueMap(jsonPaths);
+		streamJson(inputStream, (path, value) -> values.get(path).add(value), jsonPaths);
+		return values;
+	}
+
+	/**
+	 * Passes every value matching the JSON paths to the consumer as soon as it is parsed, the stream is not closed.
+	 * Use this method for the large arrays, values are not collected.
+	 *
+	 * @param inputStream JSON stream
+	 * @param consumer receives the matched path and the value(null for JSON null)
+	 * @param jsonPaths paths of the values, ex: $.accounts[*].id
+	 */
+	public static void streamJson(InputStream inputStream, BiConsumer<String, String> consumer, String... jsonPaths) {
+		List<PathPattern> patterns = new ArrayList<>();
+		for (String jsonPath : jsonPaths) {
+			patterns.add(PathPattern.compileJsonPath(jsonPath));
+		}
+		int remaining = countExactPatterns(patterns);
+
+		try (JsonParser parser = JSON_FACTORY.createParser(inputStream)) {
+			parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+			Deque<JsonFrame> frames = new ArrayDeque<>();
+			List<JsonCapture> captures = new ArrayList<>();
+			JsonToken token;
+			while ((token = parser.nextToken()) != null) {
+				for (JsonCapture capture : captures) {
+					capture.generator.copyCurrentEvent(parser);
+				}
+				if (token == JsonToken.FIELD_NAME) {
+					frames.peek().field = parser.getCurrentName();
+					continue;
+				}
+				if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+					frames.pop();
+					for (int i = 0; i < captures.size(); i++) {
+						JsonCapture capture = captures.get(i);
+						if (capture.depth == frames.size()) {
+							captures.remove(i--);
+							capture.generator.close();
+							consumer.accept(capture.pattern.path, capture.writer.toString());
+							if (capture.pattern.exact && --remaining == 0) {
+								return;
+							}
+						}
+					}
+					continue;
+				}
+				if (!frames.isEmpty() && frames.peek().array) {
+					frames.peek().index++;
+				}
+
+				String[] currentPath = toPath(frames);
+				for (PathPattern pattern : patterns) {
+					if (!pattern.matches(currentPath)) {
+						continue;
+					}
+					if (token.isStructStart()) {
+						// Object/array is recorded till its end, the paths inside it are still matched
+						JsonCapture capture = new JsonCapture(pattern, frames.size());
+						capture.generator.copyCurrentEvent(parser);
+						captures.add(capture);
+					} else {
+						consumer.accept(pattern.path, (token == JsonToken.VALUE_NULL) ? null : parser.getText());
+						if (pattern.exact && --remaining == 0) {
+							return;
+						}
+					}
+				}
+				if (token.isStructStart()) {
+					frames.push(new JsonFrame(token == JsonToken.START_ARRAY));
+				}
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to read the JSON stream", e);
+		}
+	}
+
+	/**
+	 * Extracts the values of the XML paths from the stream, the stream is not closed.
+	 *
+	 * @param inputStream XML stream
+	 * @param xmlPaths paths of the elements/attributes, ex: /accounts/account/@id
+	 * @return java.util.Map values of every path in the document order, empty list if the path is not found
+	 */
+	public static Map<String, List<String>> extractXml(InputStream inputStream, String... xmlPaths) {
+		Map<String, List<String>> values = createValueMap(xmlPaths);
+		streamXml(inputStream, (path, value) -> values.get(path).add(value), xmlPaths);
+		return values;
+	}
+
+	/**
+	 * Passes every value matching the XML paths to the consumer as soon as it is parsed, the stream is not closed.
+	 *
+	 * @param inputStream XML stream
+	 * @param consumer receives the matched path and the value
+	 * @param xmlPaths paths of the elements/attributes, ex: /accounts/account/@id
+	 */
+	public static void streamXml(InputStream inputStream, BiConsumer<String, String> consumer, String... xmlPaths) {
+		List<PathPattern> elementPatterns = new ArrayList<>();
+		List<PathPattern> attributePatterns = new ArrayList<>();
+		for (String xmlPath : xmlPaths) {
+			PathPattern pattern = PathPattern.compileXmlPath(xmlPath);
+			(pattern.attribute == null ? elementPatterns : attributePatterns).add(pattern);
+		}
+
+		XMLStreamReader reader = null;
+		try {
+			reader = XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+			List<String> elements = new ArrayList<>();
+			List<XmlCapture> captures = new ArrayList<>();
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					elements.add(reader.getLocalName());
+					String[] currentPath = elements.toArray(new String[0]);
+					for (PathPattern pattern : attributePatterns) {
+						if (pattern.matches(currentPath)) {
+							String value = reader.getAttributeValue(null, pattern.attribute);
+							if (value != null) {
+								consumer.accept(pattern.path, value);
+							}
+						}
+					}
+					for (PathPattern pattern : elementPatterns) {
+						if (pattern.matches(currentPath)) {
+							captures.add(new XmlCapture(pattern, elements.size()));
+						}
+					}
+				} else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+					for (XmlCapture capture : captures) {
+						capture.text.append(reader.getText());
+					}
+				} else if (event == XMLStreamConstants.END_ELEMENT) {
+					for (int i = 0; i < captures.size(); i++) {
+						XmlCapture capture = captures.get(i);
+						if (capture.depth == elements.size()) {
+							captures.remove(i--);
+							consumer.accept(capture.pattern.path, capture.text.toString().trim());
+						}
+					}
+					elements.remove(elements.size() - 1);
+				}
+			}
+		} catch (XMLStreamException e) {
+			throw new RuntimeException("Unable to read the XML stream", e);
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException e) {
+					// Underlying stream is closed by the caller
+				}
+			}
+		}
+	}
+
+	private static Map<String, List<String>> createValueMap(String... paths) {
+		Map<String, List<String>> values = new LinkedHashMap<>();
+		for (String path : paths) {
+			values.put(path, new ArrayList<String>());
+		}
+		return values;
+	}
+
+	/**
+	 * Returns the number of JSON values to be found before stopping, 0(i.e. read till the end) if any path has a wildcard.
+	 */
+	private static int countExactPatterns(List<PathPattern> patterns) {
+		for (PathPattern pattern : patterns) {
+			if (!pattern.exact) {
+				return 0;
+			}
+		}
+		return patterns.size();
+	}
+
+	private static String[] toPath(Deque<JsonFrame> frames) {
+		String[] path = new String[frames.size()];
+		int i = path.length;
+		for (JsonFrame frame : frames) {
+			path[--i] = frame.array ? "[" + frame.index + "]" : frame.field;
+		}
+		return path;
+	}
+
+	private static XMLInputFactory createXMLInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		return factory;
+	}
+
+	private static final class JsonFrame {
+		private final boolean array;
+		private String field;
+		private int index = -1;
+
+		private JsonFrame(boolean array) {
+			this.array = array;
+		}
+	}
+
+	private static final class JsonCapture {
+		private final PathPattern pattern;
+		private final int depth;
+		private final StringWriter writer = new StringWriter();
+		private final JsonGenerator generator;
+
+		private JsonCapture(PathPattern pattern, int depth) throws IOException {
+			this.pattern = pattern;
+			this.depth = depth;
+			this.generator = JSON_FACTORY.createGenerator(writer);
+		}
+	}
+
+	private static final class XmlCapture {
+		private final PathPattern pattern;
+		private final int depth;
+		private final StringBuilder text = new StringBuilder();
+
+		private XmlCapture(PathPattern pattern, int depth) {
+			this.pattern = pattern;
+			this.depth = depth;
+		}
+	}
+
+	/**
+	 * Compiled path, segments are field/element names, array indexes("[0]"), "*" or "[*]"(any) and ".."(any depth).
+	 */
+	private static final class PathPattern {
+		private static final String ANY = "*";
+		private static final String ANY_INDEX = "[*]";
+		private static final String ANY_DEPTH = "..";
+
+		private final String path;
+		private final String[] segments;
+		private final String attribute;
+		private final boolean exact;
+
+		private PathPattern(String path, List<String> segments, String attribute) {
+			this.path = path;
+			this.segments = segments.toArray(new String[0]);
+			this.attribute = attribute;
+			this.exact = !segments.contains(ANY) && !segments.contains(ANY_INDEX) && !segments.contains(ANY_DEPTH);
+		}
+
+		private static PathPattern compileJsonPath(String jsonPath) {
+			String path = jsonPath.trim();
+			if (!path.startsWith("$")) {
+				throw new IllegalArgumentException("JSON path should start with '$' :: " + jsonPath);
+			}
+			List<String> segments = new ArrayList<>();
+			int i = 1;
+			while (i < path.length()) {
+				char c = path.charAt(i);
+				if (path.startsWith("..", i)) {
+					segments.add(ANY_DEPTH);
+					i += 2;
+				} else if (c == '.') {
+					i++;
+				} else if (c == '[') {
+					int end = path.indexOf(']', i);
+					if (end < 0) {
+						throw new IllegalArgumentException("Invalid JSON path :: " + jsonPath);
+					}
+					String selector = path.substring(i + 1, end).trim();
+					if (selector.startsWith("'") || selector.startsWith("\"")) {
+						segments.add(selector.substring(1, selector.length() - 1));
+					} else if (selector.equals(ANY)) {
+						segments.add(ANY_INDEX);
+					} else {
+						segments.add("[" + Integer.parseInt(selector) + "]");
+					}
+					i = end + 1;
+				} else {
+					int end = i;
+					while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+						end++;
+					}
+					segments.add(path.substring(i, end));
+					i = end;
+				}
+			}
+			return new PathPattern(jsonPath, segments, null);
+		}
+
+		private static PathPattern compileXmlPath(String xmlPath) {
+			String path = xmlPath.trim();
+			if (!path.startsWith("/")) {
+				throw new IllegalArgumentException("XML path should start with '/' :: " + xmlPath);
+			}
+			List<String> segments = new ArrayList<>();
+			String attribute = null;
+			String[] parts = path.substring(1).split("/", -1);
+			for (int i = 0; i < parts.length; i++) {
+				String part = parts[i].trim();
+				if (part.isEmpty()) {
+					segments.add(ANY_DEPTH);
+				} else if (part.startsWith("@") && i == parts.length - 1) {
+					attribute = part.substring(1);
+				} else {
+					int prefixIndex = part.indexOf(':');
+					segments.add(prefixIndex < 0 ? part : part.substring(prefixIndex + 1));
+				}
+			}
+			return new PathPattern(xmlPath, segments, attribute);
+		}
+
+		private boolean matches(String[] currentPath) {
+			return matches(0, currentPath, 0);
+		}
+
+		private boolean matches(int segmentIndex, String[] currentPath, int pathIndex) {
+			if (segmentIndex == segments.length) {
+				return pathIndex == currentPath.length;
+			}
+			String segment = segments[segmentIndex];
+			if (segment.equals(ANY_DEPTH)) {
+				for (int i = pathIndex; i < currentPath.length; i++) {
+					if (matches(segmentIndex + 1, currentPath, i)) {
+						return true;
+					}
+				}
+				return false;
+			}
+			if (pathIndex == currentPath.length) {
+				return false;
+			}
+			String name = currentPath[pathIndex];
+			boolean matched;
+			if (segment.equals(ANY)) {
+				matched = true;
+			} else if (segment.equals(ANY_INDEX)) {
+				matched = name.startsWith("[");
+			} else {
+				matched = segment.equals(name);
+			}
+			return matched && matches(segmentIndex + 1, currentPath, pathIndex + 1);
+		}
+	}
+}
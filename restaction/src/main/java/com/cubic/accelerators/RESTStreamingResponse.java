@@ -0,0 +1,199 @@
+package com.cubic.accelerators;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+import javax.ws.rs.core.MediaType;
+
+import com.sun.jersey.api.client.ClientResponse;
+
+/**
+ * <pre>
+ * Response of a rest webservice call whose body is read as a stream, the body is never loaded into the heap as a String.
+ *  - Response must be closed(i.e. try-with-resources), closing releases the connection. The unread part of the body
+ *    is discarded, read the body till the end to keep the connection in the keep-alive pool.
+ *  - Only one of getInputStream/getReader/getChannel should be used, all of them read the same stream.
+ *
+ * Ex:
+ *  try (RESTStreamingResponse response = restActions.getResponseStream(url, headers, null, RESTConstants.APPLICATION_JSON)) {
+ *      Map&lt;String, List&lt;String&gt;&gt; values = response.extractJson("$.totalCount", "$.items[*].id");
+ *  }
+ * </pre>
+ * @since 1.5
+ */
+public final class RESTStreamingResponse implements Closeable {
+	/**
+	 * Reads the streaming response, used with RESTActions.withResponseStream which closes the response.
+	 */
+	@FunctionalInterface
+	public interface Handler<T> {
+		T handle(RESTStreamingResponse response) throws Throwable;
+	}
+
+	private final ClientResponse clientResponse;
+	private final Map<String, List<String>> headers;
+	private volatile boolean closed = false;
+
+	RESTStreamingResponse(ClientResponse clientResponse) {
+		this.clientResponse = clientResponse;
+		TreeMap<String, List<String>> headerMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		for (Map.Entry<String, List<String>> header : clientResponse.getHeaders().entrySet()) {
+			if (header.getKey() != null && header.getValue() != null) {
+				headerMap.put(header.getKey(), Collections.unmodifiableList(new ArrayList<>(header.getValue())));
+			}
+		}
+		this.headers = Collections.unmodifiableMap(headerMap);
+	}
+
+	/**
+	 * Returns the response code.
+	 *
+	 * @return int response code
+	 */
+	public int getStatus() {
+		return clientResponse.getStatus();
+	}
+
+	/**
+	 * Returns all the response headers.
+	 *
+	 * @return java.util.Map unmodifiable map of response headers
+	 */
+	public Map<String, List<String>> getHeaders() {
+		return headers;
+	}
+
+	/**
+	 * Returns the first value of the response header.
+	 *
+	 * @param name response header name
+	 * @return java.lang.String header value, null if the header is not present
+	 */
+	public String getHeader(String name) {
+		List<String> values = headers.get(name);
+		return (values == null || values.isEmpty()) ? null : values.get(0);
+	}
+
+	/**
+	 * Returns the response body as stream.
+	 *
+	 * @return java.io.InputStream
+	 */
+	public InputStream getInputStream() {
+		if (closed) {
+			throw new IllegalStateException("Response stream is already closed");
+		}
+		return clientResponse.getEntityInputStream();
+	}
+
+	/**
+	 * Returns the response body as character stream, decoded with the charset of the Content-Type header(default UTF-8).
+	 *
+	 * @return java.io.Reader
+	 */
+	public Reader getReader() {
+		return new InputStreamReader(getInputStream(), getCharset());
+	}
+
+	/**
+	 * Returns the response body as channel.
+	 *
+	 * @return java.nio.channels.ReadableByteChannel
+	 */
+	public ReadableByteChannel getChannel() {
+		return Channels.newChannel(getInputStream());
+	}
+
+	/**
+	 * Copies the response body to the file, the file is replaced if it exists.
+	 *
+	 * @param file destination file
+	 * @return long number of bytes copied
+	 * @throws IOException
+	 */
+	public long saveTo(Path file) throws IOException {
+		return Files.copy(getInputStream(), file, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Extracts the values of the JSON paths from the response body, see RESTStreamingExtractor for the path syntax.
+	 *
+	 * @param jsonPaths paths of the values, ex: $.accounts[*].id
+	 * @return java.util.Map values of every path in the document order
+	 */
+	public Map<String, List<String>> extractJson(String... jsonPaths) {
+		return RESTStreamingExtractor.extractJson(getInputStream(), jsonPaths);
+	}
+
+	/**
+	 * Passes every value matching the JSON paths to the consumer as soon as it is parsed.
+	 *
+	 * @param consumer receives the matched path and the value
+	 * @param jsonPaths paths of the values, ex: $.accounts[*].id
+	 */
+	public void streamJson(BiConsumer<String, String> consumer, String... jsonPaths) {
+		RESTStreamingExtractor.streamJson(getInputStream(), consumer, jsonPaths);
+	}
+
+	/**
+	 * Extracts the values of the XML paths from the response body, see RESTStreamingExtractor for the path syntax.
+	 *
+	 * @param xmlPaths paths of the elements/attributes, ex: /accounts/account/@id
+	 * @return java.util.Map values of every path in the document order
+	 */
+	public Map<String, List<String>> extractXml(String... xmlPaths) {
+		return RESTStreamingExtractor.extractXml(getInputStream(), xmlPaths);
+	}
+
+	/**
+	 * Passes every value matching the XML paths to the consumer as soon as it is parsed.
+	 *
+	 * @param consumer receives the matched path and the value
+	 * @param xmlPaths paths of the elements/attributes, ex: /accounts/account/@id
+	 */
+	public void streamXml(BiConsumer<String, String> consumer, String... xmlPaths) {
+		RESTStreamingExtractor.streamXml(getInputStream(), consumer, xmlPaths);
+	}
+
+	/**
+	 * Closes the response body, can be called more than once.
+	 */
+	@Override
+	public void close() {
+		if (!closed) {
+			closed = true;
+			clientResponse.close();
+		}
+	}
+
+	private Charset getCharset() {
+		MediaType mediaType = clientResponse.getType();
+		String charset = (mediaType == null) ? null : mediaType.getParameters().get("charset");
+		try {
+			return (charset == null) ? StandardCharsets.UTF_8 : Charset.forName(charset);
+		} catch (IllegalArgumentException e) {
+			return StandardCharsets.UTF_8;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "RESTStreamingResponse [status=" + getStatus() + ", headers=" + headers + "]";
+	}
+}
@@ -0,0 +1,175 @@
+package com.cubic.accelerators;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.log4j.Logger;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * <pre>
+ * Embedded local http server serving the recordings of the RECORD mode, used by RESTRecordReplay in REPLAY mode.
+ *  - Listens only on the loopback address, the recordings are kept in the memory.
+ *  - Requests without a recording get 501 with the match key in the body, so the missing recording can be found.
+ * </pre>
+ * @since 1.5
+ */
+public class RESTStubServer {
+	private static final Logger LOG = Logger.getLogger(RESTStubServer.class.getName());
+	private static final String[] SKIPPED_HEADERS = { "Content-Length", "Transfer-Encoding", "Connection", "Keep-Alive" };
+
+	private final Map<String, RecordedExchanges> recordings = new HashMap<>();
+	private final LongAdder matched = new LongAdder();
+	private final LongAdder unmatched = new LongAdder();
+	private HttpServer server = null;
+	private ExecutorService executor = null;
+
+	RESTStubServer(List<RESTRecordReplay.Recording> recordedExchanges) {
+		for (RESTRecordReplay.Recording recording : recordedExchanges) {
+			recordings.computeIfAbsent(recording.matchKey, key -> new RecordedExchanges()).recordings.add(recording);
+		}
+	}
+
+	/**
+	 * Starts the server on the loopback address.
+	 *
+	 * @param port port of the server, 0 for any free port
+	 */
+	public synchronized void start(int port) {
+		// Headers and body are written separately, without TCP_NODELAY every response waits for the delayed ACK of the client.
+		// The property is read once, when the first HttpServer of the JVM is created.
+		if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+		try {
+			server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to start the stub server on port " + port, e);
+		}
+		AtomicInteger threadCount = new AtomicInteger();
+		executor = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "rest-stub-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		server.setExecutor(executor);
+		server.createContext("/", this::replay);
+		server.start();
+	}
+
+	public synchronized void stop() {
+		if (server != null) {
+			server.stop(0);
+			executor.shutdownNow();
+			server = null;
+		}
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	public long getMatchedCount() {
+		return matched.sum();
+	}
+
+	public long getUnmatchedCount() {
+		return unmatched.sum();
+	}
+
+	private void replay(HttpExchange exchange) throws IOException {
+		try {
+			InputStream requestBody = exchange.getRequestBody();
+			if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+				// Recordings are matched on the uncompressed body, see RESTCompressionFilter
+				requestBody = new GZIPInputStream(requestBody);
+			}
+			String matchKey = RESTRecordReplay.getMatchKey(exchange.getRequestMethod(), exchange.getRequestURI().getRawPath(),
+					exchange.getRequestURI().getRawQuery(), RESTResponseCache.sha256(readBody(requestBody)));
+			RecordedExchanges recordedExchanges = recordings.get(matchKey);
+			if (recordedExchanges == null) {
+				unmatched.increment();
+				LOG.warn("No recording for the request :: " + matchKey);
+				send(exchange, 501, null, ("No recording for the request :: " + matchKey).getBytes(StandardCharsets.UTF_8));
+				return;
+			}
+			matched.increment();
+			RESTRecordReplay.Recording recording = recordedExchanges.next();
+			send(exchange, recording.status, recording.headers, recording.body);
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private static void send(HttpExchange exchange, int status, Map<String, List<String>> headers, byte[] body) throws IOException {
+		Headers responseHeaders = exchange.getResponseHeaders();
+		if (headers != null) {
+			for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+				if (header.getKey() != null && !isSkipped(header.getKey())) {
+					responseHeaders.put(header.getKey(), new ArrayList<>(header.getValue()));
+				}
+			}
+		}
+		boolean noBody = body.length == 0 || status == 204 || status == 304 || "HEAD".equals(exchange.getRequestMethod());
+		exchange.sendResponseHeaders(status, noBody ? -1 : body.length);
+		if (!noBody) {
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		}
+	}
+
+	private static boolean isSkipped(String name) {
+		for (String skippedHeader : SKIPPED_HEADERS) {
+			if (skippedHeader.equalsIgnoreCase(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static byte[] readBody(InputStream in) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int count;
+		while ((count = in.read(buffer)) != -1) {
+			body.write(buffer, 0, count);
+		}
+		return body.toByteArray();
+	}
+
+	@Override
+	public String toString() {
+		return "RESTStubServer [recorded requests=" + recordings.size() + ", matched=" + matched.sum() + ", unmatched=" + unmatched.sum() + "]";
+	}
+
+	/**
+	 * Recordings of the same request, replayed in the recorded order and the last one is repeated.
+	 */
+	private static final class RecordedExchanges {
+		private final List<RESTRecordReplay.Recording> recordings = new ArrayList<>();
+		private final AtomicInteger nextIndex = new AtomicInteger();
+
+		private RESTRecordReplay.Recording next() {
+			int index = nextIndex.getAndIncrement();
+			return recordings.get(Math.min(index, recordings.size() - 1));
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package com.cubic.accelerators;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.cubic.reportengine.bean.CustomReportBean;
+
+/**
+ * <pre>
+ * Suite level counters of the test cases, shared by all the RESTEngine instances and test threads.
+ *  - Counters are striped(i.e. java.util.concurrent.atomic.LongAdder), test threads never contend on a lock
+ *    while updating them.
+ *  - Counters are merged into the CustomReportBean once, at the end of the suite before generating the summary report.
+ * </pre>
+ * @since 1.5
+ */
+public class RESTSuiteStatistics {
+	private static final RESTSuiteStatistics instance = new RESTSuiteStatistics();
+
+	private final LongAdder totalTestScriptsPassed = new LongAdder();
+	private final LongAdder totalTestScriptsFailed = new LongAdder();
+	private final LongAdder overallExecutionTimeInMillis = new LongAdder();
+
+	private RESTSuiteStatistics() {
+	}
+
+	/**
+	 * Returns the suite level statistics.
+	 *
+	 * @return RESTSuiteStatistics
+	 */
+	public static RESTSuiteStatistics getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Resets all the counters, should be called at the start of the suite(i.e. before suite).
+	 */
+	public void reset() {
+		totalTestScriptsPassed.reset();
+		totalTestScriptsFailed.reset();
+		overallExecutionTimeInMillis.reset();
+	}
+
+	/**
+	 * Records the result of the test case.
+	 *
+	 * @param passed true if the test case is passed
+	 * @param executionTimeInMillis time taken for executing the test case
+	 */
+	public void recordTestCase(boolean passed, long executionTimeInMillis) {
+		if (passed) {
+			totalTestScriptsPassed.increment();
+		} else {
+			totalTestScriptsFailed.increment();
+		}
+		overallExecutionTimeInMillis.add(executionTimeInMillis);
+	}
+
+	public long getTotalTestScriptsPassed() {
+		return totalTestScriptsPassed.sum();
+	}
+
+	public long getTotalTestScriptsFailed() {
+		return totalTestScriptsFailed.sum();
+	}
+
+	public long getOverallExecutionTimeInMillis() {
+		return overallExecutionTimeInMillis.sum();
+	}
+
+	/**
+	 * Adds the counters to the CustomReportBean and resets the counters, so the counters are never merged twice.
+	 *
+	 * @param customReportBean com.cubic.reportengine.bean.CustomReportBean
+	 */
+	public synchronized void mergeInto(CustomReportBean customReportBean) {
+		long passed = totalTestScriptsPassed.sumThenReset();
+		long failed = totalTestScriptsFailed.sumThenReset();
+		long executionTimeInMillis = overallExecutionTimeInMillis.sumThenReset();
+
+		customReportBean.setTotalTestScriptsPassed(customReportBean.getTotalTestScriptsPassed() + (int) passed);
+		customReportBean.setTotalTestScriptsFailed(customReportBean.getTotalTestScriptsFailed() + (int) failed);
+		customReportBean.setOverallExecutionTimeInMillis(customReportBean.getOverallExecutionTimeInMillis() + executionTimeInMillis);
+	}
+}
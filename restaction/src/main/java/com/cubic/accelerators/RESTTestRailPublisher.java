@@ -0,0 +1,585 @@
+package com.cubic.accelerators;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.log4j.Logger;
+
+import com.cubic.logutils.Log4jUtil;
+import com.cubic.testrail.TestRailUtil;
+import com.jayway.jsonpath.JsonPath;
+
+/**
+ * <pre>
+ * Background publisher of the test case results to TestRail, used when the results are updated after every test case
+ * (i.e. Test_Rail_Results_Update_End_of_Suite=false), so the tests don't wait for TestRail.
+ *  - Results are queued by RESTEngine in teardownAutomationTest and published in batches, when the batch size is reached
+ *    or the flush interval is elapsed.
+ *  - Failed batches are retried with exponential backoff, results still failing after the maximum attempts are logged.
+ *  - stop() publishes all the queued results, RESTEngine calls it in afterSuite.
+ *  - Results are published by the Sink, the bulk TestRail API(i.e. add_results_for_cases) is used when restTestRailApiUrl
+ *    is defined and the run ID is known, otherwise TestRailUtil publishes the results one by one. The ID of a run created
+ *    by the suite is looked up with the get_runs API(see findCreatedRunID).
+ *    A custom Sink can be set with setSink(Sink) before the suite(ex: a local stub of TestRail).
+ *  - The bulk API needs the TestRail status ID of every result(see restTestRailApiStatusIds), the results with
+ *    an unmapped status or a test case ID which is not a TestRail case ID(i.e. C1234) and the batches rejected by
+ *    TestRail(i.e. 4xx other than 429, ex: a case not in the run) are published one by one with TestRailUtil,
+ *    so one bad result doesn't drop the batch.
+ * </pre>
+ * Below properties can be defined in the GenericFrameworkConfig.properties at project level
+ * <pre>
+ *  restTestRailPublisherEnabled : true to publish the results from a background thread (default false)
+ *  restTestRailPublisherBatchSize : maximum results per batch (default 50)
+ *  restTestRailPublisherFlushIntervalInMillis : maximum time a result waits in the queue (default 5000)
+ *  restTestRailPublisherMaxAttempts : attempts to publish a batch (default 5)
+ *  restTestRailPublisherBackoffInMillis : backoff after the first failed attempt, doubled after every attempt(max 60 seconds) (default 1000)
+ *  restTestRailApiUrl : url of TestRail for the bulk API, ex: https://cubic.testrail.io (default none)
+ *  restTestRailApiUser : user of the bulk API
+ *  restTestRailApiKey : API key or password of the bulk API
+ *  restTestRailApiStatusIds : TestRail status ID of the report statuses for the bulk API, the custom statuses of
+ *                             TestRail can be added (default PASS=1,BLOCKED=2,SKIP=4,RETEST=4,FAIL=5)
+ * </pre>
+ * @since 1.5
+ */
+public final class RESTTestRailPublisher {
+	private static final Logger LOG = Logger.getLogger(RESTTestRailPublisher.class.getName());
+	private static final long MAX_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(60);
+	private static final Result STOP = new Result(null, null, null);
+
+	private static volatile RESTTestRailPublisher instance = null;
+	private static volatile Sink customSink = null;
+
+	private final BlockingQueue<Result> queue = new LinkedBlockingQueue<>();
+	private final Sink sink;
+	private final int batchSize;
+	private final long flushIntervalMillis;
+	private final int maxAttempts;
+	private final long backoffMillis;
+	private final LongAdder publishedResults = new LongAdder();
+	private final LongAdder failedResults = new LongAdder();
+	private final LongAdder batches = new LongAdder();
+	private final LongAdder retries = new LongAdder();
+	private final Thread publisherThread;
+
+	/**
+	 * Publishes a batch of results to TestRail.
+	 */
+	@FunctionalInterface
+	public interface Sink {
+		/**
+		 * Publishes the results, throws an exception if the batch should be retried. The sink can remove the published
+		 * results from the list, only the remaining results are retried.
+		 *
+		 * @param results results of the batch
+		 * @throws Exception
+		 */
+		void publish(List<Result> results) throws Exception;
+	}
+
+	/**
+	 * Result of a test case.
+	 */
+	public static final class Result {
+		private final String testCaseID;
+		private final String status;
+		private final String comment;
+
+		Result(String testCaseID, String status, String comment) {
+			this.testCaseID = testCaseID;
+			this.status = status;
+			this.comment = comment;
+		}
+
+		/**
+		 * Returns the TestRail test case ID, ex: C1234
+		 *
+		 * @return java.lang.String
+		 */
+		public String getTestCaseID() {
+			return testCaseID;
+		}
+
+		/**
+		 * Returns the overall status of the test case, ex: PASS, FAIL
+		 *
+		 * @return java.lang.String
+		 */
+		public String getStatus() {
+			return status;
+		}
+
+		public String getComment() {
+			return comment;
+		}
+
+		@Override
+		public String toString() {
+			return testCaseID + "=" + status;
+		}
+	}
+
+	private RESTTestRailPublisher(Sink sink, int batchSize, long flushIntervalMillis, int maxAttempts, long backoffMillis) {
+		this.sink = sink;
+		this.batchSize = batchSize;
+		this.flushIntervalMillis = flushIntervalMillis;
+		this.maxAttempts = maxAttempts;
+		this.backoffMillis = backoffMillis;
+		publisherThread = new Thread(this::publishResults, "rest-testrail-publisher");
+		publisherThread.setDaemon(true);
+		publisherThread.start();
+	}
+
+	/**
+	 * Sets the sink used by the publisher started after this call, null to use the default sink.
+	 *
+	 * @param sink Sink
+	 */
+	public static void setSink(Sink sink) {
+		customSink = sink;
+	}
+
+	/**
+	 * Starts the publisher if restTestRailPublisherEnabled is true, should be called once the TestRail run is known(i.e. before suite).
+	 *
+	 * @param propTable GenericFrameworkConfig properties
+	 * @param runID TestRail run ID, null if not known(i.e. the results are published with TestRailUtil)
+	 */
+	public static synchronized void start(Hashtable<String, String> propTable, String runID) {
+		if (!"true".equalsIgnoreCase(propTable.get(RESTConstants.TESTRAIL_PUBLISHER_ENABLED)) || instance != null) {
+			return;
+		}
+		Sink sink = customSink;
+		String apiUrl = trim(propTable.get(RESTConstants.TESTRAIL_API_URL));
+		if (sink == null && apiUrl != null && trim(runID) != null) {
+			sink = new BulkApiSink(apiUrl, runID.trim(), getAuthorization(propTable), getStatusIDs(propTable), new TestRailUtilSink());
+		} else if (sink == null) {
+			sink = new TestRailUtilSink();
+		}
+		instance = new RESTTestRailPublisher(sink,
+				getInt(propTable, RESTConstants.TESTRAIL_PUBLISHER_BATCH_SIZE, 50),
+				getInt(propTable, RESTConstants.TESTRAIL_PUBLISHER_FLUSH_INTERVAL, 5000),
+				getInt(propTable, RESTConstants.TESTRAIL_PUBLISHER_MAX_ATTEMPTS, 5),
+				getInt(propTable, RESTConstants.TESTRAIL_PUBLISHER_BACKOFF, 1000));
+		LOG.info("TestRail publisher is started :: " + sink);
+	}
+
+	/**
+	 * Publishes all the queued results and stops the publisher.
+	 */
+	public static synchronized void stop() {
+		RESTTestRailPublisher publisher = instance;
+		if (publisher == null) {
+			return;
+		}
+		instance = null;
+		publisher.queue.add(STOP);
+		try {
+			publisher.publisherThread.join(TimeUnit.MINUTES.toMillis(5));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (publisher.publisherThread.isAlive()) {
+			LOG.error("TestRail publisher is not stopped in 5 minutes, " + publisher.queue.size() + " queued results are not published");
+		}
+		LOG.info("TestRail publisher is stopped :: " + publisher);
+	}
+
+	/**
+	 * Returns true if the publisher is started.
+	 *
+	 * @return boolean
+	 */
+	public static boolean isActive() {
+		return instance != null;
+	}
+
+	/**
+	 * Queues the result of the test case, returns false if the publisher is not started.
+	 *
+	 * @param testCaseID TestRail test case ID
+	 * @param status overall status of the test case
+	 * @param comment comment of the result, ex: failed step description
+	 * @return boolean
+	 */
+	public static boolean publish(String testCaseID, String status, String comment) {
+		RESTTestRailPublisher publisher = instance;
+		if (publisher == null) {
+			return false;
+		}
+		publisher.queue.add(new Result(testCaseID, status, (comment == null) ? "" : comment));
+		return true;
+	}
+
+	/**
+	 * Returns the ID of the run created by the suite(i.e. TestRailUtil.generateTestRunsForTestCases), looked up with the
+	 * get_runs API of TestRail, so the results of the run can be published with the bulk API.
+	 * The run of the suite is the only run of the TestRail suite created after the given time, or the one with the run name.
+	 *
+	 * @param propTable GenericFrameworkConfig properties
+	 * @param projectID TestRail project ID
+	 * @param suiteID TestRail suite ID
+	 * @param runName name of the run, null if not known
+	 * @param createdAfterMillis time before the run is created, epoch milliseconds
+	 * @return java.lang.String run ID, null if the publisher or the bulk API is not enabled or the run is not found
+	 */
+	public static String findCreatedRunID(Hashtable<String, String> propTable, String projectID, String suiteID, String runName,
+			long createdAfterMillis) {
+		String apiUrl = trim(propTable.get(RESTConstants.TESTRAIL_API_URL));
+		if (!"true".equalsIgnoreCase(propTable.get(RESTConstants.TESTRAIL_PUBLISHER_ENABLED)) || apiUrl == null || customSink != null
+				|| trim(projectID) == null) {
+			return null;
+		}
+		String url = getApiUrl(apiUrl) + "get_runs/" + projectID.trim() + "&created_after=" + (TimeUnit.MILLISECONDS.toSeconds(createdAfterMillis) - 1)
+				+ ((trim(suiteID) == null) ? "" : "&suite_id=" + suiteID.trim());
+		try {
+			HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+			String response;
+			int status;
+			try {
+				connection.setConnectTimeout(10000);
+				connection.setReadTimeout(60000);
+				String authorization = getAuthorization(propTable);
+				if (authorization != null) {
+					connection.setRequestProperty("Authorization", authorization);
+				}
+				status = connection.getResponseCode();
+				response = read(connection, status);
+			} finally {
+				connection.disconnect();
+			}
+			if (status / 100 != 2) {
+				LOG.warn("Unable to find the TestRail run of the suite, status " + status + " :: " + response + ", results are published one by one");
+				return null;
+			}
+			// get_runs returns the runs, or a page of the runs since TestRail 6.7
+			List<Map<String, Object>> runs = JsonPath.read(response, response.trim().startsWith("[") ? "$[*]" : "$.runs[*]");
+			List<String> runIDs = new ArrayList<>();
+			for (Map<String, Object> run : runs) {
+				runIDs.add(String.valueOf(run.get("id")));
+			}
+			if (runIDs.size() > 1 && trim(runName) != null) {
+				// Runs of the parallel suites, the run name identifies the run of the suite
+				runIDs.clear();
+				for (Map<String, Object> run : runs) {
+					if (runName.trim().equals(String.valueOf(run.get("name")))) {
+						runIDs.add(String.valueOf(run.get("id")));
+					}
+				}
+			}
+			if (runIDs.size() != 1) {
+				LOG.warn("Unable to find the TestRail run of the suite, runs created since the suite is started :: " + runIDs
+						+ ", results are published one by one");
+				return null;
+			}
+			LOG.info("TestRail run of the suite :: " + runIDs.get(0));
+			return runIDs.get(0);
+		} catch (IOException | RuntimeException e) {
+			LOG.warn("Unable to find the TestRail run of the suite, results are published one by one :: " + e);
+			return null;
+		}
+	}
+
+	private void publishResults() {
+		List<Result> batch = new ArrayList<>(batchSize);
+		boolean stopped = false;
+		while (!stopped) {
+			long flushTime = 0;
+			try {
+				while (batch.size() < batchSize) {
+					Result result;
+					if (batch.isEmpty()) {
+						result = queue.take();
+						flushTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+					} else {
+						result = queue.poll(flushTime - System.nanoTime(), TimeUnit.NANOSECONDS);
+					}
+					if (result == null) {
+						break;
+					} else if (result == STOP) {
+						stopped = true;
+						break;
+					}
+					batch.add(result);
+				}
+			} catch (InterruptedException e) {
+				LOG.warn("TestRail publisher is interrupted, " + (batch.size() + queue.size()) + " results are not published");
+				return;
+			}
+			if (!batch.isEmpty()) {
+				publishBatch(batch);
+				batch.clear();
+			}
+		}
+		// Results queued after STOP(i.e. tests still running) are published as well
+		queue.drainTo(batch);
+		while (!batch.isEmpty()) {
+			List<Result> subList = new ArrayList<>(batch.subList(0, Math.min(batchSize, batch.size())));
+			batch.subList(0, subList.size()).clear();
+			publishBatch(subList);
+		}
+	}
+
+	private void publishBatch(List<Result> batch) {
+		batches.increment();
+		List<Result> pending = new ArrayList<>(batch);
+		long backoff = backoffMillis;
+		for (int attempt = 1; ; attempt++) {
+			int size = pending.size();
+			try {
+				sink.publish(pending);
+				publishedResults.add(size);
+				return;
+			} catch (Exception e) {
+				publishedResults.add(size - pending.size());
+				if (attempt >= maxAttempts || pending.isEmpty()) {
+					failedResults.add(pending.size());
+					LOG.error("Unable to publish the results to TestRail after " + attempt + " attempts " + pending + " :: " + Log4jUtil.getStackTrace(e));
+					return;
+				}
+				retries.increment();
+				LOG.warn("Unable to publish the results to TestRail, attempt " + attempt + " of " + maxAttempts + " :: " + e.getMessage());
+			}
+			try {
+				// Equal jitter, so the retries of the parallel suites are spread
+				TimeUnit.MILLISECONDS.sleep(backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				failedResults.add(pending.size());
+				return;
+			}
+			backoff = Math.min(MAX_BACKOFF_MILLIS, backoff * 2);
+		}
+	}
+
+	/**
+	 * Returns the TestRail status ID of the report statuses(upper case), the configured IDs replace the defaults.
+	 */
+	private static Map<String, Integer> getStatusIDs(Hashtable<String, String> propTable) {
+		Map<String, Integer> statusIDs = new HashMap<>();
+		statusIDs.put("PASS", 1);
+		statusIDs.put("BLOCKED", 2);
+		statusIDs.put("SKIP", 4);
+		statusIDs.put("RETEST", 4);
+		statusIDs.put("FAIL", 5);
+		String value = trim(propTable.get(RESTConstants.TESTRAIL_API_STATUS_IDS));
+		if (value == null) {
+			return statusIDs;
+		}
+		for (String mapping : value.split(",")) {
+			String[] statusAndID = mapping.split("=", 2);
+			try {
+				statusIDs.put(statusAndID[0].trim().toUpperCase(), Integer.parseInt(statusAndID[1].trim()));
+			} catch (RuntimeException e) {
+				LOG.warn("Invalid value '" + mapping.trim() + "' for the property " + RESTConstants.TESTRAIL_API_STATUS_IDS
+						+ ", expected <status>=<TestRail status ID>");
+			}
+		}
+		return statusIDs;
+	}
+
+	private static String getApiUrl(String apiUrl) {
+		return (apiUrl.endsWith("/") ? apiUrl : apiUrl + "/") + "index.php?/api/v2/";
+	}
+
+	private static String getAuthorization(Hashtable<String, String> propTable) {
+		String user = propTable.get(RESTConstants.TESTRAIL_API_USER);
+		String apiKey = propTable.get(RESTConstants.TESTRAIL_API_KEY);
+		return (user == null) ? null : "Basic "
+				+ Base64.getEncoder().encodeToString((user + ":" + ((apiKey == null) ? "" : apiKey)).getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String read(HttpURLConnection connection, int status) throws IOException {
+		InputStream in = (status >= 400) ? connection.getErrorStream() : connection.getInputStream();
+		if (in == null) {
+			return "";
+		}
+		try (InputStream stream = in) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			for (int count; (count = stream.read(buffer)) != -1;) {
+				out.write(buffer, 0, count);
+			}
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+
+	private static String trim(String value) {
+		return (value == null || value.trim().length() == 0) ? null : value.trim();
+	}
+
+	private static int getInt(Hashtable<String, String> propTable, String key, int defaultValue) {
+		String value = trim(propTable.get(key));
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Math.max(1, Integer.parseInt(value));
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid value '" + value + "' for the property " + key + ", using the default value " + defaultValue);
+			return defaultValue;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "RESTTestRailPublisher [published=" + publishedResults.sum() + ", failed=" + failedResults.sum()
+				+ ", batches=" + batches.sum() + ", retries=" + retries.sum() + ", queued=" + queue.size() + "]";
+	}
+
+	/**
+	 * Publishes the results one by one with TestRailUtil, the published results are removed from the batch.
+	 */
+	private static final class TestRailUtilSink implements Sink {
+		@Override
+		public void publish(List<Result> results) throws Exception {
+			for (Iterator<Result> iterator = results.iterator(); iterator.hasNext();) {
+				Result result = iterator.next();
+				TestRailUtil.updateTestResultinTestRail(result.testCaseID, result.status, result.comment);
+				iterator.remove();
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "TestRailUtil";
+		}
+	}
+
+	/**
+	 * Publishes the batch with one request to the add_results_for_cases API of TestRail.
+	 * Client errors(i.e. 4xx other than 429) reject the whole batch, the batch is published one by one with TestRailUtil.
+	 */
+	static final class BulkApiSink implements Sink {
+		private final String url;
+		private final String authorization;
+		private final Map<String, Integer> statusIDs;
+		private final Sink fallbackSink;
+
+		private BulkApiSink(String apiUrl, String runID, String authorization, Map<String, Integer> statusIDs, Sink fallbackSink) {
+			this.url = getApiUrl(apiUrl) + "add_results_for_cases/" + runID;
+			this.authorization = authorization;
+			this.statusIDs = statusIDs;
+			this.fallbackSink = fallbackSink;
+		}
+
+		/**
+		 * Returns the bulk API sink of the run, the results which can't be published with the bulk API are published by the fallback sink.
+		 */
+		static BulkApiSink create(Hashtable<String, String> propTable, String runID, Sink fallbackSink) {
+			return new BulkApiSink(propTable.get(RESTConstants.TESTRAIL_API_URL).trim(), runID, getAuthorization(propTable), getStatusIDs(propTable),
+					fallbackSink);
+		}
+
+		@Override
+		public void publish(List<Result> results) throws Exception {
+			StringBuilder body = new StringBuilder("{\"results\":[");
+			List<Result> bulkResults = new ArrayList<>(results.size());
+			List<Result> oneByOneResults = new ArrayList<>();
+			for (Result result : results) {
+				Integer statusID = (result.status == null) ? null : statusIDs.get(result.status.trim().toUpperCase());
+				String caseID = (result.testCaseID == null) ? "" : result.testCaseID.trim();
+				caseID = (caseID.startsWith("C") || caseID.startsWith("c")) ? caseID.substring(1) : caseID;
+				if (statusID == null || !caseID.matches("\\d+")) {
+					oneByOneResults.add(result);
+					continue;
+				}
+				body.append(bulkResults.isEmpty() ? "" : ",").append("{\"case_id\":").append(caseID)
+						.append(",\"status_id\":").append(statusID)
+						.append(",\"comment\":\"").append(escape(result.comment)).append("\"}");
+				bulkResults.add(result);
+			}
+			if (!oneByOneResults.isEmpty()) {
+				LOG.warn("TestRail status ID is not defined in " + RESTConstants.TESTRAIL_API_STATUS_IDS + " or the test case ID is not a TestRail"
+						+ " case ID for the results " + oneByOneResults + ", they are published one by one");
+				results.removeAll(oneByOneResults);
+				publishOneByOne(oneByOneResults, results);
+			}
+			if (bulkResults.isEmpty()) {
+				results.clear();
+				return;
+			}
+			body.append("]}");
+
+			HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+			try {
+				connection.setRequestMethod("POST");
+				connection.setDoOutput(true);
+				connection.setConnectTimeout(10000);
+				connection.setReadTimeout(60000);
+				connection.setRequestProperty("Content-Type", "application/json");
+				if (authorization != null) {
+					connection.setRequestProperty("Authorization", authorization);
+				}
+				try (OutputStream out = connection.getOutputStream()) {
+					out.write(body.toString().getBytes(StandardCharsets.UTF_8));
+				}
+				int status = connection.getResponseCode();
+				String response = read(connection, status);
+				if (status / 100 == 2) {
+					results.clear();
+				} else if (status / 100 == 4 && status != 429) {
+					LOG.warn("TestRail rejected the results " + bulkResults + ", status " + status + " :: " + response
+							+ ", they are published one by one");
+					results.clear();
+					publishOneByOne(bulkResults, results);
+				} else {
+					throw new IOException("TestRail returned the status " + status + " :: " + response);
+				}
+			} finally {
+				connection.disconnect();
+			}
+		}
+
+		/**
+		 * Publishes the results with TestRailUtil, the results not published are added back to the batch(i.e. retried).
+		 */
+		private void publishOneByOne(List<Result> oneByOneResults, List<Result> results) throws Exception {
+			List<Result> pending = new ArrayList<>(oneByOneResults);
+			try {
+				fallbackSink.publish(pending);
+			} finally {
+				results.addAll(pending);
+			}
+		}
+
+		private static String escape(String value) {
+			if (value == null) {
+				return "";
+			}
+			StringBuilder escaped = new StringBuilder(value.length() + 16);
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if (c == '"' || c == '\\') {
+					escaped.append('\\').append(c);
+				} else if (c < 0x20) {
+					escaped.append(String.format("\\u%04x", (int) c));
+				} else {
+					escaped.append(c);
+				}
+			}
+			return escaped.toString();
+		}
+
+		@Override
+		public String toString() {
+			return "TestRail bulk API " + url;
+		}
+	}
+}
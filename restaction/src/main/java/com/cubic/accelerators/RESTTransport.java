@@ -0,0 +1,39 @@
+package com.cubic.accelerators;
+
+import com.sun.jersey.api.client.ClientHandler;
+import com.sun.jersey.api.client.config.ClientConfig;
+
+/**
+ * <pre>
+ * Transport which sends the requests of the shared rest clients, i.e. the terminating jersey ClientHandler under the filters.
+ *  - Transports are registered with RESTTransports.register and selected per host in the GenericFrameworkConfig.properties,
+ *    see RESTTransports.
+ *  - createClientHandler is called once per shared client(i.e. SSL profile) and transport, the handler is shared by all the
+ *    test threads and must be thread safe.
+ * </pre>
+ * @since 1.5
+ */
+public interface RESTTransport {
+
+	/**
+	 * Returns the name used in the GenericFrameworkConfig.properties, ex: HTTP2
+	 *
+	 * @return java.lang.String
+	 */
+	String getName();
+
+	/**
+	 * Creates the handler which sends the requests of the shared client.
+	 *
+	 * @param config client config of the shared client(i.e. timeouts and properties)
+	 * @param sslProfile SSL profile of the shared client, null if the client is not created from a profile
+	 * @return com.sun.jersey.api.client.ClientHandler
+	 */
+	ClientHandler createClientHandler(ClientConfig config, RESTSSLProfiles.SSLProfile sslProfile);
+
+	/**
+	 * Releases the connections of all the handlers created by the transport, called when RESTClientRegistry is closed.
+	 */
+	default void close() {
+	}
+}
@@ -0,0 +1,264 @@
+package com.cubic.accelerators;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.apache.log4j.Logger;
+
+import com.cubic.genericutils.GenericConstants;
+import com.sun.jersey.api.client.ClientHandler;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.RequestWriter;
+import com.sun.jersey.api.client.TerminatingClientHandler;
+import com.sun.jersey.api.client.config.ClientConfig;
+import com.sun.jersey.client.urlconnection.URLConnectionClientHandler;
+
+/**
+ * <pre>
+ * Registry of the RESTTransports and the transport selected for every host.
+ *  - URLCONNECTION : HttpURLConnection(i.e. HTTP/1.1, one request at a time per connection), the default transport.
+ *                    PATCH is added to the methods of HttpURLConnection, if the JVM doesn't allow it(i.e. Java 12 and above)
+ *                    the PATCH requests are sent by the HTTP2 transport(i.e. OkHttp, HTTP/1.1 when HTTP/2 is not negotiated).
+ *  - HTTP2 : OkHttp, HTTP/2 is negotiated with ALPN for https and the concurrent requests to the same host are
+ *            multiplexed on one connection. Falls back to HTTP/1.1 if the server doesn't support HTTP/2.
+ *  - H2C : OkHttp, HTTP/2 over plain http(i.e. prior knowledge), the server must support cleartext HTTP/2.
+ * </pre>
+ * Below properties can be defined in the GenericFrameworkConfig.properties at project level
+ * <pre>
+ *  restTransport : transport of the hosts not matching restTransportHosts (default URLCONNECTION)
+ *  restTransportHosts : comma separated hostPattern=transport, '*' matches any characters.
+ *                       Ex: restTransportHosts=*.gateway.cubic.com=HTTP2,localhost=H2C
+ * </pre>
+ * @since 1.5
+ */
+public final class RESTTransports {
+	private static final Logger LOG = Logger.getLogger(RESTTransports.class.getName());
+
+	public static final String URL_CONNECTION = "URLCONNECTION";
+	public static final String HTTP2 = "HTTP2";
+	public static final String H2C = "H2C";
+
+	private static final ConcurrentHashMap<String, RESTTransport> transports = new ConcurrentHashMap<>();
+	private static final ConcurrentHashMap<String, String> hostTransportCache = new ConcurrentHashMap<>();
+	private static volatile HostTransports hostTransports = null;
+
+	static {
+		register(new URLConnectionTransport());
+		register(new RESTOkHttpTransport(HTTP2, false));
+		register(new RESTOkHttpTransport(H2C, true));
+	}
+
+	private RESTTransports() {
+	}
+
+	/**
+	 * Registers the transport, the registered transport with the same name is replaced.
+	 *  - Should be called before the first request of the suite, the shared clients keep the handlers created on first use.
+	 *
+	 * @param transport RESTTransport
+	 */
+	public static void register(RESTTransport transport) {
+		transports.put(transport.getName().toUpperCase(), transport);
+	}
+
+	/**
+	 * Returns the name of the transport selected for the host.
+	 *
+	 * @param host host name of the url
+	 * @return java.lang.String transport name
+	 */
+	public static String getTransportName(String host) {
+		HostTransports currentHostTransports = getHostTransports();
+		if (host == null || currentHostTransports.hostPatterns.isEmpty()) {
+			return currentHostTransports.defaultTransport;
+		}
+		return hostTransportCache.computeIfAbsent(host.toLowerCase(), hostName -> {
+			for (HostTransport hostTransport : currentHostTransports.hostPatterns) {
+				if (hostTransport.hostPattern.matcher(hostName).matches()) {
+					return hostTransport.transport;
+				}
+			}
+			return currentHostTransports.defaultTransport;
+		});
+	}
+
+	/**
+	 * Creates the root handler of the shared client, the request is passed to the handler of the transport selected for the host.
+	 *
+	 * @param config client config of the shared client
+	 * @param sslProfile SSL profile of the shared client, null if the client is not created from a profile
+	 * @return com.sun.jersey.api.client.TerminatingClientHandler
+	 */
+	static TerminatingClientHandler createClientHandler(ClientConfig config, RESTSSLProfiles.SSLProfile sslProfile) {
+		return new TransportClientHandler(config, sslProfile);
+	}
+
+	/**
+	 * Releases the connections of all the transports and reloads the host configuration on the next request.
+	 */
+	static void close() {
+		for (RESTTransport transport : transports.values()) {
+			try {
+				transport.close();
+			} catch (RuntimeException e) {
+				LOG.warn("Unable to close the rest transport " + transport.getName() + " :: " + e);
+			}
+		}
+		hostTransports = null;
+		hostTransportCache.clear();
+	}
+
+	private static HostTransports getHostTransports() {
+		HostTransports currentHostTransports = hostTransports;
+		if (currentHostTransports == null) {
+			currentHostTransports = new HostTransports(GenericConstants.GENERIC_FW_CONFIG_PROPERTIES);
+			hostTransports = currentHostTransports;
+		}
+		return currentHostTransports;
+	}
+
+	/**
+	 * Transport configuration read from the GenericFrameworkConfig.properties.
+	 */
+	private static final class HostTransports {
+		private final String defaultTransport;
+		private final List<HostTransport> hostPatterns;
+
+		private HostTransports(Hashtable<String, String> propTable) {
+			String transport = propTable.get(RESTConstants.TRANSPORT);
+			defaultTransport = (transport == null || transport.trim().length() == 0) ? URL_CONNECTION : transport.trim().toUpperCase();
+
+			List<HostTransport> patterns = new ArrayList<>();
+			String transportHosts = propTable.get(RESTConstants.TRANSPORT_HOSTS);
+			if (transportHosts != null && transportHosts.trim().length() > 0) {
+				for (String hostTransport : transportHosts.split(",")) {
+					int separator = hostTransport.lastIndexOf('=');
+					if (separator <= 0 || separator == hostTransport.trim().length() - 1) {
+						LOG.warn("Invalid value '" + hostTransport + "' in the property " + RESTConstants.TRANSPORT_HOSTS + ", expected hostPattern=transport");
+						continue;
+					}
+					patterns.add(new HostTransport(hostTransport.substring(0, separator), hostTransport.substring(separator + 1)));
+				}
+			}
+			hostPatterns = Collections.unmodifiableList(patterns);
+			LOG.info("Rest transport :: default = " + defaultTransport + ", hosts = " + hostPatterns);
+		}
+	}
+
+	private static final class HostTransport {
+		private final Pattern hostPattern;
+		private final String transport;
+
+		private HostTransport(String hostPattern, String transport) {
+			this.hostPattern = Pattern.compile(("\\Q" + hostPattern.trim().toLowerCase() + "\\E").replace("*", "\\E.*\\Q"));
+			this.transport = transport.trim().toUpperCase();
+		}
+
+		@Override
+		public String toString() {
+			return hostPattern + "=" + transport;
+		}
+	}
+
+	/**
+	 * Root handler of the shared client, the handlers of the transports are created on first use.
+	 */
+	private static final class TransportClientHandler extends TerminatingClientHandler {
+		private final ClientConfig config;
+		private final RESTSSLProfiles.SSLProfile sslProfile;
+		private final ConcurrentHashMap<String, ClientHandler> handlers = new ConcurrentHashMap<>();
+
+		private TransportClientHandler(ClientConfig config, RESTSSLProfiles.SSLProfile sslProfile) {
+			this.config = config;
+			this.sslProfile = sslProfile;
+		}
+
+		@Override
+		public ClientResponse handle(ClientRequest cr) throws ClientHandlerException {
+			String transportName = getTransportName(cr.getURI().getHost());
+			if (URL_CONNECTION.equals(transportName) && "PATCH".equals(cr.getMethod()) && !URLConnectionTransport.isPatchAllowed()) {
+				// Jersey method workaround fails for https(i.e. HttpsURLConnection has no 'method' field)
+				transportName = HTTP2;
+			}
+			ClientHandler handler = handlers.get(transportName);
+			if (handler == null) {
+				handler = handlers.computeIfAbsent(transportName, this::createHandler);
+			}
+			return handler.handle(cr);
+		}
+
+		private ClientHandler createHandler(String transportName) {
+			RESTTransport transport = transports.get(transportName);
+			if (transport == null) {
+				throw new ClientHandlerException("Rest transport " + transportName + " is not registered, registered transports are " + transports.keySet());
+			}
+			ClientHandler handler = transport.createClientHandler(config, sslProfile);
+			if (handler instanceof RequestWriter) {
+				// Message body workers are injected only into the root handler by the jersey client
+				((RequestWriter) handler).setMessageBodyWorkers(getMessageBodyWorkers());
+			}
+			LOG.info("Created the rest transport " + transportName + " for the profile :: " + ((sslProfile == null) ? "NONE" : sslProfile.getName()));
+			return handler;
+		}
+	}
+
+	/**
+	 * Current HttpURLConnection based transport, PATCH is added to the valid methods of HttpURLConnection(i.e. for http and https),
+	 * the jersey method workaround(i.e. set in RESTClientRegistry) works only for http.
+	 */
+	private static final class URLConnectionTransport implements RESTTransport {
+		private static final boolean patchAllowed = addPatchMethod();
+
+		@Override
+		public String getName() {
+			return URL_CONNECTION;
+		}
+
+		@Override
+		public ClientHandler createClientHandler(ClientConfig config, RESTSSLProfiles.SSLProfile sslProfile) {
+			return new URLConnectionClientHandler();
+		}
+
+		private static boolean isPatchAllowed() {
+			return patchAllowed;
+		}
+
+		/**
+		 * Adds PATCH to the valid methods of HttpURLConnection, returns false if the JVM doesn't allow changing the final field.
+		 */
+		private static boolean addPatchMethod() {
+			try {
+				Field methodsField = HttpURLConnection.class.getDeclaredField("methods");
+				methodsField.setAccessible(true);
+				String[] methods = (String[]) methodsField.get(null);
+				for (String method : methods) {
+					if ("PATCH".equals(method)) {
+						return true;
+					}
+				}
+				// remove the "final" modifier
+				Field modifiersField = Field.class.getDeclaredField("modifiers");
+				modifiersField.setAccessible(true);
+				modifiersField.setInt(methodsField, methodsField.getModifiers() & ~Modifier.FINAL);
+
+				/* valid HTTP methods */
+				methodsField.set(null, new String[] {
+						"GET", "POST", "HEAD", "OPTIONS", "PUT", "DELETE", "TRACE", "PATCH"
+				});
+				return true;
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				LOG.info("PATCH can't be added to the methods of HttpURLConnection, PATCH requests are sent by the " + HTTP2 + " transport :: " + e);
+				return false;
+			}
+		}
+	}
+}
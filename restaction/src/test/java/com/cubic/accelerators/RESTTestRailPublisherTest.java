@@ -0,0 +1,152 @@
+package com.cubic.accelerators;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests the bulk API sink of RESTTestRailPublisher against a local stub of TestRail.
+ */
+public class RESTTestRailPublisherTest {
+	private HttpServer server;
+	private final List<String> requests = new CopyOnWriteArrayList<>();
+	private volatile int responseStatus;
+	private volatile String responseBody;
+	private Hashtable<String, String> propTable;
+
+	@BeforeClass
+	public void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", exchange -> {
+			try (InputStream in = exchange.getRequestBody()) {
+				ByteArrayOutputStream body = new ByteArrayOutputStream();
+				byte[] buffer = new byte[4096];
+				for (int count; (count = in.read(buffer)) != -1;) {
+					body.write(buffer, 0, count);
+				}
+				requests.add(exchange.getRequestMethod() + " " + exchange.getRequestURI() + " "
+						+ exchange.getRequestHeaders().getFirst("Authorization") + " " + new String(body.toByteArray(), StandardCharsets.UTF_8));
+			}
+			byte[] response = responseBody.getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(responseStatus, response.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(response);
+			}
+		});
+		server.start();
+	}
+
+	@AfterClass(alwaysRun = true)
+	public void stopServer() {
+		server.stop(0);
+	}
+
+	@BeforeMethod
+	public void reset() {
+		requests.clear();
+		responseStatus = 200;
+		responseBody = "[]";
+		propTable = new Hashtable<>();
+		propTable.put(RESTConstants.TESTRAIL_PUBLISHER_ENABLED, "true");
+		propTable.put(RESTConstants.TESTRAIL_API_URL, "http://127.0.0.1:" + server.getAddress().getPort());
+		propTable.put(RESTConstants.TESTRAIL_API_USER, "user");
+		propTable.put(RESTConstants.TESTRAIL_API_KEY, "key");
+		propTable.put(RESTConstants.TESTRAIL_API_STATUS_IDS, "FAIL=6");
+	}
+
+	@Test
+	public void publishesMappedResultsWithOneRequest() throws Exception {
+		RecordingSink fallbackSink = new RecordingSink();
+		List<RESTTestRailPublisher.Result> results = results("C12=PASS", "13=FAIL", "C14=UNKNOWN", "TC-15=PASS");
+
+		RESTTestRailPublisher.BulkApiSink.create(propTable, "7", fallbackSink).publish(results);
+
+		assertTrue(results.isEmpty(), "published results are removed from the batch");
+		assertEquals(requests.size(), 1);
+		assertEquals(requests.get(0), "POST /index.php?/api/v2/add_results_for_cases/7 Basic dXNlcjprZXk= {\"results\":["
+				+ "{\"case_id\":12,\"status_id\":1,\"comment\":\"\"},{\"case_id\":13,\"status_id\":6,\"comment\":\"failed \\\"step\\\"\\u000a\"}]}");
+		// Unmapped status and the test case ID which is not a TestRail case ID are published one by one
+		assertEquals(fallbackSink.published, Arrays.asList("C14=UNKNOWN", "TC-15=PASS"));
+	}
+
+	@Test
+	public void publishesRejectedBatchOneByOne() throws Exception {
+		responseStatus = 400;
+		responseBody = "{\"error\":\"Field :results cannot be empty\"}";
+		RecordingSink fallbackSink = new RecordingSink();
+		List<RESTTestRailPublisher.Result> results = results("C12=PASS", "C13=FAIL");
+
+		RESTTestRailPublisher.BulkApiSink.create(propTable, "7", fallbackSink).publish(results);
+
+		assertTrue(results.isEmpty());
+		assertEquals(fallbackSink.published, Arrays.asList("C12=PASS", "C13=FAIL"));
+	}
+
+	@Test
+	public void keepsBatchForRetryOnServerError() throws Exception {
+		responseStatus = 429;
+		RecordingSink fallbackSink = new RecordingSink();
+		List<RESTTestRailPublisher.Result> results = results("C12=PASS", "C13=FAIL");
+
+		try {
+			RESTTestRailPublisher.BulkApiSink.create(propTable, "7", fallbackSink).publish(results);
+			fail("batch should be retried");
+		} catch (IOException e) {
+			assertEquals(results.size(), 2);
+			assertTrue(fallbackSink.published.isEmpty());
+		}
+	}
+
+	@Test
+	public void findsRunCreatedBySuite() {
+		responseBody = "{\"offset\":0,\"limit\":250,\"size\":1,\"runs\":[{\"id\":42,\"name\":\"Regression\",\"suite_id\":3}]}";
+
+		assertEquals(RESTTestRailPublisher.findCreatedRunID(propTable, "5", "3", "Regression", 1500000000000L), "42");
+		assertEquals(requests.get(0), "GET /index.php?/api/v2/get_runs/5&created_after=1499999999&suite_id=3 Basic dXNlcjprZXk= ");
+
+		responseBody = "[{\"id\":42,\"name\":\"Regression\"},{\"id\":43,\"name\":\"Smoke\"}]";
+		assertEquals(RESTTestRailPublisher.findCreatedRunID(propTable, "5", "3", "Smoke", 1500000000000L), "43");
+		assertNull(RESTTestRailPublisher.findCreatedRunID(propTable, "5", "3", null, 1500000000000L), "run of the suite is not known");
+	}
+
+	private static List<RESTTestRailPublisher.Result> results(String... results) {
+		List<RESTTestRailPublisher.Result> list = new ArrayList<>();
+		for (String result : results) {
+			String[] caseAndStatus = result.split("=");
+			list.add(new RESTTestRailPublisher.Result(caseAndStatus[0], caseAndStatus[1], "FAIL".equals(caseAndStatus[1]) ? "failed \"step\"\n" : null));
+		}
+		return list;
+	}
+
+	private static final class RecordingSink implements RESTTestRailPublisher.Sink {
+		private final List<String> published = new ArrayList<>();
+
+		@Override
+		public void publish(List<RESTTestRailPublisher.Result> results) {
+			for (RESTTestRailPublisher.Result result : results) {
+				published.add(result.toString());
+			}
+			results.clear();
+		}
+	}
+}
@@ -1,14 +0,0 @@
-package com.cubic.accelerators;
-
-public interface RESTConstants {
-	//Below are the constant for Rest Webservices
-	String RESPONSE_BODY = "ResponseBody";
-	String RESPONSE_CODE = "ResponseCode";
-	String APPLICATION_JSON = "application/json";
-	String APPLICATION_XML = "application/xml";
-	String APPLICATION_TEXT = "application/text";
-	String TEXT_XML = "text/xml";
-	String DISABLE_EXCEPTIONS = "disableExceptions";
-	String CUSTOM_REPORTS = "customReports";
-}
-